@@ -1,5 +1,17 @@
 package howie;
 
+import java.lang.reflect.Array;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 /**
  * The {@code howie.HArray} class provides Array utility methods.
  *
@@ -8,10 +20,43 @@ package howie;
 public class HArray {
 
     /**
-     * Merge sorts an array of integers.
+     * Arrays (or ranges) at or below this length are sorted with insertion sort
+     * rather than being split further.
+     */
+    private static final int INSERTION_SORT_THRESHOLD = 32;
+
+    /**
+     * Default number of elements below which a parallel sort stops forking subtasks.
+     */
+    private static final int PARALLEL_SORT_THRESHOLD = 1 << 13;
+
+    /**
+     * Number of buckets in each radix sort pass, one per byte value.
+     */
+    private static final int RADIX = 256;
+
+    /**
+     * Number of elements a set operation compares one at a time before it switches to an
+     * exponential search for the end of a run.
+     */
+    private static final int GALLOP_PROBES = 8;
+
+    // The set operations performed by setOperation
+    private static final int INTERSECTION = 0;
+    private static final int UNION = 1;
+    private static final int DIFFERENCE = 2;
+    private static final int SYMMETRIC_DIFFERENCE = 3;
+
+    /**
+     * Number of elements of an off-heap array streamed through the heap at a time by scans.
+     */
+    static final int OFF_HEAP_WINDOW = 1 << 12;
+
+    /**
+     * Merge sorts an array of integers in place.
      *
      * @param arr the array of integers to be sorted
-     * @return the sorted array
+     * @return the input array, now sorted
      * @throws IllegalArgumentException if the input array is null
      */
     public static int[] mergeSort(int[] arr) {
@@ -20,421 +65,4068 @@ public class HArray {
             throw new IllegalArgumentException("Input array cannot be null.");
         }
 
-        // Base case
-        if(arr.length == 1) {
-            return arr;
-        }
-
-        // Split array into two halves
-        int[] arrA = arrayCopy(arr, 0, arr.length / 2);
-        int[] arrB = arrayCopy(arr, arr.length / 2, arr.length);
+        return mergeSort(arr, 0, arr.length, null);
+    }
 
-        // Recursively sort and merge halves
-        arrA = mergeSort(arrA);
-        arrB = mergeSort(arrB);
-        return merge(arrA, arrB);
+    /**
+     * Merge sorts the range {@code [from, to)} of an array of integers in place.
+     *
+     * @param arr the array of integers to be sorted
+     * @param from the starting index (inclusive) of the range to be sorted
+     * @param to the ending index (exclusive) of the range to be sorted
+     * @return the input array, with the specified range sorted
+     * @throws IllegalArgumentException if the input array is null, the indices are not within
+     * the bounds of the input array, or the start index is greater than the end index.
+     */
+    public static int[] mergeSort(int[] arr, int from, int to) {
+        return mergeSort(arr, from, to, null);
     }
 
     /**
-     * Merge sorts an array of doubles.
+     * Merge sorts the range {@code [from, to)} of an array of integers in place, using
+     * the supplied array as scratch space. Passing the same buffer to repeated calls
+     * lets a caller sort many arrays without allocating.
      *
-     * @param arr the array of doubles to be sorted
-     * @return the sorted array
-     * @throws IllegalArgumentException if the input array is null
+     * @param arr the array of integers to be sorted
+     * @param from the starting index (inclusive) of the range to be sorted
+     * @param to the ending index (exclusive) of the range to be sorted
+     * @param buffer the scratch array, holding at least {@code to - from} elements, or
+     * {@code null} to have one allocated
+     * @return the input array, with the specified range sorted
+     * @throws IllegalArgumentException if the input array is null, the indices are not within
+     * the bounds of the input array, the start index is greater than the end index, or the
+     * buffer is too small.
      */
-    public static double[] mergeSort(double[] arr) {
+    public static int[] mergeSort(int[] arr, int from, int to, int[] buffer) {
         // Validate input
         if(arr == null) {
             throw new IllegalArgumentException("Input array cannot be null.");
         }
+        checkRange(arr.length, from, to);
 
-        // Base case
-        if(arr.length == 1) {
+        int len = to - from;
+        if(buffer != null && buffer.length < len) {
+            throw new IllegalArgumentException("Buffer must hold at least as many elements as the range.");
+        }
+        if(len <= INSERTION_SORT_THRESHOLD) {
+            insertionSort(arr, from, to);
             return arr;
         }
+        if(buffer == null) {
+            buffer = new int[len];
+        }
 
-        // Split array into two halves
-        double[] arrA = arrayCopy(arr, 0, arr.length / 2);
-        double[] arrB = arrayCopy(arr, arr.length / 2, arr.length);
-
-        // Recursively sort and merge halves
-        arrA = mergeSort(arrA);
-        arrB = mergeSort(arrB);
-        return merge(arrA, arrB);
+        // Both arrays start with the same contents, the sorted result lands in arr
+        System.arraycopy(arr, from, buffer, 0, len);
+        mergeSort(buffer, 0, arr, from, len);
+        return arr;
     }
 
-
     /**
-     * Merges two sorted arrays of integers into a single sorted array.
+     * Merge sorts an array of doubles in place. Uses the same ordering as
+     * {@link Double#compare}: {@code -0.0} sorts before {@code 0.0}, and {@code NaN} sorts
+     * after positive infinity.
      *
-     * @param arrA the first sorted array of integers to be merged
-     * @param arrB the second sorted array of integers to be merged
-     * @return the sorted array containing all elements from both input arrays
-     * @throws IllegalArgumentException if either input array is null
+     * @param arr the array of doubles to be sorted
+     * @return the input array, now sorted
+     * @throws IllegalArgumentException if the input array is null
      */
-    public static int[] merge(int[] arrA, int[] arrB) {
+    public static double[] mergeSort(double[] arr) {
         // Validate input
-        if(arrA == null || arrB == null) {
-            throw new IllegalArgumentException("Input arrays cannot be null.");
-        }
-
-        // Create return array
-        int[] returnArr = new int[arrA.length + arrB.length];
-
-        // Merge elements from both arrays
-        int i = 0, j = 0, k = 0;
-        while(i < arrA.length && j < arrB.length) {
-            if(arrA[i] < arrB[j]) {
-                returnArr[k++] = arrA[i++];
-            } else {
-                returnArr[k++] = arrB[j++];
-            }
+        if(arr == null) {
+            throw new IllegalArgumentException("Input array cannot be null.");
         }
 
-        // Add remaining elements
-        while(i < arrA.length) { returnArr[k++] = arrA[i++]; }
-        while(j < arrB.length) { returnArr[k++] = arrB[j++]; }
-        return returnArr;
+        return mergeSort(arr, 0, arr.length, null);
     }
 
     /**
-     * Merges two sorted arrays of doubles into a single sorted array.
+     * Merge sorts the range {@code [from, to)} of an array of doubles in place. Uses the
+     * same ordering as {@link Double#compare}.
      *
-     * @param arrA the first sorted array of doubles to be merged
-     * @param arrB the second sorted array of doubles to be merged
-     * @return the sorted array containing all elements from both input arrays
-     * @throws IllegalArgumentException if either input array is null
+     * @param arr the array of doubles to be sorted
+     * @param from the starting index (inclusive) of the range to be sorted
+     * @param to the ending index (exclusive) of the range to be sorted
+     * @return the input array, with the specified range sorted
+     * @throws IllegalArgumentException if the input array is null, the indices are not within
+     * the bounds of the input array, or the start index is greater than the end index.
      */
-    public static double[] merge(double[] arrA, double[] arrB) {
-        // Validate input
-        if(arrA == null || arrB == null) {
-            throw new IllegalArgumentException("Input arrays cannot be null.");
-        }
-
-        // Create return array
-        double[] returnArr = new double[arrA.length + arrB.length];
-
-        // Merge elements from both arrays
-        int i = 0, j = 0, k = 0;
-        while(i < arrA.length && j < arrB.length) {
-            if(arrA[i] < arrB[j]) {
-                returnArr[k++] = arrA[i++];
-            } else {
-                returnArr[k++] = arrB[j++];
-            }
-        }
-
-        // Add remaining elements
-        while(i < arrA.length) { returnArr[k++] = arrA[i++]; }
-        while(j < arrB.length) { returnArr[k++] = arrB[j++]; }
-        return returnArr;
+    public static double[] mergeSort(double[] arr, int from, int to) {
+        return mergeSort(arr, from, to, null);
     }
 
     /**
-     * Performs a binary search on a sorted array of integers to find the index of a specific element.
+     * Merge sorts the range {@code [from, to)} of an array of doubles in place, using
+     * the supplied array as scratch space. Passing the same buffer to repeated calls
+     * lets a caller sort many arrays without allocating. Uses the same ordering as
+     * {@link Double#compare}.
      *
-     * @param arr the sorted array of integers to be searched
-     * @param target the element to search for
-     * @return the index of the element, or -1 if it is not found
-     * @throws IllegalArgumentException if the input array is null
+     * @param arr the array of doubles to be sorted
+     * @param from the starting index (inclusive) of the range to be sorted
+     * @param to the ending index (exclusive) of the range to be sorted
+     * @param buffer the scratch array, holding at least {@code to - from} elements, or
+     * {@code null} to have one allocated
+     * @return the input array, with the specified range sorted
+     * @throws IllegalArgumentException if the input array is null, the indices are not within
+     * the bounds of the input array, the start index is greater than the end index, or the
+     * buffer is too small.
      */
-    public static int binarySearch(int[] arr, int target) {
+    public static double[] mergeSort(double[] arr, int from, int to, double[] buffer) {
         // Validate input
         if(arr == null) {
             throw new IllegalArgumentException("Input array cannot be null.");
         }
+        checkRange(arr.length, from, to);
 
-        int low = 0;
-        int high = arr.length - 1;
-        int mid;
-
-        while(low <= high) {
-            mid = (low + high) / 2;
-            if(arr[mid] == target) {
-                return mid;
-            } else if(arr[mid] < target) {
-                low = mid + 1;
-            } else {
-                high = mid - 1;
-            }
+        int len = to - from;
+        if(buffer != null && buffer.length < len) {
+            throw new IllegalArgumentException("Buffer must hold at least as many elements as the range.");
+        }
+        if(len <= INSERTION_SORT_THRESHOLD) {
+            insertionSort(arr, from, to);
+            return arr;
+        }
+        if(buffer == null) {
+            buffer = new double[len];
         }
 
-        return -1;
+        // Both arrays start with the same contents, the sorted result lands in arr
+        System.arraycopy(arr, from, buffer, 0, len);
+        mergeSort(buffer, 0, arr, from, len);
+        return arr;
     }
 
     /**
-     * Performs a binary search on a sorted array of doubles to find the index of a specific element.
+     * Stably sorts an array of comparable objects in place. Runs that are already ascending
+     * or strictly descending are detected and merged with galloping, so input that is
+     * nearly sorted is handled in close to linear time.
      *
-     * @param arr the sorted array of doubles to be searched
-     * @param target the element to search for
-     * @return the index of the element, or -1 if it is not found
+     * @param <T> the type of objects held in the array
+     * @param arr the array of objects to be sorted
+     * @return the input array, now sorted
      * @throws IllegalArgumentException if the input array is null
      */
-    public static int binarySearch(double[] arr, double target) {
-        // Validate input
-        if(arr == null) {
-            throw new IllegalArgumentException("Input array cannot be null.");
-        }
-
-        int low = 0;
-        int high = arr.length - 1;
-        int mid;
-
-        while(low <= high) {
-            mid = (low + high) / 2;
-            if(arr[mid] == target) {
-                return mid;
-            } else if(arr[mid] < target) {
-                low = mid + 1;
-            } else {
-                high = mid - 1;
-            }
-        }
-
-        return -1;
+    public static <T extends Comparable<? super T>> T[] mergeSort(T[] arr) {
+        return mergeSort(arr, Comparator.naturalOrder());
     }
 
     /**
-     * Performs a binary search on a sorted array of comparable objects to find the index of a specific element.
+     * Stably sorts an array of objects in place according to a comparator. The sort is
+     * delegated to {@link Arrays#sort(Object[], Comparator)}, whose TimSort detects runs that
+     * are already ascending or strictly descending and merges them with galloping, so input
+     * that is nearly sorted is handled in close to linear time.
      *
-     * @param arr the sorted array of comparable objects to be searched
-     * @param target the element to search for
-     * @return the index of the element, or -1 if it is not found
-     * @throws IllegalArgumentException if the input array is null
+     * @param <T> the type of objects held in the array
+     * @param arr the array of objects to be sorted
+     * @param c the comparator that determines the order of the elements
+     * @return the input array, now sorted
+     * @throws IllegalArgumentException if the input array or comparator is null, or the
+     * comparator is found to violate its contract
      */
-    public static <T extends Comparable<T>> int binarySearch(T[] arr, T target) {
+    public static <T> T[] mergeSort(T[] arr, Comparator<? super T> c) {
         // Validate input
         if(arr == null) {
             throw new IllegalArgumentException("Input array cannot be null.");
         }
 
-        int low = 0;
-        int high = arr.length - 1;
-        int mid;
-
-        while(low <= high) {
-            mid = (low + high) / 2;
-            if(arr[mid] == target) {
-                return mid;
-            } else if(arr[mid].compareTo(target) < 0) {
-                low = mid + 1;
-            } else {
-                high = mid - 1;
-            }
-        }
-
-        return -1;
+        return mergeSort(arr, 0, arr.length, c);
     }
 
     /**
-     * Copies a portion of an array of integers into a new array.
+     * Stably sorts the range {@code [from, to)} of an array of objects in place according
+     * to a comparator, using the same adaptive TimSort as {@link #mergeSort(Object[], Comparator)}.
      *
-     * @param arr the input array of integers to be copied from
-     * @param a the starting index (inclusive) of the input array to be copied from
-     * @param b the ending index (exclusive) of the input array to be copied from
-     * @return the array containing elements from index {@code a} (inclusive) to {@code b} (exclusive) of the input array
-     * @throws IllegalArgumentException if the input array is null, the indices are not within
-     * the bounds on the input array, or the start index is greater than the end index.
+     * @param <T> the type of objects held in the array
+     * @param arr the array of objects to be sorted
+     * @param from the starting index (inclusive) of the range to be sorted
+     * @param to the ending index (exclusive) of the range to be sorted
+     * @param c the comparator that determines the order of the elements
+     * @return the input array, with the specified range sorted
+     * @throws IllegalArgumentException if the input array or comparator is null, the indices
+     * are not within the bounds of the input array, the start index is greater than the end
+     * index, or the comparator is found to violate its contract
      */
-    public static int[] arrayCopy(int[] arr, int a, int b) {
+    public static <T> T[] mergeSort(T[] arr, int from, int to, Comparator<? super T> c) {
         // Validate input
-        if (arr == null) {
+        if(arr == null) {
             throw new IllegalArgumentException("Input array cannot be null.");
         }
-        if (a < 0 || b > arr.length) {
-            throw new IllegalArgumentException("Indices must be within bounds of input array.");
-        }
-        if(a > b) {
-            throw new IllegalArgumentException("Start index cannot be greater than end index.");
+        if(c == null) {
+            throw new IllegalArgumentException("Comparator cannot be null.");
         }
+        checkRange(arr.length, from, to);
 
-        // Create and populate new array
-        int[] returnArr = new int[b-a+1];
-        for(int i = a; i < b; i++) {
-            returnArr[i-a] = arr[i];
-        }
+        Arrays.sort(arr, from, to, c);
+        return arr;
+    }
 
-        return returnArr;
+    /**
+     * Merge sorts an array of integers in place, using the common fork/join pool.
+     *
+     * @param arr the array of integers to be sorted
+     * @return the input array, now sorted
+     * @throws IllegalArgumentException if the input array is null
+     */
+    public static int[] parallelMergeSort(int[] arr) {
+        return parallelMergeSort(arr, PARALLEL_SORT_THRESHOLD, ForkJoinPool.commonPool());
     }
 
     /**
-     * Copies a portion of an array of doubles into a new array.
+     * Merge sorts an array of integers in place, using the given fork/join pool. Both
+     * the sort and the merges are split into subtasks until they reach the threshold.
      *
-     * @param arr the input array of doubles to be copied from
-     * @param a the starting index (inclusive) of the input array to be copied from
-     * @param b the ending index (exclusive) of the input array to be copied from
-     * @return the array containing elements from index {@code a} (inclusive) to {@code b} (exclusive) of the input array
-     * @throws IllegalArgumentException if the input array is null, the indices are not within
-     * the bounds on the input array, or the start index is greater than the end index.
+     * @param arr the array of integers to be sorted
+     * @param threshold the number of elements at or below which work is done sequentially
+     * @param pool the pool to run the sort in
+     * @return the input array, now sorted
+     * @throws IllegalArgumentException if the input array or pool is null, or the threshold
+     * is not positive
      */
-    public static double[] arrayCopy(double[] arr, int a, int b) {
+    public static int[] parallelMergeSort(int[] arr, int threshold, ForkJoinPool pool) {
         // Validate input
-        if (arr == null) {
+        if(arr == null) {
             throw new IllegalArgumentException("Input array cannot be null.");
         }
-        if (a < 0 || b > arr.length) {
-            throw new IllegalArgumentException("Indices must be within bounds of input array.");
-        }
-        if(a > b) {
-            throw new IllegalArgumentException("Start index cannot be greater than end index.");
-        }
+        checkParallelArgs(threshold, pool);
 
-        // Create and populate new array
-        double[] returnArr = new double[b-a+1];
-        for(int i = a; i < b; i++) {
-            returnArr[i-a] = arr[i];
+        if(arr.length <= threshold) {
+            return mergeSort(arr);
         }
+        int[] buffer = arr.clone();
+        pool.invoke(new IntSortTask(buffer, 0, arr, 0, arr.length, Math.max(threshold, INSERTION_SORT_THRESHOLD)));
+        return arr;
+    }
 
-        return returnArr;
+    /**
+     * Merge sorts an array of doubles in place, using the common fork/join pool. Uses the
+     * same ordering as {@link Double#compare}.
+     *
+     * @param arr the array of doubles to be sorted
+     * @return the input array, now sorted
+     * @throws IllegalArgumentException if the input array is null
+     */
+    public static double[] parallelMergeSort(double[] arr) {
+        return parallelMergeSort(arr, PARALLEL_SORT_THRESHOLD, ForkJoinPool.commonPool());
     }
 
     /**
-     * Checks if an array of integers contains a specified element.
+     * Merge sorts an array of doubles in place, using the given fork/join pool. Both
+     * the sort and the merges are split into subtasks until they reach the threshold.
+     * Uses the same ordering as {@link Double#compare}.
      *
-     * @param arr the array of integers to search
-     * @param item the integer to look for in the array
-     * @return {@code true} if the array contains the integer, {@code false} otherwise
-     * @throws IllegalArgumentException if the input array is null or empty
+     * @param arr the array of doubles to be sorted
+     * @param threshold the number of elements at or below which work is done sequentially
+     * @param pool the pool to run the sort in
+     * @return the input array, now sorted
+     * @throws IllegalArgumentException if the input array or pool is null, or the threshold
+     * is not positive
      */
-    public static boolean contains(int[] arr, int item) {
-        return indexOf(boxInteger(arr), item) != -1;
+    public static double[] parallelMergeSort(double[] arr, int threshold, ForkJoinPool pool) {
+        // Validate input
+        if(arr == null) {
+            throw new IllegalArgumentException("Input array cannot be null.");
+        }
+        checkParallelArgs(threshold, pool);
+
+        if(arr.length <= threshold) {
+            return mergeSort(arr);
+        }
+        double[] buffer = arr.clone();
+        pool.invoke(new DoubleSortTask(buffer, 0, arr, 0, arr.length, Math.max(threshold, INSERTION_SORT_THRESHOLD)));
+        return arr;
     }
 
     /**
-     * Checks if an array of doubles contains a specified value.
+     * Stably merge sorts an array of comparable objects in place, using the common
+     * fork/join pool.
      *
-     * @param arr the array of doubles to search
-     * @param item the double to look for in the array
-     * @return {@code true} if the array contains the double, {@code false} otherwise
-     * @throws IllegalArgumentException if the input array is null or empty
+     * @param <T> the type of objects held in the array
+     * @param arr the array of objects to be sorted
+     * @return the input array, now sorted
+     * @throws IllegalArgumentException if the input array is null
      */
-    public static boolean contains(double[] arr, double item) {
-        return indexOf(boxDouble(arr), item) != -1;
+    public static <T extends Comparable<? super T>> T[] parallelMergeSort(T[] arr) {
+        return parallelMergeSort(arr, Comparator.naturalOrder(), PARALLEL_SORT_THRESHOLD, ForkJoinPool.commonPool());
     }
 
     /**
-     * Checks if an array of objects contains a specified element.
+     * Stably merge sorts an array of objects in place according to a comparator, using
+     * the common fork/join pool.
      *
      * @param <T> the type of objects held in the array
-     * @param arr the array of elements to search
-     * @param item the object to search for in the array
-     * @return {@code true} if the array contains the object, {@code false} otherwise
-     * @throws IllegalArgumentException if the input array is null or empty
+     * @param arr the array of objects to be sorted
+     * @param c the comparator that determines the order of the elements
+     * @return the input array, now sorted
+     * @throws IllegalArgumentException if the input array or comparator is null
      */
-    public static <T> boolean contains(T[] arr, double item) {
-        return indexOf(arr, item) != -1;
+    public static <T> T[] parallelMergeSort(T[] arr, Comparator<? super T> c) {
+        return parallelMergeSort(arr, c, PARALLEL_SORT_THRESHOLD, ForkJoinPool.commonPool());
     }
 
     /**
-     * Finds the index of the first occurrence of a specified element in an array of integers.
+     * Stably merge sorts an array of objects in place according to a comparator, using
+     * the given fork/join pool. Both the sort and the merges are split into subtasks until
+     * they reach the threshold.
      *
-     * @param arr the array of integers to search
-     * @param item the integer to search for in the array
-     * @return the index of the first occurrence of the integer, or -1 if it is not found
-     * @throws IllegalArgumentException if the input array is null or empty
+     * @param <T> the type of objects held in the array
+     * @param arr the array of objects to be sorted
+     * @param c the comparator that determines the order of the elements
+     * @param threshold the number of elements at or below which work is done sequentially
+     * @param pool the pool to run the sort in
+     * @return the input array, now sorted
+     * @throws IllegalArgumentException if the input array, comparator or pool is null, or
+     * the threshold is not positive
      */
-    public static int indexOf(int[] arr, int item) {
+    public static <T> T[] parallelMergeSort(T[] arr, Comparator<? super T> c, int threshold, ForkJoinPool pool) {
         // Validate input
         if(arr == null) {
             throw new IllegalArgumentException("Input array cannot be null.");
         }
-        if(arr.length == 0) {
-            throw new IllegalArgumentException("Input array must contain at least one element.");
+        if(c == null) {
+            throw new IllegalArgumentException("Comparator cannot be null.");
         }
+        checkParallelArgs(threshold, pool);
 
-        return indexOf(boxInteger(arr), item);
+        if(arr.length <= threshold) {
+            Arrays.sort(arr, c);
+            return arr;
+        }
+        T[] buffer = arr.clone();
+        pool.invoke(new ObjectSortTask<>(buffer, 0, arr, 0, arr.length, Math.max(threshold, INSERTION_SORT_THRESHOLD), c));
+        return arr;
     }
 
     /**
-     * Finds the index of the first occurrence of a specified element in an array of doubles.
+     * Sorts an array of integers in place with a byte-wise least-significant-digit radix sort.
      *
-     * @param arr the array of doubles to search
-     * @param item the double to search for in the array
-     * @return the index of the first occurrence of the double, or -1 if it is not found
-     * @throws IllegalArgumentException if the input array is null or empty
+     * @param arr the array of integers to be sorted
+     * @return the input array, now sorted
+     * @throws IllegalArgumentException if the input array is null
+     */
+    public static int[] radixSort(int[] arr) {
+        // Validate input
+        if(arr == null) {
+            throw new IllegalArgumentException("Input array cannot be null.");
+        }
+
+        return radixSort(arr, 0, arr.length, null);
+    }
+
+    /**
+     * Sorts the range {@code [from, to)} of an array of integers in place with a byte-wise
+     * least-significant-digit radix sort. Passes in which every element has the same digit
+     * are skipped.
+     *
+     * @param arr the array of integers to be sorted
+     * @param from the starting index (inclusive) of the range to be sorted
+     * @param to the ending index (exclusive) of the range to be sorted
+     * @param buffer the scratch array, holding at least {@code to - from} elements, or
+     * {@code null} to have one allocated
+     * @return the input array, with the specified range sorted
+     * @throws IllegalArgumentException if the input array is null, the indices are not within
+     * the bounds of the input array, the start index is greater than the end index, or the
+     * buffer is too small.
      */
-    public static int indexOf(double[] arr, int item) {
+    public static int[] radixSort(int[] arr, int from, int to, int[] buffer) {
         // Validate input
         if(arr == null) {
             throw new IllegalArgumentException("Input array cannot be null.");
         }
-        if(arr.length == 0) {
-            throw new IllegalArgumentException("Input array must contain at least one element.");
+        checkRange(arr.length, from, to);
+
+        int len = to - from;
+        if(buffer != null && buffer.length < len) {
+            throw new IllegalArgumentException("Buffer must hold at least as many elements as the range.");
+        }
+
+        // Small ranges are not worth the counting passes
+        if(len <= INSERTION_SORT_THRESHOLD) {
+            insertionSort(arr, from, to);
+            return arr;
+        }
+        if(buffer == null) {
+            buffer = new int[len];
+        }
+
+        // Count every digit of every key in a single pass; flipping the sign bit makes
+        // the unsigned byte order match the signed order
+        int[] counts = new int[4 * RADIX];
+        for(int i = from; i < to; i++) {
+            int key = arr[i] ^ Integer.MIN_VALUE;
+            counts[key & 0xff]++;
+            counts[RADIX + ((key >>> 8) & 0xff)]++;
+            counts[2 * RADIX + ((key >>> 16) & 0xff)]++;
+            counts[3 * RADIX + (key >>> 24)]++;
+        }
+
+        int[] src = arr, dst = buffer;
+        int srcOff = from, dstOff = 0;
+        for(int pass = 0; pass < 4; pass++) {
+            int shift = pass * 8;
+            int base = pass * RADIX;
+            if(!toOffsets(counts, base, (((src[srcOff] ^ Integer.MIN_VALUE) >>> shift) & 0xff), len)) {
+                continue; // Every key has the same digit
+            }
+
+            // Scatter into the other array
+            for(int i = srcOff; i < srcOff + len; i++) {
+                int item = src[i];
+                dst[dstOff + counts[base + (((item ^ Integer.MIN_VALUE) >>> shift) & 0xff)]++] = item;
+            }
+            int[] tmp = src; src = dst; dst = tmp;
+            int tmpOff = srcOff; srcOff = dstOff; dstOff = tmpOff;
+        }
+
+        if(src != arr) {
+            System.arraycopy(src, srcOff, arr, from, len);
+        }
+        return arr;
+    }
+
+    /**
+     * Sorts an array of longs in place with a byte-wise least-significant-digit radix sort.
+     *
+     * @param arr the array of longs to be sorted
+     * @return the input array, now sorted
+     * @throws IllegalArgumentException if the input array is null
+     */
+    public static long[] radixSort(long[] arr) {
+        // Validate input
+        if(arr == null) {
+            throw new IllegalArgumentException("Input array cannot be null.");
         }
 
-        return indexOf(boxDouble(arr), item);
+        return radixSort(arr, 0, arr.length, null);
     }
 
     /**
-     * Finds the index of the first occurrence of a specified element in an array of objects.
+     * Sorts the range {@code [from, to)} of an array of longs in place with a byte-wise
+     * least-significant-digit radix sort. Passes in which every element has the same digit
+     * are skipped.
      *
-     * @param <T> the type of objects held in the array
-     * @param arr the array of elements to search
-     * @param item the object to search for in the array
-     * @return the index of the first occurrence of the object, or -1 if the item is not found
-     * @throws IllegalArgumentException if the input array is null or empty
+     * @param arr the array of longs to be sorted
+     * @param from the starting index (inclusive) of the range to be sorted
+     * @param to the ending index (exclusive) of the range to be sorted
+     * @param buffer the scratch array, holding at least {@code to - from} elements, or
+     * {@code null} to have one allocated
+     * @return the input array, with the specified range sorted
+     * @throws IllegalArgumentException if the input array is null, the indices are not within
+     * the bounds of the input array, the start index is greater than the end index, or the
+     * buffer is too small.
      */
-    public static <T> int indexOf(T[] arr, T item) {
+    public static long[] radixSort(long[] arr, int from, int to, long[] buffer) {
         // Validate input
         if(arr == null) {
             throw new IllegalArgumentException("Input array cannot be null.");
         }
-        if(arr.length == 0) {
-            throw new IllegalArgumentException("Input array must contain at least one element.");
+        checkRange(arr.length, from, to);
+
+        int len = to - from;
+        if(buffer != null && buffer.length < len) {
+            throw new IllegalArgumentException("Buffer must hold at least as many elements as the range.");
         }
 
-        // Iterate through elements in array
-        for(int i = 0; i < arr.length; i++) {
-            if(arr[i] == item) {
-                return i;
+        // Small ranges are not worth the counting passes
+        if(len <= INSERTION_SORT_THRESHOLD) {
+            insertionSort(arr, from, to);
+            return arr;
+        }
+        if(buffer == null) {
+            buffer = new long[len];
+        }
+
+        // Count every digit of every key in a single pass; flipping the sign bit makes
+        // the unsigned byte order match the signed order
+        int[] counts = new int[8 * RADIX];
+        for(int i = from; i < to; i++) {
+            long key = arr[i] ^ Long.MIN_VALUE;
+            for(int pass = 0; pass < 8; pass++) {
+                counts[pass * RADIX + (int) ((key >>> (pass * 8)) & 0xff)]++;
             }
         }
 
-        return -1; // No matching elements
+        long[] src = arr, dst = buffer;
+        int srcOff = from, dstOff = 0;
+        for(int pass = 0; pass < 8; pass++) {
+            int shift = pass * 8;
+            int base = pass * RADIX;
+            if(!toOffsets(counts, base, (int) (((src[srcOff] ^ Long.MIN_VALUE) >>> shift) & 0xff), len)) {
+                continue; // Every key has the same digit
+            }
+
+            // Scatter into the other array
+            for(int i = srcOff; i < srcOff + len; i++) {
+                long item = src[i];
+                dst[dstOff + counts[base + (int) (((item ^ Long.MIN_VALUE) >>> shift) & 0xff)]++] = item;
+            }
+            long[] tmp = src; src = dst; dst = tmp;
+            int tmpOff = srcOff; srcOff = dstOff; dstOff = tmpOff;
+        }
+
+        if(src != arr) {
+            System.arraycopy(src, srcOff, arr, from, len);
+        }
+        return arr;
     }
 
     /**
-     * Converts an array of primitive integers to an array of {@link Integer} elements.
+     * Sorts an array of doubles in place with a byte-wise least-significant-digit radix sort.
+     * Uses the same ordering as {@link Double#compare}: {@code -0.0} sorts before
+     * {@code 0.0}, and {@code NaN} sorts after positive infinity.
      *
-     * @param arr the array of primitive integers to be boxed
-     * @return the array of {@link Integer} elements corresponding to the elements in the input array
-     * @throws IllegalArgumentException if the input array is {@code null}
+     * @param arr the array of doubles to be sorted
+     * @return the input array, now sorted
+     * @throws IllegalArgumentException if the input array is null
      */
-    public static Integer[] boxInteger(int[] arr) {
+    public static double[] radixSort(double[] arr) {
         // Validate input
         if(arr == null) {
             throw new IllegalArgumentException("Input array cannot be null.");
         }
 
-        Integer[] returnArr = new Integer[arr.length];
-        // Iterate through all elements in array
-        for (int i = 0; i < arr.length; i++) {
-            returnArr[i] = arr[i]; // Box each int to Integer
+        return radixSort(arr, 0, arr.length, null);
+    }
+
+    /**
+     * Sorts the range {@code [from, to)} of an array of doubles in place with a byte-wise
+     * least-significant-digit radix sort. Uses the same ordering as {@link Double#compare}.
+     * Passes in which every element has the same digit are skipped.
+     *
+     * @param arr the array of doubles to be sorted
+     * @param from the starting index (inclusive) of the range to be sorted
+     * @param to the ending index (exclusive) of the range to be sorted
+     * @param buffer the scratch array, holding at least {@code to - from} elements, or
+     * {@code null} to have one allocated
+     * @return the input array, with the specified range sorted
+     * @throws IllegalArgumentException if the input array is null, the indices are not within
+     * the bounds of the input array, the start index is greater than the end index, or the
+     * buffer is too small.
+     */
+    public static double[] radixSort(double[] arr, int from, int to, double[] buffer) {
+        // Validate input
+        if(arr == null) {
+            throw new IllegalArgumentException("Input array cannot be null.");
         }
+        checkRange(arr.length, from, to);
 
-        return returnArr;
+        int len = to - from;
+        if(buffer != null && buffer.length < len) {
+            throw new IllegalArgumentException("Buffer must hold at least as many elements as the range.");
+        }
+
+        // Small ranges are not worth the counting passes
+        if(len <= INSERTION_SORT_THRESHOLD) {
+            insertionSort(arr, from, to);
+            return arr;
+        }
+        if(buffer == null) {
+            buffer = new double[len];
+        }
+
+        // Count every digit of every key in a single pass
+        int[] counts = new int[8 * RADIX];
+        for(int i = from; i < to; i++) {
+            long key = sortableBits(arr[i]);
+            for(int pass = 0; pass < 8; pass++) {
+                counts[pass * RADIX + (int) ((key >>> (pass * 8)) & 0xff)]++;
+            }
+        }
+
+        double[] src = arr, dst = buffer;
+        int srcOff = from, dstOff = 0;
+        for(int pass = 0; pass < 8; pass++) {
+            int shift = pass * 8;
+            int base = pass * RADIX;
+            if(!toOffsets(counts, base, (int) ((sortableBits(src[srcOff]) >>> shift) & 0xff), len)) {
+                continue; // Every key has the same digit
+            }
+
+            // Scatter into the other array, recomputing keys rather than storing them
+            for(int i = srcOff; i < srcOff + len; i++) {
+                double item = src[i];
+                dst[dstOff + counts[base + (int) ((sortableBits(item) >>> shift) & 0xff)]++] = item;
+            }
+            double[] tmp = src; src = dst; dst = tmp;
+            int tmpOff = srcOff; srcOff = dstOff; dstOff = tmpOff;
+        }
+
+        if(src != arr) {
+            System.arraycopy(src, srcOff, arr, from, len);
+        }
+        return arr;
     }
 
     /**
-     * Converts an array of primitive doubles to an array of {@link Double} elements.
+     * Sorts an off-heap array of integers in place with a byte-wise least-significant-digit
+     * radix sort. Elements are scattered into an off-heap scratch array of the same length,
+     * which is released before this method returns, so nothing is copied onto the heap.
+     * Passes in which every element has the same digit are skipped.
      *
-     * @param arr the array of primitive doubles to be boxed
-     * @return the array of {@link Double} elements corresponding to the elements in the input array
-     * @throws IllegalArgumentException if the input array is {@code null}
+     * @param arr the off-heap array of integers to be sorted
+     * @return the input array, now sorted
+     * @throws IllegalArgumentException if the input array is null
+     * @throws IllegalStateException if the input array is closed
      */
-    public static Double[] boxDouble(double[] arr) {
+    public static HOffHeapIntArray radixSort(HOffHeapIntArray arr) {
         // Validate input
         if(arr == null) {
             throw new IllegalArgumentException("Input array cannot be null.");
         }
+        int segments = arr.segmentCount();
+        long len = arr.length();
+        if(len < 2) {
+            return arr;
+        }
 
-        Double[] returnArr = new Double[arr.length];
-        // Iterate through all elements in array
-        for (int i = 0; i < arr.length; i++) {
-            returnArr[i] = arr[i]; // Box each double to Double
+        // Count every digit of every key in a single pass
+        long[] counts = new long[4 * RADIX];
+        for(int s = 0; s < segments; s++) {
+            IntBuffer segment = arr.segment(s);
+            for(int i = 0, n = segment.capacity(); i < n; i++) {
+                int key = segment.get(i) ^ Integer.MIN_VALUE;
+                counts[key & 0xff]++;
+                counts[RADIX + ((key >>> 8) & 0xff)]++;
+                counts[2 * RADIX + ((key >>> 16) & 0xff)]++;
+                counts[3 * RADIX + (key >>> 24)]++;
+            }
         }
 
-        return returnArr;
+        try(HOffHeapIntArray scratch = HOffHeapIntArray.allocate(len)) {
+            HOffHeapIntArray src = arr, dst = scratch;
+            int first = arr.get(0) ^ Integer.MIN_VALUE;
+            for(int pass = 0; pass < 4; pass++) {
+                int shift = pass * 8;
+                int base = pass * RADIX;
+                if(!toOffsets(counts, base, (first >>> shift) & 0xff, len)) {
+                    continue; // Every key has the same digit
+                }
+
+                for(int s = 0; s < segments; s++) {
+                    IntBuffer segment = src.segment(s);
+                    for(int i = 0, n = segment.capacity(); i < n; i++) {
+                        int item = segment.get(i);
+                        long pos = counts[base + (((item ^ Integer.MIN_VALUE) >>> shift) & 0xff)]++;
+                        dst.segment((int) (pos >>> HOffHeapMemory.SEGMENT_SHIFT))
+                                .put((int) (pos & HOffHeapMemory.SEGMENT_MASK), item);
+                    }
+                }
+                HOffHeapIntArray tmp = src; src = dst; dst = tmp;
+            }
+
+            if(src != arr) {
+                for(int s = 0; s < segments; s++) {
+                    IntBuffer segment = src.segment(s);
+                    arr.segment(s).put(0, segment, 0, segment.capacity());
+                }
+            }
+        }
+        return arr;
+    }
+
+    /**
+     * Sorts an off-heap array of doubles in place with a byte-wise least-significant-digit
+     * radix sort, using the same ordering as {@link Double#compare}. Elements are scattered
+     * into an off-heap scratch array of the same length, which is released before this
+     * method returns, so nothing is copied onto the heap. Passes in which every element has
+     * the same digit are skipped.
+     *
+     * @param arr the off-heap array of doubles to be sorted
+     * @return the input array, now sorted
+     * @throws IllegalArgumentException if the input array is null
+     * @throws IllegalStateException if the input array is closed
+     */
+    public static HOffHeapDoubleArray radixSort(HOffHeapDoubleArray arr) {
+        // Validate input
+        if(arr == null) {
+            throw new IllegalArgumentException("Input array cannot be null.");
+        }
+        int segments = arr.segmentCount();
+        long len = arr.length();
+        if(len < 2) {
+            return arr;
+        }
+
+        // Count every digit of every key in a single pass
+        long[] counts = new long[8 * RADIX];
+        for(int s = 0; s < segments; s++) {
+            DoubleBuffer segment = arr.segment(s);
+            for(int i = 0, n = segment.capacity(); i < n; i++) {
+                long key = sortableBits(segment.get(i));
+                for(int pass = 0; pass < 8; pass++) {
+                    counts[pass * RADIX + (int) ((key >>> (pass * 8)) & 0xff)]++;
+                }
+            }
+        }
+
+        try(HOffHeapDoubleArray scratch = HOffHeapDoubleArray.allocate(len)) {
+            HOffHeapDoubleArray src = arr, dst = scratch;
+            long first = sortableBits(arr.get(0));
+            for(int pass = 0; pass < 8; pass++) {
+                int shift = pass * 8;
+                int base = pass * RADIX;
+                if(!toOffsets(counts, base, (int) ((first >>> shift) & 0xff), len)) {
+                    continue; // Every key has the same digit
+                }
+
+                for(int s = 0; s < segments; s++) {
+                    DoubleBuffer segment = src.segment(s);
+                    for(int i = 0, n = segment.capacity(); i < n; i++) {
+                        double item = segment.get(i);
+                        long pos = counts[base + (int) ((sortableBits(item) >>> shift) & 0xff)]++;
+                        dst.segment((int) (pos >>> HOffHeapMemory.SEGMENT_SHIFT))
+                                .put((int) (pos & HOffHeapMemory.SEGMENT_MASK), item);
+                    }
+                }
+                HOffHeapDoubleArray tmp = src; src = dst; dst = tmp;
+            }
+
+            if(src != arr) {
+                for(int s = 0; s < segments; s++) {
+                    DoubleBuffer segment = src.segment(s);
+                    arr.segment(s).put(0, segment, 0, segment.capacity());
+                }
+            }
+        }
+        return arr;
+    }
+
+    /**
+     * Sorts {@code len} integers into {@code dst} starting at {@code dstOff}. On entry both
+     * ranges must hold the same elements; {@code src} is used as scratch space, and the two
+     * arrays swap roles at every level of recursion so no copying is needed between levels.
+     */
+    static void mergeSort(int[] src, int srcOff, int[] dst, int dstOff, int len) {
+        // Base case
+        if(len <= INSERTION_SORT_THRESHOLD) {
+            insertionSort(dst, dstOff, dstOff + len);
+            return;
+        }
+
+        // Recursively sort both halves into src, using dst as scratch
+        int half = len >>> 1;
+        mergeSort(dst, dstOff, src, srcOff, half);
+        mergeSort(dst, dstOff + half, src, srcOff + half, len - half);
+
+        // Skip the merge if the halves are already in order
+        if(src[srcOff + half - 1] <= src[srcOff + half]) {
+            System.arraycopy(src, srcOff, dst, dstOff, len);
+            return;
+        }
+        mergeRuns(src, srcOff, srcOff + half, srcOff + half, srcOff + len, dst, dstOff);
+    }
+
+    /**
+     * Sorts {@code len} doubles into {@code dst} starting at {@code dstOff}. On entry both
+     * ranges must hold the same elements; {@code src} is used as scratch space, and the two
+     * arrays swap roles at every level of recursion so no copying is needed between levels.
+     */
+    static void mergeSort(double[] src, int srcOff, double[] dst, int dstOff, int len) {
+        // Base case
+        if(len <= INSERTION_SORT_THRESHOLD) {
+            insertionSort(dst, dstOff, dstOff + len);
+            return;
+        }
+
+        // Recursively sort both halves into src, using dst as scratch
+        int half = len >>> 1;
+        mergeSort(dst, dstOff, src, srcOff, half);
+        mergeSort(dst, dstOff + half, src, srcOff + half, len - half);
+
+        // Skip the merge if the halves are already in order
+        if(orderedBits(src[srcOff + half - 1]) <= orderedBits(src[srcOff + half])) {
+            System.arraycopy(src, srcOff, dst, dstOff, len);
+            return;
+        }
+        mergeRuns(src, srcOff, srcOff + half, srcOff + half, srcOff + len, dst, dstOff);
+    }
+
+    /**
+     * Merges the sorted runs {@code src[a, aEnd)} and {@code src[b, bEnd)} into {@code dst}
+     * starting at {@code k}. Ties are taken from the first run.
+     */
+    static void mergeRuns(int[] src, int a, int aEnd, int b, int bEnd, int[] dst, int k) {
+        while(a < aEnd && b < bEnd) {
+            if(src[b] < src[a]) {
+                dst[k++] = src[b++];
+            } else {
+                dst[k++] = src[a++];
+            }
+        }
+
+        // Add remaining elements
+        if(a < aEnd) { System.arraycopy(src, a, dst, k, aEnd - a); }
+        if(b < bEnd) { System.arraycopy(src, b, dst, k, bEnd - b); }
+    }
+
+    /**
+     * Merges the sorted runs {@code src[a, aEnd)} and {@code src[b, bEnd)} into {@code dst}
+     * starting at {@code k}, comparing elements by their {@link #orderedBits(double)}. Ties
+     * are taken from the first run.
+     */
+    static void mergeRuns(double[] src, int a, int aEnd, int b, int bEnd, double[] dst, int k) {
+        while(a < aEnd && b < bEnd) {
+            if(orderedBits(src[b]) < orderedBits(src[a])) {
+                dst[k++] = src[b++];
+            } else {
+                dst[k++] = src[a++];
+            }
+        }
+
+        // Add remaining elements
+        if(a < aEnd) { System.arraycopy(src, a, dst, k, aEnd - a); }
+        if(b < bEnd) { System.arraycopy(src, b, dst, k, bEnd - b); }
+    }
+
+    /**
+     * Sorts the range {@code [from, to)} of an array of integers with insertion sort.
+     */
+    private static void insertionSort(int[] arr, int from, int to) {
+        for(int i = from + 1; i < to; i++) {
+            int item = arr[i];
+            int j = i - 1;
+            while(j >= from && arr[j] > item) {
+                arr[j + 1] = arr[j];
+                j--;
+            }
+            arr[j + 1] = item;
+        }
+    }
+
+    /**
+     * Sorts the range {@code [from, to)} of an array of longs with insertion sort.
+     */
+    private static void insertionSort(long[] arr, int from, int to) {
+        for(int i = from + 1; i < to; i++) {
+            long item = arr[i];
+            int j = i - 1;
+            while(j >= from && arr[j] > item) {
+                arr[j + 1] = arr[j];
+                j--;
+            }
+            arr[j + 1] = item;
+        }
+    }
+
+    /**
+     * Sorts the range {@code [from, to)} of an array of doubles with insertion sort, in the
+     * order of {@link Double#compare}, so that NaNs are sorted last.
+     */
+    private static void insertionSort(double[] arr, int from, int to) {
+        for(int i = from + 1; i < to; i++) {
+            double item = arr[i];
+            long key = orderedBits(item);
+            int j = i - 1;
+            while(j >= from && orderedBits(arr[j]) > key) {
+                arr[j + 1] = arr[j];
+                j--;
+            }
+            arr[j + 1] = item;
+        }
+    }
+
+    /**
+     * Merges the sorted runs {@code src[a, aEnd)} and {@code src[b, bEnd)} into {@code dst}
+     * starting at {@code k}. Ties are taken from the first run.
+     */
+    static <T> void mergeRuns(T[] src, int a, int aEnd, int b, int bEnd, T[] dst, int k, Comparator<? super T> c) {
+        while(a < aEnd && b < bEnd) {
+            if(c.compare(src[b], src[a]) < 0) {
+                dst[k++] = src[b++];
+            } else {
+                dst[k++] = src[a++];
+            }
+        }
+
+        // Add remaining elements
+        if(a < aEnd) { System.arraycopy(src, a, dst, k, aEnd - a); }
+        if(b < bEnd) { System.arraycopy(src, b, dst, k, bEnd - b); }
+    }
+
+    /**
+     * Moves the {@code k}-th smallest element of {@code arr[lo, hi]} into position {@code k}.
+     * Each round partitions three ways around a median-of-three pivot and continues into the
+     * part holding {@code k}. If that takes more than about {@code 2 log n} rounds, pivots
+     * are chosen by median of medians instead, which bounds the worst case to linear time.
+     */
+    static void select(int[] arr, int lo, int hi, int k) {
+        int depth = 2 * (32 - Integer.numberOfLeadingZeros(hi - lo + 1));
+        while(hi > lo) {
+            if(hi - lo < INSERTION_SORT_THRESHOLD) {
+                insertionSort(arr, lo, hi + 1);
+                return;
+            }
+            int pivot = --depth >= 0 ? arr[medianOfThree(arr, lo, (lo + hi) >>> 1, hi)] : arr[medianOfMedians(arr, lo, hi)];
+
+            // Partition into [lo, lt) < pivot, [lt, gt] == pivot and (gt, hi] > pivot
+            int lt = lo, i = lo, gt = hi;
+            while(i <= gt) {
+                int item = arr[i];
+                if(item < pivot) {
+                    arr[i++] = arr[lt];
+                    arr[lt++] = item;
+                } else if(item > pivot) {
+                    arr[i] = arr[gt];
+                    arr[gt--] = item;
+                } else {
+                    i++;
+                }
+            }
+
+            if(k < lt) {
+                hi = lt - 1;
+            } else if(k > gt) {
+                lo = gt + 1;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Moves the {@code k}-th smallest element of {@code arr[lo, hi]} into position {@code k},
+     * in the same way as {@link #select(int[], int, int, int)}. Elements are compared by
+     * their {@link #orderedBits(double)}, so NaNs order after every other value.
+     */
+    static void select(double[] arr, int lo, int hi, int k) {
+        int depth = 2 * (32 - Integer.numberOfLeadingZeros(hi - lo + 1));
+        while(hi > lo) {
+            if(hi - lo < INSERTION_SORT_THRESHOLD) {
+                insertionSort(arr, lo, hi + 1);
+                return;
+            }
+            long pivot = orderedBits(--depth >= 0 ? arr[medianOfThree(arr, lo, (lo + hi) >>> 1, hi)] : arr[medianOfMedians(arr, lo, hi)]);
+
+            // Partition into [lo, lt) < pivot, [lt, gt] == pivot and (gt, hi] > pivot
+            int lt = lo, i = lo, gt = hi;
+            while(i <= gt) {
+                double item = arr[i];
+                long key = orderedBits(item);
+                if(key < pivot) {
+                    arr[i++] = arr[lt];
+                    arr[lt++] = item;
+                } else if(key > pivot) {
+                    arr[i] = arr[gt];
+                    arr[gt--] = item;
+                } else {
+                    i++;
+                }
+            }
+
+            if(k < lt) {
+                hi = lt - 1;
+            } else if(k > gt) {
+                lo = gt + 1;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Moves the {@code k}-th smallest element of {@code arr[lo, hi]} into position {@code k},
+     * in the same way as {@link #select(int[], int, int, int)}.
+     */
+    static <T> void select(T[] arr, int lo, int hi, int k, Comparator<? super T> c) {
+        int depth = 2 * (32 - Integer.numberOfLeadingZeros(hi - lo + 1));
+        while(hi > lo) {
+            if(hi - lo < INSERTION_SORT_THRESHOLD) {
+                Arrays.sort(arr, lo, hi + 1, c);
+                return;
+            }
+            T pivot = --depth >= 0 ? arr[medianOfThree(arr, lo, (lo + hi) >>> 1, hi, c)] : arr[medianOfMedians(arr, lo, hi, c)];
+
+            // Partition into [lo, lt) < pivot, [lt, gt] == pivot and (gt, hi] > pivot
+            int lt = lo, i = lo, gt = hi;
+            while(i <= gt) {
+                T item = arr[i];
+                int cmp = c.compare(item, pivot);
+                if(cmp < 0) {
+                    arr[i++] = arr[lt];
+                    arr[lt++] = item;
+                } else if(cmp > 0) {
+                    arr[i] = arr[gt];
+                    arr[gt--] = item;
+                } else {
+                    i++;
+                }
+            }
+
+            if(k < lt) {
+                hi = lt - 1;
+            } else if(k > gt) {
+                lo = gt + 1;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns whichever of the indices {@code a}, {@code b} and {@code c} holds the median
+     * of the three elements.
+     */
+    private static int medianOfThree(int[] arr, int a, int b, int c) {
+        if(arr[a] < arr[b]) {
+            return arr[b] < arr[c] ? b : (arr[a] < arr[c] ? c : a);
+        }
+        return arr[a] < arr[c] ? a : (arr[b] < arr[c] ? c : b);
+    }
+
+    /**
+     * Returns whichever of the indices {@code a}, {@code b} and {@code c} holds the median
+     * of the three elements, compared by their {@link #orderedBits(double)}.
+     */
+    private static int medianOfThree(double[] arr, int a, int b, int c) {
+        long x = orderedBits(arr[a]), y = orderedBits(arr[b]), z = orderedBits(arr[c]);
+        if(x < y) {
+            return y < z ? b : (x < z ? c : a);
+        }
+        return x < z ? a : (y < z ? c : b);
+    }
+
+    /**
+     * Returns whichever of the indices {@code a}, {@code b} and {@code d} holds the median
+     * of the three elements.
+     */
+    private static <T> int medianOfThree(T[] arr, int a, int b, int d, Comparator<? super T> c) {
+        if(c.compare(arr[a], arr[b]) < 0) {
+            return c.compare(arr[b], arr[d]) < 0 ? b : (c.compare(arr[a], arr[d]) < 0 ? d : a);
+        }
+        return c.compare(arr[a], arr[d]) < 0 ? a : (c.compare(arr[b], arr[d]) < 0 ? d : b);
+    }
+
+    /**
+     * Sorts each group of five elements of {@code arr[lo, hi]}, gathers the group medians
+     * at the front of the range and selects their median, whose index is returned. At least
+     * 30% of the range is guaranteed to lie on each side of that element.
+     */
+    private static int medianOfMedians(int[] arr, int lo, int hi) {
+        int medians = lo;
+        for(int group = lo; group <= hi; group += 5) {
+            int groupEnd = Math.min(group + 5, hi + 1);
+            insertionSort(arr, group, groupEnd);
+            int median = (group + groupEnd - 1) >>> 1;
+            int item = arr[median];
+            arr[median] = arr[medians];
+            arr[medians++] = item;
+        }
+        int mid = (lo + medians - 1) >>> 1;
+        select(arr, lo, medians - 1, mid);
+        return mid;
+    }
+
+    /**
+     * Selects the median of the medians of groups of five elements of {@code arr[lo, hi]},
+     * as in {@link #medianOfMedians(int[], int, int)}.
+     */
+    private static int medianOfMedians(double[] arr, int lo, int hi) {
+        int medians = lo;
+        for(int group = lo; group <= hi; group += 5) {
+            int groupEnd = Math.min(group + 5, hi + 1);
+            insertionSort(arr, group, groupEnd);
+            int median = (group + groupEnd - 1) >>> 1;
+            double item = arr[median];
+            arr[median] = arr[medians];
+            arr[medians++] = item;
+        }
+        int mid = (lo + medians - 1) >>> 1;
+        select(arr, lo, medians - 1, mid);
+        return mid;
+    }
+
+    /**
+     * Selects the median of the medians of groups of five elements of {@code arr[lo, hi]},
+     * as in {@link #medianOfMedians(int[], int, int)}.
+     */
+    private static <T> int medianOfMedians(T[] arr, int lo, int hi, Comparator<? super T> c) {
+        int medians = lo;
+        for(int group = lo; group <= hi; group += 5) {
+            int groupEnd = Math.min(group + 5, hi + 1);
+            Arrays.sort(arr, group, groupEnd, c);
+            int median = (group + groupEnd - 1) >>> 1;
+            T item = arr[median];
+            arr[median] = arr[medians];
+            arr[medians++] = item;
+        }
+        int mid = (lo + medians - 1) >>> 1;
+        select(arr, lo, medians - 1, mid, c);
+        return mid;
+    }
+
+    /**
+     * Restores the min-heap property of {@code heap[0, n)} below index {@code i}.
+     */
+    private static void siftDown(int[] heap, int i, int n) {
+        int item = heap[i];
+        int child;
+        while((child = 2 * i + 1) < n) {
+            if(child + 1 < n && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if(item <= heap[child]) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = item;
+    }
+
+    /**
+     * Restores the min-heap property of {@code heap[0, n)} below index {@code i}, comparing
+     * elements by their {@link #orderedBits(double)}.
+     */
+    private static void siftDown(double[] heap, int i, int n) {
+        double item = heap[i];
+        long key = orderedBits(item);
+        int child;
+        while((child = 2 * i + 1) < n) {
+            if(child + 1 < n && orderedBits(heap[child + 1]) < orderedBits(heap[child])) {
+                child++;
+            }
+            if(key <= orderedBits(heap[child])) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = item;
+    }
+
+    /**
+     * Restores the min-heap property of {@code heap[0, n)} below index {@code i}.
+     */
+    private static <T> void siftDown(T[] heap, int i, int n, Comparator<? super T> c) {
+        T item = heap[i];
+        int child;
+        while((child = 2 * i + 1) < n) {
+            if(child + 1 < n && c.compare(heap[child + 1], heap[child]) < 0) {
+                child++;
+            }
+            if(c.compare(item, heap[child]) <= 0) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = item;
+    }
+
+    /**
+     * Returns the index of the first element of {@code arr[from, to)} equal to {@code item},
+     * or -1. Four elements are tested per iteration with non-short-circuiting ors, leaving
+     * a single branch per block for the common no-match case.
+     */
+    static int scanForward(int[] arr, int item, int from, int to) {
+        int i = from;
+        for(int end = to - 3; i < end; i += 4) {
+            if((arr[i] == item) | (arr[i + 1] == item) | (arr[i + 2] == item) | (arr[i + 3] == item)) {
+                break;
+            }
+        }
+        for(; i < to; i++) {
+            if(arr[i] == item) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the first element of {@code arr[from, to)} equal to {@code item},
+     * or -1, using the same blocking as {@link #scanForward(int[], int, int, int)}.
+     */
+    static int scanForward(double[] arr, double item, int from, int to) {
+        int i = from;
+        for(int end = to - 3; i < end; i += 4) {
+            if((arr[i] == item) | (arr[i + 1] == item) | (arr[i + 2] == item) | (arr[i + 3] == item)) {
+                break;
+            }
+        }
+        for(; i < to; i++) {
+            if(arr[i] == item) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the last element of {@code arr[from, to)} equal to {@code item},
+     * or -1, testing four elements per iteration.
+     */
+    static int scanBackward(int[] arr, int item, int from, int to) {
+        int i = to - 1;
+        for(int end = from + 3; i >= end; i -= 4) {
+            if((arr[i] == item) | (arr[i - 1] == item) | (arr[i - 2] == item) | (arr[i - 3] == item)) {
+                break;
+            }
+        }
+        for(; i >= from; i--) {
+            if(arr[i] == item) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the last element of {@code arr[from, to)} equal to {@code item},
+     * or -1, testing four elements per iteration.
+     */
+    static int scanBackward(double[] arr, double item, int from, int to) {
+        int i = to - 1;
+        for(int end = from + 3; i >= end; i -= 4) {
+            if((arr[i] == item) | (arr[i - 1] == item) | (arr[i - 2] == item) | (arr[i - 3] == item)) {
+                break;
+            }
+        }
+        for(; i >= from; i--) {
+            if(arr[i] == item) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Turns the digit counts of one radix sort pass into starting offsets.
+     *
+     * @param counts the digit counts of every pass
+     * @param base the index of the first count of this pass
+     * @param digit the digit of any one key in this pass
+     * @param len the number of keys being sorted
+     * @return {@code false} if every key has the same digit and the pass can be skipped
+     */
+    private static boolean toOffsets(int[] counts, int base, int digit, int len) {
+        if(counts[base + digit] == len) {
+            return false;
+        }
+        int sum = 0;
+        for(int i = base; i < base + RADIX; i++) {
+            int count = counts[i];
+            counts[i] = sum;
+            sum += count;
+        }
+        return true;
+    }
+
+    /**
+     * Turns the digit counts of one off-heap radix sort pass into starting offsets.
+     *
+     * @return {@code false} if every key has the same digit and the pass can be skipped
+     */
+    private static boolean toOffsets(long[] counts, int base, int digit, long len) {
+        if(counts[base + digit] == len) {
+            return false;
+        }
+        long sum = 0;
+        for(int i = base; i < base + RADIX; i++) {
+            long count = counts[i];
+            counts[i] = sum;
+            sum += count;
+        }
+        return true;
+    }
+
+    /**
+     * Maps a double to a long whose unsigned order matches {@link Double#compare}. Negative
+     * values have every bit flipped, positive values only the sign bit, and all NaNs are
+     * collapsed to the canonical NaN, which maps above positive infinity.
+     *
+     * @param value the double to be mapped
+     * @return the order-preserving bits, compared as unsigned values
+     */
+    static long sortableBits(double value) {
+        long bits = Double.doubleToLongBits(value);
+        return bits ^ ((bits >> 63) | Long.MIN_VALUE);
+    }
+
+    /**
+     * Checks the threshold and pool passed to a parallel operation.
+     *
+     * @throws IllegalArgumentException if the pool is null or the threshold is not positive
+     */
+    static void checkParallelArgs(int threshold, ForkJoinPool pool) {
+        if(threshold <= 0) {
+            throw new IllegalArgumentException("Threshold must be positive.");
+        }
+        if(pool == null) {
+            throw new IllegalArgumentException("Pool cannot be null.");
+        }
+    }
+
+    /**
+     * Checks that {@code [from, to)} is a valid range of an array with the given length.
+     *
+     * @throws IllegalArgumentException if the indices are not within the bounds of the
+     * array, or the start index is greater than the end index.
+     */
+    static void checkRange(int length, int from, int to) {
+        if(from < 0 || to > length) {
+            throw new IllegalArgumentException("Indices must be within bounds of input array.");
+        }
+        if(from > to) {
+            throw new IllegalArgumentException("Start index cannot be greater than end index.");
+        }
+    }
+
+    /**
+     * Returns the total number of elements in an array of arrays, checking that neither the
+     * array nor any of its elements is null.
+     */
+    private static int totalLength(Object[] sources) {
+        if(sources == null) {
+            throw new IllegalArgumentException("Input arrays cannot be null.");
+        }
+        long total = 0;
+        for(Object source : sources) {
+            if(source == null) {
+                throw new IllegalArgumentException("Input arrays cannot be null.");
+            }
+            total += Array.getLength(source);
+        }
+        if(total > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Input arrays hold too many elements to merge into one array.");
+        }
+        return (int) total;
+    }
+
+    /**
+     * Checks that an output array of length {@code length}, or -1 if it is null, can hold
+     * {@code needed} elements.
+     */
+    private static void checkOutput(int length, int needed) {
+        if(length < 0) {
+            throw new IllegalArgumentException("Output array cannot be null.");
+        }
+        if(length < needed) {
+            throw new IllegalArgumentException("Output array is too small to hold every element.");
+        }
+    }
+
+    /**
+     * Checks that a list of sources to be merged and every source in it are non-null.
+     */
+    private static void checkSources(List<?> sources) {
+        if(sources == null) {
+            throw new IllegalArgumentException("Sources cannot be null.");
+        }
+        checkSources(sources.toArray());
+    }
+
+    /**
+     * Checks that an array of sources to be merged and every source in it are non-null.
+     */
+    private static void checkSources(Object[] sources) {
+        if(sources == null) {
+            throw new IllegalArgumentException("Sources cannot be null.");
+        }
+        for(Object source : sources) {
+            if(source == null) {
+                throw new IllegalArgumentException("Sources cannot be null.");
+            }
+        }
+    }
+
+    /**
+     * Merges two sorted arrays of integers into a single sorted array.
+     *
+     * @param arrA the first sorted array of integers to be merged
+     * @param arrB the second sorted array of integers to be merged
+     * @return the sorted array containing all elements from both input arrays
+     * @throws IllegalArgumentException if either input array is null
+     */
+    public static int[] merge(int[] arrA, int[] arrB) {
+        // Validate input
+        if(arrA == null || arrB == null) {
+            throw new IllegalArgumentException("Input arrays cannot be null.");
+        }
+
+        // Create return array
+        int[] returnArr = new int[arrA.length + arrB.length];
+
+        // Merge elements from both arrays
+        int i = 0, j = 0, k = 0;
+        while(i < arrA.length && j < arrB.length) {
+            if(arrA[i] < arrB[j]) {
+                returnArr[k++] = arrA[i++];
+            } else {
+                returnArr[k++] = arrB[j++];
+            }
+        }
+
+        // Add remaining elements
+        while(i < arrA.length) { returnArr[k++] = arrA[i++]; }
+        while(j < arrB.length) { returnArr[k++] = arrB[j++]; }
+        return returnArr;
+    }
+
+    /**
+     * Merges two sorted arrays of doubles into a single sorted array. Doubles are compared
+     * as by {@link Double#compare}.
+     *
+     * @param arrA the first sorted array of doubles to be merged
+     * @param arrB the second sorted array of doubles to be merged
+     * @return the sorted array containing all elements from both input arrays
+     * @throws IllegalArgumentException if either input array is null
+     */
+    public static double[] merge(double[] arrA, double[] arrB) {
+        // Validate input
+        if(arrA == null || arrB == null) {
+            throw new IllegalArgumentException("Input arrays cannot be null.");
+        }
+
+        // Create return array
+        double[] returnArr = new double[arrA.length + arrB.length];
+
+        // Merge elements from both arrays
+        int i = 0, j = 0, k = 0;
+        while(i < arrA.length && j < arrB.length) {
+            if(orderedBits(arrA[i]) < orderedBits(arrB[j])) {
+                returnArr[k++] = arrA[i++];
+            } else {
+                returnArr[k++] = arrB[j++];
+            }
+        }
+
+        // Add remaining elements
+        while(i < arrA.length) { returnArr[k++] = arrA[i++]; }
+        while(j < arrB.length) { returnArr[k++] = arrB[j++]; }
+        return returnArr;
+    }
+
+    /**
+     * Merges any number of sorted arrays of integers into a single new sorted array.
+     * Equal elements keep the order of the arrays they came from.
+     *
+     * @param sources the sorted arrays of integers to be merged
+     * @return the sorted array containing every element of the input arrays
+     * @throws IllegalArgumentException if the array of sources or any source is null, or the
+     * sources hold more elements than fit in an array
+     */
+    public static int[] mergeAll(int[][] sources) {
+        int[] out = new int[totalLength(sources)];
+        mergeAll(sources, out);
+        return out;
+    }
+
+    /**
+     * Merges any number of sorted arrays of integers into the start of an output array in a
+     * single pass. A loser tree picks the next element with one comparison per level, so the
+     * merge costs {@code O(n log k)} for {@code n} elements in {@code k} arrays. Equal
+     * elements keep the order of the arrays they came from.
+     *
+     * @param sources the sorted arrays of integers to be merged
+     * @param out the array that receives the merged elements, starting at index 0
+     * @return the number of elements written to the output array
+     * @throws IllegalArgumentException if the array of sources, any source or the output
+     * array is null, or the output array is too small to hold every element
+     */
+    public static int mergeAll(int[][] sources, int[] out) {
+        // Validate input
+        int total = totalLength(sources);
+        checkOutput(out == null ? -1 : out.length, total);
+
+        int k = sources.length;
+        if(k == 1) {
+            System.arraycopy(sources[0], 0, out, 0, total);
+            return total;
+        }
+
+        IntLoserTree tree = new IntLoserTree(k);
+        int[] pos = new int[k];
+        for(int s = 0; s < k; s++) {
+            tree.set(s, sources[s], 0);
+        }
+        tree.build();
+
+        for(int n = 0; n < total; n++) {
+            int s = tree.winner();
+            out[n] = tree.keys[s];
+            tree.set(s, sources[s], ++pos[s]);
+            tree.replay(s);
+        }
+        return total;
+    }
+
+    /**
+     * Merges any number of sorted arrays of longs into a single new sorted array.
+     * Equal elements keep the order of the arrays they came from.
+     *
+     * @param sources the sorted arrays of longs to be merged
+     * @return the sorted array containing every element of the input arrays
+     * @throws IllegalArgumentException if the array of sources or any source is null, or the
+     * sources hold more elements than fit in an array
+     */
+    public static long[] mergeAll(long[][] sources) {
+        long[] out = new long[totalLength(sources)];
+        mergeAll(sources, out);
+        return out;
+    }
+
+    /**
+     * Merges any number of sorted arrays of longs into the start of an output array in a
+     * single pass. A loser tree picks the next element with one comparison per level, so the
+     * merge costs {@code O(n log k)} for {@code n} elements in {@code k} arrays. Equal
+     * elements keep the order of the arrays they came from.
+     *
+     * @param sources the sorted arrays of longs to be merged
+     * @param out the array that receives the merged elements, starting at index 0
+     * @return the number of elements written to the output array
+     * @throws IllegalArgumentException if the array of sources, any source or the output
+     * array is null, or the output array is too small to hold every element
+     */
+    public static int mergeAll(long[][] sources, long[] out) {
+        // Validate input
+        int total = totalLength(sources);
+        checkOutput(out == null ? -1 : out.length, total);
+
+        int k = sources.length;
+        if(k == 1) {
+            System.arraycopy(sources[0], 0, out, 0, total);
+            return total;
+        }
+
+        LongLoserTree tree = new LongLoserTree(k);
+        int[] pos = new int[k];
+        for(int s = 0; s < k; s++) {
+            tree.set(s, sources[s], 0);
+        }
+        tree.build();
+
+        for(int n = 0; n < total; n++) {
+            int s = tree.winner();
+            out[n] = tree.keys[s];
+            tree.set(s, sources[s], ++pos[s]);
+            tree.replay(s);
+        }
+        return total;
+    }
+
+    /**
+     * Merges any number of sorted arrays of doubles into a single new sorted array.
+     * Equal elements keep the order of the arrays they came from. Doubles are compared as
+     * by {@link Double#compare}, the order {@link #mergeSort(double[])} leaves them in.
+     *
+     * @param sources the sorted arrays of doubles to be merged
+     * @return the sorted array containing every element of the input arrays
+     * @throws IllegalArgumentException if the array of sources or any source is null, or the
+     * sources hold more elements than fit in an array
+     */
+    public static double[] mergeAll(double[][] sources) {
+        double[] out = new double[totalLength(sources)];
+        mergeAll(sources, out);
+        return out;
+    }
+
+    /**
+     * Merges any number of sorted arrays of doubles into the start of an output array in a
+     * single pass. A loser tree picks the next element with one comparison per level, so the
+     * merge costs {@code O(n log k)} for {@code n} elements in {@code k} arrays. Equal
+     * elements keep the order of the arrays they came from. Doubles are compared as by
+     * {@link Double#compare}, so {@code -0.0} is less than {@code 0.0} and NaN is greater
+     * than every other value.
+     *
+     * @param sources the sorted arrays of doubles to be merged
+     * @param out the array that receives the merged elements, starting at index 0
+     * @return the number of elements written to the output array
+     * @throws IllegalArgumentException if the array of sources, any source or the output
+     * array is null, or the output array is too small to hold every element
+     */
+    public static int mergeAll(double[][] sources, double[] out) {
+        // Validate input
+        int total = totalLength(sources);
+        checkOutput(out == null ? -1 : out.length, total);
+
+        int k = sources.length;
+        if(k == 1) {
+            System.arraycopy(sources[0], 0, out, 0, total);
+            return total;
+        }
+
+        DoubleLoserTree tree = new DoubleLoserTree(k);
+        int[] pos = new int[k];
+        for(int s = 0; s < k; s++) {
+            tree.set(s, sources[s], 0);
+        }
+        tree.build();
+
+        for(int n = 0; n < total; n++) {
+            int s = tree.winner();
+            out[n] = tree.keys[s];
+            tree.set(s, sources[s], ++pos[s]);
+            tree.replay(s);
+        }
+        return total;
+    }
+
+    /**
+     * Merges any number of sorted arrays of comparable objects into the start of an output
+     * array in a single pass, according to their natural ordering. Equal elements keep the
+     * order of the arrays they came from.
+     *
+     * @param sources the sorted arrays of comparable objects to be merged
+     * @param out the array that receives the merged elements, starting at index 0
+     * @return the number of elements written to the output array
+     * @throws IllegalArgumentException if the array of sources, any source or the output
+     * array is null, or the output array is too small to hold every element
+     */
+    public static <T extends Comparable<? super T>> int mergeAll(T[][] sources, T[] out) {
+        return mergeAll(sources, out, Comparator.naturalOrder());
+    }
+
+    /**
+     * Merges any number of sorted arrays of objects into the start of an output array in a
+     * single pass, according to a comparator. A loser tree picks the next element with one
+     * comparison per level, so the merge costs {@code O(n log k)} for {@code n} elements in
+     * {@code k} arrays. Equal elements keep the order of the arrays they came from.
+     *
+     * @param sources the arrays of objects to be merged, each sorted according to the comparator
+     * @param out the array that receives the merged elements, starting at index 0
+     * @param c the comparator that determines the order of the elements
+     * @return the number of elements written to the output array
+     * @throws IllegalArgumentException if the array of sources, any source, the output array
+     * or the comparator is null, or the output array is too small to hold every element
+     */
+    public static <T> int mergeAll(T[][] sources, T[] out, Comparator<? super T> c) {
+        // Validate input
+        int total = totalLength(sources);
+        checkOutput(out == null ? -1 : out.length, total);
+        if(c == null) {
+            throw new IllegalArgumentException("Comparator cannot be null.");
+        }
+
+        int k = sources.length;
+        if(k == 1) {
+            System.arraycopy(sources[0], 0, out, 0, total);
+            return total;
+        }
+
+        ObjectLoserTree<T> tree = new ObjectLoserTree<>(k, c);
+        int[] pos = new int[k];
+        for(int s = 0; s < k; s++) {
+            tree.set(s, sources[s], 0);
+        }
+        tree.build();
+
+        for(int n = 0; n < total; n++) {
+            int s = tree.winner();
+            out[n] = tree.key(s);
+            tree.set(s, sources[s], ++pos[s]);
+            tree.replay(s);
+        }
+        return total;
+    }
+
+    /**
+     * Lazily merges sorted streams of integers. Only the current head of each source is held
+     * in memory, so the sources can be far larger than the heap, for example runs read back
+     * from disk. Each element costs {@code O(log k)} comparisons for {@code k} sources, and
+     * equal elements keep the order of the sources they came from.
+     *
+     * <p>The returned iterator reads the first element of every source when it is created
+     * and is not thread-safe.
+     *
+     * @param sources the iterators over sorted integers to be merged
+     * @return an iterator over the merged elements in sorted order
+     * @throws IllegalArgumentException if the array of sources or any source is null
+     */
+    public static PrimitiveIterator.OfInt mergeIterators(PrimitiveIterator.OfInt... sources) {
+        checkSources(sources);
+        return new IntMergeIterator(sources);
+    }
+
+    /**
+     * Lazily merges sorted streams of longs. Only the current head of each source is held
+     * in memory, so the sources can be far larger than the heap, for example runs read back
+     * from disk. Each element costs {@code O(log k)} comparisons for {@code k} sources, and
+     * equal elements keep the order of the sources they came from.
+     *
+     * <p>The returned iterator reads the first element of every source when it is created
+     * and is not thread-safe.
+     *
+     * @param sources the iterators over sorted longs to be merged
+     * @return an iterator over the merged elements in sorted order
+     * @throws IllegalArgumentException if the array of sources or any source is null
+     */
+    public static PrimitiveIterator.OfLong mergeIterators(PrimitiveIterator.OfLong... sources) {
+        checkSources(sources);
+        return new LongMergeIterator(sources);
+    }
+
+    /**
+     * Lazily merges sorted streams of doubles. Only the current head of each source is held
+     * in memory, so the sources can be far larger than the heap, for example runs read back
+     * from disk. Each element costs {@code O(log k)} comparisons for {@code k} sources, and
+     * equal elements keep the order of the sources they came from. Doubles are compared as
+     * by {@link Double#compare}.
+     *
+     * <p>The returned iterator reads the first element of every source when it is created
+     * and is not thread-safe.
+     *
+     * @param sources the iterators over sorted doubles to be merged
+     * @return an iterator over the merged elements in sorted order
+     * @throws IllegalArgumentException if the array of sources or any source is null
+     */
+    public static PrimitiveIterator.OfDouble mergeIterators(PrimitiveIterator.OfDouble... sources) {
+        checkSources(sources);
+        return new DoubleMergeIterator(sources);
+    }
+
+    /**
+     * Lazily merges sorted streams of objects according to a comparator. Only the current
+     * head of each source is held in memory. Each element costs {@code O(log k)} comparisons
+     * for {@code k} sources, and equal elements keep the order of the sources they came from.
+     *
+     * <p>The returned iterator reads the first element of every source when it is created
+     * and is not thread-safe. It does not support {@code remove}.
+     *
+     * @param sources the iterators to be merged, each sorted according to the comparator
+     * @param c the comparator that determines the order of the elements
+     * @return an iterator over the merged elements in sorted order
+     * @throws IllegalArgumentException if the list of sources, any source or the comparator is null
+     */
+    public static <T> Iterator<T> mergeIterators(List<? extends Iterator<? extends T>> sources, Comparator<? super T> c) {
+        checkSources(sources);
+        if(c == null) {
+            throw new IllegalArgumentException("Comparator cannot be null.");
+        }
+        return new ObjectMergeIterator<>(sources, c);
+    }
+
+    /**
+     * Writes the intersection of two sorted arrays of integers to the start of an output
+     * array: the elements found in both, in sorted order. An element that occurs {@code m}
+     * times in one array and {@code n} times in the other occurs {@code min(m, n)} times in
+     * the intersection.
+     *
+     * <p>The arrays are walked a run at a time. The end of each run is found by comparing a
+     * few elements one at a time and then by exponential search, so arrays of similar length
+     * cost about as much as a merge, while a small array intersected with a much larger one
+     * costs {@code O(m log(n / m))} comparisons rather than {@code O(m + n)}.
+     *
+     * @param arrA the first sorted array of integers
+     * @param arrB the second sorted array of integers
+     * @param out the array that receives the intersection, starting at index 0; it must be
+     * at least as long as the shorter input array
+     * @return the number of elements written to the output array
+     * @throws IllegalArgumentException if either input array or the output array is null, or
+     * the output array is too small to hold every element
+     */
+    public static int intersect(int[] arrA, int[] arrB, int[] out) {
+        // Validate input
+        if(arrA == null || arrB == null) {
+            throw new IllegalArgumentException("Input arrays cannot be null.");
+        }
+        checkOutput(out == null ? -1 : out.length, Math.min(arrA.length, arrB.length));
+
+        return setOperation(arrA, arrB, out, INTERSECTION);
+    }
+
+    /**
+     * Writes the union of two sorted arrays of integers to the start of an output array: the
+     * elements found in either, in sorted order. An element that occurs {@code m} times in
+     * one array and {@code n} times in the other occurs {@code max(m, n)} times in the
+     * union. Runs found in only one array are copied in bulk, and their ends are found as
+     * in {@link #intersect(int[], int[], int[])}.
+     *
+     * @param arrA the first sorted array of integers
+     * @param arrB the second sorted array of integers
+     * @param out the array that receives the union, starting at index 0; it must be at
+     * least as long as both input arrays together
+     * @return the number of elements written to the output array
+     * @throws IllegalArgumentException if either input array or the output array is null, or
+     * the output array is too small to hold every element
+     */
+    public static int union(int[] arrA, int[] arrB, int[] out) {
+        // Validate input
+        if(arrA == null || arrB == null) {
+            throw new IllegalArgumentException("Input arrays cannot be null.");
+        }
+        checkOutput(out == null ? -1 : out.length, combinedLength(arrA.length, arrB.length));
+
+        return setOperation(arrA, arrB, out, UNION);
+    }
+
+    /**
+     * Writes the difference of two sorted arrays of integers to the start of an output
+     * array: the elements of the first array not found in the second, in sorted order. An
+     * element that occurs {@code m} times in the first array and {@code n} times in the
+     * second occurs {@code max(m - n, 0)} times in the difference. Runs are found as in
+     * {@link #intersect(int[], int[], int[])}.
+     *
+     * @param arrA the sorted array of integers to take elements from
+     * @param arrB the sorted array of integers whose elements are removed
+     * @param out the array that receives the difference, starting at index 0; it must be at
+     * least as long as the first input array
+     * @return the number of elements written to the output array
+     * @throws IllegalArgumentException if either input array or the output array is null, or
+     * the output array is too small to hold every element
+     */
+    public static int difference(int[] arrA, int[] arrB, int[] out) {
+        // Validate input
+        if(arrA == null || arrB == null) {
+            throw new IllegalArgumentException("Input arrays cannot be null.");
+        }
+        checkOutput(out == null ? -1 : out.length, arrA.length);
+
+        return setOperation(arrA, arrB, out, DIFFERENCE);
+    }
+
+    /**
+     * Writes the symmetric difference of two sorted arrays of integers to the start of an
+     * output array: the elements found in one array but not the other, in sorted order. An
+     * element that occurs {@code m} times in one array and {@code n} times in the other
+     * occurs {@code |m - n|} times in the symmetric difference. Runs are found as in
+     * {@link #intersect(int[], int[], int[])}.
+     *
+     * @param arrA the first sorted array of integers
+     * @param arrB the second sorted array of integers
+     * @param out the array that receives the symmetric difference, starting at index 0; it
+     * must be at least as long as both input arrays together
+     * @return the number of elements written to the output array
+     * @throws IllegalArgumentException if either input array or the output array is null, or
+     * the output array is too small to hold every element
+     */
+    public static int symmetricDifference(int[] arrA, int[] arrB, int[] out) {
+        // Validate input
+        if(arrA == null || arrB == null) {
+            throw new IllegalArgumentException("Input arrays cannot be null.");
+        }
+        checkOutput(out == null ? -1 : out.length, combinedLength(arrA.length, arrB.length));
+
+        return setOperation(arrA, arrB, out, SYMMETRIC_DIFFERENCE);
+    }
+
+    /**
+     * Writes the intersection of two sorted arrays of longs to the start of an output array.
+     * See {@link #intersect(int[], int[], int[])} for how repeated elements are counted and
+     * what the operation costs.
+     *
+     * @param arrA the first sorted array of longs
+     * @param arrB the second sorted array of longs
+     * @param out the array that receives the intersection, starting at index 0; it must be
+     * at least as long as the shorter input array
+     * @return the number of elements written to the output array
+     * @throws IllegalArgumentException if either input array or the output array is null, or
+     * the output array is too small to hold every element
+     */
+    public static int intersect(long[] arrA, long[] arrB, long[] out) {
+        // Validate input
+        if(arrA == null || arrB == null) {
+            throw new IllegalArgumentException("Input arrays cannot be null.");
+        }
+        checkOutput(out == null ? -1 : out.length, Math.min(arrA.length, arrB.length));
+
+        return setOperation(arrA, arrB, out, INTERSECTION);
+    }
+
+    /**
+     * Writes the union of two sorted arrays of longs to the start of an output array. See
+     * {@link #union(int[], int[], int[])} for how repeated elements are counted.
+     *
+     * @param arrA the first sorted array of longs
+     * @param arrB the second sorted array of longs
+     * @param out the array that receives the union, starting at index 0; it must be at
+     * least as long as both input arrays together
+     * @return the number of elements written to the output array
+     * @throws IllegalArgumentException if either input array or the output array is null, or
+     * the output array is too small to hold every element
+     */
+    public static int union(long[] arrA, long[] arrB, long[] out) {
+        // Validate input
+        if(arrA == null || arrB == null) {
+            throw new IllegalArgumentException("Input arrays cannot be null.");
+        }
+        checkOutput(out == null ? -1 : out.length, combinedLength(arrA.length, arrB.length));
+
+        return setOperation(arrA, arrB, out, UNION);
+    }
+
+    /**
+     * Writes the difference of two sorted arrays of longs to the start of an output array.
+     * See {@link #difference(int[], int[], int[])} for how repeated elements are counted.
+     *
+     * @param arrA the sorted array of longs to take elements from
+     * @param arrB the sorted array of longs whose elements are removed
+     * @param out the array that receives the difference, starting at index 0; it must be at
+     * least as long as the first input array
+     * @return the number of elements written to the output array
+     * @throws IllegalArgumentException if either input array or the output array is null, or
+     * the output array is too small to hold every element
+     */
+    public static int difference(long[] arrA, long[] arrB, long[] out) {
+        // Validate input
+        if(arrA == null || arrB == null) {
+            throw new IllegalArgumentException("Input arrays cannot be null.");
+        }
+        checkOutput(out == null ? -1 : out.length, arrA.length);
+
+        return setOperation(arrA, arrB, out, DIFFERENCE);
+    }
+
+    /**
+     * Writes the symmetric difference of two sorted arrays of longs to the start of an
+     * output array. See {@link #symmetricDifference(int[], int[], int[])} for how repeated
+     * elements are counted.
+     *
+     * @param arrA the first sorted array of longs
+     * @param arrB the second sorted array of longs
+     * @param out the array that receives the symmetric difference, starting at index 0; it
+     * must be at least as long as both input arrays together
+     * @return the number of elements written to the output array
+     * @throws IllegalArgumentException if either input array or the output array is null, or
+     * the output array is too small to hold every element
+     */
+    public static int symmetricDifference(long[] arrA, long[] arrB, long[] out) {
+        // Validate input
+        if(arrA == null || arrB == null) {
+            throw new IllegalArgumentException("Input arrays cannot be null.");
+        }
+        checkOutput(out == null ? -1 : out.length, combinedLength(arrA.length, arrB.length));
+
+        return setOperation(arrA, arrB, out, SYMMETRIC_DIFFERENCE);
+    }
+
+    /**
+     * Writes the intersection of two sorted arrays of doubles to the start of an output
+     * array. Doubles are compared as by {@link Double#compare}, the order that
+     * {@link #mergeSort(double[])}, {@link #radixSort(double[])} and
+     * {@link java.util.Arrays#sort(double[])} leave them in, so {@code -0.0} is less than
+     * {@code 0.0} and NaN equals itself. See
+     * {@link #intersect(int[], int[], int[])} for how repeated elements are counted and what
+     * the operation costs.
+     *
+     * @param arrA the first sorted array of doubles
+     * @param arrB the second sorted array of doubles
+     * @param out the array that receives the intersection, starting at index 0; it must be
+     * at least as long as the shorter input array
+     * @return the number of elements written to the output array
+     * @throws IllegalArgumentException if either input array or the output array is null, or
+     * the output array is too small to hold every element
+     */
+    public static int intersect(double[] arrA, double[] arrB, double[] out) {
+        // Validate input
+        if(arrA == null || arrB == null) {
+            throw new IllegalArgumentException("Input arrays cannot be null.");
+        }
+        checkOutput(out == null ? -1 : out.length, Math.min(arrA.length, arrB.length));
+
+        return setOperation(arrA, arrB, out, INTERSECTION);
+    }
+
+    /**
+     * Writes the union of two sorted arrays of doubles to the start of an output array.
+     * Doubles are compared as by {@link Double#compare}. See
+     * {@link #union(int[], int[], int[])} for how repeated elements are counted.
+     *
+     * @param arrA the first sorted array of doubles
+     * @param arrB the second sorted array of doubles
+     * @param out the array that receives the union, starting at index 0; it must be at
+     * least as long as both input arrays together
+     * @return the number of elements written to the output array
+     * @throws IllegalArgumentException if either input array or the output array is null, or
+     * the output array is too small to hold every element
+     */
+    public static int union(double[] arrA, double[] arrB, double[] out) {
+        // Validate input
+        if(arrA == null || arrB == null) {
+            throw new IllegalArgumentException("Input arrays cannot be null.");
+        }
+        checkOutput(out == null ? -1 : out.length, combinedLength(arrA.length, arrB.length));
+
+        return setOperation(arrA, arrB, out, UNION);
+    }
+
+    /**
+     * Writes the difference of two sorted arrays of doubles to the start of an output array.
+     * Doubles are compared as by {@link Double#compare}. See
+     * {@link #difference(int[], int[], int[])} for how repeated elements are counted.
+     *
+     * @param arrA the sorted array of doubles to take elements from
+     * @param arrB the sorted array of doubles whose elements are removed
+     * @param out the array that receives the difference, starting at index 0; it must be at
+     * least as long as the first input array
+     * @return the number of elements written to the output array
+     * @throws IllegalArgumentException if either input array or the output array is null, or
+     * the output array is too small to hold every element
+     */
+    public static int difference(double[] arrA, double[] arrB, double[] out) {
+        // Validate input
+        if(arrA == null || arrB == null) {
+            throw new IllegalArgumentException("Input arrays cannot be null.");
+        }
+        checkOutput(out == null ? -1 : out.length, arrA.length);
+
+        return setOperation(arrA, arrB, out, DIFFERENCE);
+    }
+
+    /**
+     * Writes the symmetric difference of two sorted arrays of doubles to the start of an
+     * output array. Doubles are compared as by {@link Double#compare}. See
+     * {@link #symmetricDifference(int[], int[], int[])} for how repeated elements are
+     * counted.
+     *
+     * @param arrA the first sorted array of doubles
+     * @param arrB the second sorted array of doubles
+     * @param out the array that receives the symmetric difference, starting at index 0; it
+     * must be at least as long as both input arrays together
+     * @return the number of elements written to the output array
+     * @throws IllegalArgumentException if either input array or the output array is null, or
+     * the output array is too small to hold every element
+     */
+    public static int symmetricDifference(double[] arrA, double[] arrB, double[] out) {
+        // Validate input
+        if(arrA == null || arrB == null) {
+            throw new IllegalArgumentException("Input arrays cannot be null.");
+        }
+        checkOutput(out == null ? -1 : out.length, combinedLength(arrA.length, arrB.length));
+
+        return setOperation(arrA, arrB, out, SYMMETRIC_DIFFERENCE);
+    }
+
+    /**
+     * Returns the combined length of two arrays, capped at the largest array length.
+     */
+    private static int combinedLength(int lenA, int lenB) {
+        return (int) Math.min((long) lenA + lenB, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns how many copies of an element that occurs {@code countA} times in the first
+     * array and {@code countB} times in the second belong in the result of a set operation.
+     */
+    private static int runCount(int op, int countA, int countB) {
+        switch(op) {
+            case INTERSECTION: return Math.min(countA, countB);
+            case UNION: return Math.max(countA, countB);
+            case DIFFERENCE: return Math.max(countA - countB, 0);
+            default: return Math.abs(countA - countB);
+        }
+    }
+
+    /**
+     * Performs a set operation on two sorted arrays of integers. Each step takes the run of
+     * one array below the head of the other, or the runs of an element at the head of both,
+     * and copies as much of it as the operation keeps.
+     */
+    private static int setOperation(int[] arrA, int[] arrB, int[] out, int op) {
+        boolean keepA = op != INTERSECTION;
+        boolean keepB = op == UNION || op == SYMMETRIC_DIFFERENCE;
+        int i = 0, j = 0, k = 0;
+        while(i < arrA.length && j < arrB.length) {
+            int a = arrA[i], b = arrB[j];
+            if(a < b) {
+                int end = gallop(arrA, i + 1, arrA.length, b);
+                if(keepA) {
+                    System.arraycopy(arrA, i, out, k, end - i);
+                    k += end - i;
+                }
+                i = end;
+            } else if(b < a) {
+                int end = gallop(arrB, j + 1, arrB.length, a);
+                if(keepB) {
+                    System.arraycopy(arrB, j, out, k, end - j);
+                    k += end - j;
+                }
+                j = end;
+            } else {
+                int endA = a == Integer.MAX_VALUE ? arrA.length : gallop(arrA, i + 1, arrA.length, a + 1);
+                int endB = a == Integer.MAX_VALUE ? arrB.length : gallop(arrB, j + 1, arrB.length, a + 1);
+                int count = runCount(op, endA - i, endB - j);
+                Arrays.fill(out, k, k + count, a);
+                k += count;
+                i = endA;
+                j = endB;
+            }
+        }
+
+        // Add remaining elements
+        if(keepA) {
+            System.arraycopy(arrA, i, out, k, arrA.length - i);
+            k += arrA.length - i;
+        }
+        if(keepB) {
+            System.arraycopy(arrB, j, out, k, arrB.length - j);
+            k += arrB.length - j;
+        }
+        return k;
+    }
+
+    /**
+     * Performs a set operation on two sorted arrays of longs. See
+     * {@link #setOperation(int[], int[], int[], int)}.
+     */
+    private static int setOperation(long[] arrA, long[] arrB, long[] out, int op) {
+        boolean keepA = op != INTERSECTION;
+        boolean keepB = op == UNION || op == SYMMETRIC_DIFFERENCE;
+        int i = 0, j = 0, k = 0;
+        while(i < arrA.length && j < arrB.length) {
+            long a = arrA[i], b = arrB[j];
+            if(a < b) {
+                int end = gallop(arrA, i + 1, arrA.length, b);
+                if(keepA) {
+                    System.arraycopy(arrA, i, out, k, end - i);
+                    k += end - i;
+                }
+                i = end;
+            } else if(b < a) {
+                int end = gallop(arrB, j + 1, arrB.length, a);
+                if(keepB) {
+                    System.arraycopy(arrB, j, out, k, end - j);
+                    k += end - j;
+                }
+                j = end;
+            } else {
+                int endA = a == Long.MAX_VALUE ? arrA.length : gallop(arrA, i + 1, arrA.length, a + 1);
+                int endB = a == Long.MAX_VALUE ? arrB.length : gallop(arrB, j + 1, arrB.length, a + 1);
+                int count = runCount(op, endA - i, endB - j);
+                Arrays.fill(out, k, k + count, a);
+                k += count;
+                i = endA;
+                j = endB;
+            }
+        }
+
+        // Add remaining elements
+        if(keepA) {
+            System.arraycopy(arrA, i, out, k, arrA.length - i);
+            k += arrA.length - i;
+        }
+        if(keepB) {
+            System.arraycopy(arrB, j, out, k, arrB.length - j);
+            k += arrB.length - j;
+        }
+        return k;
+    }
+
+    /**
+     * Performs a set operation on two sorted arrays of doubles, comparing them by their
+     * {@link #orderedBits(double)}. See {@link #setOperation(int[], int[], int[], int)}.
+     */
+    private static int setOperation(double[] arrA, double[] arrB, double[] out, int op) {
+        boolean keepA = op != INTERSECTION;
+        boolean keepB = op == UNION || op == SYMMETRIC_DIFFERENCE;
+        int i = 0, j = 0, k = 0;
+        while(i < arrA.length && j < arrB.length) {
+            long a = orderedBits(arrA[i]), b = orderedBits(arrB[j]);
+            if(a < b) {
+                int end = gallop(arrA, i + 1, arrA.length, b);
+                if(keepA) {
+                    System.arraycopy(arrA, i, out, k, end - i);
+                    k += end - i;
+                }
+                i = end;
+            } else if(b < a) {
+                int end = gallop(arrB, j + 1, arrB.length, a);
+                if(keepB) {
+                    System.arraycopy(arrB, j, out, k, end - j);
+                    k += end - j;
+                }
+                j = end;
+            } else {
+                int endA = a == Long.MAX_VALUE ? arrA.length : gallop(arrA, i + 1, arrA.length, a + 1);
+                int endB = a == Long.MAX_VALUE ? arrB.length : gallop(arrB, j + 1, arrB.length, a + 1);
+                int count = runCount(op, endA - i, endB - j);
+                Arrays.fill(out, k, k + count, arrA[i]);
+                k += count;
+                i = endA;
+                j = endB;
+            }
+        }
+
+        // Add remaining elements
+        if(keepA) {
+            System.arraycopy(arrA, i, out, k, arrA.length - i);
+            k += arrA.length - i;
+        }
+        if(keepB) {
+            System.arraycopy(arrB, j, out, k, arrB.length - j);
+            k += arrB.length - j;
+        }
+        return k;
+    }
+
+    /**
+     * Returns the index of the first element in {@code arr[from, to)} that is not less than
+     * {@code key}. Compares the first few elements one at a time, since in arrays of similar
+     * length the answer is usually close, then doubles the step until it passes the key and
+     * binary searches the last step.
+     */
+    private static int gallop(int[] arr, int from, int to, int key) {
+        int probeEnd = to - from > GALLOP_PROBES ? from + GALLOP_PROBES : to;
+        for(; from < probeEnd; from++) {
+            if(arr[from] >= key) {
+                return from;
+            }
+        }
+
+        // Every element before from is less than the key
+        long step = GALLOP_PROBES;
+        int hi = from;
+        while(hi < to && arr[hi] < key) {
+            from = hi + 1;
+            hi = (int) Math.min(to, from + step);
+            step <<= 1;
+        }
+
+        // The answer is in [from, hi]
+        while(from < hi) {
+            int mid = (from + hi) >>> 1;
+            if(arr[mid] < key) {
+                from = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return from;
+    }
+
+    /**
+     * Returns the index of the first element in {@code arr[from, to)} that is not less than
+     * {@code key}. See {@link #gallop(int[], int, int, int)}.
+     */
+    private static int gallop(long[] arr, int from, int to, long key) {
+        int probeEnd = to - from > GALLOP_PROBES ? from + GALLOP_PROBES : to;
+        for(; from < probeEnd; from++) {
+            if(arr[from] >= key) {
+                return from;
+            }
+        }
+
+        // Every element before from is less than the key
+        long step = GALLOP_PROBES;
+        int hi = from;
+        while(hi < to && arr[hi] < key) {
+            from = hi + 1;
+            hi = (int) Math.min(to, from + step);
+            step <<= 1;
+        }
+
+        // The answer is in [from, hi]
+        while(from < hi) {
+            int mid = (from + hi) >>> 1;
+            if(arr[mid] < key) {
+                from = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return from;
+    }
+
+    /**
+     * Returns the index of the first element in {@code arr[from, to)} whose
+     * {@link #orderedBits(double)} are not less than {@code key}. See
+     * {@link #gallop(int[], int, int, int)}.
+     */
+    private static int gallop(double[] arr, int from, int to, long key) {
+        int probeEnd = to - from > GALLOP_PROBES ? from + GALLOP_PROBES : to;
+        for(; from < probeEnd; from++) {
+            if(orderedBits(arr[from]) >= key) {
+                return from;
+            }
+        }
+
+        // Every element before from is less than the key
+        long step = GALLOP_PROBES;
+        int hi = from;
+        while(hi < to && orderedBits(arr[hi]) < key) {
+            from = hi + 1;
+            hi = (int) Math.min(to, from + step);
+            step <<= 1;
+        }
+
+        // The answer is in [from, hi]
+        while(from < hi) {
+            int mid = (from + hi) >>> 1;
+            if(orderedBits(arr[mid]) < key) {
+                from = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return from;
+    }
+
+    /**
+     * Maps a double to a long whose signed order matches {@link Double#compare}. Applied to
+     * the bits of a double, the mapping is its own inverse.
+     */
+    static long orderedBits(double value) {
+        return sortableBits(value) ^ Long.MIN_VALUE;
+    }
+
+    /**
+     * Rearranges an array of integers so that the element at index {@code k} is the one
+     * that would be there if the array were sorted, with no greater element before it and
+     * no smaller element after it. Runs in linear time on average; falls back to a
+     * median-of-medians pivot if partitioning goes badly, so the worst case is also linear.
+     *
+     * @param arr the array of integers to be partially sorted
+     * @param k the index of the element to select
+     * @return the {@code k}-th smallest element, counting from zero
+     * @throws IllegalArgumentException if the input array is null, or the index is not
+     * within the bounds of the input array
+     */
+    public static int select(int[] arr, int k) {
+        // Validate input
+        if(arr == null) {
+            throw new IllegalArgumentException("Input array cannot be null.");
+        }
+        if(k < 0 || k >= arr.length) {
+            throw new IllegalArgumentException("Index must be within bounds of input array.");
+        }
+
+        select(arr, 0, arr.length - 1, k);
+        return arr[k];
+    }
+
+    /**
+     * Rearranges an array of doubles so that the element at index {@code k} is the one
+     * that would be there if the array were sorted, with no greater element before it and
+     * no smaller element after it. Runs in worst-case linear time. Elements are ordered as
+     * by {@link Double#compare}, so {@code -0.0} is less than {@code 0.0} and {@code NaN}
+     * is greater than every other value.
+     *
+     * @param arr the array of doubles to be partially sorted
+     * @param k the index of the element to select
+     * @return the {@code k}-th smallest element, counting from zero
+     * @throws IllegalArgumentException if the input array is null, or the index is not
+     * within the bounds of the input array
+     */
+    public static double select(double[] arr, int k) {
+        // Validate input
+        if(arr == null) {
+            throw new IllegalArgumentException("Input array cannot be null.");
+        }
+        if(k < 0 || k >= arr.length) {
+            throw new IllegalArgumentException("Index must be within bounds of input array.");
+        }
+
+        select(arr, 0, arr.length - 1, k);
+        return arr[k];
+    }
+
+    /**
+     * Rearranges an array of comparable objects so that the element at index {@code k} is
+     * one that would be there if the array were sorted, with no greater element before it
+     * and no smaller element after it. Runs in worst-case linear time.
+     *
+     * @param <T> the type of objects held in the array
+     * @param arr the array of objects to be partially sorted
+     * @param k the index of the element to select
+     * @return the {@code k}-th smallest element, counting from zero
+     * @throws IllegalArgumentException if the input array is null, or the index is not
+     * within the bounds of the input array
+     */
+    public static <T extends Comparable<? super T>> T select(T[] arr, int k) {
+        return select(arr, k, Comparator.naturalOrder());
+    }
+
+    /**
+     * Rearranges an array of objects so that the element at index {@code k} is one that
+     * would be there if the array were sorted by the comparator, with no greater element
+     * before it and no smaller element after it. Runs in worst-case linear time.
+     *
+     * @param <T> the type of objects held in the array
+     * @param arr the array of objects to be partially sorted
+     * @param k the index of the element to select
+     * @param c the comparator that determines the order of the elements
+     * @return the {@code k}-th smallest element, counting from zero
+     * @throws IllegalArgumentException if the input array or comparator is null, or the
+     * index is not within the bounds of the input array
+     */
+    public static <T> T select(T[] arr, int k, Comparator<? super T> c) {
+        // Validate input
+        if(arr == null) {
+            throw new IllegalArgumentException("Input array cannot be null.");
+        }
+        if(c == null) {
+            throw new IllegalArgumentException("Comparator cannot be null.");
+        }
+        if(k < 0 || k >= arr.length) {
+            throw new IllegalArgumentException("Index must be within bounds of input array.");
+        }
+
+        select(arr, 0, arr.length - 1, k, c);
+        return arr[k];
+    }
+
+    /**
+     * Returns the {@code k} greatest elements of an array of integers in descending order,
+     * without sorting the whole array. A heap of the {@code k} greatest elements seen so far
+     * is kept while streaming over the input, so this runs in {@code O(n log k)} time and
+     * leaves the input unchanged.
+     *
+     * @param arr the array of integers to search
+     * @param k the number of elements to return
+     * @return a new array holding the {@code k} greatest elements, greatest first
+     * @throws IllegalArgumentException if the input array is null, or {@code k} is negative
+     * or greater than the length of the input array
+     */
+    public static int[] topK(int[] arr, int k) {
+        // Validate input
+        if(arr == null) {
+            throw new IllegalArgumentException("Input array cannot be null.");
+        }
+        if(k < 0 || k > arr.length) {
+            throw new IllegalArgumentException("k must be between 0 and the length of the input array.");
+        }
+
+        // Build a min-heap of the first k elements, then replace its root whenever a
+        // greater element comes along
+        int[] heap = new int[k];
+        System.arraycopy(arr, 0, heap, 0, k);
+        for(int i = k / 2 - 1; i >= 0; i--) {
+            siftDown(heap, i, k);
+        }
+        for(int i = k; i < arr.length; i++) {
+            if(k > 0 && arr[i] > heap[0]) {
+                heap[0] = arr[i];
+                siftDown(heap, 0, k);
+            }
+        }
+
+        // Repeatedly move the smallest element to the back, leaving the heap in descending order
+        for(int end = k - 1; end > 0; end--) {
+            int item = heap[0];
+            heap[0] = heap[end];
+            heap[end] = item;
+            siftDown(heap, 0, end);
+        }
+        return heap;
+    }
+
+    /**
+     * Returns the {@code k} greatest elements of an array of doubles in descending order,
+     * without sorting the whole array. Runs in {@code O(n log k)} time and leaves the input
+     * unchanged. Uses the same ordering as {@link Double#compare}, like
+     * {@link #select(double[], int)}: {@code NaN} is greater than every other value, and
+     * {@code 0.0} is greater than {@code -0.0}.
+     *
+     * @param arr the array of doubles to search
+     * @param k the number of elements to return
+     * @return a new array holding the {@code k} greatest elements, greatest first
+     * @throws IllegalArgumentException if the input array is null, or {@code k} is negative
+     * or greater than the length of the input array
+     */
+    public static double[] topK(double[] arr, int k) {
+        // Validate input
+        if(arr == null) {
+            throw new IllegalArgumentException("Input array cannot be null.");
+        }
+        if(k < 0 || k > arr.length) {
+            throw new IllegalArgumentException("k must be between 0 and the length of the input array.");
+        }
+
+        // Build a min-heap of the first k elements, then replace its root whenever a
+        // greater element comes along
+        double[] heap = new double[k];
+        System.arraycopy(arr, 0, heap, 0, k);
+        for(int i = k / 2 - 1; i >= 0; i--) {
+            siftDown(heap, i, k);
+        }
+        for(int i = k; i < arr.length; i++) {
+            if(k > 0 && orderedBits(arr[i]) > orderedBits(heap[0])) {
+                heap[0] = arr[i];
+                siftDown(heap, 0, k);
+            }
+        }
+
+        // Repeatedly move the smallest element to the back, leaving the heap in descending order
+        for(int end = k - 1; end > 0; end--) {
+            double item = heap[0];
+            heap[0] = heap[end];
+            heap[end] = item;
+            siftDown(heap, 0, end);
+        }
+        return heap;
+    }
+
+    /**
+     * Returns the {@code k} greatest elements of an array of comparable objects in
+     * descending order, without sorting the whole array. Runs in {@code O(n log k)} time
+     * and leaves the input unchanged.
+     *
+     * @param <T> the type of objects held in the array
+     * @param arr the array of objects to search
+     * @param k the number of elements to return
+     * @return a new array holding the {@code k} greatest elements, greatest first
+     * @throws IllegalArgumentException if the input array is null, or {@code k} is negative
+     * or greater than the length of the input array
+     */
+    public static <T extends Comparable<? super T>> T[] topK(T[] arr, int k) {
+        return topK(arr, k, Comparator.naturalOrder());
+    }
+
+    /**
+     * Returns the {@code k} greatest elements of an array of objects according to a
+     * comparator, in descending order, without sorting the whole array. Runs in
+     * {@code O(n log k)} time and leaves the input unchanged.
+     *
+     * @param <T> the type of objects held in the array
+     * @param arr the array of objects to search
+     * @param k the number of elements to return
+     * @param c the comparator that determines the order of the elements
+     * @return a new array holding the {@code k} greatest elements, greatest first
+     * @throws IllegalArgumentException if the input array or comparator is null, or
+     * {@code k} is negative or greater than the length of the input array
+     */
+    public static <T> T[] topK(T[] arr, int k, Comparator<? super T> c) {
+        // Validate input
+        if(arr == null) {
+            throw new IllegalArgumentException("Input array cannot be null.");
+        }
+        if(c == null) {
+            throw new IllegalArgumentException("Comparator cannot be null.");
+        }
+        if(k < 0 || k > arr.length) {
+            throw new IllegalArgumentException("k must be between 0 and the length of the input array.");
+        }
+
+        // Build a min-heap of the first k elements, then replace its root whenever a
+        // greater element comes along
+        T[] heap = Arrays.copyOf(arr, k);
+        for(int i = k / 2 - 1; i >= 0; i--) {
+            siftDown(heap, i, k, c);
+        }
+        for(int i = k; i < arr.length; i++) {
+            if(k > 0 && c.compare(arr[i], heap[0]) > 0) {
+                heap[0] = arr[i];
+                siftDown(heap, 0, k, c);
+            }
+        }
+
+        // Repeatedly move the smallest element to the back, leaving the heap in descending order
+        for(int end = k - 1; end > 0; end--) {
+            T item = heap[0];
+            heap[0] = heap[end];
+            heap[end] = item;
+            siftDown(heap, 0, end, c);
+        }
+        return heap;
+    }
+
+    /**
+     * Performs a binary search on a sorted array of integers to find the index of a specific element.
+     * For many searches against the same array, {@link HIntIndex} is faster.
+     *
+     * @param arr the sorted array of integers to be searched
+     * @param target the element to search for
+     * @return the index of the element, or -1 if it is not found
+     * @throws IllegalArgumentException if the input array is null
+     */
+    public static int binarySearch(int[] arr, int target) {
+        // Validate input
+        if(arr == null) {
+            throw new IllegalArgumentException("Input array cannot be null.");
+        }
+
+        int low = 0;
+        int high = arr.length - 1;
+        int mid;
+
+        while(low <= high) {
+            mid = (low + high) / 2;
+            if(arr[mid] == target) {
+                return mid;
+            } else if(arr[mid] < target) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Performs a binary search on a sorted array of doubles to find the index of a specific element.
+     * For many searches against the same array, {@link HDoubleIndex} is faster.
+     *
+     * @param arr the sorted array of doubles to be searched
+     * @param target the element to search for
+     * @return the index of the element, or -1 if it is not found
+     * @throws IllegalArgumentException if the input array is null
+     */
+    public static int binarySearch(double[] arr, double target) {
+        // Validate input
+        if(arr == null) {
+            throw new IllegalArgumentException("Input array cannot be null.");
+        }
+
+        int low = 0;
+        int high = arr.length - 1;
+        int mid;
+
+        while(low <= high) {
+            mid = (low + high) / 2;
+            if(arr[mid] == target) {
+                return mid;
+            } else if(arr[mid] < target) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Performs a binary search on a sorted array of comparable objects to find the index of a specific element.
+     *
+     * @param arr the sorted array of comparable objects to be searched
+     * @param target the element to search for
+     * @return the index of the element, or -1 if it is not found
+     * @throws IllegalArgumentException if the input array is null
+     */
+    public static <T extends Comparable<T>> int binarySearch(T[] arr, T target) {
+        // Validate input
+        if(arr == null) {
+            throw new IllegalArgumentException("Input array cannot be null.");
+        }
+
+        int low = 0;
+        int high = arr.length - 1;
+        int mid;
+
+        while(low <= high) {
+            mid = (low + high) >>> 1;
+            int cmp = arr[mid].compareTo(target);
+            if(cmp == 0) {
+                return mid;
+            } else if(cmp < 0) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Performs a binary search on a sorted off-heap array of integers to find the index of a
+     * specific element.
+     *
+     * @param arr the sorted off-heap array of integers to be searched
+     * @param target the element to search for
+     * @return the index of the element, or -1 if it is not found
+     * @throws IllegalArgumentException if the input array is null
+     * @throws IllegalStateException if the input array is closed
+     */
+    public static long binarySearch(HOffHeapIntArray arr, int target) {
+        // Validate input
+        if(arr == null) {
+            throw new IllegalArgumentException("Input array cannot be null.");
+        }
+
+        long low = 0;
+        long high = arr.length() - 1;
+        long mid;
+
+        while(low <= high) {
+            mid = (low + high) >>> 1;
+            int item = arr.get(mid);
+            if(item == target) {
+                return mid;
+            } else if(item < target) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Performs a binary search on a sorted off-heap array of doubles to find the index of a
+     * specific element.
+     *
+     * @param arr the sorted off-heap array of doubles to be searched
+     * @param target the element to search for
+     * @return the index of the element, or -1 if it is not found
+     * @throws IllegalArgumentException if the input array is null
+     * @throws IllegalStateException if the input array is closed
+     */
+    public static long binarySearch(HOffHeapDoubleArray arr, double target) {
+        // Validate input
+        if(arr == null) {
+            throw new IllegalArgumentException("Input array cannot be null.");
+        }
+
+        long low = 0;
+        long high = arr.length() - 1;
+        long mid;
+
+        while(low <= high) {
+            mid = (low + high) >>> 1;
+            double item = arr.get(mid);
+            if(item == target) {
+                return mid;
+            } else if(item < target) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Copies a portion of an array of integers into a new array.
+     *
+     * @param arr the input array of integers to be copied from
+     * @param a the starting index (inclusive) of the input array to be copied from
+     * @param b the ending index (exclusive) of the input array to be copied from
+     * @return the array containing elements from index {@code a} (inclusive) to {@code b} (exclusive) of the input array
+     * @throws IllegalArgumentException if the input array is null, the indices are not within
+     * the bounds on the input array, or the start index is greater than the end index.
+     */
+    public static int[] arrayCopy(int[] arr, int a, int b) {
+        // Validate input
+        if (arr == null) {
+            throw new IllegalArgumentException("Input array cannot be null.");
+        }
+        if (a < 0 || b > arr.length) {
+            throw new IllegalArgumentException("Indices must be within bounds of input array.");
+        }
+        if(a > b) {
+            throw new IllegalArgumentException("Start index cannot be greater than end index.");
+        }
+
+        // Create and populate new array
+        int[] returnArr = new int[b-a+1];
+        for(int i = a; i < b; i++) {
+            returnArr[i-a] = arr[i];
+        }
+
+        return returnArr;
+    }
+
+    /**
+     * Copies a portion of an array of doubles into a new array.
+     *
+     * @param arr the input array of doubles to be copied from
+     * @param a the starting index (inclusive) of the input array to be copied from
+     * @param b the ending index (exclusive) of the input array to be copied from
+     * @return the array containing elements from index {@code a} (inclusive) to {@code b} (exclusive) of the input array
+     * @throws IllegalArgumentException if the input array is null, the indices are not within
+     * the bounds on the input array, or the start index is greater than the end index.
+     */
+    public static double[] arrayCopy(double[] arr, int a, int b) {
+        // Validate input
+        if (arr == null) {
+            throw new IllegalArgumentException("Input array cannot be null.");
+        }
+        if (a < 0 || b > arr.length) {
+            throw new IllegalArgumentException("Indices must be within bounds of input array.");
+        }
+        if(a > b) {
+            throw new IllegalArgumentException("Start index cannot be greater than end index.");
+        }
+
+        // Create and populate new array
+        double[] returnArr = new double[b-a+1];
+        for(int i = a; i < b; i++) {
+            returnArr[i-a] = arr[i];
+        }
+
+        return returnArr;
+    }
+
+    /**
+     * Checks if an array of integers contains a specified element.
+     *
+     * @param arr the array of integers to search
+     * @param item the integer to look for in the array
+     * @return {@code true} if the array contains the integer, {@code false} otherwise
+     * @throws IllegalArgumentException if the input array is null
+     */
+    public static boolean contains(int[] arr, int item) {
+        return indexOf(arr, item) != -1;
+    }
+
+    /**
+     * Checks if an array of doubles contains a specified value. Elements are compared
+     * with {@code ==}, so {@code NaN} is never found and {@code 0.0} matches {@code -0.0}.
+     *
+     * @param arr the array of doubles to search
+     * @param item the double to look for in the array
+     * @return {@code true} if the array contains the double, {@code false} otherwise
+     * @throws IllegalArgumentException if the input array is null
+     */
+    public static boolean contains(double[] arr, double item) {
+        return indexOf(arr, item) != -1;
+    }
+
+    /**
+     * Checks if an array of objects contains a specified element.
+     *
+     * @param <T> the type of objects held in the array
+     * @param arr the array of elements to search
+     * @param item the object to search for in the array
+     * @return {@code true} if the array contains the object, {@code false} otherwise
+     * @throws IllegalArgumentException if the input array is null
+     */
+    public static <T> boolean contains(T[] arr, double item) {
+        return indexOf(arr, item) != -1;
+    }
+
+    /**
+     * Finds the index of the first occurrence of a specified element in an array of integers.
+     *
+     * @param arr the array of integers to search
+     * @param item the integer to search for in the array
+     * @return the index of the first occurrence of the integer, or -1 if it is not found
+     * @throws IllegalArgumentException if the input array is null
+     */
+    public static int indexOf(int[] arr, int item) {
+        // Validate input
+        if(arr == null) {
+            throw new IllegalArgumentException("Input array cannot be null.");
+        }
+
+        return scanForward(arr, item, 0, arr.length);
+    }
+
+    /**
+     * Finds the index of the first occurrence of a specified element in an array of doubles.
+     * Elements are compared with {@code ==}, so {@code NaN} is never found and {@code 0.0}
+     * matches {@code -0.0}.
+     *
+     * @param arr the array of doubles to search
+     * @param item the double to search for in the array
+     * @return the index of the first occurrence of the double, or -1 if it is not found
+     * @throws IllegalArgumentException if the input array is null
+     */
+    public static int indexOf(double[] arr, double item) {
+        // Validate input
+        if(arr == null) {
+            throw new IllegalArgumentException("Input array cannot be null.");
+        }
+
+        return scanForward(arr, item, 0, arr.length);
+    }
+
+    /**
+     * Finds the index of the first occurrence of a specified element in the range
+     * {@code [from, to)} of an array of integers.
+     *
+     * @param arr the array of integers to search
+     * @param item the integer to search for in the array
+     * @param from the starting index (inclusive) of the range to search
+     * @param to the ending index (exclusive) of the range to search
+     * @return the index of the first occurrence of the integer, or -1 if it is not found
+     * @throws IllegalArgumentException if the input array is null, the indices are not within
+     * the bounds of the input array, or the start index is greater than the end index.
+     */
+    public static int indexOf(int[] arr, int item, int from, int to) {
+        // Validate input
+        if(arr == null) {
+            throw new IllegalArgumentException("Input array cannot be null.");
+        }
+        checkRange(arr.length, from, to);
+
+        return scanForward(arr, item, from, to);
+    }
+
+    /**
+     * Finds the index of the first occurrence of a specified element in the range
+     * {@code [from, to)} of an array of doubles, comparing elements with {@code ==}.
+     *
+     * @param arr the array of doubles to search
+     * @param item the double to search for in the array
+     * @param from the starting index (inclusive) of the range to search
+     * @param to the ending index (exclusive) of the range to search
+     * @return the index of the first occurrence of the double, or -1 if it is not found
+     * @throws IllegalArgumentException if the input array is null, the indices are not within
+     * the bounds of the input array, or the start index is greater than the end index.
+     */
+    public static int indexOf(double[] arr, double item, int from, int to) {
+        // Validate input
+        if(arr == null) {
+            throw new IllegalArgumentException("Input array cannot be null.");
+        }
+        checkRange(arr.length, from, to);
+
+        return scanForward(arr, item, from, to);
+    }
+
+    /**
+     * Finds the index of the first occurrence of an element in an off-heap array of integers.
+     * The array is streamed through a small on-heap window, so the scan uses the same
+     * unrolled kernel as {@link #indexOf(int[], int)} without copying the array onto the heap.
+     *
+     * @param arr the off-heap array of integers to search
+     * @param item the integer to search for
+     * @return the index of the first occurrence of the element, or -1 if it is not found
+     * @throws IllegalArgumentException if the input array is null
+     * @throws IllegalStateException if the input array is closed
+     */
+    public static long indexOf(HOffHeapIntArray arr, int item) {
+        // Validate input
+        if(arr == null) {
+            throw new IllegalArgumentException("Input array cannot be null.");
+        }
+
+        long len = arr.length();
+        int[] window = new int[(int) Math.min(OFF_HEAP_WINDOW, len)];
+        for(long i = 0; i < len; i += window.length) {
+            int n = (int) Math.min(window.length, len - i);
+            arr.copyTo(i, window, 0, n);
+            int j = scanForward(window, item, 0, n);
+            if(j != -1) {
+                return i + j;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the index of the first occurrence of an element in an off-heap array of doubles.
+     * The array is streamed through a small on-heap window, so the scan uses the same
+     * unrolled kernel as {@link #indexOf(double[], double)} without copying the array onto
+     * the heap.
+     *
+     * @param arr the off-heap array of doubles to search
+     * @param item the double to search for
+     * @return the index of the first occurrence of the element, or -1 if it is not found
+     * @throws IllegalArgumentException if the input array is null
+     * @throws IllegalStateException if the input array is closed
+     */
+    public static long indexOf(HOffHeapDoubleArray arr, double item) {
+        // Validate input
+        if(arr == null) {
+            throw new IllegalArgumentException("Input array cannot be null.");
+        }
+
+        long len = arr.length();
+        double[] window = new double[(int) Math.min(OFF_HEAP_WINDOW, len)];
+        for(long i = 0; i < len; i += window.length) {
+            int n = (int) Math.min(window.length, len - i);
+            arr.copyTo(i, window, 0, n);
+            int j = scanForward(window, item, 0, n);
+            if(j != -1) {
+                return i + j;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the index of the last occurrence of a specified element in an array of integers.
+     *
+     * @param arr the array of integers to search
+     * @param item the integer to search for in the array
+     * @return the index of the last occurrence of the integer, or -1 if it is not found
+     * @throws IllegalArgumentException if the input array is null
+     */
+    public static int lastIndexOf(int[] arr, int item) {
+        // Validate input
+        if(arr == null) {
+            throw new IllegalArgumentException("Input array cannot be null.");
+        }
+
+        return scanBackward(arr, item, 0, arr.length);
+    }
+
+    /**
+     * Finds the index of the last occurrence of a specified element in an array of doubles,
+     * comparing elements with {@code ==}.
+     *
+     * @param arr the array of doubles to search
+     * @param item the double to search for in the array
+     * @return the index of the last occurrence of the double, or -1 if it is not found
+     * @throws IllegalArgumentException if the input array is null
+     */
+    public static int lastIndexOf(double[] arr, double item) {
+        // Validate input
+        if(arr == null) {
+            throw new IllegalArgumentException("Input array cannot be null.");
+        }
+
+        return scanBackward(arr, item, 0, arr.length);
+    }
+
+    /**
+     * Finds the index of the last occurrence of a specified element in the range
+     * {@code [from, to)} of an array of integers.
+     *
+     * @param arr the array of integers to search
+     * @param item the integer to search for in the array
+     * @param from the starting index (inclusive) of the range to search
+     * @param to the ending index (exclusive) of the range to search
+     * @return the index of the last occurrence of the integer, or -1 if it is not found
+     * @throws IllegalArgumentException if the input array is null, the indices are not within
+     * the bounds of the input array, or the start index is greater than the end index.
+     */
+    public static int lastIndexOf(int[] arr, int item, int from, int to) {
+        // Validate input
+        if(arr == null) {
+            throw new IllegalArgumentException("Input array cannot be null.");
+        }
+        checkRange(arr.length, from, to);
+
+        return scanBackward(arr, item, from, to);
+    }
+
+    /**
+     * Finds the index of the last occurrence of a specified element in the range
+     * {@code [from, to)} of an array of doubles, comparing elements with {@code ==}.
+     *
+     * @param arr the array of doubles to search
+     * @param item the double to search for in the array
+     * @param from the starting index (inclusive) of the range to search
+     * @param to the ending index (exclusive) of the range to search
+     * @return the index of the last occurrence of the double, or -1 if it is not found
+     * @throws IllegalArgumentException if the input array is null, the indices are not within
+     * the bounds of the input array, or the start index is greater than the end index.
+     */
+    public static int lastIndexOf(double[] arr, double item, int from, int to) {
+        // Validate input
+        if(arr == null) {
+            throw new IllegalArgumentException("Input array cannot be null.");
+        }
+        checkRange(arr.length, from, to);
+
+        return scanBackward(arr, item, from, to);
+    }
+
+    /**
+     * Counts the occurrences of a specified element in an array of integers.
+     *
+     * @param arr the array of integers to search
+     * @param item the integer to count
+     * @return the number of elements equal to the integer
+     * @throws IllegalArgumentException if the input array is null
+     */
+    public static int count(int[] arr, int item) {
+        // Validate input
+        if(arr == null) {
+            throw new IllegalArgumentException("Input array cannot be null.");
+        }
+
+        return count(arr, item, 0, arr.length);
+    }
+
+    /**
+     * Counts the occurrences of a specified element in an array of doubles, comparing
+     * elements with {@code ==}.
+     *
+     * @param arr the array of doubles to search
+     * @param item the double to count
+     * @return the number of elements equal to the double
+     * @throws IllegalArgumentException if the input array is null
+     */
+    public static int count(double[] arr, double item) {
+        // Validate input
+        if(arr == null) {
+            throw new IllegalArgumentException("Input array cannot be null.");
+        }
+
+        return count(arr, item, 0, arr.length);
+    }
+
+    /**
+     * Counts the occurrences of a specified element in the range {@code [from, to)} of an
+     * array of integers.
+     *
+     * @param arr the array of integers to search
+     * @param item the integer to count
+     * @param from the starting index (inclusive) of the range to search
+     * @param to the ending index (exclusive) of the range to search
+     * @return the number of elements in the range equal to the integer
+     * @throws IllegalArgumentException if the input array is null, the indices are not within
+     * the bounds of the input array, or the start index is greater than the end index.
+     */
+    public static int count(int[] arr, int item, int from, int to) {
+        // Validate input
+        if(arr == null) {
+            throw new IllegalArgumentException("Input array cannot be null.");
+        }
+        checkRange(arr.length, from, to);
+
+        // Independent counters let the loop run without a dependency between iterations
+        int c0 = 0, c1 = 0, c2 = 0, c3 = 0;
+        int i = from;
+        for(int end = to - 3; i < end; i += 4) {
+            c0 += arr[i] == item ? 1 : 0;
+            c1 += arr[i + 1] == item ? 1 : 0;
+            c2 += arr[i + 2] == item ? 1 : 0;
+            c3 += arr[i + 3] == item ? 1 : 0;
+        }
+        for(; i < to; i++) {
+            c0 += arr[i] == item ? 1 : 0;
+        }
+        return c0 + c1 + c2 + c3;
+    }
+
+    /**
+     * Counts the occurrences of a specified element in the range {@code [from, to)} of an
+     * array of doubles, comparing elements with {@code ==}.
+     *
+     * @param arr the array of doubles to search
+     * @param item the double to count
+     * @param from the starting index (inclusive) of the range to search
+     * @param to the ending index (exclusive) of the range to search
+     * @return the number of elements in the range equal to the double
+     * @throws IllegalArgumentException if the input array is null, the indices are not within
+     * the bounds of the input array, or the start index is greater than the end index.
+     */
+    public static int count(double[] arr, double item, int from, int to) {
+        // Validate input
+        if(arr == null) {
+            throw new IllegalArgumentException("Input array cannot be null.");
+        }
+        checkRange(arr.length, from, to);
+
+        // Independent counters let the loop run without a dependency between iterations
+        int c0 = 0, c1 = 0, c2 = 0, c3 = 0;
+        int i = from;
+        for(int end = to - 3; i < end; i += 4) {
+            c0 += arr[i] == item ? 1 : 0;
+            c1 += arr[i + 1] == item ? 1 : 0;
+            c2 += arr[i + 2] == item ? 1 : 0;
+            c3 += arr[i + 3] == item ? 1 : 0;
+        }
+        for(; i < to; i++) {
+            c0 += arr[i] == item ? 1 : 0;
+        }
+        return c0 + c1 + c2 + c3;
+    }
+
+    /**
+     * Finds the index of the first occurrence of a specified element in an array of objects.
+     *
+     * @param <T> the type of objects held in the array
+     * @param arr the array of elements to search
+     * @param item the object to search for in the array
+     * @return the index of the first occurrence of the object, or -1 if the item is not found
+     * @throws IllegalArgumentException if the input array is null
+     */
+    public static <T> int indexOf(T[] arr, T item) {
+        // Validate input
+        if(arr == null) {
+            throw new IllegalArgumentException("Input array cannot be null.");
+        }
+
+        // Iterate through elements in array
+        for(int i = 0; i < arr.length; i++) {
+            if(arr[i] == item) {
+                return i;
+            }
+        }
+
+        return -1; // No matching elements
+    }
+
+    /**
+     * Converts an array of primitive integers to an array of {@link Integer} elements.
+     *
+     * @param arr the array of primitive integers to be boxed
+     * @return the array of {@link Integer} elements corresponding to the elements in the input array
+     * @throws IllegalArgumentException if the input array is {@code null}
+     */
+    public static Integer[] boxInteger(int[] arr) {
+        // Validate input
+        if(arr == null) {
+            throw new IllegalArgumentException("Input array cannot be null.");
+        }
+
+        Integer[] returnArr = new Integer[arr.length];
+        // Iterate through all elements in array
+        for (int i = 0; i < arr.length; i++) {
+            returnArr[i] = arr[i]; // Box each int to Integer
+        }
+
+        return returnArr;
+    }
+
+    /**
+     * Converts an array of primitive doubles to an array of {@link Double} elements.
+     *
+     * @param arr the array of primitive doubles to be boxed
+     * @return the array of {@link Double} elements corresponding to the elements in the input array
+     * @throws IllegalArgumentException if the input array is {@code null}
+     */
+    public static Double[] boxDouble(double[] arr) {
+        // Validate input
+        if(arr == null) {
+            throw new IllegalArgumentException("Input array cannot be null.");
+        }
+
+        Double[] returnArr = new Double[arr.length];
+        // Iterate through all elements in array
+        for (int i = 0; i < arr.length; i++) {
+            returnArr[i] = arr[i]; // Box each double to Double
+        }
+
+        return returnArr;
+    }
+
+    /**
+     * Sorts a range of integers by sorting both halves in parallel and then merging them
+     * with an {@link IntMergeTask}. Follows the same ping-pong contract as
+     * {@link #mergeSort(int[], int, int[], int, int)}.
+     */
+    private static final class IntSortTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int[] src;
+        private final int srcOff;
+        private final int[] dst;
+        private final int dstOff;
+        private final int len;
+        private final int threshold;
+
+        IntSortTask(int[] src, int srcOff, int[] dst, int dstOff, int len, int threshold) {
+            this.src = src;
+            this.srcOff = srcOff;
+            this.dst = dst;
+            this.dstOff = dstOff;
+            this.len = len;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if(len <= threshold) {
+                mergeSort(src, srcOff, dst, dstOff, len);
+                return;
+            }
+
+            int half = len >>> 1;
+            invokeAll(new IntSortTask(dst, dstOff, src, srcOff, half, threshold),
+                    new IntSortTask(dst, dstOff + half, src, srcOff + half, len - half, threshold));
+
+            if(src[srcOff + half - 1] <= src[srcOff + half]) {
+                System.arraycopy(src, srcOff, dst, dstOff, len);
+                return;
+            }
+            new IntMergeTask(src, srcOff, srcOff + half, srcOff + half, srcOff + len, dst, dstOff, threshold).compute();
+        }
+    }
+
+    /**
+     * Merges two sorted runs of integers by splitting the longer run at its median,
+     * locating that value in the shorter run, and merging both sides in parallel.
+     */
+    private static final class IntMergeTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int[] src;
+        private final int a;
+        private final int aEnd;
+        private final int b;
+        private final int bEnd;
+        private final int[] dst;
+        private final int k;
+        private final int threshold;
+
+        IntMergeTask(int[] src, int a, int aEnd, int b, int bEnd, int[] dst, int k, int threshold) {
+            this.src = src;
+            this.a = a;
+            this.aEnd = aEnd;
+            this.b = b;
+            this.bEnd = bEnd;
+            this.dst = dst;
+            this.k = k;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if((aEnd - a) + (bEnd - b) <= threshold) {
+                mergeRuns(src, a, aEnd, b, bEnd, dst, k);
+                return;
+            }
+
+            int aMid, bMid;
+            if(aEnd - a >= bEnd - b) {
+                aMid = (a + aEnd) >>> 1;
+                bMid = b;
+                int high = bEnd;
+                while(bMid < high) { // First element of the second run not less than the median
+                    int mid = (bMid + high) >>> 1;
+                    if(src[mid] < src[aMid]) { bMid = mid + 1; } else { high = mid; }
+                }
+            } else {
+                bMid = (b + bEnd) >>> 1;
+                aMid = a;
+                int high = aEnd;
+                while(aMid < high) { // First element of the first run greater than the median
+                    int mid = (aMid + high) >>> 1;
+                    if(src[mid] <= src[bMid]) { aMid = mid + 1; } else { high = mid; }
+                }
+            }
+
+            invokeAll(new IntMergeTask(src, a, aMid, b, bMid, dst, k, threshold),
+                    new IntMergeTask(src, aMid, aEnd, bMid, bEnd, dst, k + (aMid - a) + (bMid - b), threshold));
+        }
+    }
+
+    /**
+     * Sorts a range of doubles by sorting both halves in parallel and then merging them
+     * with a {@link DoubleMergeTask}. Follows the same ping-pong contract as
+     * {@link #mergeSort(double[], int, double[], int, int)}.
+     */
+    private static final class DoubleSortTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final double[] src;
+        private final int srcOff;
+        private final double[] dst;
+        private final int dstOff;
+        private final int len;
+        private final int threshold;
+
+        DoubleSortTask(double[] src, int srcOff, double[] dst, int dstOff, int len, int threshold) {
+            this.src = src;
+            this.srcOff = srcOff;
+            this.dst = dst;
+            this.dstOff = dstOff;
+            this.len = len;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if(len <= threshold) {
+                mergeSort(src, srcOff, dst, dstOff, len);
+                return;
+            }
+
+            int half = len >>> 1;
+            invokeAll(new DoubleSortTask(dst, dstOff, src, srcOff, half, threshold),
+                    new DoubleSortTask(dst, dstOff + half, src, srcOff + half, len - half, threshold));
+
+            if(orderedBits(src[srcOff + half - 1]) <= orderedBits(src[srcOff + half])) {
+                System.arraycopy(src, srcOff, dst, dstOff, len);
+                return;
+            }
+            new DoubleMergeTask(src, srcOff, srcOff + half, srcOff + half, srcOff + len, dst, dstOff, threshold).compute();
+        }
+    }
+
+    /**
+     * Merges two sorted runs of doubles by splitting the longer run at its median,
+     * locating that value in the shorter run, and merging both sides in parallel.
+     */
+    private static final class DoubleMergeTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final double[] src;
+        private final int a;
+        private final int aEnd;
+        private final int b;
+        private final int bEnd;
+        private final double[] dst;
+        private final int k;
+        private final int threshold;
+
+        DoubleMergeTask(double[] src, int a, int aEnd, int b, int bEnd, double[] dst, int k, int threshold) {
+            this.src = src;
+            this.a = a;
+            this.aEnd = aEnd;
+            this.b = b;
+            this.bEnd = bEnd;
+            this.dst = dst;
+            this.k = k;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if((aEnd - a) + (bEnd - b) <= threshold) {
+                mergeRuns(src, a, aEnd, b, bEnd, dst, k);
+                return;
+            }
+
+            int aMid, bMid;
+            if(aEnd - a >= bEnd - b) {
+                aMid = (a + aEnd) >>> 1;
+                bMid = b;
+                int high = bEnd;
+                while(bMid < high) { // First element of the second run not less than the median
+                    int mid = (bMid + high) >>> 1;
+                    if(orderedBits(src[mid]) < orderedBits(src[aMid])) { bMid = mid + 1; } else { high = mid; }
+                }
+            } else {
+                bMid = (b + bEnd) >>> 1;
+                aMid = a;
+                int high = aEnd;
+                while(aMid < high) { // First element of the first run greater than the median
+                    int mid = (aMid + high) >>> 1;
+                    if(orderedBits(src[mid]) <= orderedBits(src[bMid])) { aMid = mid + 1; } else { high = mid; }
+                }
+            }
+
+            invokeAll(new DoubleMergeTask(src, a, aMid, b, bMid, dst, k, threshold),
+                    new DoubleMergeTask(src, aMid, aEnd, bMid, bEnd, dst, k + (aMid - a) + (bMid - b), threshold));
+        }
+    }
+
+    /**
+     * Stably sorts a range of objects by sorting both halves in parallel and then merging
+     * them with an {@link ObjectMergeTask}. Leaves are sorted in place in {@code dst}, so
+     * unlike the primitive tasks only {@code dst} needs to hold the elements on entry.
+     */
+    private static final class ObjectSortTask<T> extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final T[] src;
+        private final int srcOff;
+        private final T[] dst;
+        private final int dstOff;
+        private final int len;
+        private final int threshold;
+        private final Comparator<? super T> c;
+
+        ObjectSortTask(T[] src, int srcOff, T[] dst, int dstOff, int len, int threshold, Comparator<? super T> c) {
+            this.src = src;
+            this.srcOff = srcOff;
+            this.dst = dst;
+            this.dstOff = dstOff;
+            this.len = len;
+            this.threshold = threshold;
+            this.c = c;
+        }
+
+        @Override
+        protected void compute() {
+            if(len <= threshold) {
+                Arrays.sort(dst, dstOff, dstOff + len, c);
+                return;
+            }
+
+            int half = len >>> 1;
+            invokeAll(new ObjectSortTask<>(dst, dstOff, src, srcOff, half, threshold, c),
+                    new ObjectSortTask<>(dst, dstOff + half, src, srcOff + half, len - half, threshold, c));
+
+            if(c.compare(src[srcOff + half - 1], src[srcOff + half]) <= 0) {
+                System.arraycopy(src, srcOff, dst, dstOff, len);
+                return;
+            }
+            new ObjectMergeTask<>(src, srcOff, srcOff + half, srcOff + half, srcOff + len, dst, dstOff, threshold, c).compute();
+        }
+    }
+
+    /**
+     * Stably merges two sorted runs of objects in parallel. Elements of the second run
+     * equal to the split value are always placed after those of the first run.
+     */
+    private static final class ObjectMergeTask<T> extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final T[] src;
+        private final int a;
+        private final int aEnd;
+        private final int b;
+        private final int bEnd;
+        private final T[] dst;
+        private final int k;
+        private final int threshold;
+        private final Comparator<? super T> c;
+
+        ObjectMergeTask(T[] src, int a, int aEnd, int b, int bEnd, T[] dst, int k, int threshold, Comparator<? super T> c) {
+            this.src = src;
+            this.a = a;
+            this.aEnd = aEnd;
+            this.b = b;
+            this.bEnd = bEnd;
+            this.dst = dst;
+            this.k = k;
+            this.threshold = threshold;
+            this.c = c;
+        }
+
+        @Override
+        protected void compute() {
+            if((aEnd - a) + (bEnd - b) <= threshold) {
+                mergeRuns(src, a, aEnd, b, bEnd, dst, k, c);
+                return;
+            }
+
+            int aMid, bMid;
+            if(aEnd - a >= bEnd - b) {
+                aMid = (a + aEnd) >>> 1;
+                bMid = b;
+                int high = bEnd;
+                while(bMid < high) { // First element of the second run not less than the median
+                    int mid = (bMid + high) >>> 1;
+                    if(c.compare(src[mid], src[aMid]) < 0) { bMid = mid + 1; } else { high = mid; }
+                }
+            } else {
+                bMid = (b + bEnd) >>> 1;
+                aMid = a;
+                int high = aEnd;
+                while(aMid < high) { // First element of the first run greater than the median
+                    int mid = (aMid + high) >>> 1;
+                    if(c.compare(src[mid], src[bMid]) <= 0) { aMid = mid + 1; } else { high = mid; }
+                }
+            }
+
+            invokeAll(new ObjectMergeTask<>(src, a, aMid, b, bMid, dst, k, threshold, c),
+                    new ObjectMergeTask<>(src, aMid, aEnd, bMid, bEnd, dst, k + (aMid - a) + (bMid - b), threshold, c));
+        }
+    }
+
+    /**
+     * A tournament tree over {@code k} sorted sources of integers. Leaf {@code k + s} stands
+     * for source {@code s}, each internal node stores the source that lost the match played
+     * there, and node 0 holds the overall winner. After the winner's source advances, only
+     * the matches on the path from its leaf to the root are replayed, one comparison per
+     * level. Exhausted sources lose to everything, and ties go to the lower source so the
+     * merge is stable.
+     */
+    private static final class IntLoserTree {
+
+        final int[] keys;
+        private final boolean[] done;
+        private final int[] tree;
+        private final int k;
+
+        IntLoserTree(int k) {
+            this.k = k;
+            this.keys = new int[k];
+            this.done = new boolean[k];
+            this.tree = new int[Math.max(k, 1)];
+        }
+
+        /**
+         * Sets the head of source {@code s} to {@code arr[i]}, or marks it exhausted.
+         */
+        void set(int s, int[] arr, int i) {
+            if(i < arr.length) {
+                keys[s] = arr[i];
+            } else {
+                done[s] = true;
+            }
+        }
+
+        void set(int s, int key) {
+            keys[s] = key;
+        }
+
+        void finish(int s) {
+            done[s] = true;
+        }
+
+        boolean isDone(int s) {
+            return done[s];
+        }
+
+        /**
+         * Plays every match once all heads are set.
+         */
+        void build() {
+            int[] winners = new int[2 * k];
+            for(int s = 0; s < k; s++) {
+                winners[k + s] = s;
+            }
+            for(int node = k - 1; node >= 1; node--) {
+                int a = winners[2 * node];
+                int b = winners[2 * node + 1];
+                if(beats(a, b)) {
+                    winners[node] = a;
+                    tree[node] = b;
+                } else {
+                    winners[node] = b;
+                    tree[node] = a;
+                }
+            }
+            tree[0] = k > 1 ? winners[1] : 0;
+        }
+
+        int winner() {
+            return tree[0];
+        }
+
+        /**
+         * Replays the matches on the path of source {@code s} after its head has changed.
+         */
+        void replay(int s) {
+            int winner = s;
+            for(int node = (s + k) >> 1; node > 0; node >>= 1) {
+                int loser = tree[node];
+                if(beats(loser, winner)) {
+                    tree[node] = winner;
+                    winner = loser;
+                }
+            }
+            tree[0] = winner;
+        }
+
+        private boolean beats(int a, int b) {
+            if(done[a] || done[b]) {
+                return !done[a] && done[b] || done[a] == done[b] && a < b;
+            }
+            return keys[a] < keys[b] || keys[a] == keys[b] && a < b;
+        }
+    }
+
+    /**
+     * A tournament tree over {@code k} sorted sources of doubles; see {@link IntLoserTree}.
+     * Heads are compared by their {@link #orderedBits(double)}.
+     */
+    private static final class DoubleLoserTree {
+
+        final double[] keys;
+        private final boolean[] done;
+        private final int[] tree;
+        private final int k;
+
+        DoubleLoserTree(int k) {
+            this.k = k;
+            this.keys = new double[k];
+            this.done = new boolean[k];
+            this.tree = new int[Math.max(k, 1)];
+        }
+
+        /**
+         * Sets the head of source {@code s} to {@code arr[i]}, or marks it exhausted.
+         */
+        void set(int s, double[] arr, int i) {
+            if(i < arr.length) {
+                keys[s] = arr[i];
+            } else {
+                done[s] = true;
+            }
+        }
+
+        void set(int s, double key) {
+            keys[s] = key;
+        }
+
+        void finish(int s) {
+            done[s] = true;
+        }
+
+        boolean isDone(int s) {
+            return done[s];
+        }
+
+        /**
+         * Plays every match once all heads are set.
+         */
+        void build() {
+            int[] winners = new int[2 * k];
+            for(int s = 0; s < k; s++) {
+                winners[k + s] = s;
+            }
+            for(int node = k - 1; node >= 1; node--) {
+                int a = winners[2 * node];
+                int b = winners[2 * node + 1];
+                if(beats(a, b)) {
+                    winners[node] = a;
+                    tree[node] = b;
+                } else {
+                    winners[node] = b;
+                    tree[node] = a;
+                }
+            }
+            tree[0] = k > 1 ? winners[1] : 0;
+        }
+
+        int winner() {
+            return tree[0];
+        }
+
+        /**
+         * Replays the matches on the path of source {@code s} after its head has changed.
+         */
+        void replay(int s) {
+            int winner = s;
+            for(int node = (s + k) >> 1; node > 0; node >>= 1) {
+                int loser = tree[node];
+                if(beats(loser, winner)) {
+                    tree[node] = winner;
+                    winner = loser;
+                }
+            }
+            tree[0] = winner;
+        }
+
+        private boolean beats(int a, int b) {
+            if(done[a] || done[b]) {
+                return !done[a] && done[b] || done[a] == done[b] && a < b;
+            }
+            long x = orderedBits(keys[a]), y = orderedBits(keys[b]);
+            return x < y || x == y && a < b;
+        }
+    }
+
+    /**
+     * A tournament tree over {@code k} sorted sources of longs; see {@link IntLoserTree}.
+     */
+    private static final class LongLoserTree {
+
+        final long[] keys;
+        private final boolean[] done;
+        private final int[] tree;
+        private final int k;
+
+        LongLoserTree(int k) {
+            this.k = k;
+            this.keys = new long[k];
+            this.done = new boolean[k];
+            this.tree = new int[Math.max(k, 1)];
+        }
+
+        /**
+         * Sets the head of source {@code s} to {@code arr[i]}, or marks it exhausted.
+         */
+        void set(int s, long[] arr, int i) {
+            if(i < arr.length) {
+                keys[s] = arr[i];
+            } else {
+                done[s] = true;
+            }
+        }
+
+        void set(int s, long key) {
+            keys[s] = key;
+        }
+
+        void finish(int s) {
+            done[s] = true;
+        }
+
+        boolean isDone(int s) {
+            return done[s];
+        }
+
+        /**
+         * Plays every match once all heads are set.
+         */
+        void build() {
+            int[] winners = new int[2 * k];
+            for(int s = 0; s < k; s++) {
+                winners[k + s] = s;
+            }
+            for(int node = k - 1; node >= 1; node--) {
+                int a = winners[2 * node];
+                int b = winners[2 * node + 1];
+                if(beats(a, b)) {
+                    winners[node] = a;
+                    tree[node] = b;
+                } else {
+                    winners[node] = b;
+                    tree[node] = a;
+                }
+            }
+            tree[0] = k > 1 ? winners[1] : 0;
+        }
+
+        int winner() {
+            return tree[0];
+        }
+
+        /**
+         * Replays the matches on the path of source {@code s} after its head has changed.
+         */
+        void replay(int s) {
+            int winner = s;
+            for(int node = (s + k) >> 1; node > 0; node >>= 1) {
+                int loser = tree[node];
+                if(beats(loser, winner)) {
+                    tree[node] = winner;
+                    winner = loser;
+                }
+            }
+            tree[0] = winner;
+        }
+
+        private boolean beats(int a, int b) {
+            if(done[a] || done[b]) {
+                return !done[a] && done[b] || done[a] == done[b] && a < b;
+            }
+            return keys[a] < keys[b] || keys[a] == keys[b] && a < b;
+        }
+    }
+
+    /**
+     * A tournament tree over {@code k} sorted sources of objects; see {@link IntLoserTree}.
+     */
+    private static final class ObjectLoserTree<T> {
+
+        private final Object[] keys;
+        private final boolean[] done;
+        private final int[] tree;
+        private final int k;
+        private final Comparator<? super T> c;
+
+        ObjectLoserTree(int k, Comparator<? super T> c) {
+            this.k = k;
+            this.c = c;
+            this.keys = new Object[k];
+            this.done = new boolean[k];
+            this.tree = new int[Math.max(k, 1)];
+        }
+
+        /**
+         * Sets the head of source {@code s} to {@code arr[i]}, or marks it exhausted.
+         */
+        void set(int s, T[] arr, int i) {
+            if(i < arr.length) {
+                keys[s] = arr[i];
+            } else {
+                keys[s] = null;
+                done[s] = true;
+            }
+        }
+
+        void set(int s, T key) {
+            keys[s] = key;
+        }
+
+        void finish(int s) {
+            keys[s] = null;
+            done[s] = true;
+        }
+
+        boolean isDone(int s) {
+            return done[s];
+        }
+
+        @SuppressWarnings("unchecked")
+        T key(int s) {
+            return (T) keys[s];
+        }
+
+        /**
+         * Plays every match once all heads are set.
+         */
+        void build() {
+            int[] winners = new int[2 * k];
+            for(int s = 0; s < k; s++) {
+                winners[k + s] = s;
+            }
+            for(int node = k - 1; node >= 1; node--) {
+                int a = winners[2 * node];
+                int b = winners[2 * node + 1];
+                if(beats(a, b)) {
+                    winners[node] = a;
+                    tree[node] = b;
+                } else {
+                    winners[node] = b;
+                    tree[node] = a;
+                }
+            }
+            tree[0] = k > 1 ? winners[1] : 0;
+        }
+
+        int winner() {
+            return tree[0];
+        }
+
+        /**
+         * Replays the matches on the path of source {@code s} after its head has changed.
+         */
+        void replay(int s) {
+            int winner = s;
+            for(int node = (s + k) >> 1; node > 0; node >>= 1) {
+                int loser = tree[node];
+                if(beats(loser, winner)) {
+                    tree[node] = winner;
+                    winner = loser;
+                }
+            }
+            tree[0] = winner;
+        }
+
+        private boolean beats(int a, int b) {
+            if(done[a] || done[b]) {
+                return !done[a] && done[b] || done[a] == done[b] && a < b;
+            }
+            int cmp = c.compare(key(a), key(b));
+            return cmp < 0 || cmp == 0 && a < b;
+        }
+    }
+
+    /**
+     * The iterator returned by {@link #mergeIterators(PrimitiveIterator.OfInt...)}.
+     */
+    private static final class IntMergeIterator implements PrimitiveIterator.OfInt {
+
+        private final PrimitiveIterator.OfInt[] sources;
+        private final IntLoserTree tree;
+
+        IntMergeIterator(PrimitiveIterator.OfInt[] sources) {
+            this.sources = sources.clone();
+            this.tree = new IntLoserTree(this.sources.length);
+            for(int s = 0; s < this.sources.length; s++) {
+                advance(s);
+            }
+            tree.build();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return sources.length > 0 && !tree.isDone(tree.winner());
+        }
+
+        @Override
+        public int nextInt() {
+            if(!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int s = tree.winner();
+            int value = tree.keys[s];
+            advance(s);
+            tree.replay(s);
+            return value;
+        }
+
+        private void advance(int s) {
+            if(sources[s].hasNext()) {
+                tree.set(s, sources[s].nextInt());
+            } else {
+                tree.finish(s);
+            }
+        }
+    }
+
+    /**
+     * The iterator returned by {@link #mergeIterators(PrimitiveIterator.OfDouble...)}.
+     */
+    private static final class DoubleMergeIterator implements PrimitiveIterator.OfDouble {
+
+        private final PrimitiveIterator.OfDouble[] sources;
+        private final DoubleLoserTree tree;
+
+        DoubleMergeIterator(PrimitiveIterator.OfDouble[] sources) {
+            this.sources = sources.clone();
+            this.tree = new DoubleLoserTree(this.sources.length);
+            for(int s = 0; s < this.sources.length; s++) {
+                advance(s);
+            }
+            tree.build();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return sources.length > 0 && !tree.isDone(tree.winner());
+        }
+
+        @Override
+        public double nextDouble() {
+            if(!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int s = tree.winner();
+            double value = tree.keys[s];
+            advance(s);
+            tree.replay(s);
+            return value;
+        }
+
+        private void advance(int s) {
+            if(sources[s].hasNext()) {
+                tree.set(s, sources[s].nextDouble());
+            } else {
+                tree.finish(s);
+            }
+        }
+    }
+
+    /**
+     * The iterator returned by {@link #mergeIterators(PrimitiveIterator.OfLong...)}.
+     */
+    private static final class LongMergeIterator implements PrimitiveIterator.OfLong {
+
+        private final PrimitiveIterator.OfLong[] sources;
+        private final LongLoserTree tree;
+
+        LongMergeIterator(PrimitiveIterator.OfLong[] sources) {
+            this.sources = sources.clone();
+            this.tree = new LongLoserTree(this.sources.length);
+            for(int s = 0; s < this.sources.length; s++) {
+                advance(s);
+            }
+            tree.build();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return sources.length > 0 && !tree.isDone(tree.winner());
+        }
+
+        @Override
+        public long nextLong() {
+            if(!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int s = tree.winner();
+            long value = tree.keys[s];
+            advance(s);
+            tree.replay(s);
+            return value;
+        }
+
+        private void advance(int s) {
+            if(sources[s].hasNext()) {
+                tree.set(s, sources[s].nextLong());
+            } else {
+                tree.finish(s);
+            }
+        }
+    }
+
+    /**
+     * The iterator returned by {@link #mergeIterators(List, Comparator)}.
+     */
+    private static final class ObjectMergeIterator<T> implements Iterator<T> {
+
+        private final Iterator<?>[] sources;
+        private final ObjectLoserTree<T> tree;
+
+        ObjectMergeIterator(List<? extends Iterator<? extends T>> sources, Comparator<? super T> c) {
+            this.sources = sources.toArray(new Iterator<?>[0]);
+            this.tree = new ObjectLoserTree<>(this.sources.length, c);
+            for(int s = 0; s < this.sources.length; s++) {
+                advance(s);
+            }
+            tree.build();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return sources.length > 0 && !tree.isDone(tree.winner());
+        }
+
+        @Override
+        public T next() {
+            if(!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int s = tree.winner();
+            T value = tree.key(s);
+            advance(s);
+            tree.replay(s);
+            return value;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void advance(int s) {
+            if(sources[s].hasNext()) {
+                tree.set(s, (T) sources[s].next());
+            } else {
+                tree.finish(s);
+            }
+        }
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,567 @@
+package howie;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * The {@code HBlockingQueue} class is a bounded, thread-safe First-In-First-Out (FIFO) queue
+ * for any number of producer and consumer threads, implementing {@link BlockingQueue}.
+ *
+ * <p>The non-blocking operations are lock-free, following Dmitry Vyukov's bounded MPMC
+ * queue: every slot carries a sequence number that tells a producer when the slot is free
+ * for position {@code pos} ({@code seq == pos}) and a consumer when it holds the element
+ * for position {@code pos} ({@code seq == pos + 1}). Producers and consumers claim
+ * positions with a compare-and-set on separate, cache-line-padded counters, so they only
+ * contend with their own kind, and then touch a single slot. The ring is rounded up to a
+ * power of two so that slots can be found with a mask; when the capacity is not itself a
+ * power of two, producers also check it against the head before claiming a position, so
+ * the queue never holds more elements than its capacity.
+ *
+ * <p>The blocking operations first try the lock-free path. Only when the queue is full or
+ * empty do they register as waiters and park on a {@link ReentrantLock} condition, which
+ * also parks virtual threads without pinning their carrier. Successful operations signal
+ * the other side only when a waiter is registered, so the lock is never touched while the
+ * queue is neither full nor empty.
+ *
+ * <p>As required by {@link BlockingQueue}, null elements are rejected with a
+ * {@link NullPointerException}. Elements can only leave the queue from its head, since a
+ * slot in the middle of the ring cannot be vacated without blocking the producers and
+ * consumers around it. The iterator is therefore weakly consistent and read-only, and
+ * {@link #remove(Object)}, {@link #removeAll}, {@link #retainAll} and {@link #removeIf}
+ * throw {@link UnsupportedOperationException}.
+ *
+ * @param <E> the type of elements held in the queue
+ * @author Howie Hertzberg
+ */
+public final class HBlockingQueue<E> extends MpmcPadHead<E> implements BlockingQueue<E> {
+
+    private static final VarHandle HEAD;
+    private static final VarHandle TAIL;
+    private static final VarHandle SEQUENCE = MethodHandles.arrayElementVarHandle(long[].class);
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            HEAD = lookup.findVarHandle(MpmcHead.class, "head", long.class);
+            TAIL = lookup.findVarHandle(MpmcTail.class, "tail", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Object[] queueArray;
+    private final long[] sequences;
+    private final int mask;
+    private final int capacity;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+
+    // Threads parked in take/poll and put/offer; changed only while holding the lock
+    private volatile int waitingConsumers;
+    private volatile int waitingProducers;
+
+    /**
+     * Constructs a new {@code HBlockingQueue} with the specified capacity.
+     *
+     * @param capacity the maximum number of elements the queue can hold
+     * @throws IllegalArgumentException if the specified capacity is not positive or is
+     * greater than {@code 1 << 30}
+     */
+    public HBlockingQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Queue capacity must be positive.");
+        }
+        if (capacity > 1 << 30) {
+            throw new IllegalArgumentException("Queue capacity cannot be greater than 2^30.");
+        }
+        // A single slot would make "filled for pos" and "free for pos + 1" the same sequence
+        int length = Math.max(2, Integer.highestOneBit(capacity));
+        if (length < capacity) {
+            length <<= 1;
+        }
+        this.queueArray = new Object[length];
+        this.sequences = new long[length];
+        this.mask = length - 1;
+        this.capacity = capacity;
+        for (int i = 0; i < length; i++) {
+            sequences[i] = i;
+        }
+    }
+
+    /**
+     * Inserts an element if there is room for it, without blocking. Under contention the
+     * queue may briefly report itself full while a consumer is still vacating a slot.
+     *
+     * @param e the element to insert
+     * @return {@code true} if the element was inserted, {@code false} if the queue is full
+     * @throws NullPointerException if the element is null
+     */
+    @Override
+    public boolean offer(E e) {
+        if (!tryOffer(e)) {
+            return false;
+        }
+        signalNotEmpty();
+        return true;
+    }
+
+    /**
+     * Removes and returns the head of the queue if there is one, without blocking.
+     *
+     * @return the head of the queue, or {@code null} if the queue is empty
+     */
+    @Override
+    public E poll() {
+        E e = tryPoll();
+        if (e != null) {
+            signalNotFull();
+        }
+        return e;
+    }
+
+    /**
+     * Inserts an element, waiting for room if the queue is full.
+     *
+     * @param e the element to insert
+     * @throws NullPointerException if the element is null
+     * @throws InterruptedException if interrupted while waiting
+     */
+    @Override
+    public void put(E e) throws InterruptedException {
+        if (!tryOffer(e)) {
+            lock.lockInterruptibly();
+            try {
+                waitingProducers++;
+                try {
+                    VarHandle.fullFence();
+                    while (!tryOffer(e)) {
+                        notFull.await();
+                    }
+                } finally {
+                    waitingProducers--;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        signalNotEmpty();
+    }
+
+    /**
+     * Inserts an element, waiting up to the specified time for room if the queue is full.
+     *
+     * @param e the element to insert
+     * @param timeout how long to wait before giving up
+     * @param unit the unit of the timeout
+     * @return {@code true} if the element was inserted, {@code false} if the time ran out
+     * @throws NullPointerException if the element is null
+     * @throws InterruptedException if interrupted while waiting
+     */
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        if (!tryOffer(e)) {
+            long nanos = unit.toNanos(timeout);
+            lock.lockInterruptibly();
+            try {
+                waitingProducers++;
+                try {
+                    VarHandle.fullFence();
+                    while (!tryOffer(e)) {
+                        if (nanos <= 0) {
+                            return false;
+                        }
+                        nanos = notFull.awaitNanos(nanos);
+                    }
+                } finally {
+                    waitingProducers--;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        signalNotEmpty();
+        return true;
+    }
+
+    /**
+     * Removes and returns the head of the queue, waiting for an element if the queue is empty.
+     *
+     * @return the head of the queue
+     * @throws InterruptedException if interrupted while waiting
+     */
+    @Override
+    public E take() throws InterruptedException {
+        E e = tryPoll();
+        if (e == null) {
+            lock.lockInterruptibly();
+            try {
+                waitingConsumers++;
+                try {
+                    VarHandle.fullFence();
+                    while ((e = tryPoll()) == null) {
+                        notEmpty.await();
+                    }
+                } finally {
+                    waitingConsumers--;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        signalNotFull();
+        return e;
+    }
+
+    /**
+     * Removes and returns the head of the queue, waiting up to the specified time for an
+     * element if the queue is empty.
+     *
+     * @param timeout how long to wait before giving up
+     * @param unit the unit of the timeout
+     * @return the head of the queue, or {@code null} if the time ran out
+     * @throws InterruptedException if interrupted while waiting
+     */
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        E e = tryPoll();
+        if (e == null) {
+            long nanos = unit.toNanos(timeout);
+            lock.lockInterruptibly();
+            try {
+                waitingConsumers++;
+                try {
+                    VarHandle.fullFence();
+                    while ((e = tryPoll()) == null) {
+                        if (nanos <= 0) {
+                            return null;
+                        }
+                        nanos = notEmpty.awaitNanos(nanos);
+                    }
+                } finally {
+                    waitingConsumers--;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        signalNotFull();
+        return e;
+    }
+
+    /**
+     * Returns the head of the queue without removing it.
+     *
+     * @return the head of the queue, or {@code null} if the queue is empty
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        while (true) {
+            long pos = (long) HEAD.getVolatile(this);
+            int index = (int) pos & mask;
+            long seq = (long) SEQUENCE.getAcquire(sequences, index);
+            if (seq - (pos + 1) < 0) {
+                return null;
+            }
+            Object e = queueArray[index];
+            // Only trust the element if no consumer took it while it was being read
+            if (seq == pos + 1 && e != null && (long) HEAD.getVolatile(this) == pos) {
+                return (E) e;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of elements in the queue at some moment during the call.
+     *
+     * @return the number of elements in the queue
+     */
+    @Override
+    public int size() {
+        while (true) {
+            long head = (long) HEAD.getVolatile(this);
+            long tail = (long) TAIL.getVolatile(this);
+            if ((long) HEAD.getVolatile(this) == head) {
+                return (int) Math.max(0, Math.min(capacity, tail - head));
+            }
+        }
+    }
+
+    /**
+     * Returns the maximum number of elements the queue can hold.
+     *
+     * @return the capacity of the queue
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return capacity - size();
+    }
+
+    /**
+     * Not supported: elements can only be removed from the head of the queue.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public boolean remove(Object o) {
+        throw new UnsupportedOperationException("Elements can only be removed from the head of the queue.");
+    }
+
+    /**
+     * Not supported: elements can only be removed from the head of the queue.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        throw new UnsupportedOperationException("Elements can only be removed from the head of the queue.");
+    }
+
+    /**
+     * Not supported: elements can only be removed from the head of the queue.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        throw new UnsupportedOperationException("Elements can only be removed from the head of the queue.");
+    }
+
+    /**
+     * Not supported: elements can only be removed from the head of the queue.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public boolean removeIf(Predicate<? super E> filter) {
+        throw new UnsupportedOperationException("Elements can only be removed from the head of the queue.");
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        if (c == null) {
+            throw new NullPointerException("Collection cannot be null.");
+        }
+        if (c == this) {
+            throw new IllegalArgumentException("Queue cannot be drained into itself.");
+        }
+        int n = 0;
+        E e;
+        while (n < maxElements && (e = tryPoll()) != null) {
+            c.add(e);
+            n++;
+        }
+        if (n > 0) {
+            signalNotFull();
+        }
+        return n;
+    }
+
+    /**
+     * Returns a weakly consistent iterator over the elements in the queue, from head to
+     * tail. It returns elements that were in the queue at some point after it was created,
+     * never returns an element twice, and never throws
+     * {@link java.util.ConcurrentModificationException}.
+     *
+     * @return an iterator over the elements in the queue
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Itr();
+    }
+
+    /**
+     * Claims the tail position and publishes the element, or returns {@code false} if the
+     * slot at the tail has not yet been vacated or the queue already holds as many elements
+     * as its capacity. The head only moves forward, so a position that is within the
+     * capacity of the head when checked stays within it once claimed.
+     */
+    private boolean tryOffer(E e) {
+        if (e == null) {
+            throw new NullPointerException("Object cannot be null.");
+        }
+        long pos = (long) TAIL.getVolatile(this);
+        while (true) {
+            int index = (int) pos & mask;
+            long dif = (long) SEQUENCE.getAcquire(sequences, index) - pos;
+            if (dif == 0) {
+                if (capacity <= mask && pos - (long) HEAD.getVolatile(this) >= capacity) {
+                    return false;
+                }
+                if (TAIL.weakCompareAndSet(this, pos, pos + 1)) {
+                    queueArray[index] = e;
+                    SEQUENCE.setRelease(sequences, index, pos + 1);
+                    return true;
+                }
+                pos = (long) TAIL.getVolatile(this);
+            } else if (dif < 0) {
+                return false;
+            } else {
+                pos = (long) TAIL.getVolatile(this);
+            }
+        }
+    }
+
+    /**
+     * Claims the head position and takes its element, or returns {@code null} if the slot
+     * at the head has not yet been filled.
+     */
+    @SuppressWarnings("unchecked")
+    private E tryPoll() {
+        long pos = (long) HEAD.getVolatile(this);
+        while (true) {
+            int index = (int) pos & mask;
+            long dif = (long) SEQUENCE.getAcquire(sequences, index) - (pos + 1);
+            if (dif == 0) {
+                if (HEAD.weakCompareAndSet(this, pos, pos + 1)) {
+                    E e = (E) queueArray[index];
+                    queueArray[index] = null;
+                    SEQUENCE.setRelease(sequences, index, pos + mask + 1);
+                    return e;
+                }
+                pos = (long) HEAD.getVolatile(this);
+            } else if (dif < 0) {
+                return null;
+            } else {
+                pos = (long) HEAD.getVolatile(this);
+            }
+        }
+    }
+
+    /**
+     * Wakes a consumer if one is parked. The fence orders the publication of the element
+     * before the read of the waiter count; a consumer orders its registration before its
+     * final poll the same way, so at least one of the two sees the other.
+     */
+    private void signalNotEmpty() {
+        VarHandle.fullFence();
+        if (waitingConsumers > 0) {
+            lock.lock();
+            try {
+                notEmpty.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Wakes a producer if one is parked; see {@link #signalNotEmpty()}.
+     */
+    private void signalNotFull() {
+        VarHandle.fullFence();
+        if (waitingProducers > 0) {
+            lock.lock();
+            try {
+                notFull.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Walks the positions between the head and the tail read when the iterator is created,
+     * skipping positions whose element has already been taken.
+     */
+    private final class Itr implements Iterator<E> {
+
+        private long pos = (long) HEAD.getVolatile(HBlockingQueue.this);
+        private final long end = (long) TAIL.getVolatile(HBlockingQueue.this);
+        private E next;
+
+        Itr() {
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public E next() {
+            E e = next;
+            if (e == null) {
+                throw new NoSuchElementException();
+            }
+            advance();
+            return e;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void advance() {
+            next = null;
+            pos = Math.max(pos, (long) HEAD.getVolatile(HBlockingQueue.this));
+            while (next == null && pos < end) {
+                int index = (int) pos & mask;
+                long seq = (long) SEQUENCE.getAcquire(sequences, index);
+                Object e = queueArray[index];
+                if (seq == pos + 1 && e != null && (long) SEQUENCE.getAcquire(sequences, index) == seq) {
+                    next = (E) e;
+                }
+                pos++;
+            }
+        }
+    }
+
+}
+
+/**
+ * Padding that keeps the producers' counter off the cache line of whatever precedes the
+ * queue in memory, laid out by a superclass chain as explained at {@link SpscPadTail}.
+ */
+abstract class MpmcPadTail<E> extends AbstractQueue<E> {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+    long p08, p09, p0a, p0b, p0c, p0d, p0e, p0f;
+}
+
+/**
+ * The next position producers will claim.
+ */
+abstract class MpmcTail<E> extends MpmcPadTail<E> {
+    long tail;
+}
+
+/**
+ * Padding between the producers' and the consumers' counters.
+ */
+abstract class MpmcPadMiddle<E> extends MpmcTail<E> {
+    long p10, p11, p12, p13, p14, p15, p16, p17;
+    long p18, p19, p1a, p1b, p1c, p1d, p1e, p1f;
+}
+
+/**
+ * The next position consumers will claim.
+ */
+abstract class MpmcHead<E> extends MpmcPadMiddle<E> {
+    long head;
+}
+
+/**
+ * Padding that keeps the consumers' counter off the cache line of the queue's own fields.
+ */
+abstract class MpmcPadHead<E> extends MpmcHead<E> {
+    long p20, p21, p22, p23, p24, p25, p26, p27;
+    long p28, p29, p2a, p2b, p2c, p2d, p2e, p2f;
+}
@@ -0,0 +1,247 @@
+package howie;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * The {@code HBoundedConcurrentStack} class is a bounded, lock-free Last-In-First-Out
+ * (LIFO) stack that any number of threads may push to and pop from. It has the same
+ * {@code push}/{@code pop}/{@code peek} semantics as {@link HStack}, and unlike
+ * {@link HConcurrentStack} it allocates nothing after construction.
+ *
+ * <p>All nodes are slots of arrays allocated up front: one array holds the elements and
+ * another the index of the next slot. The slots form two Treiber stacks, the stack itself
+ * and a free list of unused slots, so a push moves a slot from the free list to the stack
+ * and a pop moves it back. The top of each list is a single {@code long} that holds a slot
+ * index in its low half and a version number in its high half. Every successful
+ * compare-and-set increments the version, so a thread that read a top, was delayed while
+ * that slot was popped and pushed again, and then tries to replace it fails instead of
+ * corrupting the list (the ABA problem). The version wraps around after 2<sup>32</sup>
+ * changes, far more than can happen while a thread is delayed between two instructions.
+ *
+ * <p>{@link #isEmpty}, {@link #isFull} and {@link #peek} only return a snapshot.
+ *
+ * @param <T> the type of objects held in this stack
+ * @author Howie Hertzberg
+ * @see HConcurrentStack
+ */
+public final class HBoundedConcurrentStack<T> {
+
+    private static final VarHandle TOP;
+    private static final VarHandle FREE;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            TOP = lookup.findVarHandle(HBoundedConcurrentStack.class, "top", long.class);
+            FREE = lookup.findVarHandle(HBoundedConcurrentStack.class, "free", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * The slot index stored in a top that marks an empty list.
+     */
+    private static final int NONE = -1;
+
+    private final Object[] items;
+    private final int[] next;
+    private final int capacity;
+    private volatile long top;
+    private volatile long free;
+
+    /**
+     * Constructs a new {@code HBoundedConcurrentStack} with the specified capacity.
+     *
+     * @param capacity the maximum number of elements the stack can hold
+     * @throws IllegalArgumentException if the specified capacity is not positive
+     */
+    public HBoundedConcurrentStack(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Stack capacity must be positive.");
+        }
+        this.items = new Object[capacity];
+        this.next = new int[capacity];
+        this.capacity = capacity;
+        for (int i = 0; i < capacity - 1; i++) {
+            next[i] = i + 1;
+        }
+        next[capacity - 1] = NONE;
+        this.top = stamp(0, NONE);
+        this.free = stamp(0, 0);
+    }
+
+    /**
+     * Attempts to push an item onto the stack.
+     *
+     * @param item the object to push
+     * @throws IllegalArgumentException if the specified object is null
+     * @throws IllegalStateException if the stack is full
+     */
+    public void push(T item) {
+        if (!tryPush(item)) {
+            throw new IllegalStateException("Stack is full.");
+        }
+    }
+
+    /**
+     * Pushes an item onto the stack if there is room for it.
+     *
+     * @param item the object to push
+     * @return {@code true} if the item was pushed, {@code false} if the stack is full
+     * @throws IllegalArgumentException if the specified object is null
+     */
+    public boolean tryPush(T item) {
+        if (item == null) {
+            throw new IllegalArgumentException("Object cannot be null.");
+        }
+        int slot = take(FREE);
+        if (slot == NONE) {
+            return false;
+        }
+        items[slot] = item;
+        give(TOP, slot);
+        return true;
+    }
+
+    /**
+     * Attempts to pop an item from the stack.
+     *
+     * @return the popped item
+     * @throws IllegalStateException if the stack is empty
+     */
+    public T pop() {
+        T item = tryPop();
+        if (item == null) {
+            throw new IllegalStateException("Stack is empty.");
+        }
+        return item;
+    }
+
+    /**
+     * Pops an item from the stack if there is one.
+     *
+     * @return the popped item, or {@code null} if the stack is empty
+     */
+    @SuppressWarnings("unchecked")
+    public T tryPop() {
+        int slot = take(TOP);
+        if (slot == NONE) {
+            return null;
+        }
+        T item = (T) items[slot];
+        items[slot] = null;
+        give(FREE, slot);
+        return item;
+    }
+
+    /**
+     * Attempts to retrieve the top element from the stack.
+     *
+     * @return the top element of the stack
+     * @throws IllegalStateException if the stack is empty
+     */
+    @SuppressWarnings("unchecked")
+    public T peek() {
+        while (true) {
+            long t = top;
+            int slot = index(t);
+            if (slot == NONE) {
+                throw new IllegalStateException("Stack is empty.");
+            }
+            Object item = items[slot];
+
+            // The slot may have been popped between the two reads; the version says so
+            if (item != null && top == t) {
+                return (T) item;
+            }
+        }
+    }
+
+    /**
+     * Clears all elements from the stack by popping them one at a time, so it may race with
+     * concurrent pushes.
+     */
+    public void clear() {
+        while (tryPop() != null) {
+            // Discard the element
+        }
+    }
+
+    /**
+     * Returns the maximum number of elements the stack can hold.
+     *
+     * @return the capacity of the stack
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Checks if the stack is full.
+     *
+     * @return {@code true} if the stack is full, {@code false} otherwise
+     */
+    public boolean isFull() {
+        return index(free) == NONE;
+    }
+
+    /**
+     * Checks if the stack is empty.
+     *
+     * @return {@code true} if the stack is empty, {@code false} otherwise
+     */
+    public boolean isEmpty() {
+        return index(top) == NONE;
+    }
+
+    /**
+     * Removes the slot at the top of one of the two lists.
+     *
+     * @return the removed slot, or {@link #NONE} if the list is empty
+     */
+    private int take(VarHandle list) {
+        while (true) {
+            long t = (long) list.getVolatile(this);
+            int slot = index(t);
+            if (slot == NONE) {
+                return NONE;
+            }
+
+            // next[slot] may be stale if the slot has moved since t was read, but then the
+            // version has changed too and the compare-and-set fails
+            if (list.compareAndSet(this, t, stamp(version(t) + 1, next[slot]))) {
+                return slot;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Places a slot that this thread owns at the top of one of the two lists.
+     */
+    private void give(VarHandle list, int slot) {
+        while (true) {
+            long t = (long) list.getVolatile(this);
+            next[slot] = index(t);
+            if (list.compareAndSet(this, t, stamp(version(t) + 1, slot))) {
+                return;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private static long stamp(int version, int index) {
+        return ((long) version << 32) | (index & 0xFFFFFFFFL);
+    }
+
+    private static int version(long stamp) {
+        return (int) (stamp >>> 32);
+    }
+
+    private static int index(long stamp) {
+        return (int) stamp;
+    }
+
+}
@@ -0,0 +1,211 @@
+package howie;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The {@code HConcurrentStack} class is an unbounded, lock-free Last-In-First-Out (LIFO)
+ * stack that any number of threads may push to and pop from. It has the same
+ * {@code push}/{@code pop}/{@code peek} semantics as {@link HStack}, except that it is
+ * never full.
+ *
+ * <p>The stack is a Treiber stack: a linked list whose top is replaced with a single
+ * compare-and-set. When that compare-and-set fails because other threads are changing the
+ * top at the same time, the thread backs off to an elimination array instead of retrying
+ * straight away. A pushing thread leaves its node in a random slot of the array for a short
+ * while, and a popping thread looks in a random slot for such a node. When the two meet,
+ * the pop takes the pushed element directly and neither thread touches the top, so under
+ * contention opposing operations pair off instead of all queueing on one memory location.
+ *
+ * <p>Each node records the size of the stack beneath it, so {@link #size} is constant
+ * time, but like {@link #isEmpty} and {@link #peek} it only returns a snapshot.
+ *
+ * @param <T> the type of objects held in this stack
+ * @author Howie Hertzberg
+ * @see HBoundedConcurrentStack
+ */
+public final class HConcurrentStack<T> {
+
+    private static final VarHandle TOP;
+    private static final VarHandle SLOT = MethodHandles.arrayElementVarHandle(Node[].class);
+
+    static {
+        try {
+            TOP = MethodHandles.lookup().findVarHandle(HConcurrentStack.class, "top", Node.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * The number of slots in the elimination array: enough for the processors to spread
+     * out over, but few enough that pushes and pops still meet.
+     */
+    private static final int ELIMINATION_SLOTS =
+            Math.min(16, Integer.highestOneBit(Runtime.getRuntime().availableProcessors()));
+
+    /**
+     * The number of times a pushing thread checks whether its node has been taken from the
+     * elimination array before withdrawing it.
+     */
+    private static final int ELIMINATION_SPINS = 64;
+
+    private volatile Node<T> top;
+    private final Node<T>[] elimination;
+
+    /**
+     * Constructs a new, empty {@code HConcurrentStack}.
+     */
+    @SuppressWarnings("unchecked")
+    public HConcurrentStack() {
+        this.elimination = (Node<T>[]) new Node<?>[ELIMINATION_SLOTS];
+    }
+
+    /**
+     * Pushes an item onto the stack.
+     *
+     * @param item the object to push
+     * @throws IllegalArgumentException if the specified object is null
+     */
+    public void push(T item) {
+        if (item == null) {
+            throw new IllegalArgumentException("Object cannot be null.");
+        }
+        Node<T> node = new Node<>(item);
+        while (true) {
+            Node<T> t = top;
+            node.next = t;
+            node.size = t == null ? 1 : t.size + 1;
+            if (TOP.compareAndSet(this, t, node) || eliminatePush(node)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Attempts to pop an item from the stack.
+     *
+     * @return the popped item
+     * @throws IllegalStateException if the stack is empty
+     */
+    public T pop() {
+        T item = tryPop();
+        if (item == null) {
+            throw new IllegalStateException("Stack is empty.");
+        }
+        return item;
+    }
+
+    /**
+     * Pops an item from the stack if there is one.
+     *
+     * @return the popped item, or {@code null} if the stack is empty
+     */
+    public T tryPop() {
+        while (true) {
+            Node<T> t = top;
+            if (t == null) {
+                return null;
+            }
+            if (TOP.compareAndSet(this, t, t.next)) {
+                return t.item;
+            }
+            T item = eliminatePop();
+            if (item != null) {
+                return item;
+            }
+        }
+    }
+
+    /**
+     * Attempts to retrieve the top element from the stack.
+     *
+     * @return the top element of the stack
+     * @throws IllegalStateException if the stack is empty
+     */
+    public T peek() {
+        Node<T> t = top;
+        if (t == null) {
+            throw new IllegalStateException("Stack is empty.");
+        }
+        return t.item;
+    }
+
+    /**
+     * Clears all elements from the stack.
+     */
+    public void clear() {
+        top = null;
+    }
+
+    /**
+     * Returns the number of elements in the stack at some moment during the call.
+     *
+     * @return the number of elements in the stack
+     */
+    public int size() {
+        Node<T> t = top;
+        return t == null ? 0 : t.size;
+    }
+
+    /**
+     * Checks if the stack is empty.
+     *
+     * @return {@code true} if the stack is empty, {@code false} otherwise
+     */
+    public boolean isEmpty() {
+        return top == null;
+    }
+
+    /**
+     * Offers a node to a concurrent pop through a random slot of the elimination array.
+     *
+     * @return {@code true} if a pop took the node, {@code false} if the push must be retried
+     */
+    private boolean eliminatePush(Node<T> node) {
+        int slot = ThreadLocalRandom.current().nextInt(ELIMINATION_SLOTS);
+        if (!SLOT.compareAndSet(elimination, slot, null, node)) {
+            return false;
+        }
+        for (int i = 0; i < ELIMINATION_SPINS; i++) {
+            if (SLOT.getAcquire(elimination, slot) != node) {
+                return true;
+            }
+            Thread.onSpinWait();
+        }
+
+        // Withdraw the offer; if that fails, a pop took the node in the meantime
+        return !SLOT.compareAndSet(elimination, slot, node, null);
+    }
+
+    /**
+     * Takes a node offered by a concurrent push from a random slot of the elimination array.
+     *
+     * @return the pushed item, or {@code null} if the pop must be retried
+     */
+    @SuppressWarnings("unchecked")
+    private T eliminatePop() {
+        int slot = ThreadLocalRandom.current().nextInt(ELIMINATION_SLOTS);
+        Node<T> node = (Node<T>) SLOT.getAcquire(elimination, slot);
+        if (node != null && SLOT.compareAndSet(elimination, slot, node, null)) {
+            return node.item;
+        }
+        return null;
+    }
+
+    /**
+     * A linked-list node holding one element and the size of the stack up to and including
+     * it.
+     */
+    private static final class Node<T> {
+        final T item;
+        Node<T> next;
+        int size;
+
+        Node(T item) {
+            this.item = item;
+        }
+    }
+
+}
@@ -0,0 +1,560 @@
+package howie;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * The {@code HExternalSort} class sorts files of fixed-size binary records that may be far
+ * larger than the heap. The input is mapped in chunks that fit the memory budget, each chunk
+ * is sorted with {@link HArray#radixSort(int[], int, int, int[])} or its {@code long} and
+ * {@code double} counterparts, and written to a temporary run file. The runs are then merged
+ * into the output with {@link HArray#mergeIterators(PrimitiveIterator.OfLong...)}, reading and
+ * writing through large sequential buffers. If there are more runs than can be merged at
+ * once, they are merged in several passes.
+ *
+ * <p>Records are read and written in big-endian byte order, as written by
+ * {@link java.io.DataOutputStream}. Doubles are ordered as by {@link Double#compare}, so
+ * {@code -0.0} comes before {@code 0.0} and {@code NaN} comes last.
+ *
+ * <p>An {@code HExternalSort} may be reused for several sorts, but not by several threads at once.
+ *
+ * @author Howie Hertzberg
+ */
+public final class HExternalSort {
+
+    /** The smallest memory budget accepted, in bytes. */
+    public static final long MIN_MEMORY_BUDGET = 1 << 16;
+
+    /** Preferred size of each sequential read and write buffer, in bytes. */
+    private static final int IO_BUFFER = 1 << 20;
+
+    /** Smallest read buffer worth giving each run during a merge, in bytes. */
+    private static final int MIN_MERGE_BUFFER = 1 << 16;
+
+    /** Largest number of runs merged in one pass. */
+    private static final int MAX_FAN_IN = 128;
+
+    /** Largest region of the input mapped at once, in bytes. */
+    private static final long MAP_WINDOW = 1L << 30;
+
+    /** Number of records merged between progress reports. */
+    private static final int PROGRESS_INTERVAL = 1 << 16;
+
+    /**
+     * The types of record that can be sorted.
+     */
+    public enum RecordType {
+
+        /** 4-byte signed integers. */
+        INT(Integer.BYTES),
+
+        /** 8-byte signed integers. */
+        LONG(Long.BYTES),
+
+        /** 8-byte IEEE 754 doubles. */
+        DOUBLE(Double.BYTES);
+
+        private final int bytes;
+
+        RecordType(int bytes) {
+            this.bytes = bytes;
+        }
+
+        /**
+         * Returns the size of one record.
+         *
+         * @return the size of one record, in bytes
+         */
+        public int bytes() {
+            return bytes;
+        }
+    }
+
+    /**
+     * The phases of a sort, as reported to a {@link ProgressListener}.
+     */
+    public enum Phase {
+
+        /** Sorting chunks of the input into run files. */
+        SORT_RUNS,
+
+        /** Merging run files; progress starts again from zero in each merge pass. */
+        MERGE
+    }
+
+    /**
+     * Receives progress reports while a file is sorted.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+
+        /**
+         * Called periodically during each phase, and once when each phase or merge pass ends.
+         *
+         * @param phase the current phase
+         * @param done the number of records processed so far in this phase or merge pass
+         * @param total the number of records in the input
+         */
+        void progress(Phase phase, long done, long total);
+    }
+
+    /**
+     * The {@code HExternalSort.Result} class describes a completed sort.
+     */
+    public static final class Result {
+
+        private final long records;
+        private final int runs;
+        private final int mergePasses;
+        private final long bytesRead;
+        private final long bytesWritten;
+
+        Result(long records, int runs, int mergePasses, long bytesRead, long bytesWritten) {
+            this.records = records;
+            this.runs = runs;
+            this.mergePasses = mergePasses;
+            this.bytesRead = bytesRead;
+            this.bytesWritten = bytesWritten;
+        }
+
+        /**
+         * Returns the number of records sorted.
+         *
+         * @return the number of records
+         */
+        public long records() {
+            return records;
+        }
+
+        /**
+         * Returns the number of sorted runs the input was split into.
+         *
+         * @return the number of runs
+         */
+        public int runs() {
+            return runs;
+        }
+
+        /**
+         * Returns the number of merge passes, or 0 if the input fit in a single run.
+         *
+         * @return the number of merge passes
+         */
+        public int mergePasses() {
+            return mergePasses;
+        }
+
+        /**
+         * Returns the number of bytes read, from the input and from temporary run files.
+         *
+         * @return the number of bytes read
+         */
+        public long bytesRead() {
+            return bytesRead;
+        }
+
+        /**
+         * Returns the number of bytes written, to temporary run files and to the output.
+         *
+         * @return the number of bytes written
+         */
+        public long bytesWritten() {
+            return bytesWritten;
+        }
+
+        @Override
+        public String toString() {
+            return "Result[records=" + records + ", runs=" + runs + ", mergePasses=" + mergePasses
+                    + ", bytesRead=" + bytesRead + ", bytesWritten=" + bytesWritten + "]";
+        }
+    }
+
+    private final RecordType type;
+    private final long memoryBudget;
+    private final Path tempDir;
+    private ProgressListener listener;
+
+    private long bytesRead;
+    private long bytesWritten;
+
+    /**
+     * Constructs a new {@code HExternalSort} that writes its run files to the default
+     * temporary-file directory.
+     *
+     * @param type the type of the records to be sorted
+     * @param memoryBudget the approximate number of bytes of heap and buffer memory a sort may use
+     * @throws IllegalArgumentException if the type is null or the memory budget is smaller
+     * than {@link #MIN_MEMORY_BUDGET}
+     */
+    public HExternalSort(RecordType type, long memoryBudget) {
+        this(type, memoryBudget, null);
+    }
+
+    /**
+     * Constructs a new {@code HExternalSort} that writes its run files to the specified directory.
+     *
+     * @param type the type of the records to be sorted
+     * @param memoryBudget the approximate number of bytes of heap and buffer memory a sort may use
+     * @param tempDir the directory for temporary run files, or {@code null} for the default
+     * temporary-file directory
+     * @throws IllegalArgumentException if the type is null or the memory budget is smaller
+     * than {@link #MIN_MEMORY_BUDGET}
+     */
+    public HExternalSort(RecordType type, long memoryBudget, Path tempDir) {
+        if (type == null) {
+            throw new IllegalArgumentException("Record type cannot be null.");
+        }
+        if (memoryBudget < MIN_MEMORY_BUDGET) {
+            throw new IllegalArgumentException("Memory budget must be at least " + MIN_MEMORY_BUDGET + " bytes.");
+        }
+        this.type = type;
+        this.memoryBudget = memoryBudget;
+        this.tempDir = tempDir;
+    }
+
+    /**
+     * Sets the listener that receives progress reports.
+     *
+     * @param listener the listener, or {@code null} for no progress reports
+     */
+    public void setProgressListener(ProgressListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Sorts the records of the input file into the output file. The output file is created
+     * or replaced; the input file is not modified. Temporary run files are deleted before
+     * this method returns, whether or not the sort succeeds.
+     *
+     * @param input the file of records to be sorted
+     * @param output the file that receives the sorted records
+     * @return a description of the completed sort
+     * @throws IllegalArgumentException if either path is null, the output is the input, or
+     * the size of the input is not a multiple of the record size
+     * @throws IOException if an I/O error occurs
+     */
+    public Result sort(Path input, Path output) throws IOException {
+        if (input == null || output == null) {
+            throw new IllegalArgumentException("Paths cannot be null.");
+        }
+        if (Files.exists(output) && Files.isSameFile(input, output)) {
+            throw new IllegalArgumentException("Output file cannot be the input file.");
+        }
+        long size = Files.size(input);
+        if (size % type.bytes != 0) {
+            throw new IllegalArgumentException("Input file size must be a multiple of the record size.");
+        }
+
+        bytesRead = 0;
+        bytesWritten = 0;
+        long records = size / type.bytes;
+        int ioBuffer = bufferSize(memoryBudget / 8);
+        int chunkRecords = (int) Math.min((memoryBudget - ioBuffer) / (2L * type.bytes), Integer.MAX_VALUE - 8);
+
+        List<Path> temps = new ArrayList<>();
+        try {
+            if (records <= chunkRecords) {
+                // The whole input fits in memory: sort it straight into the output
+                if (records == 0) {
+                    new RunWriter(output, 1 << 12).close();
+                    return new Result(0, 0, 0, bytesRead, bytesWritten);
+                }
+                sortChunks(input, records, (int) records, ioBuffer, output, temps);
+                return new Result(records, 1, 0, bytesRead, bytesWritten);
+            }
+
+            List<Path> runs = new ArrayList<>();
+            sortChunks(input, records, chunkRecords, ioBuffer, null, runs);
+            temps.addAll(runs);
+            int runCount = runs.size();
+            int fanIn = (int) Math.max(2, Math.min(MAX_FAN_IN, memoryBudget / MIN_MERGE_BUFFER - 1));
+            int mergeBuffer = bufferSize(memoryBudget / (fanIn + 1));
+            int passes = 1;
+            while (runs.size() > fanIn) {
+                runs = mergePass(runs, fanIn, mergeBuffer, records, temps);
+                passes++;
+            }
+            merge(runs, output, mergeBuffer, 0, records);
+            return new Result(records, runCount, passes, bytesRead, bytesWritten);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            for (Path temp : temps) {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    /**
+     * Reads the input in chunks of at most {@code chunkRecords} records, sorts each chunk and
+     * writes it to a new run file, or to {@code output} if it is not null.
+     */
+    private void sortChunks(Path input, long records, int chunkRecords, int ioBuffer, Path output, List<Path> runs)
+            throws IOException {
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ)) {
+            int[] ints = null, intBuffer = null;
+            long[] longs = null, longBuffer = null;
+            double[] doubles = null, doubleBuffer = null;
+            switch (type) {
+                case INT:
+                    ints = new int[chunkRecords];
+                    intBuffer = new int[chunkRecords];
+                    break;
+                case LONG:
+                    longs = new long[chunkRecords];
+                    longBuffer = new long[chunkRecords];
+                    break;
+                default:
+                    doubles = new double[chunkRecords];
+                    doubleBuffer = new double[chunkRecords];
+                    break;
+            }
+
+            for (long done = 0; done < records; ) {
+                int n = (int) Math.min(chunkRecords, records - done);
+                Path target = output;
+                if (target == null) {
+                    target = createRun();
+                    runs.add(target);
+                }
+
+                try (RunWriter writer = new RunWriter(target, ioBuffer)) {
+                    switch (type) {
+                        case INT:
+                            readChunk(in, done, ints, null, null, n);
+                            HArray.radixSort(ints, 0, n, intBuffer);
+                            for (int i = 0; i < n; i++) {
+                                writer.put(ints[i]);
+                            }
+                            break;
+                        case LONG:
+                            readChunk(in, done, null, longs, null, n);
+                            HArray.radixSort(longs, 0, n, longBuffer);
+                            for (int i = 0; i < n; i++) {
+                                writer.put(longs[i]);
+                            }
+                            break;
+                        default:
+                            readChunk(in, done, null, null, doubles, n);
+                            HArray.radixSort(doubles, 0, n, doubleBuffer);
+                            for (int i = 0; i < n; i++) {
+                                writer.put(HArray.orderedBits(doubles[i]));
+                            }
+                            break;
+                    }
+                }
+                done += n;
+                report(Phase.SORT_RUNS, done, records);
+            }
+        }
+    }
+
+    /**
+     * Copies {@code n} records starting at record {@code first} into whichever of the arrays
+     * matches the record type, mapping the input one window at a time.
+     */
+    private void readChunk(FileChannel in, long first, int[] ints, long[] longs, double[] doubles, int n)
+            throws IOException {
+        int perWindow = (int) (MAP_WINDOW / type.bytes);
+        for (int off = 0; off < n; ) {
+            int count = Math.min(perWindow, n - off);
+            long bytes = (long) count * type.bytes;
+            MappedByteBuffer map = in.map(FileChannel.MapMode.READ_ONLY, (first + off) * type.bytes, bytes);
+            switch (type) {
+                case INT:
+                    map.asIntBuffer().get(ints, off, count);
+                    break;
+                case LONG:
+                    map.asLongBuffer().get(longs, off, count);
+                    break;
+                default:
+                    map.asDoubleBuffer().get(doubles, off, count);
+                    break;
+            }
+            bytesRead += bytes;
+            off += count;
+        }
+    }
+
+    /**
+     * Merges the runs in groups of {@code fanIn} into new runs, deleting the old ones. Every
+     * new run is also added to {@code temps} so that it is deleted if the sort fails.
+     */
+    private List<Path> mergePass(List<Path> runs, int fanIn, int bufferSize, long records, List<Path> temps)
+            throws IOException {
+        List<Path> merged = new ArrayList<>();
+        long done = 0;
+        for (int i = 0; i < runs.size(); i += fanIn) {
+            Path target = createRun();
+            temps.add(target);
+            merged.add(target);
+            done = merge(runs.subList(i, Math.min(i + fanIn, runs.size())), target, bufferSize, done, records);
+        }
+        for (Path run : runs) {
+            Files.deleteIfExists(run);
+        }
+        return merged;
+    }
+
+    /**
+     * Merges a group of runs into the target file and returns the updated progress count.
+     */
+    private long merge(List<Path> group, Path target, int bufferSize, long done, long records) throws IOException {
+        RunReader[] readers = new RunReader[group.size()];
+        try (RunWriter writer = new RunWriter(target, bufferSize)) {
+            for (int i = 0; i < readers.length; i++) {
+                readers[i] = new RunReader(group.get(i), bufferSize);
+            }
+            PrimitiveIterator.OfLong merged = HArray.mergeIterators(readers);
+            while (merged.hasNext()) {
+                writer.put(merged.nextLong());
+                if (++done % PROGRESS_INTERVAL == 0) {
+                    report(Phase.MERGE, done, records);
+                }
+            }
+        } finally {
+            for (RunReader reader : readers) {
+                if (reader != null) {
+                    reader.close();
+                }
+            }
+        }
+        report(Phase.MERGE, done, records);
+        return done;
+    }
+
+    private Path createRun() throws IOException {
+        return tempDir == null ? Files.createTempFile("hsort", ".run") : Files.createTempFile(tempDir, "hsort", ".run");
+    }
+
+    private void report(Phase phase, long done, long total) {
+        ProgressListener l = listener;
+        if (l != null) {
+            l.progress(phase, done, total);
+        }
+    }
+
+    /**
+     * Returns a buffer size close to the requested one, between 4 KiB and {@link #IO_BUFFER}
+     * and a multiple of every record size.
+     */
+    private static int bufferSize(long requested) {
+        return (int) Math.max(1 << 12, Math.min(IO_BUFFER, requested)) & ~7;
+    }
+
+    /**
+     * Reads a run file as a sequence of sort keys: integers and longs as they are, doubles
+     * through {@link HArray#orderedBits(double)}.
+     */
+    private final class RunReader implements PrimitiveIterator.OfLong, Closeable {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+
+        RunReader(Path path, int bufferSize) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+            this.buffer = ByteBuffer.allocateDirect(bufferSize);
+            buffer.flip();
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (buffer.hasRemaining()) {
+                return true;
+            }
+            try {
+                buffer.clear();
+                int read;
+                while (buffer.hasRemaining() && (read = channel.read(buffer)) > 0) {
+                    bytesRead += read;
+                }
+                buffer.flip();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return buffer.hasRemaining();
+        }
+
+        @Override
+        public long nextLong() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            switch (type) {
+                case INT:
+                    return buffer.getInt();
+                case LONG:
+                    return buffer.getLong();
+                default:
+                    return HArray.orderedBits(buffer.getDouble());
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * Writes sort keys to a file as records, undoing the mapping applied by {@link RunReader}.
+     */
+    private final class RunWriter implements Closeable {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+
+        RunWriter(Path path, int bufferSize) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        }
+
+        void put(long key) throws IOException {
+            switch (type) {
+                case INT:
+                    buffer.putInt((int) key);
+                    break;
+                case LONG:
+                    buffer.putLong(key);
+                    break;
+                default:
+                    // Undo HArray.orderedBits, which is its own inverse on the bits
+                    buffer.putLong(key ^ ((key >> 63) & Long.MAX_VALUE));
+                    break;
+            }
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                bytesWritten += channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,200 @@
+package howie;
+
+import java.util.Arrays;
+
+/**
+ * The {@code HIntIndex} class is an immutable search index over a sorted array of integers.
+ * It answers the same questions as {@link HArray#binarySearch(int[], int)}, but stores the
+ * elements in Eytzinger (breadth-first) order: the children of node {@code k} are nodes
+ * {@code 2k} and {@code 2k + 1}. The first levels of the tree share a few cache lines that
+ * stay hot across searches, and each probe chooses its child with arithmetic rather than
+ * a branch. The tree is padded to a full binary tree so that every search takes the same
+ * number of steps, which lets {@link #lookupAll(int[], int[])} run several searches in
+ * lockstep and overlap their memory accesses.
+ *
+ * <p>Positions returned by the index are positions in the original sorted array.
+ *
+ * @author Howie Hertzberg
+ */
+public final class HIntIndex {
+
+    /**
+     * The greatest number of elements an index can hold. The tree has a power-of-two
+     * number of nodes greater than the number of elements, and an array cannot hold
+     * {@code 2^31} of them.
+     */
+    public static final int MAX_SIZE = (1 << 30) - 1;
+
+    /** Number of searches {@link #lookupAll(int[], int[])} runs in lockstep. */
+    private static final int BATCH = 8;
+
+    private final int[] tree;
+    private final int[] ranks;
+    private final int height;
+    private final int size;
+
+    /**
+     * Constructs a new {@code HIntIndex} over the elements of a sorted array. The array is
+     * copied, so later changes to it do not affect the index.
+     *
+     * @param sorted the array of integers, sorted in ascending order
+     * @throws IllegalArgumentException if the array is null, holds more than
+     * {@link #MAX_SIZE} elements, or is not sorted
+     */
+    public HIntIndex(int[] sorted) {
+        if (sorted == null) {
+            throw new IllegalArgumentException("Input array cannot be null.");
+        }
+        if (sorted.length > MAX_SIZE) {
+            throw new IllegalArgumentException("Input array must hold at most MAX_SIZE elements.");
+        }
+        for (int i = 1; i < sorted.length; i++) {
+            if (sorted[i - 1] > sorted[i]) {
+                throw new IllegalArgumentException("Input array must be sorted.");
+            }
+        }
+
+        this.size = sorted.length;
+        this.height = 32 - Integer.numberOfLeadingZeros(size);
+        int nodes = 1 << height;
+        this.tree = new int[nodes];
+        this.ranks = new int[nodes];
+
+        // Node 0 is the "no element" answer; padding nodes compare greater than any key
+        // and, lying after every real element in order, never hide one
+        ranks[0] = size;
+        int k = leftmost(1, nodes);
+        for (int rank = 0; rank < nodes - 1; rank++) {
+            tree[k] = rank < size ? sorted[rank] : Integer.MAX_VALUE;
+            ranks[k] = Math.min(rank, size);
+
+            // Visit nodes in order: the leftmost node of the right subtree if there is one,
+            // otherwise the nearest ancestor whose left subtree has just been finished
+            if (2 * k + 1 < nodes) {
+                k = leftmost(2 * k + 1, nodes);
+            } else {
+                k >>= Integer.numberOfTrailingZeros(~k) + 1;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of elements in the index.
+     *
+     * @return the number of elements
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the position of the first element that is not less than the key.
+     *
+     * @param key the value to search for
+     * @return the position of the first element {@code >= key}, or {@link #size()} if
+     * every element is less than the key
+     */
+    public int lowerBound(int key) {
+        return ranks[lowerBoundNode(key)];
+    }
+
+    /**
+     * Returns the position of the first element that is greater than the key.
+     *
+     * @param key the value to search for
+     * @return the position of the first element {@code > key}, or {@link #size()} if no
+     * element is greater than the key
+     */
+    public int upperBound(int key) {
+        int k = 1;
+        for (int level = 0; level < height; level++) {
+            k = 2 * k + (tree[k] <= key ? 1 : 0);
+        }
+        return ranks[k >> (Integer.numberOfTrailingZeros(~k) + 1)];
+    }
+
+    /**
+     * Finds the position of the first occurrence of the key.
+     *
+     * @param key the value to search for
+     * @return the position of the first element equal to the key, or -1 if it is not found
+     */
+    public int indexOf(int key) {
+        int k = lowerBoundNode(key);
+        int rank = ranks[k];
+        return rank < size && tree[k] == key ? rank : -1;
+    }
+
+    /**
+     * Checks if the index contains the key.
+     *
+     * @param key the value to search for
+     * @return {@code true} if the index contains the key, {@code false} otherwise
+     */
+    public boolean contains(int key) {
+        return indexOf(key) != -1;
+    }
+
+    /**
+     * Computes {@link #lowerBound(int)} for every key. Several searches are run in
+     * lockstep so that their memory accesses overlap; when the keys are sorted, neighbouring
+     * searches also follow nearly the same path through the tree and hit the same cache lines.
+     *
+     * @param keys the values to search for
+     * @param out the array that receives the lower bound of each key, at the same index
+     * @throws IllegalArgumentException if either array is null, or the output array is
+     * shorter than the key array
+     */
+    public void lookupAll(int[] keys, int[] out) {
+        if (keys == null || out == null) {
+            throw new IllegalArgumentException("Input arrays cannot be null.");
+        }
+        if (out.length < keys.length) {
+            throw new IllegalArgumentException("Output array must be at least as long as the key array.");
+        }
+
+        int[] nodes = new int[BATCH];
+        int i = 0;
+        for (; i + BATCH <= keys.length; i += BATCH) {
+            Arrays.fill(nodes, 1);
+            for (int level = 0; level < height; level++) {
+                for (int j = 0; j < BATCH; j++) {
+                    int k = nodes[j];
+                    nodes[j] = 2 * k + (tree[k] < keys[i + j] ? 1 : 0);
+                }
+            }
+            for (int j = 0; j < BATCH; j++) {
+                int k = nodes[j];
+                out[i + j] = ranks[k >> (Integer.numberOfTrailingZeros(~k) + 1)];
+            }
+        }
+        for (; i < keys.length; i++) {
+            out[i] = lowerBound(keys[i]);
+        }
+    }
+
+    /**
+     * Returns the leftmost descendant of node {@code k} in a tree of {@code nodes - 1} nodes.
+     */
+    private static int leftmost(int k, int nodes) {
+        while (2 * k < nodes) {
+            k = 2 * k;
+        }
+        return k;
+    }
+
+    /**
+     * Returns the tree node holding the first element not less than the key, or 0 if there
+     * is none. The descent records each step as one bit of {@code k}; the answer is the last
+     * node at which the search went left, found by stripping the trailing right turns and
+     * that final left turn.
+     */
+    private int lowerBoundNode(int key) {
+        int k = 1;
+        for (int level = 0; level < height; level++) {
+            k = 2 * k + (tree[k] < key ? 1 : 0);
+        }
+        return k >> (Integer.numberOfTrailingZeros(~k) + 1);
+    }
+
+}
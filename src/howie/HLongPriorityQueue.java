@@ -0,0 +1,419 @@
+package howie;
+
+import java.util.Arrays;
+
+/**
+ * The {@code HLongPriorityQueue} class represents a bounded priority queue of objects keyed
+ * by primitive {@code long} values, such as timers keyed by their deadlines. It has the
+ * same {@code enqueue}/{@code dequeue}/{@code peek} semantics as {@link HQueue}, except that
+ * entries are dequeued smallest key first. Entries with equal keys are dequeued in no
+ * particular order.
+ *
+ * <p>Like {@link HPriorityQueue} the queue is a d-ary min-heap, but its keys are stored
+ * unboxed in a {@code long[]} and its payloads in a parallel array, all allocated up front,
+ * so no operation allocates. {@link #enqueue} returns a handle for the new entry that stays
+ * valid until the entry leaves the queue, and through which its key can be lowered with
+ * {@link #decreaseKey}, changed with {@link #updateKey} or the entry removed with
+ * {@link #remove}, each in logarithmic time. A handle is an index between 0 and the
+ * capacity, and is reused for a later entry once its entry has left the queue.
+ *
+ * @param <T> the type of payloads held in the queue
+ * @author Howie Hertzberg
+ * @see HPriorityQueue
+ */
+public final class HLongPriorityQueue<T> {
+
+    /**
+     * The number of children per heap node when none is specified.
+     */
+    public static final int DEFAULT_ARITY = 4;
+
+    // The heap, in heap order: the key of each entry and its handle
+    private final long[] keys;
+    private final int[] handles;
+
+    // Indexed by handle: the position of the entry in the heap, or -1, and its payload
+    private final int[] positions;
+    private final Object[] payloads;
+
+    // Handles not in use, as a stack
+    private final int[] freeHandles;
+    private final int arity;
+    private int size;
+
+    /**
+     * Constructs a new {@code HLongPriorityQueue} with the specified capacity.
+     *
+     * @param capacity the maximum number of entries the queue can hold
+     * @throws IllegalArgumentException if the specified capacity is not positive
+     */
+    public HLongPriorityQueue(int capacity) {
+        this(capacity, DEFAULT_ARITY);
+    }
+
+    /**
+     * Constructs a new {@code HLongPriorityQueue} with the specified capacity and heap arity.
+     *
+     * @param capacity the maximum number of entries the queue can hold
+     * @param arity the number of children per heap node
+     * @throws IllegalArgumentException if the specified capacity is not positive or the
+     * arity is less than 2
+     */
+    public HLongPriorityQueue(int capacity, int arity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Queue capacity must be positive.");
+        }
+        if (arity < 2) {
+            throw new IllegalArgumentException("Arity must be at least 2.");
+        }
+        this.keys = new long[capacity];
+        this.handles = new int[capacity];
+        this.positions = new int[capacity];
+        this.payloads = new Object[capacity];
+        this.freeHandles = new int[capacity];
+        this.arity = arity;
+        Arrays.fill(positions, -1);
+        for (int i = 0; i < capacity; i++) {
+            freeHandles[i] = capacity - 1 - i;
+        }
+    }
+
+    /**
+     * Attempts to enqueue an object to the queue with the specified key.
+     *
+     * @param key the key of the entry
+     * @param item the object to enqueue
+     * @return the handle of the new entry
+     * @throws IllegalArgumentException if the specified object is null
+     * @throws IllegalStateException if the queue is full
+     */
+    public int enqueue(long key, T item) {
+        if (item == null) {
+            throw new IllegalArgumentException("Object cannot be null.");
+        }
+        if (isFull()) {
+            throw new IllegalStateException("Queue is full.");
+        }
+        int handle = freeHandles[keys.length - 1 - size];
+        payloads[handle] = item;
+        siftUp(size++, key, handle);
+        return handle;
+    }
+
+    /**
+     * Enqueues the objects in the range {@code [from, to)} of an array, each with the key at
+     * the same index of a second array. Either every object is enqueued or, if any is null
+     * or there is not enough room for all of them, none is. When the range is at least as
+     * large as the queue, the heap is rebuilt bottom-up in time linear in the new size
+     * instead of sifting each entry up.
+     *
+     * @param keys the array of keys
+     * @param items the array of objects to enqueue
+     * @param from the starting index (inclusive) of the range to enqueue
+     * @param to the ending index (exclusive) of the range to enqueue
+     * @param handlesOut the array that receives the handle of each entry, starting at index
+     * 0, or {@code null} if the handles are not needed
+     * @throws IllegalArgumentException if either input array or any object in the range is
+     * null, the arrays differ in length, the indices are not within the bounds of the
+     * arrays, the start index is greater than the end index, or the handle array is too
+     * small
+     * @throws IllegalStateException if the queue does not have room for every object
+     */
+    public void enqueueAll(long[] keys, T[] items, int from, int to, int[] handlesOut) {
+        if (keys == null || items == null) {
+            throw new IllegalArgumentException("Input array cannot be null.");
+        }
+        if (keys.length != items.length) {
+            throw new IllegalArgumentException("Input arrays must be the same length.");
+        }
+        HArray.checkRange(items.length, from, to);
+        for (int i = from; i < to; i++) {
+            if (items[i] == null) {
+                throw new IllegalArgumentException("Object cannot be null.");
+            }
+        }
+        int n = to - from;
+        if (handlesOut != null && handlesOut.length < n) {
+            throw new IllegalArgumentException("Output array is too small.");
+        }
+        if (n > this.keys.length - size) {
+            throw new IllegalStateException("Queue does not have room for every object.");
+        }
+        boolean heapify = n >= size;
+        for (int i = from; i < to; i++) {
+            int handle = freeHandles[this.keys.length - 1 - size];
+            payloads[handle] = items[i];
+            if (heapify) {
+                place(size++, keys[i], handle);
+            } else {
+                siftUp(size++, keys[i], handle);
+            }
+            if (handlesOut != null) {
+                handlesOut[i - from] = handle;
+            }
+        }
+        if (heapify) {
+            // Floyd's heap construction: sift down every internal node, last to first
+            for (int i = (size - 2) / arity; i >= 0; i--) {
+                siftDown(i, this.keys[i], handles[i]);
+            }
+        }
+    }
+
+    /**
+     * Attempts to dequeue the object with the smallest key from the queue. Its handle
+     * becomes invalid.
+     *
+     * @return the dequeued object
+     * @throws IllegalStateException if the queue is empty
+     */
+    public T dequeue() {
+        if (isEmpty()) {
+            throw new IllegalStateException("Queue is empty.");
+        }
+        return removeAt(0);
+    }
+
+    /**
+     * Attempts to retrieve the object with the smallest key from the queue.
+     *
+     * @return the object with the smallest key
+     * @throws IllegalStateException if the queue is empty
+     */
+    @SuppressWarnings("unchecked")
+    public T peek() {
+        if (isEmpty()) {
+            throw new IllegalStateException("Queue is empty.");
+        }
+        return (T) payloads[handles[0]];
+    }
+
+    /**
+     * Attempts to retrieve the smallest key in the queue.
+     *
+     * @return the smallest key
+     * @throws IllegalStateException if the queue is empty
+     */
+    public long peekKey() {
+        if (isEmpty()) {
+            throw new IllegalStateException("Queue is empty.");
+        }
+        return keys[0];
+    }
+
+    /**
+     * Attempts to retrieve the handle of the entry with the smallest key.
+     *
+     * @return the handle of the entry with the smallest key
+     * @throws IllegalStateException if the queue is empty
+     */
+    public int peekHandle() {
+        if (isEmpty()) {
+            throw new IllegalStateException("Queue is empty.");
+        }
+        return handles[0];
+    }
+
+    /**
+     * Checks if a handle belongs to an entry that is in the queue.
+     *
+     * @param handle the handle to check
+     * @return {@code true} if the entry is in the queue, {@code false} otherwise
+     */
+    public boolean contains(int handle) {
+        return handle >= 0 && handle < positions.length && positions[handle] >= 0;
+    }
+
+    /**
+     * Returns the key of an entry in the queue.
+     *
+     * @param handle the handle of the entry
+     * @return the key of the entry
+     * @throws IllegalArgumentException if the handle does not belong to an entry in the queue
+     */
+    public long key(int handle) {
+        return keys[checkHandle(handle)];
+    }
+
+    /**
+     * Lowers the key of an entry in the queue.
+     *
+     * @param handle the handle of the entry
+     * @param key the new key, which must not be greater than the current one
+     * @throws IllegalArgumentException if the handle does not belong to an entry in the queue
+     * or the new key is greater than the current one
+     */
+    public void decreaseKey(int handle, long key) {
+        int i = checkHandle(handle);
+        if (key > keys[i]) {
+            throw new IllegalArgumentException("New key cannot be greater than the current key.");
+        }
+        siftUp(i, key, handle);
+    }
+
+    /**
+     * Changes the key of an entry in the queue, up or down.
+     *
+     * @param handle the handle of the entry
+     * @param key the new key
+     * @throws IllegalArgumentException if the handle does not belong to an entry in the queue
+     */
+    public void updateKey(int handle, long key) {
+        int i = checkHandle(handle);
+        if (key < keys[i]) {
+            siftUp(i, key, handle);
+        } else {
+            siftDown(i, key, handle);
+        }
+    }
+
+    /**
+     * Removes an entry from the queue, whatever its key. Its handle becomes invalid.
+     *
+     * @param handle the handle of the entry
+     * @return the removed object
+     * @throws IllegalArgumentException if the handle does not belong to an entry in the queue
+     */
+    public T remove(int handle) {
+        return removeAt(checkHandle(handle));
+    }
+
+    /**
+     * Clears all entries from the queue. Every handle becomes invalid.
+     */
+    public void clear() {
+        while (size > 0) {
+            int handle = handles[--size];
+            positions[handle] = -1;
+            payloads[handle] = null;
+            freeHandles[keys.length - 1 - size] = handle;
+        }
+    }
+
+    /**
+     * Returns the number of entries in the queue.
+     *
+     * @return the number of entries in the queue
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the maximum number of entries the queue can hold.
+     *
+     * @return the capacity of the queue
+     */
+    public int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Checks if the queue is full.
+     *
+     * @return {@code true} if the queue is full, {@code false} otherwise
+     */
+    public boolean isFull() {
+        return size == keys.length;
+    }
+
+    /**
+     * Checks if the queue is empty.
+     *
+     * @return {@code true} if the queue is empty, {@code false} otherwise
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the heap position of the entry with the specified handle.
+     *
+     * @throws IllegalArgumentException if the handle does not belong to an entry in the queue
+     */
+    private int checkHandle(int handle) {
+        if (!contains(handle)) {
+            throw new IllegalArgumentException("Handle does not belong to an entry in the queue.");
+        }
+        return positions[handle];
+    }
+
+    /**
+     * Removes the entry at heap position {@code i}, fills the hole with the last entry and
+     * frees the handle.
+     */
+    @SuppressWarnings("unchecked")
+    private T removeAt(int i) {
+        int handle = handles[i];
+        T item = (T) payloads[handle];
+        payloads[handle] = null;
+        positions[handle] = -1;
+        int last = --size;
+        freeHandles[keys.length - 1 - size] = handle;
+        if (i != last) {
+            long key = keys[last];
+            int lastHandle = handles[last];
+            if (key < keys[i]) {
+                siftUp(i, key, lastHandle);
+            } else {
+                siftDown(i, key, lastHandle);
+            }
+        }
+        return item;
+    }
+
+    /**
+     * Stores an entry at heap position {@code i}.
+     */
+    private void place(int i, long key, int handle) {
+        keys[i] = key;
+        handles[i] = handle;
+        positions[handle] = i;
+    }
+
+    /**
+     * Moves a hole at heap position {@code i} up towards the root until the entry fits into
+     * it.
+     */
+    private void siftUp(int i, long key, int handle) {
+        while (i > 0) {
+            int parent = (i - 1) / arity;
+            if (key >= keys[parent]) {
+                break;
+            }
+            place(i, keys[parent], handles[parent]);
+            i = parent;
+        }
+        place(i, key, handle);
+    }
+
+    /**
+     * Moves a hole at heap position {@code i} down towards the leaves until the entry fits
+     * into it.
+     */
+    private void siftDown(int i, long key, int handle) {
+        while (true) {
+            long child = (long) arity * i + 1;
+            if (child >= size) {
+                break;
+            }
+
+            // Find the child with the smallest key
+            int first = (int) child;
+            int last = first + Math.min(arity, size - first);
+            int min = first;
+            for (int c = first + 1; c < last; c++) {
+                if (keys[c] < keys[min]) {
+                    min = c;
+                }
+            }
+            if (keys[min] >= key) {
+                break;
+            }
+            place(i, keys[min], handles[min]);
+            i = min;
+        }
+        place(i, key, handle);
+    }
+
+}
@@ -0,0 +1,199 @@
+package howie;
+
+/**
+ * The {@code HLongQueue} class represents a circular queue of long values that allows
+ * enqueueing and dequeueing using First-In-First-Out (FIFO) logic. It behaves like an
+ * {@link HQueue} of long values, but stores the values in a {@code long[]}, so nothing
+ * is boxed and steady-state use allocates nothing.
+ *
+ * <p>Besides the methods that throw when the queue is full or empty, the queue offers
+ * {@code try} methods that report the condition through their return value instead.
+ *
+ * @author Howie Hertzberg
+ */
+public final class HLongQueue {
+
+    private final long[] queueArray;
+    private int inPtr;
+    private int outPtr;
+
+    /**
+     * Constructs a new {@code HLongQueue} with the specified capacity.
+     *
+     * @param capacity the maximum number of values the queue can hold
+     * @throws IllegalArgumentException if the specified capacity is not positive
+     */
+    public HLongQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Queue capacity must be positive.");
+        }
+        this.queueArray = new long[capacity + 1];
+        this.inPtr = 0;
+        this.outPtr = 0;
+    }
+
+    /**
+     * Attempts to enqueue a value to the queue.
+     *
+     * @param value the value to enqueue
+     * @throws IllegalStateException if the queue is full
+     */
+    public void enqueue(long value) {
+        if (!tryEnqueue(value)) {
+            throw new IllegalStateException("Queue is full.");
+        }
+    }
+
+    /**
+     * Enqueues a value if there is room for it.
+     *
+     * @param value the value to enqueue
+     * @return {@code true} if the value was enqueued, {@code false} if the queue is full
+     */
+    public boolean tryEnqueue(long value) {
+        int next = inPtr + 1 == queueArray.length ? 0 : inPtr + 1;
+        if (next == outPtr) {
+            return false;
+        }
+        queueArray[inPtr] = value;
+        inPtr = next;
+        return true;
+    }
+
+    /**
+     * Enqueues every value in the range {@code [from, to)} of an array, in order. Either
+     * every value is enqueued or, if there is not enough room for all of them, none is.
+     *
+     * @param values the array of values to enqueue
+     * @param from the starting index (inclusive) of the range to enqueue
+     * @param to the ending index (exclusive) of the range to enqueue
+     * @throws IllegalArgumentException if the array is null, the indices are not within the
+     * bounds of the array, or the start index is greater than the end index
+     * @throws IllegalStateException if the queue does not have room for every value
+     */
+    public void enqueueAll(long[] values, int from, int to) {
+        if (values == null) {
+            throw new IllegalArgumentException("Input array cannot be null.");
+        }
+        HArray.checkRange(values.length, from, to);
+        int n = to - from;
+        if (n > queueArray.length - 1 - size()) {
+            throw new IllegalStateException("Queue does not have room for every value.");
+        }
+
+        // Copy up to the end of the array, then wrap around to the start
+        int first = Math.min(n, queueArray.length - inPtr);
+        System.arraycopy(values, from, queueArray, inPtr, first);
+        System.arraycopy(values, from + first, queueArray, 0, n - first);
+        inPtr = (inPtr + n) % queueArray.length;
+    }
+
+    /**
+     * Attempts to dequeue a value from the queue.
+     *
+     * @return the dequeued value
+     * @throws IllegalStateException if the queue is empty
+     */
+    public long dequeue() {
+        if (isEmpty()) {
+            throw new IllegalStateException("Queue is empty.");
+        }
+        long value = queueArray[outPtr];
+        outPtr = outPtr + 1 == queueArray.length ? 0 : outPtr + 1;
+        return value;
+    }
+
+    /**
+     * Dequeues a value if there is one.
+     *
+     * @param defaultValue the value to return if the queue is empty
+     * @return the dequeued value, or {@code defaultValue} if the queue is empty
+     */
+    public long tryDequeue(long defaultValue) {
+        if (isEmpty()) {
+            return defaultValue;
+        }
+        long value = queueArray[outPtr];
+        outPtr = outPtr + 1 == queueArray.length ? 0 : outPtr + 1;
+        return value;
+    }
+
+    /**
+     * Dequeues as many values as fit into an array, oldest first, starting at index 0.
+     *
+     * @param dst the array that receives the dequeued values
+     * @return the number of values dequeued
+     * @throws IllegalArgumentException if the array is null
+     */
+    public int drainTo(long[] dst) {
+        if (dst == null) {
+            throw new IllegalArgumentException("Output array cannot be null.");
+        }
+        int n = Math.min(size(), dst.length);
+
+        // Copy up to the end of the array, then wrap around to the start
+        int first = Math.min(n, queueArray.length - outPtr);
+        System.arraycopy(queueArray, outPtr, dst, 0, first);
+        System.arraycopy(queueArray, 0, dst, first, n - first);
+        outPtr = (outPtr + n) % queueArray.length;
+        return n;
+    }
+
+    /**
+     * Attempts to retrieve the top value from the queue.
+     *
+     * @return the top value of the queue
+     * @throws IllegalStateException if the queue is empty
+     */
+    public long peek() {
+        if (isEmpty()) {
+            throw new IllegalStateException("Queue is empty.");
+        }
+        return queueArray[outPtr];
+    }
+
+    /**
+     * Retrieves the top value from the queue if there is one.
+     *
+     * @param defaultValue the value to return if the queue is empty
+     * @return the top value of the queue, or {@code defaultValue} if the queue is empty
+     */
+    public long tryPeek(long defaultValue) {
+        return isEmpty() ? defaultValue : queueArray[outPtr];
+    }
+
+    /**
+     * Clears all values from the queue.
+     */
+    public void clear() {
+        inPtr = 0;
+        outPtr = 0;
+    }
+
+    /**
+     * Checks if the queue is full.
+     *
+     * @return {@code true} if the queue is full, {@code false} otherwise
+     */
+    public boolean isFull() {
+        return (inPtr + 1 == queueArray.length ? 0 : inPtr + 1) == outPtr;
+    }
+
+    /**
+     * Checks if the queue is empty.
+     *
+     * @return {@code true} if the queue is empty, {@code false} otherwise
+     */
+    public boolean isEmpty() {
+        return inPtr == outPtr;
+    }
+
+    /**
+     * Returns the number of values in the queue.
+     */
+    private int size() {
+        int size = inPtr - outPtr;
+        return size < 0 ? size + queueArray.length : size;
+    }
+
+}
@@ -0,0 +1,177 @@
+package howie;
+
+/**
+ * The {@code HLongStack} class represents a stack of long values that allows pushing and
+ * popping using Last-In-First-Out (LIFO) logic. It behaves like an {@link HStack} of
+ * long values, but stores the values in a {@code long[]}, so nothing is boxed and
+ * steady-state use allocates nothing.
+ *
+ * <p>Besides the methods that throw when the stack is full or empty, the stack offers
+ * {@code try} methods that report the condition through their return value instead.
+ *
+ * @author Howie Hertzberg
+ */
+public final class HLongStack {
+
+    private final long[] stackArray;
+    private final int capacity;
+    private int topPtr;
+
+    /**
+     * Constructs a new {@code HLongStack} with the specified capacity.
+     *
+     * @param capacity the maximum number of values the stack can hold
+     * @throws IllegalArgumentException if the specified capacity is not positive
+     */
+    public HLongStack(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Stack capacity must be positive.");
+        }
+        this.stackArray = new long[capacity];
+        this.capacity = capacity;
+        this.topPtr = -1;
+    }
+
+    /**
+     * Attempts to push a value onto the stack.
+     *
+     * @param value the value to push
+     * @throws IllegalStateException if the stack is full
+     */
+    public void push(long value) {
+        if (isFull()) {
+            throw new IllegalStateException("Stack is full.");
+        }
+        stackArray[++topPtr] = value;
+    }
+
+    /**
+     * Pushes a value onto the stack if there is room for it.
+     *
+     * @param value the value to push
+     * @return {@code true} if the value was pushed, {@code false} if the stack is full
+     */
+    public boolean tryPush(long value) {
+        if (isFull()) {
+            return false;
+        }
+        stackArray[++topPtr] = value;
+        return true;
+    }
+
+    /**
+     * Pushes every value in the range {@code [from, to)} of an array, in order, so that
+     * {@code values[to - 1]} ends up on top. Either every value is pushed or, if there is
+     * not enough room for all of them, none is.
+     *
+     * @param values the array of values to push
+     * @param from the starting index (inclusive) of the range to push
+     * @param to the ending index (exclusive) of the range to push
+     * @throws IllegalArgumentException if the array is null, the indices are not within the
+     * bounds of the array, or the start index is greater than the end index
+     * @throws IllegalStateException if the stack does not have room for every value
+     */
+    public void pushAll(long[] values, int from, int to) {
+        if (values == null) {
+            throw new IllegalArgumentException("Input array cannot be null.");
+        }
+        HArray.checkRange(values.length, from, to);
+        int n = to - from;
+        if (n > capacity - 1 - topPtr) {
+            throw new IllegalStateException("Stack does not have room for every value.");
+        }
+        System.arraycopy(values, from, stackArray, topPtr + 1, n);
+        topPtr += n;
+    }
+
+    /**
+     * Attempts to pop a value from the stack.
+     *
+     * @return the popped value
+     * @throws IllegalStateException if the stack is empty
+     */
+    public long pop() {
+        if (isEmpty()) {
+            throw new IllegalStateException("Stack is empty.");
+        }
+        return stackArray[topPtr--];
+    }
+
+    /**
+     * Pops a value from the stack if there is one.
+     *
+     * @param defaultValue the value to return if the stack is empty
+     * @return the popped value, or {@code defaultValue} if the stack is empty
+     */
+    public long tryPop(long defaultValue) {
+        return isEmpty() ? defaultValue : stackArray[topPtr--];
+    }
+
+    /**
+     * Pops as many values as fit into an array. The values keep the order they have on the
+     * stack, with the former top value last, so passing the same range to
+     * {@link #pushAll(long[], int, int)} restores the stack.
+     *
+     * @param dst the array that receives the popped values, starting at index 0
+     * @return the number of values popped
+     * @throws IllegalArgumentException if the array is null
+     */
+    public int popInto(long[] dst) {
+        if (dst == null) {
+            throw new IllegalArgumentException("Output array cannot be null.");
+        }
+        int n = Math.min(topPtr + 1, dst.length);
+        System.arraycopy(stackArray, topPtr + 1 - n, dst, 0, n);
+        topPtr -= n;
+        return n;
+    }
+
+    /**
+     * Attempts to retrieve the top value from the stack.
+     *
+     * @return the top value of the stack
+     * @throws IllegalStateException if the stack is empty
+     */
+    public long peek() {
+        if (isEmpty()) {
+            throw new IllegalStateException("Stack is empty.");
+        }
+        return stackArray[topPtr];
+    }
+
+    /**
+     * Retrieves the top value from the stack if there is one.
+     *
+     * @param defaultValue the value to return if the stack is empty
+     * @return the top value of the stack, or {@code defaultValue} if the stack is empty
+     */
+    public long tryPeek(long defaultValue) {
+        return isEmpty() ? defaultValue : stackArray[topPtr];
+    }
+
+    /**
+     * Clears all values from the stack.
+     */
+    public void clear() {
+        topPtr = -1;
+    }
+
+    /**
+     * Checks if the stack is full.
+     *
+     * @return {@code true} if the stack is full, {@code false} otherwise
+     */
+    public boolean isFull() {
+        return topPtr + 1 == capacity;
+    }
+
+    /**
+     * Checks if the stack is empty.
+     *
+     * @return {@code true} if the stack is empty, {@code false} otherwise
+     */
+    public boolean isEmpty() {
+        return topPtr == -1;
+    }
+
+}
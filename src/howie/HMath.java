@@ -1,5 +1,10 @@
 package howie;
 
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+
 /**
  * The {@code howie.HMath} class provides mathematical utility methods.
  *
@@ -7,6 +12,11 @@ package howie;
  */
 public class HMath {
 
+    /**
+     * Default number of elements below which a parallel reduction stops forking subtasks.
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+
     /**
      * Returns the greatest value from an array of integers.
      *
@@ -23,14 +33,15 @@ public class HMath {
             throw new IllegalArgumentException("Input array must contain at least one element.");
         }
 
-        return max(HArray.boxInteger(arr));
+        return max(arr, 0, arr.length);
     }
 
     /**
      * Returns the greatest value from an array of doubles.
      *
      * @param arr the array of doubles from which to find the maximum value
-     * @return the maximum value among the provided doubles
+     * @return the maximum value among the provided doubles, or {@code NaN} if any element
+     * is {@code NaN}
      * @throws IllegalArgumentException if the array is {@code null} or empty
      */
     public static double max(double[] arr) {
@@ -42,7 +53,26 @@ public class HMath {
             throw new IllegalArgumentException("Input array must contain at least one element.");
         }
 
-        return max(HArray.boxDouble(arr));
+        return max(arr, 0, arr.length);
+    }
+
+    /**
+     * Returns the greatest value from an array of longs.
+     *
+     * @param arr the array of longs from which to find the maximum value
+     * @return the maximum value among the provided longs
+     * @throws IllegalArgumentException if the array is {@code null} or empty
+     */
+    public static long max(long[] arr) {
+        // Validate input
+        if(arr == null) {
+            throw new IllegalArgumentException("Input array cannot be null.");
+        }
+        if(arr.length == 0) {
+            throw new IllegalArgumentException("Input array must contain at least one element.");
+        }
+
+        return max(arr, 0, arr.length);
     }
 
     /**
@@ -89,14 +119,15 @@ public class HMath {
             throw new IllegalArgumentException("Input array must contain at least one element.");
         }
 
-        return min(HArray.boxInteger(arr));
+        return min(arr, 0, arr.length);
     }
 
     /**
      * Returns the minimum value from an array of doubles.
      *
      * @param arr the array of doubles from which to find the minimum value
-     * @return the minimum value among the provided doubles
+     * @return the minimum value among the provided doubles, or {@code NaN} if any element
+     * is {@code NaN}
      * @throws IllegalArgumentException if the array is {@code null} or empty
      */
     public static double min(double[] arr) {
@@ -108,7 +139,26 @@ public class HMath {
             throw new IllegalArgumentException("Input array must contain at least one element.");
         }
 
-        return min(HArray.boxDouble(arr));
+        return min(arr, 0, arr.length);
+    }
+
+    /**
+     * Returns the minimum value from an array of longs.
+     *
+     * @param arr the array of longs from which to find the minimum value
+     * @return the minimum value among the provided longs
+     * @throws IllegalArgumentException if the array is {@code null} or empty
+     */
+    public static long min(long[] arr) {
+        // Validate input
+        if(arr == null) {
+            throw new IllegalArgumentException("Input array cannot be null.");
+        }
+        if(arr.length == 0) {
+            throw new IllegalArgumentException("Input array must contain at least one element.");
+        }
+
+        return min(arr, 0, arr.length);
     }
 
     /**
@@ -139,4 +189,1672 @@ public class HMath {
         return minObj;
     }
 
+    /**
+     * Computes the count, minimum, maximum, sum, mean and variance of an array of integers
+     * in a single pass.
+     *
+     * @param arr the array of integers to summarize
+     * @return the statistics of the provided integers, with exact minimum, maximum and sum
+     * @throws IllegalArgumentException if the array is {@code null} or empty
+     */
+    public static LongStats stats(int[] arr) {
+        // Validate input
+        if(arr == null) {
+            throw new IllegalArgumentException("Input array cannot be null.");
+        }
+        if(arr.length == 0) {
+            throw new IllegalArgumentException("Input array must contain at least one element.");
+        }
+
+        return stats(arr, 0, arr.length);
+    }
+
+    /**
+     * Computes the count, minimum, maximum, sum, mean and variance of an array of longs
+     * in a single pass.
+     *
+     * @param arr the array of longs to summarize
+     * @return the statistics of the provided longs, with exact minimum, maximum and sum
+     * @throws IllegalArgumentException if the array is {@code null} or empty
+     */
+    public static LongStats stats(long[] arr) {
+        // Validate input
+        if(arr == null) {
+            throw new IllegalArgumentException("Input array cannot be null.");
+        }
+        if(arr.length == 0) {
+            throw new IllegalArgumentException("Input array must contain at least one element.");
+        }
+
+        return stats(arr, 0, arr.length);
+    }
+
+    /**
+     * Computes the count, minimum, maximum, sum, mean and variance of an array of doubles
+     * in a single pass. If any element is {@code NaN}, every statistic except the count is
+     * {@code NaN}.
+     *
+     * @param arr the array of doubles to summarize
+     * @return the statistics of the provided doubles
+     * @throws IllegalArgumentException if the array is {@code null} or empty
+     */
+    public static Stats stats(double[] arr) {
+        // Validate input
+        if(arr == null) {
+            throw new IllegalArgumentException("Input array cannot be null.");
+        }
+        if(arr.length == 0) {
+            throw new IllegalArgumentException("Input array must contain at least one element.");
+        }
+
+        return stats(arr, 0, arr.length);
+    }
+
+    /**
+     * Returns the greatest value from an off-heap array of integers. The array is streamed
+     * through a small on-heap window, so the same unrolled kernel as {@link #max(int[])} is
+     * used without copying the array onto the heap.
+     *
+     * @param arr the off-heap array of integers from which to find the maximum value
+     * @return the maximum value among the provided integers
+     * @throws IllegalArgumentException if the array is {@code null} or empty
+     * @throws IllegalStateException if the array is closed
+     */
+    public static int max(HOffHeapIntArray arr) {
+        // Validate input
+        checkOffHeap(arr == null ? -1 : arr.length());
+
+        int[] window = new int[(int) Math.min(HArray.OFF_HEAP_WINDOW, arr.length())];
+        int max = Integer.MIN_VALUE;
+        for(long i = 0; i < arr.length(); i += window.length) {
+            int n = (int) Math.min(window.length, arr.length() - i);
+            arr.copyTo(i, window, 0, n);
+            max = Math.max(max, max(window, 0, n));
+        }
+        return max;
+    }
+
+    /**
+     * Returns the greatest value from an off-heap array of doubles. The array is streamed
+     * through a small on-heap window, so the same unrolled kernel as {@link #max(double[])}
+     * is used without copying the array onto the heap.
+     *
+     * @param arr the off-heap array of doubles from which to find the maximum value
+     * @return the maximum value among the provided doubles, or {@code NaN} if any element
+     * is {@code NaN}
+     * @throws IllegalArgumentException if the array is {@code null} or empty
+     * @throws IllegalStateException if the array is closed
+     */
+    public static double max(HOffHeapDoubleArray arr) {
+        // Validate input
+        checkOffHeap(arr == null ? -1 : arr.length());
+
+        double[] window = new double[(int) Math.min(HArray.OFF_HEAP_WINDOW, arr.length())];
+        double max = Double.NEGATIVE_INFINITY;
+        for(long i = 0; i < arr.length(); i += window.length) {
+            int n = (int) Math.min(window.length, arr.length() - i);
+            arr.copyTo(i, window, 0, n);
+            max = Math.max(max, max(window, 0, n));
+        }
+        return max;
+    }
+
+    /**
+     * Returns the smallest value from an off-heap array of integers. The array is streamed
+     * through a small on-heap window, so the same unrolled kernel as {@link #min(int[])} is
+     * used without copying the array onto the heap.
+     *
+     * @param arr the off-heap array of integers from which to find the minimum value
+     * @return the minimum value among the provided integers
+     * @throws IllegalArgumentException if the array is {@code null} or empty
+     * @throws IllegalStateException if the array is closed
+     */
+    public static int min(HOffHeapIntArray arr) {
+        // Validate input
+        checkOffHeap(arr == null ? -1 : arr.length());
+
+        int[] window = new int[(int) Math.min(HArray.OFF_HEAP_WINDOW, arr.length())];
+        int min = Integer.MAX_VALUE;
+        for(long i = 0; i < arr.length(); i += window.length) {
+            int n = (int) Math.min(window.length, arr.length() - i);
+            arr.copyTo(i, window, 0, n);
+            min = Math.min(min, min(window, 0, n));
+        }
+        return min;
+    }
+
+    /**
+     * Returns the smallest value from an off-heap array of doubles. The array is streamed
+     * through a small on-heap window, so the same unrolled kernel as {@link #min(double[])}
+     * is used without copying the array onto the heap.
+     *
+     * @param arr the off-heap array of doubles from which to find the minimum value
+     * @return the minimum value among the provided doubles, or {@code NaN} if any element
+     * is {@code NaN}
+     * @throws IllegalArgumentException if the array is {@code null} or empty
+     * @throws IllegalStateException if the array is closed
+     */
+    public static double min(HOffHeapDoubleArray arr) {
+        // Validate input
+        checkOffHeap(arr == null ? -1 : arr.length());
+
+        double[] window = new double[(int) Math.min(HArray.OFF_HEAP_WINDOW, arr.length())];
+        double min = Double.POSITIVE_INFINITY;
+        for(long i = 0; i < arr.length(); i += window.length) {
+            int n = (int) Math.min(window.length, arr.length() - i);
+            arr.copyTo(i, window, 0, n);
+            min = Math.min(min, min(window, 0, n));
+        }
+        return min;
+    }
+
+    /**
+     * Computes the count, minimum, maximum, sum, mean and variance of an off-heap array of
+     * integers in a single pass. Each window of the array is summarized with the same
+     * kernel as {@link #stats(int[])} and the results are combined.
+     *
+     * @param arr the off-heap array of integers to summarize
+     * @return the statistics of the provided integers, with exact minimum, maximum and sum
+     * @throws IllegalArgumentException if the array is {@code null} or empty
+     * @throws IllegalStateException if the array is closed
+     */
+    public static LongStats stats(HOffHeapIntArray arr) {
+        // Validate input
+        checkOffHeap(arr == null ? -1 : arr.length());
+
+        int[] window = new int[(int) Math.min(HArray.OFF_HEAP_WINDOW, arr.length())];
+        LongStats stats = null;
+        for(long i = 0; i < arr.length(); i += window.length) {
+            int n = (int) Math.min(window.length, arr.length() - i);
+            arr.copyTo(i, window, 0, n);
+            LongStats part = stats(window, 0, n);
+            stats = stats == null ? part : LongStats.combine(stats, part);
+        }
+        return stats;
+    }
+
+    /**
+     * Computes the count, minimum, maximum, sum, mean and variance of an off-heap array of
+     * doubles in a single pass. Each window of the array is summarized with the same kernel
+     * as {@link #stats(double[])} and the results are combined. If any element is
+     * {@code NaN}, every statistic except the count is {@code NaN}.
+     *
+     * @param arr the off-heap array of doubles to summarize
+     * @return the statistics of the provided doubles
+     * @throws IllegalArgumentException if the array is {@code null} or empty
+     * @throws IllegalStateException if the array is closed
+     */
+    public static Stats stats(HOffHeapDoubleArray arr) {
+        // Validate input
+        checkOffHeap(arr == null ? -1 : arr.length());
+
+        double[] window = new double[(int) Math.min(HArray.OFF_HEAP_WINDOW, arr.length())];
+        Stats stats = null;
+        for(long i = 0; i < arr.length(); i += window.length) {
+            int n = (int) Math.min(window.length, arr.length() - i);
+            arr.copyTo(i, window, 0, n);
+            Stats part = stats(window, 0, n);
+            stats = stats == null ? part : Stats.combine(stats, part);
+        }
+        return stats;
+    }
+
+    /**
+     * Returns the median of an array of integers. For an even number of elements, this is
+     * the mean of the two middle elements. The input array is left unchanged.
+     *
+     * @param arr the array of integers from which to find the median
+     * @return the median of the provided integers
+     * @throws IllegalArgumentException if the array is {@code null} or empty
+     */
+    public static double median(int[] arr) {
+        return percentile(arr, 50.0);
+    }
+
+    /**
+     * Returns the median of an array of doubles. For an even number of elements, this is
+     * the mean of the two middle elements. The input array is left unchanged.
+     *
+     * @param arr the array of doubles from which to find the median
+     * @return the median of the provided doubles
+     * @throws IllegalArgumentException if the array is {@code null} or empty
+     */
+    public static double median(double[] arr) {
+        return percentile(arr, 50.0);
+    }
+
+    /**
+     * Returns the specified percentile of an array of integers, interpolating linearly
+     * between the two nearest ranks. The array is copied and partially ordered with
+     * {@link HArray#select(int[], int)} rather than sorted, so this runs in linear time.
+     * The input array is left unchanged.
+     *
+     * @param arr the array of integers from which to find the percentile
+     * @param p the percentile, from 0 (the minimum) to 100 (the maximum)
+     * @return the value at the percentile
+     * @throws IllegalArgumentException if the array is {@code null} or empty, or the
+     * percentile is not between 0 and 100
+     */
+    public static double percentile(int[] arr, double p) {
+        // Validate input
+        if(arr == null) {
+            throw new IllegalArgumentException("Input array cannot be null.");
+        }
+        if(arr.length == 0) {
+            throw new IllegalArgumentException("Input array must contain at least one element.");
+        }
+        if(!(p >= 0.0 && p <= 100.0)) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100.");
+        }
+
+        int[] copy = arr.clone();
+        double rank = (copy.length - 1) * p / 100.0;
+        int lower = (int) rank;
+        HArray.select(copy, 0, copy.length - 1, lower);
+        if(rank == lower) {
+            return copy[lower];
+        }
+
+        // Every element after the lower rank is at least as large, so the next rank is their minimum
+        int upper = min(copy, lower + 1, copy.length);
+        return copy[lower] + (rank - lower) * ((double) upper - copy[lower]);
+    }
+
+    /**
+     * Returns the specified percentile of an array of doubles, interpolating linearly
+     * between the two nearest ranks. The array is copied and partially ordered with
+     * {@link HArray#select(double[], int)} rather than sorted, so this runs in linear time.
+     * The input array is left unchanged.
+     *
+     * @param arr the array of doubles from which to find the percentile
+     * @param p the percentile, from 0 (the minimum) to 100 (the maximum)
+     * @return the value at the percentile
+     * @throws IllegalArgumentException if the array is {@code null} or empty, or the
+     * percentile is not between 0 and 100
+     */
+    public static double percentile(double[] arr, double p) {
+        // Validate input
+        if(arr == null) {
+            throw new IllegalArgumentException("Input array cannot be null.");
+        }
+        if(arr.length == 0) {
+            throw new IllegalArgumentException("Input array must contain at least one element.");
+        }
+        if(!(p >= 0.0 && p <= 100.0)) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100.");
+        }
+
+        double[] copy = arr.clone();
+        double rank = (copy.length - 1) * p / 100.0;
+        int lower = (int) rank;
+        HArray.select(copy, 0, copy.length - 1, lower);
+        if(rank == lower) {
+            return copy[lower];
+        }
+
+        // Every element after the lower rank is at least as large, so the next rank is the
+        // smallest of them, selected in the same order so that NaNs stay last
+        HArray.select(copy, lower + 1, copy.length - 1, lower + 1);
+        return copy[lower] + (rank - lower) * (copy[lower + 1] - copy[lower]);
+    }
+
+    /**
+     * Returns the minimum value from an array of integers, splitting the work across the
+     * common fork/join pool.
+     *
+     * @param arr the array of integers from which to find the minimum value
+     * @return the minimum value among the provided integers
+     * @throws IllegalArgumentException if the array is {@code null} or empty
+     */
+    public static int parallelMin(int[] arr) {
+        return parallelMin(arr, PARALLEL_THRESHOLD, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Returns the minimum value from an array of integers, splitting the work across the
+     * given fork/join pool.
+     *
+     * @param arr the array of integers from which to find the minimum value
+     * @param threshold the number of elements at or below which a range is reduced sequentially
+     * @param pool the pool to run the reduction in
+     * @return the minimum value among the provided integers
+     * @throws IllegalArgumentException if the array or pool is {@code null}, the array is
+     * empty, or the threshold is not positive
+     */
+    public static int parallelMin(int[] arr, int threshold, ForkJoinPool pool) {
+        checkParallelInput(arr == null, arr == null ? 0 : arr.length, threshold, pool);
+        return reduce(arr.length, threshold, pool, (from, to) -> min(arr, from, to), Math::min);
+    }
+
+    /**
+     * Returns the minimum value from an array of longs, splitting the work across the
+     * common fork/join pool.
+     *
+     * @param arr the array of longs from which to find the minimum value
+     * @return the minimum value among the provided longs
+     * @throws IllegalArgumentException if the array is {@code null} or empty
+     */
+    public static long parallelMin(long[] arr) {
+        return parallelMin(arr, PARALLEL_THRESHOLD, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Returns the minimum value from an array of longs, splitting the work across the
+     * given fork/join pool.
+     *
+     * @param arr the array of longs from which to find the minimum value
+     * @param threshold the number of elements at or below which a range is reduced sequentially
+     * @param pool the pool to run the reduction in
+     * @return the minimum value among the provided longs
+     * @throws IllegalArgumentException if the array or pool is {@code null}, the array is
+     * empty, or the threshold is not positive
+     */
+    public static long parallelMin(long[] arr, int threshold, ForkJoinPool pool) {
+        checkParallelInput(arr == null, arr == null ? 0 : arr.length, threshold, pool);
+        return reduce(arr.length, threshold, pool, (from, to) -> min(arr, from, to), Math::min);
+    }
+
+    /**
+     * Returns the minimum value from an array of doubles, splitting the work across the
+     * common fork/join pool.
+     *
+     * @param arr the array of doubles from which to find the minimum value
+     * @return the minimum value among the provided doubles, or {@code NaN} if any element
+     * is {@code NaN}
+     * @throws IllegalArgumentException if the array is {@code null} or empty
+     */
+    public static double parallelMin(double[] arr) {
+        return parallelMin(arr, PARALLEL_THRESHOLD, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Returns the minimum value from an array of doubles, splitting the work across the
+     * given fork/join pool.
+     *
+     * @param arr the array of doubles from which to find the minimum value
+     * @param threshold the number of elements at or below which a range is reduced sequentially
+     * @param pool the pool to run the reduction in
+     * @return the minimum value among the provided doubles, or {@code NaN} if any element
+     * is {@code NaN}
+     * @throws IllegalArgumentException if the array or pool is {@code null}, the array is
+     * empty, or the threshold is not positive
+     */
+    public static double parallelMin(double[] arr, int threshold, ForkJoinPool pool) {
+        checkParallelInput(arr == null, arr == null ? 0 : arr.length, threshold, pool);
+        return reduce(arr.length, threshold, pool, (from, to) -> min(arr, from, to), Math::min);
+    }
+
+    /**
+     * Returns the minimum-valued element from an array of comparable objects, splitting the
+     * work across the common fork/join pool.
+     *
+     * @param <T> the type of objects held in the array
+     * @param arr the array of objects from which to find the minimum-valued element
+     * @return the first minimum-valued element among the provided objects
+     * @throws IllegalArgumentException if the array is {@code null} or empty
+     */
+    public static <T extends Comparable<? super T>> T parallelMin(T[] arr) {
+        return parallelMin(arr, Comparator.naturalOrder(), PARALLEL_THRESHOLD, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Returns the minimum-valued element from an array of objects according to a comparator,
+     * splitting the work across the given fork/join pool.
+     *
+     * @param <T> the type of objects held in the array
+     * @param arr the array of objects from which to find the minimum-valued element
+     * @param c the comparator that determines the order of the elements
+     * @param threshold the number of elements at or below which a range is reduced sequentially
+     * @param pool the pool to run the reduction in
+     * @return the first minimum-valued element among the provided objects
+     * @throws IllegalArgumentException if the array, comparator or pool is {@code null}, the
+     * array is empty, or the threshold is not positive
+     */
+    public static <T> T parallelMin(T[] arr, Comparator<? super T> c, int threshold, ForkJoinPool pool) {
+        checkParallelInput(arr == null, arr == null ? 0 : arr.length, threshold, pool);
+        if(c == null) {
+            throw new IllegalArgumentException("Comparator cannot be null.");
+        }
+        return reduce(arr.length, threshold, pool, (from, to) -> min(arr, from, to, c),
+                (left, right) -> c.compare(right, left) < 0 ? right : left);
+    }
+
+    /**
+     * Returns the greatest value from an array of integers, splitting the work across the
+     * common fork/join pool.
+     *
+     * @param arr the array of integers from which to find the maximum value
+     * @return the maximum value among the provided integers
+     * @throws IllegalArgumentException if the array is {@code null} or empty
+     */
+    public static int parallelMax(int[] arr) {
+        return parallelMax(arr, PARALLEL_THRESHOLD, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Returns the greatest value from an array of integers, splitting the work across the
+     * given fork/join pool.
+     *
+     * @param arr the array of integers from which to find the maximum value
+     * @param threshold the number of elements at or below which a range is reduced sequentially
+     * @param pool the pool to run the reduction in
+     * @return the maximum value among the provided integers
+     * @throws IllegalArgumentException if the array or pool is {@code null}, the array is
+     * empty, or the threshold is not positive
+     */
+    public static int parallelMax(int[] arr, int threshold, ForkJoinPool pool) {
+        checkParallelInput(arr == null, arr == null ? 0 : arr.length, threshold, pool);
+        return reduce(arr.length, threshold, pool, (from, to) -> max(arr, from, to), Math::max);
+    }
+
+    /**
+     * Returns the greatest value from an array of longs, splitting the work across the
+     * common fork/join pool.
+     *
+     * @param arr the array of longs from which to find the maximum value
+     * @return the maximum value among the provided longs
+     * @throws IllegalArgumentException if the array is {@code null} or empty
+     */
+    public static long parallelMax(long[] arr) {
+        return parallelMax(arr, PARALLEL_THRESHOLD, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Returns the greatest value from an array of longs, splitting the work across the
+     * given fork/join pool.
+     *
+     * @param arr the array of longs from which to find the maximum value
+     * @param threshold the number of elements at or below which a range is reduced sequentially
+     * @param pool the pool to run the reduction in
+     * @return the maximum value among the provided longs
+     * @throws IllegalArgumentException if the array or pool is {@code null}, the array is
+     * empty, or the threshold is not positive
+     */
+    public static long parallelMax(long[] arr, int threshold, ForkJoinPool pool) {
+        checkParallelInput(arr == null, arr == null ? 0 : arr.length, threshold, pool);
+        return reduce(arr.length, threshold, pool, (from, to) -> max(arr, from, to), Math::max);
+    }
+
+    /**
+     * Returns the greatest value from an array of doubles, splitting the work across the
+     * common fork/join pool.
+     *
+     * @param arr the array of doubles from which to find the maximum value
+     * @return the maximum value among the provided doubles, or {@code NaN} if any element
+     * is {@code NaN}
+     * @throws IllegalArgumentException if the array is {@code null} or empty
+     */
+    public static double parallelMax(double[] arr) {
+        return parallelMax(arr, PARALLEL_THRESHOLD, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Returns the greatest value from an array of doubles, splitting the work across the
+     * given fork/join pool.
+     *
+     * @param arr the array of doubles from which to find the maximum value
+     * @param threshold the number of elements at or below which a range is reduced sequentially
+     * @param pool the pool to run the reduction in
+     * @return the maximum value among the provided doubles, or {@code NaN} if any element
+     * is {@code NaN}
+     * @throws IllegalArgumentException if the array or pool is {@code null}, the array is
+     * empty, or the threshold is not positive
+     */
+    public static double parallelMax(double[] arr, int threshold, ForkJoinPool pool) {
+        checkParallelInput(arr == null, arr == null ? 0 : arr.length, threshold, pool);
+        return reduce(arr.length, threshold, pool, (from, to) -> max(arr, from, to), Math::max);
+    }
+
+    /**
+     * Returns the maximum-valued element from an array of comparable objects, splitting the
+     * work across the common fork/join pool.
+     *
+     * @param <T> the type of objects held in the array
+     * @param arr the array of objects from which to find the maximum-valued element
+     * @return the first maximum-valued element among the provided objects
+     * @throws IllegalArgumentException if the array is {@code null} or empty
+     */
+    public static <T extends Comparable<? super T>> T parallelMax(T[] arr) {
+        return parallelMax(arr, Comparator.naturalOrder(), PARALLEL_THRESHOLD, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Returns the maximum-valued element from an array of objects according to a comparator,
+     * splitting the work across the given fork/join pool.
+     *
+     * @param <T> the type of objects held in the array
+     * @param arr the array of objects from which to find the maximum-valued element
+     * @param c the comparator that determines the order of the elements
+     * @param threshold the number of elements at or below which a range is reduced sequentially
+     * @param pool the pool to run the reduction in
+     * @return the first maximum-valued element among the provided objects
+     * @throws IllegalArgumentException if the array, comparator or pool is {@code null}, the
+     * array is empty, or the threshold is not positive
+     */
+    public static <T> T parallelMax(T[] arr, Comparator<? super T> c, int threshold, ForkJoinPool pool) {
+        checkParallelInput(arr == null, arr == null ? 0 : arr.length, threshold, pool);
+        if(c == null) {
+            throw new IllegalArgumentException("Comparator cannot be null.");
+        }
+        return reduce(arr.length, threshold, pool, (from, to) -> max(arr, from, to, c),
+                (left, right) -> c.compare(right, left) > 0 ? right : left);
+    }
+
+    /**
+     * Returns the sum of an array of integers, splitting the work across the common
+     * fork/join pool.
+     *
+     * @param arr the array of integers to sum
+     * @return the sum of the provided integers
+     * @throws IllegalArgumentException if the array is {@code null} or empty
+     */
+    public static long parallelSum(int[] arr) {
+        return parallelSum(arr, PARALLEL_THRESHOLD, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Returns the sum of an array of integers, splitting the work across the given
+     * fork/join pool.
+     *
+     * @param arr the array of integers to sum
+     * @param threshold the number of elements at or below which a range is reduced sequentially
+     * @param pool the pool to run the reduction in
+     * @return the sum of the provided integers
+     * @throws IllegalArgumentException if the array or pool is {@code null}, the array is
+     * empty, or the threshold is not positive
+     */
+    public static long parallelSum(int[] arr, int threshold, ForkJoinPool pool) {
+        checkParallelInput(arr == null, arr == null ? 0 : arr.length, threshold, pool);
+        return reduce(arr.length, threshold, pool, (from, to) -> sum(arr, from, to), Long::sum);
+    }
+
+    /**
+     * Returns the sum of an array of longs, splitting the work across the common
+     * fork/join pool. The sum wraps around on overflow.
+     *
+     * @param arr the array of longs to sum
+     * @return the sum of the provided longs
+     * @throws IllegalArgumentException if the array is {@code null} or empty
+     */
+    public static long parallelSum(long[] arr) {
+        return parallelSum(arr, PARALLEL_THRESHOLD, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Returns the sum of an array of longs, splitting the work across the given fork/join
+     * pool. The sum wraps around on overflow.
+     *
+     * @param arr the array of longs to sum
+     * @param threshold the number of elements at or below which a range is reduced sequentially
+     * @param pool the pool to run the reduction in
+     * @return the sum of the provided longs
+     * @throws IllegalArgumentException if the array or pool is {@code null}, the array is
+     * empty, or the threshold is not positive
+     */
+    public static long parallelSum(long[] arr, int threshold, ForkJoinPool pool) {
+        checkParallelInput(arr == null, arr == null ? 0 : arr.length, threshold, pool);
+        return reduce(arr.length, threshold, pool, (from, to) -> sum(arr, from, to), Long::sum);
+    }
+
+    /**
+     * Returns the sum of an array of doubles, splitting the work across the common
+     * fork/join pool. The result may differ from a sequential sum by rounding.
+     *
+     * @param arr the array of doubles to sum
+     * @return the sum of the provided doubles
+     * @throws IllegalArgumentException if the array is {@code null} or empty
+     */
+    public static double parallelSum(double[] arr) {
+        return parallelSum(arr, PARALLEL_THRESHOLD, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Returns the sum of an array of doubles, splitting the work across the given
+     * fork/join pool. The result may differ from a sequential sum by rounding.
+     *
+     * @param arr the array of doubles to sum
+     * @param threshold the number of elements at or below which a range is reduced sequentially
+     * @param pool the pool to run the reduction in
+     * @return the sum of the provided doubles
+     * @throws IllegalArgumentException if the array or pool is {@code null}, the array is
+     * empty, or the threshold is not positive
+     */
+    public static double parallelSum(double[] arr, int threshold, ForkJoinPool pool) {
+        checkParallelInput(arr == null, arr == null ? 0 : arr.length, threshold, pool);
+        return reduce(arr.length, threshold, pool, (from, to) -> sum(arr, from, to), Double::sum);
+    }
+
+    /**
+     * Computes the statistics of an array of integers, splitting the work across the
+     * common fork/join pool.
+     *
+     * @param arr the array of integers to summarize
+     * @return the statistics of the provided integers, with exact minimum, maximum and sum
+     * @throws IllegalArgumentException if the array is {@code null} or empty
+     */
+    public static LongStats parallelStats(int[] arr) {
+        return parallelStats(arr, PARALLEL_THRESHOLD, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Computes the statistics of an array of integers, splitting the work across the given
+     * fork/join pool. Partial results are combined with {@link LongStats}'s parallel update,
+     * so the variance stays numerically stable.
+     *
+     * @param arr the array of integers to summarize
+     * @param threshold the number of elements at or below which a range is reduced sequentially
+     * @param pool the pool to run the reduction in
+     * @return the statistics of the provided integers, with exact minimum, maximum and sum
+     * @throws IllegalArgumentException if the array or pool is {@code null}, the array is
+     * empty, or the threshold is not positive
+     */
+    public static LongStats parallelStats(int[] arr, int threshold, ForkJoinPool pool) {
+        checkParallelInput(arr == null, arr == null ? 0 : arr.length, threshold, pool);
+        return reduce(arr.length, threshold, pool, (from, to) -> stats(arr, from, to), LongStats::combine);
+    }
+
+    /**
+     * Computes the statistics of an array of longs, splitting the work across the common
+     * fork/join pool.
+     *
+     * @param arr the array of longs to summarize
+     * @return the statistics of the provided longs, with exact minimum, maximum and sum
+     * @throws IllegalArgumentException if the array is {@code null} or empty
+     */
+    public static LongStats parallelStats(long[] arr) {
+        return parallelStats(arr, PARALLEL_THRESHOLD, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Computes the statistics of an array of longs, splitting the work across the given
+     * fork/join pool. Partial results are combined with {@link LongStats}'s parallel update,
+     * so the variance stays numerically stable.
+     *
+     * @param arr the array of longs to summarize
+     * @param threshold the number of elements at or below which a range is reduced sequentially
+     * @param pool the pool to run the reduction in
+     * @return the statistics of the provided longs, with exact minimum, maximum and sum
+     * @throws IllegalArgumentException if the array or pool is {@code null}, the array is
+     * empty, or the threshold is not positive
+     */
+    public static LongStats parallelStats(long[] arr, int threshold, ForkJoinPool pool) {
+        checkParallelInput(arr == null, arr == null ? 0 : arr.length, threshold, pool);
+        return reduce(arr.length, threshold, pool, (from, to) -> stats(arr, from, to), LongStats::combine);
+    }
+
+    /**
+     * Computes the statistics of an array of doubles, splitting the work across the common
+     * fork/join pool.
+     *
+     * @param arr the array of doubles to summarize
+     * @return the statistics of the provided doubles
+     * @throws IllegalArgumentException if the array is {@code null} or empty
+     */
+    public static Stats parallelStats(double[] arr) {
+        return parallelStats(arr, PARALLEL_THRESHOLD, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Computes the statistics of an array of doubles, splitting the work across the given
+     * fork/join pool. Partial results are combined with {@link Stats}'s parallel update, so
+     * the variance stays numerically stable.
+     *
+     * @param arr the array of doubles to summarize
+     * @param threshold the number of elements at or below which a range is reduced sequentially
+     * @param pool the pool to run the reduction in
+     * @return the statistics of the provided doubles
+     * @throws IllegalArgumentException if the array or pool is {@code null}, the array is
+     * empty, or the threshold is not positive
+     */
+    public static Stats parallelStats(double[] arr, int threshold, ForkJoinPool pool) {
+        checkParallelInput(arr == null, arr == null ? 0 : arr.length, threshold, pool);
+        return reduce(arr.length, threshold, pool, (from, to) -> stats(arr, from, to), Stats::combine);
+    }
+
+    /**
+     * Checks an off-heap input array, given its length or -1 if it is null.
+     */
+    private static void checkOffHeap(long length) {
+        if(length < 0) {
+            throw new IllegalArgumentException("Input array cannot be null.");
+        }
+        if(length == 0) {
+            throw new IllegalArgumentException("Input array must contain at least one element.");
+        }
+    }
+
+    /**
+     * Validates the input to a parallel reduction.
+     *
+     * @throws IllegalArgumentException if the array or pool is {@code null}, the array is
+     * empty, or the threshold is not positive
+     */
+    private static void checkParallelInput(boolean isNull, int length, int threshold, ForkJoinPool pool) {
+        if(isNull) {
+            throw new IllegalArgumentException("Input array cannot be null.");
+        }
+        if(length == 0) {
+            throw new IllegalArgumentException("Input array must contain at least one element.");
+        }
+        HArray.checkParallelArgs(threshold, pool);
+    }
+
+    /**
+     * Reduces the index range {@code [0, length)} in the given pool, reducing ranges at or
+     * below the threshold with {@code leaf} and combining neighbouring results with
+     * {@code combiner}, left before right.
+     */
+    private static <R> R reduce(int length, int threshold, ForkJoinPool pool,
+                                RangeReducer<R> leaf, BinaryOperator<R> combiner) {
+        if(length <= threshold) {
+            return leaf.reduce(0, length);
+        }
+        return pool.invoke(new ReduceTask<>(0, length, threshold, leaf, combiner));
+    }
+
+    /*
+     * The kernels below reduce into independent lanes so that successive iterations do
+     * not wait on each other, which also leaves HotSpot free to vectorize the loops.
+     *
+     * The statistics kernels walk the input in cache-sized blocks. Each block is scanned
+     * once for its minimum, maximum and sum, then re-read from cache for its squared
+     * deviations from the block mean, and the blocks are folded together with Chan's
+     * update. That is as stable as Welford's algorithm without a division per element,
+     * and the input is still read from memory only once.
+     */
+
+    /** Number of elements the statistics kernels process per block. */
+    private static final int STATS_BLOCK = 1024;
+
+    /** Mask of the low 32 bits of a long, used to sum longs exactly in two halves. */
+    private static final long LOW_BITS = 0xFFFFFFFFL;
+
+    /**
+     * Returns the greatest value in {@code arr[from, to)}, which must not be empty.
+     */
+    static int max(int[] arr, int from, int to) {
+        int m0 = arr[from], m1 = m0, m2 = m0, m3 = m0;
+        int i = from;
+        for(int end = to - 3; i < end; i += 4) {
+            m0 = Math.max(m0, arr[i]);
+            m1 = Math.max(m1, arr[i + 1]);
+            m2 = Math.max(m2, arr[i + 2]);
+            m3 = Math.max(m3, arr[i + 3]);
+        }
+        for(; i < to; i++) {
+            m0 = Math.max(m0, arr[i]);
+        }
+        return Math.max(Math.max(m0, m1), Math.max(m2, m3));
+    }
+
+    /**
+     * Returns the greatest value in {@code arr[from, to)}, which must not be empty.
+     */
+    static long max(long[] arr, int from, int to) {
+        long m0 = arr[from], m1 = m0, m2 = m0, m3 = m0;
+        int i = from;
+        for(int end = to - 3; i < end; i += 4) {
+            m0 = Math.max(m0, arr[i]);
+            m1 = Math.max(m1, arr[i + 1]);
+            m2 = Math.max(m2, arr[i + 2]);
+            m3 = Math.max(m3, arr[i + 3]);
+        }
+        for(; i < to; i++) {
+            m0 = Math.max(m0, arr[i]);
+        }
+        return Math.max(Math.max(m0, m1), Math.max(m2, m3));
+    }
+
+    /**
+     * Returns the greatest value in {@code arr[from, to)}, which must not be empty.
+     */
+    static double max(double[] arr, int from, int to) {
+        double m0 = arr[from], m1 = m0, m2 = m0, m3 = m0;
+        int i = from;
+        for(int end = to - 3; i < end; i += 4) {
+            m0 = Math.max(m0, arr[i]);
+            m1 = Math.max(m1, arr[i + 1]);
+            m2 = Math.max(m2, arr[i + 2]);
+            m3 = Math.max(m3, arr[i + 3]);
+        }
+        for(; i < to; i++) {
+            m0 = Math.max(m0, arr[i]);
+        }
+        return Math.max(Math.max(m0, m1), Math.max(m2, m3));
+    }
+
+    /**
+     * Returns the smallest value in {@code arr[from, to)}, which must not be empty.
+     */
+    static int min(int[] arr, int from, int to) {
+        int m0 = arr[from], m1 = m0, m2 = m0, m3 = m0;
+        int i = from;
+        for(int end = to - 3; i < end; i += 4) {
+            m0 = Math.min(m0, arr[i]);
+            m1 = Math.min(m1, arr[i + 1]);
+            m2 = Math.min(m2, arr[i + 2]);
+            m3 = Math.min(m3, arr[i + 3]);
+        }
+        for(; i < to; i++) {
+            m0 = Math.min(m0, arr[i]);
+        }
+        return Math.min(Math.min(m0, m1), Math.min(m2, m3));
+    }
+
+    /**
+     * Returns the smallest value in {@code arr[from, to)}, which must not be empty.
+     */
+    static long min(long[] arr, int from, int to) {
+        long m0 = arr[from], m1 = m0, m2 = m0, m3 = m0;
+        int i = from;
+        for(int end = to - 3; i < end; i += 4) {
+            m0 = Math.min(m0, arr[i]);
+            m1 = Math.min(m1, arr[i + 1]);
+            m2 = Math.min(m2, arr[i + 2]);
+            m3 = Math.min(m3, arr[i + 3]);
+        }
+        for(; i < to; i++) {
+            m0 = Math.min(m0, arr[i]);
+        }
+        return Math.min(Math.min(m0, m1), Math.min(m2, m3));
+    }
+
+    /**
+     * Returns the smallest value in {@code arr[from, to)}, which must not be empty.
+     */
+    static double min(double[] arr, int from, int to) {
+        double m0 = arr[from], m1 = m0, m2 = m0, m3 = m0;
+        int i = from;
+        for(int end = to - 3; i < end; i += 4) {
+            m0 = Math.min(m0, arr[i]);
+            m1 = Math.min(m1, arr[i + 1]);
+            m2 = Math.min(m2, arr[i + 2]);
+            m3 = Math.min(m3, arr[i + 3]);
+        }
+        for(; i < to; i++) {
+            m0 = Math.min(m0, arr[i]);
+        }
+        return Math.min(Math.min(m0, m1), Math.min(m2, m3));
+    }
+
+    /**
+     * Returns the first smallest element of {@code arr[from, to)}, which must not be empty.
+     */
+    static <T> T min(T[] arr, int from, int to, Comparator<? super T> c) {
+        T minObj = arr[from];
+        for(int i = from + 1; i < to; i++) {
+            if(c.compare(arr[i], minObj) < 0) {
+                minObj = arr[i];
+            }
+        }
+        return minObj;
+    }
+
+    /**
+     * Returns the first greatest element of {@code arr[from, to)}, which must not be empty.
+     */
+    static <T> T max(T[] arr, int from, int to, Comparator<? super T> c) {
+        T maxObj = arr[from];
+        for(int i = from + 1; i < to; i++) {
+            if(c.compare(arr[i], maxObj) > 0) {
+                maxObj = arr[i];
+            }
+        }
+        return maxObj;
+    }
+
+    /**
+     * Returns the sum of {@code arr[from, to)}.
+     */
+    static long sum(int[] arr, int from, int to) {
+        long s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = from;
+        for(int end = to - 3; i < end; i += 4) {
+            s0 += arr[i];
+            s1 += arr[i + 1];
+            s2 += arr[i + 2];
+            s3 += arr[i + 3];
+        }
+        for(; i < to; i++) {
+            s0 += arr[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * Returns the sum of {@code arr[from, to)}, wrapping around on overflow.
+     */
+    static long sum(long[] arr, int from, int to) {
+        long s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = from;
+        for(int end = to - 3; i < end; i += 4) {
+            s0 += arr[i];
+            s1 += arr[i + 1];
+            s2 += arr[i + 2];
+            s3 += arr[i + 3];
+        }
+        for(; i < to; i++) {
+            s0 += arr[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * Returns the sum of {@code arr[from, to)}.
+     */
+    static double sum(double[] arr, int from, int to) {
+        double s0 = 0.0, s1 = 0.0, s2 = 0.0, s3 = 0.0;
+        int i = from;
+        for(int end = to - 3; i < end; i += 4) {
+            s0 += arr[i];
+            s1 += arr[i + 1];
+            s2 += arr[i + 2];
+            s3 += arr[i + 3];
+        }
+        for(; i < to; i++) {
+            s0 += arr[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * Computes the statistics of {@code arr[from, to)}, which must not be empty.
+     */
+    static LongStats stats(int[] arr, int from, int to) {
+        int min = arr[from], max = min;
+        long sum = 0;
+        double mean = 0.0, m2 = 0.0;
+        for(int blockFrom = from; blockFrom < to; blockFrom += STATS_BLOCK) {
+            int blockTo = Math.min(blockFrom + STATS_BLOCK, to);
+            int n = blockTo - blockFrom;
+
+            // Minimum, maximum and exact sum of the block
+            int min0 = arr[blockFrom], min1 = min0, max0 = min0, max1 = min0;
+            long sum0 = 0, sum1 = 0;
+            int i = blockFrom;
+            for(int end = blockTo - 1; i < end; i += 2) {
+                int x0 = arr[i], x1 = arr[i + 1];
+                min0 = Math.min(min0, x0);
+                min1 = Math.min(min1, x1);
+                max0 = Math.max(max0, x0);
+                max1 = Math.max(max1, x1);
+                sum0 += x0;
+                sum1 += x1;
+            }
+            if(i < blockTo) {
+                min0 = Math.min(min0, arr[i]);
+                max0 = Math.max(max0, arr[i]);
+                sum0 += arr[i];
+            }
+            min = Math.min(min, Math.min(min0, min1));
+            max = Math.max(max, Math.max(max0, max1));
+            long blockSum = sum0 + sum1;
+            sum += blockSum;
+
+            // Squared deviations from the block mean, re-read from cache
+            double blockMean = (double) blockSum / n;
+            double d0 = 0.0, d1 = 0.0, d2 = 0.0, d3 = 0.0;
+            i = blockFrom;
+            for(int end = blockTo - 3; i < end; i += 4) {
+                double e0 = arr[i] - blockMean, e1 = arr[i + 1] - blockMean;
+                double e2 = arr[i + 2] - blockMean, e3 = arr[i + 3] - blockMean;
+                d0 += e0 * e0;
+                d1 += e1 * e1;
+                d2 += e2 * e2;
+                d3 += e3 * e3;
+            }
+            for(; i < blockTo; i++) {
+                double e = arr[i] - blockMean;
+                d0 += e * e;
+            }
+
+            // Fold the block into the running totals
+            long count = blockFrom - from;
+            long total = count + n;
+            double delta = blockMean - mean;
+            mean += delta * n / total;
+            m2 += (d0 + d1) + (d2 + d3) + delta * delta * ((double) count * n / total);
+        }
+        return new LongStats(to - from, min, max, sum >> 32, sum & LOW_BITS, 0, mean, m2);
+    }
+
+    /**
+     * Computes the statistics of {@code arr[from, to)}, which must not be empty. The sum is
+     * kept exactly as separate sums of the high and low 32 bits of each element, and the
+     * deviations of each block are taken from its minimum, so that values far from zero,
+     * such as nanosecond timestamps, do not lose precision.
+     */
+    static LongStats stats(long[] arr, int from, int to) {
+        long min = arr[from], max = min;
+        long sumHigh = 0, sumLow = 0;
+
+        // The mean is kept as an offset from the first element, which is exact
+        long pivot = arr[from];
+        double offset = 0.0, m2 = 0.0;
+        for(int blockFrom = from; blockFrom < to; blockFrom += STATS_BLOCK) {
+            int blockTo = Math.min(blockFrom + STATS_BLOCK, to);
+            int n = blockTo - blockFrom;
+
+            // Minimum, maximum and exact sum of the block
+            long min0 = arr[blockFrom], min1 = min0, max0 = min0, max1 = min0;
+            long high0 = 0, high1 = 0, low0 = 0, low1 = 0;
+            int i = blockFrom;
+            for(int end = blockTo - 1; i < end; i += 2) {
+                long x0 = arr[i], x1 = arr[i + 1];
+                min0 = Math.min(min0, x0);
+                min1 = Math.min(min1, x1);
+                max0 = Math.max(max0, x0);
+                max1 = Math.max(max1, x1);
+                high0 += x0 >> 32;
+                high1 += x1 >> 32;
+                low0 += x0 & LOW_BITS;
+                low1 += x1 & LOW_BITS;
+            }
+            if(i < blockTo) {
+                min0 = Math.min(min0, arr[i]);
+                max0 = Math.max(max0, arr[i]);
+                high0 += arr[i] >> 32;
+                low0 += arr[i] & LOW_BITS;
+            }
+            long blockMin = Math.min(min0, min1), blockMax = Math.max(max0, max1);
+            min = Math.min(min, blockMin);
+            max = Math.max(max, blockMax);
+            long blockHigh = high0 + high1, blockLow = low0 + low1;
+            sumHigh += blockHigh;
+            sumLow += blockLow;
+
+            // Deviations are taken from the block minimum unless the block spans more than a
+            // long can hold, in which case the values are large enough to use directly
+            long shift = blockMax - blockMin >= 0 ? blockMin : 0;
+            double offsetMean = ((blockHigh - n * (shift >> 32)) * 4294967296.0
+                    + (blockLow - n * (shift & LOW_BITS))) / n;
+
+            // Squared deviations from the block mean, re-read from cache
+            double d0 = 0.0, d1 = 0.0, d2 = 0.0, d3 = 0.0;
+            i = blockFrom;
+            for(int end = blockTo - 3; i < end; i += 4) {
+                double e0 = (arr[i] - shift) - offsetMean, e1 = (arr[i + 1] - shift) - offsetMean;
+                double e2 = (arr[i + 2] - shift) - offsetMean, e3 = (arr[i + 3] - shift) - offsetMean;
+                d0 += e0 * e0;
+                d1 += e1 * e1;
+                d2 += e2 * e2;
+                d3 += e3 * e3;
+            }
+            for(; i < blockTo; i++) {
+                double e = (arr[i] - shift) - offsetMean;
+                d0 += e * e;
+            }
+
+            // Fold the block into the running totals
+            double blockOffset = ((blockHigh - n * (pivot >> 32)) * 4294967296.0
+                    + (blockLow - n * (pivot & LOW_BITS))) / n;
+            long count = blockFrom - from;
+            long total = count + n;
+            double delta = blockOffset - offset;
+            offset += delta * n / total;
+            m2 += (d0 + d1) + (d2 + d3) + delta * delta * ((double) count * n / total);
+        }
+        return new LongStats(to - from, min, max, sumHigh, sumLow, pivot, offset, m2);
+    }
+
+    /**
+     * Computes the statistics of {@code arr[from, to)}, which must not be empty.
+     */
+    static Stats stats(double[] arr, int from, int to) {
+        double min = arr[from], max = min;
+        double sum = 0.0, mean = 0.0, m2 = 0.0;
+        for(int blockFrom = from; blockFrom < to; blockFrom += STATS_BLOCK) {
+            int blockTo = Math.min(blockFrom + STATS_BLOCK, to);
+            int n = blockTo - blockFrom;
+
+            // Minimum, maximum and sum of the block
+            double min0 = arr[blockFrom], min1 = min0, max0 = min0, max1 = min0;
+            double sum0 = 0.0, sum1 = 0.0;
+            int i = blockFrom;
+            for(int end = blockTo - 1; i < end; i += 2) {
+                double x0 = arr[i], x1 = arr[i + 1];
+                min0 = Math.min(min0, x0);
+                min1 = Math.min(min1, x1);
+                max0 = Math.max(max0, x0);
+                max1 = Math.max(max1, x1);
+                sum0 += x0;
+                sum1 += x1;
+            }
+            if(i < blockTo) {
+                min0 = Math.min(min0, arr[i]);
+                max0 = Math.max(max0, arr[i]);
+                sum0 += arr[i];
+            }
+            min = Math.min(min, Math.min(min0, min1));
+            max = Math.max(max, Math.max(max0, max1));
+            double blockSum = sum0 + sum1;
+            sum += blockSum;
+
+            // Squared deviations from the block mean, re-read from cache
+            double blockMean = blockSum / n;
+            double d0 = 0.0, d1 = 0.0, d2 = 0.0, d3 = 0.0;
+            i = blockFrom;
+            for(int end = blockTo - 3; i < end; i += 4) {
+                double e0 = arr[i] - blockMean, e1 = arr[i + 1] - blockMean;
+                double e2 = arr[i + 2] - blockMean, e3 = arr[i + 3] - blockMean;
+                d0 += e0 * e0;
+                d1 += e1 * e1;
+                d2 += e2 * e2;
+                d3 += e3 * e3;
+            }
+            for(; i < blockTo; i++) {
+                double e = arr[i] - blockMean;
+                d0 += e * e;
+            }
+
+            // Fold the block into the running totals
+            long count = blockFrom - from;
+            long total = count + n;
+            double delta = blockMean - mean;
+            mean += delta * n / total;
+            m2 += (d0 + d1) + (d2 + d3) + delta * delta * ((double) count * n / total);
+        }
+        return new Stats(to - from, min, max, sum, mean, m2);
+    }
+
+    /**
+     * Reduces a range of array indices to a single result.
+     */
+    private interface RangeReducer<R> {
+        R reduce(int from, int to);
+    }
+
+    /**
+     * Reduces a range of indices by splitting it in half until it reaches the threshold,
+     * reducing the halves in parallel and combining their results in order.
+     */
+    private static final class ReduceTask<R> extends RecursiveTask<R> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final int threshold;
+        private final RangeReducer<R> leaf;
+        private final BinaryOperator<R> combiner;
+
+        ReduceTask(int from, int to, int threshold, RangeReducer<R> leaf, BinaryOperator<R> combiner) {
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+            this.leaf = leaf;
+            this.combiner = combiner;
+        }
+
+        @Override
+        protected R compute() {
+            if(to - from <= threshold) {
+                return leaf.reduce(from, to);
+            }
+            int mid = (from + to) >>> 1;
+            ReduceTask<R> left = new ReduceTask<>(from, mid, threshold, leaf, combiner);
+            left.fork();
+            R right = new ReduceTask<>(mid, to, threshold, leaf, combiner).compute();
+            return combiner.apply(left.join(), right);
+        }
+    }
+
+    /**
+     * The {@code HMath.Stats} class holds summary statistics of a set of values: the count,
+     * minimum, maximum, sum, mean and variance.
+     */
+    public static final class Stats {
+
+        private final long count;
+        private final double min;
+        private final double max;
+        private final double sum;
+        private final double mean;
+        private final double m2;
+
+        /**
+         * Constructs a new {@code Stats} from its components, where {@code m2} is the sum
+         * of squared deviations from the mean.
+         */
+        Stats(long count, double min, double max, double sum, double mean, double m2) {
+            this.count = count;
+            this.min = min;
+            this.max = max;
+            this.sum = sum;
+            this.mean = mean;
+            this.m2 = m2;
+        }
+
+        /**
+         * Combines the statistics of two disjoint sets of values into the statistics of
+         * their union, using Chan's parallel update for the variance.
+         */
+        static Stats combine(Stats a, Stats b) {
+            if(a.count == 0) {
+                return b;
+            }
+            if(b.count == 0) {
+                return a;
+            }
+            long total = a.count + b.count;
+            double delta = b.mean - a.mean;
+            double mean = a.mean + delta * b.count / total;
+            double m2 = a.m2 + b.m2 + delta * delta * ((double) a.count * b.count / total);
+            return new Stats(total, Math.min(a.min, b.min), Math.max(a.max, b.max), a.sum + b.sum, mean, m2);
+        }
+
+        /**
+         * Returns the number of values.
+         *
+         * @return the number of values
+         */
+        public long count() {
+            return count;
+        }
+
+        /**
+         * Returns the smallest value.
+         *
+         * @return the smallest value
+         */
+        public double min() {
+            return min;
+        }
+
+        /**
+         * Returns the greatest value.
+         *
+         * @return the greatest value
+         */
+        public double max() {
+            return max;
+        }
+
+        /**
+         * Returns the sum of the values.
+         *
+         * @return the sum of the values
+         */
+        public double sum() {
+            return sum;
+        }
+
+        /**
+         * Returns the arithmetic mean of the values.
+         *
+         * @return the mean of the values
+         */
+        public double mean() {
+            return mean;
+        }
+
+        /**
+         * Returns the population variance of the values.
+         *
+         * @return the population variance, or {@code NaN} if there are no values
+         */
+        public double variance() {
+            return count > 0 ? m2 / count : Double.NaN;
+        }
+
+        /**
+         * Returns the sample variance of the values, using Bessel's correction.
+         *
+         * @return the sample variance, or {@code NaN} if there are fewer than two values
+         */
+        public double sampleVariance() {
+            return count > 1 ? m2 / (count - 1) : Double.NaN;
+        }
+
+        /**
+         * Returns the population standard deviation of the values.
+         *
+         * @return the population standard deviation, or {@code NaN} if there are no values
+         */
+        public double standardDeviation() {
+            return Math.sqrt(variance());
+        }
+
+        @Override
+        public String toString() {
+            return "Stats[count=" + count + ", min=" + min + ", max=" + max + ", sum=" + sum
+                    + ", mean=" + mean + ", variance=" + variance() + "]";
+        }
+    }
+
+    /**
+     * The {@code HMath.LongStats} class holds summary statistics of a set of integral values:
+     * the count, minimum, maximum, sum, mean and variance. Unlike {@link Stats}, the minimum,
+     * maximum and sum are exact; only the mean and variance are floating point.
+     */
+    public static final class LongStats {
+
+        private final long count;
+        private final long min;
+        private final long max;
+
+        // The exact sum is sumHigh * 2^32 + sumLow, with sumLow in [0, 2^32)
+        private final long sumHigh;
+        private final long sumLow;
+
+        // The mean is pivot + offset, so that it keeps its precision far from zero
+        private final long pivot;
+        private final double offset;
+        private final double m2;
+
+        /**
+         * Constructs a new {@code LongStats} from its components, where the sum is
+         * {@code sumHigh * 2^32 + sumLow}, the mean is {@code pivot + offset} and {@code m2}
+         * is the sum of squared deviations from the mean.
+         */
+        LongStats(long count, long min, long max, long sumHigh, long sumLow, long pivot, double offset,
+                  double m2) {
+            this.count = count;
+            this.min = min;
+            this.max = max;
+            this.sumHigh = sumHigh + (sumLow >> 32);
+            this.sumLow = sumLow & LOW_BITS;
+            this.pivot = pivot;
+            this.offset = offset;
+            this.m2 = m2;
+        }
+
+        /**
+         * Combines the statistics of two disjoint sets of values into the statistics of
+         * their union, using Chan's parallel update for the variance.
+         */
+        static LongStats combine(LongStats a, LongStats b) {
+            long total = a.count + b.count;
+            long gap = b.pivot - a.pivot;
+            boolean overflow = ((b.pivot ^ a.pivot) & (b.pivot ^ gap)) < 0;
+            double delta = (overflow ? (double) b.pivot - a.pivot : gap) + (b.offset - a.offset);
+            double offset = a.offset + delta * b.count / total;
+            double m2 = a.m2 + b.m2 + delta * delta * ((double) a.count * b.count / total);
+            return new LongStats(total, Math.min(a.min, b.min), Math.max(a.max, b.max),
+                    a.sumHigh + b.sumHigh, a.sumLow + b.sumLow, a.pivot, offset, m2);
+        }
+
+        /**
+         * Returns the number of values.
+         *
+         * @return the number of values
+         */
+        public long count() {
+            return count;
+        }
+
+        /**
+         * Returns the smallest value.
+         *
+         * @return the smallest value
+         */
+        public long min() {
+            return min;
+        }
+
+        /**
+         * Returns the greatest value.
+         *
+         * @return the greatest value
+         */
+        public long max() {
+            return max;
+        }
+
+        /**
+         * Returns the exact sum of the values.
+         *
+         * @return the sum of the values
+         * @throws ArithmeticException if the sum does not fit in a long
+         */
+        public long sum() {
+            return Math.addExact(Math.multiplyExact(sumHigh, 1L << 32), sumLow);
+        }
+
+        /**
+         * Returns the sum of the values as a double, which never overflows but may be
+         * rounded.
+         *
+         * @return the sum of the values, rounded to a double
+         */
+        public double sumAsDouble() {
+            return sumHigh * 4294967296.0 + sumLow;
+        }
+
+        /**
+         * Returns the arithmetic mean of the values.
+         *
+         * @return the mean of the values
+         */
+        public double mean() {
+            return pivot + offset;
+        }
+
+        /**
+         * Returns the population variance of the values.
+         *
+         * @return the population variance, or {@code NaN} if there are no values
+         */
+        public double variance() {
+            return count > 0 ? m2 / count : Double.NaN;
+        }
+
+        /**
+         * Returns the sample variance of the values, using Bessel's correction.
+         *
+         * @return the sample variance, or {@code NaN} if there are fewer than two values
+         */
+        public double sampleVariance() {
+            return count > 1 ? m2 / (count - 1) : Double.NaN;
+        }
+
+        /**
+         * Returns the population standard deviation of the values.
+         *
+         * @return the population standard deviation, or {@code NaN} if there are no values
+         */
+        public double standardDeviation() {
+            return Math.sqrt(variance());
+        }
+
+        @Override
+        public String toString() {
+            String sum;
+            try {
+                sum = Long.toString(sum());
+            } catch(ArithmeticException e) {
+                sum = Double.toString(sumAsDouble());
+            }
+            return "LongStats[count=" + count + ", min=" + min + ", max=" + max + ", sum=" + sum
+                    + ", mean=" + mean() + ", variance=" + variance() + "]";
+        }
+    }
+
+    /**
+     * The {@code HMath.Accumulator} class keeps running statistics of an unbounded stream
+     * of doubles in constant memory: the count, minimum, maximum, sum, mean and variance,
+     * plus an {@link HQuantileSketch} for estimating quantiles.
+     *
+     * <p>An accumulator is not thread-safe. To summarize values produced on several
+     * threads, give each thread its own accumulator and combine them with
+     * {@link #merge(Accumulator)}.
+     */
+    public static final class Accumulator {
+
+        private long count;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+        private double sum;
+        private double mean;
+        private double m2;
+        private final HQuantileSketch sketch;
+
+        /**
+         * Constructs a new, empty {@code Accumulator} whose quantile sketch uses the
+         * default compression.
+         */
+        public Accumulator() {
+            this(HQuantileSketch.DEFAULT_COMPRESSION);
+        }
+
+        /**
+         * Constructs a new, empty {@code Accumulator} whose quantile sketch uses the
+         * specified compression.
+         *
+         * @param compression the compression factor of the quantile sketch
+         * @throws IllegalArgumentException if the compression is not positive and finite
+         */
+        public Accumulator(double compression) {
+            this.sketch = new HQuantileSketch(compression);
+        }
+
+        /**
+         * Adds a value to the accumulator.
+         *
+         * @param value the value to add
+         * @throws IllegalArgumentException if the value is {@code NaN}
+         */
+        public void add(double value) {
+            sketch.add(value);
+
+            // Welford's update
+            count++;
+            double delta = value - mean;
+            mean += delta / count;
+            m2 += delta * (value - mean);
+            sum += value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+
+        /**
+         * Adds the values in the range {@code [from, to)} of an array to the accumulator.
+         * The range is summarized with the same kernel as {@link HMath#stats(double[])}
+         * and then folded in as a whole. If the call throws, the accumulator is unchanged.
+         *
+         * @param arr the array of values to add
+         * @param from the starting index (inclusive) of the range to add
+         * @param to the ending index (exclusive) of the range to add
+         * @throws IllegalArgumentException if the array is null, the indices are not within
+         * the bounds of the array, the start index is greater than the end index, or a
+         * value is {@code NaN}
+         */
+        public void addAll(double[] arr, int from, int to) {
+            // Validate input
+            if(arr == null) {
+                throw new IllegalArgumentException("Input array cannot be null.");
+            }
+            HArray.checkRange(arr.length, from, to);
+            if(from == to) {
+                return;
+            }
+
+            // Summarize the range before touching the sketch, so that a NaN leaves the
+            // accumulator unchanged; any NaN makes the minimum NaN
+            Stats range = HMath.stats(arr, from, to);
+            if(Double.isNaN(range.min())) {
+                throw new IllegalArgumentException("Value cannot be NaN.");
+            }
+            sketch.addAll(arr, from, to);
+            fold(range);
+        }
+
+        /**
+         * Adds every value summarized by another accumulator to this accumulator. The
+         * other accumulator is not modified.
+         *
+         * @param other the accumulator to merge into this one
+         * @throws IllegalArgumentException if the other accumulator is null or is this
+         * accumulator
+         */
+        public void merge(Accumulator other) {
+            if(other == null) {
+                throw new IllegalArgumentException("Accumulator cannot be null.");
+            }
+            Stats otherStats = other.stats();
+            sketch.merge(other.sketch);
+            fold(otherStats);
+        }
+
+        /**
+         * Returns the statistics of the values added so far.
+         *
+         * @return the statistics of the values added so far
+         */
+        public Stats stats() {
+            return new Stats(count, min, max, sum, mean, m2);
+        }
+
+        /**
+         * Returns the number of values added so far.
+         *
+         * @return the number of values added
+         */
+        public long count() {
+            return count;
+        }
+
+        /**
+         * Returns the smallest value added so far.
+         *
+         * @return the smallest value, or positive infinity if no values have been added
+         */
+        public double min() {
+            return min;
+        }
+
+        /**
+         * Returns the greatest value added so far.
+         *
+         * @return the greatest value, or negative infinity if no values have been added
+         */
+        public double max() {
+            return max;
+        }
+
+        /**
+         * Returns the mean of the values added so far.
+         *
+         * @return the mean, or {@code NaN} if no values have been added
+         */
+        public double mean() {
+            return count > 0 ? mean : Double.NaN;
+        }
+
+        /**
+         * Returns the population variance of the values added so far.
+         *
+         * @return the population variance, or {@code NaN} if no values have been added
+         */
+        public double variance() {
+            return count > 0 ? m2 / count : Double.NaN;
+        }
+
+        /**
+         * Estimates the value at the specified quantile of the values added so far, for
+         * example {@code 0.99} for the 99th percentile.
+         *
+         * @param q the quantile, from 0 (the minimum) to 1 (the maximum)
+         * @return the estimated value at the quantile, or {@code NaN} if no values have
+         * been added
+         * @throws IllegalArgumentException if the quantile is not between 0 and 1
+         */
+        public double quantile(double q) {
+            return sketch.quantile(q);
+        }
+
+        /**
+         * Folds the statistics of a disjoint set of values into the running totals.
+         */
+        private void fold(Stats other) {
+            Stats combined = Stats.combine(stats(), other);
+            count = combined.count();
+            min = combined.min();
+            max = combined.max();
+            sum = combined.sum();
+            mean = combined.mean();
+            m2 = combined.m2;
+        }
+    }
+
 }
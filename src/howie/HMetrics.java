@@ -0,0 +1,357 @@
+package howie;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * The {@code HMetrics} class collects usage metrics for an {@link HQueue} or
+ * {@link HStack}: its current size and high-water mark, the number of elements added and
+ * removed, the number of operations rejected because the structure was full or empty, and
+ * a histogram of how long elements spent in it. For a stack, pushes count as enqueues and
+ * pops as dequeues.
+ *
+ * <p>Instrumentation is opt-in. A queue or stack records nothing until an {@code HMetrics}
+ * is attached with its {@code setMetrics} method, and until then the only cost on its hot
+ * path is a check of a field for null. The counters are {@link LongAdder}s, so one
+ * {@code HMetrics} may be read from any thread, and may also be shared by several
+ * structures, in which case the size and high-water mark are those of whichever reported
+ * last.
+ *
+ * <p>{@link #snapshot()} returns the current values. {@link #enableFlightRecorder()}
+ * additionally emits them once a second as a {@code howie.Metrics} JDK Flight Recorder event
+ * whenever a recording with that event enabled is running.
+ *
+ * <p>Times are measured with {@link System#nanoTime()} and kept in a histogram of
+ * power-of-two buckets, so percentiles are reported as the upper bound of the bucket they
+ * fall in: at most twice the true value.
+ *
+ * @author Howie Hertzberg
+ */
+public final class HMetrics implements AutoCloseable {
+
+    /**
+     * The number of histogram buckets: one for zero and one per bit of a positive long.
+     */
+    private static final int BUCKETS = 64;
+
+    private final String name;
+    private final LongAdder enqueues = new LongAdder();
+    private final LongAdder dequeues = new LongAdder();
+    private final LongAdder fullRejections = new LongAdder();
+    private final LongAdder emptyRejections = new LongAdder();
+    private final LongAccumulator highWaterMark = new LongAccumulator(Math::max, 0);
+    private final LongAdder[] timeInQueue = new LongAdder[BUCKETS];
+    private volatile int size;
+    private Runnable flightRecorderHook;
+
+    /**
+     * Constructs a new {@code HMetrics} with every metric at zero.
+     *
+     * @param name the name that identifies the instrumented structure in snapshots and
+     * Flight Recorder events
+     * @throws IllegalArgumentException if the name is null
+     */
+    public HMetrics(String name) {
+        if (name == null) {
+            throw new IllegalArgumentException("Name cannot be null.");
+        }
+        this.name = name;
+        for (int i = 0; i < BUCKETS; i++) {
+            timeInQueue[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Returns the name that identifies the instrumented structure.
+     *
+     * @return the name of these metrics
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Returns the current values of every metric. The values are read one after another
+     * while the structure may still be in use, so they are not necessarily consistent with
+     * each other.
+     *
+     * @return a snapshot of the metrics
+     */
+    public Snapshot snapshot() {
+        long[] histogram = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            histogram[i] = timeInQueue[i].sum();
+        }
+        return new Snapshot(name, size, highWaterMark.get(), enqueues.sum(), dequeues.sum(),
+                fullRejections.sum(), emptyRejections.sum(), histogram);
+    }
+
+    /**
+     * Starts emitting these metrics as a periodic {@code howie.Metrics} Flight Recorder
+     * event. Does nothing if they are already being emitted.
+     */
+    public synchronized void enableFlightRecorder() {
+        if (flightRecorderHook == null) {
+            flightRecorderHook = () -> snapshot().toEvent().commit();
+            FlightRecorder.addPeriodicEvent(MetricsEvent.class, flightRecorderHook);
+        }
+    }
+
+    /**
+     * Stops emitting these metrics as a Flight Recorder event. The metrics themselves keep
+     * being collected.
+     */
+    @Override
+    public synchronized void close() {
+        if (flightRecorderHook != null) {
+            FlightRecorder.removePeriodicEvent(flightRecorderHook);
+            flightRecorderHook = null;
+        }
+    }
+
+    /**
+     * Records that elements were added, leaving the structure with the given size.
+     */
+    void enqueued(int count, int size) {
+        enqueues.add(count);
+        sizeChanged(size);
+    }
+
+    /**
+     * Records that elements were removed, leaving the structure with the given size.
+     */
+    void dequeued(int count, int size) {
+        dequeues.add(count);
+        this.size = size;
+    }
+
+    /**
+     * Records how long a removed element spent in the structure.
+     */
+    void waited(long nanos) {
+        // Bucket b > 0 holds the times in [2^(b-1), 2^b - 1]
+        timeInQueue[nanos <= 0 ? 0 : 64 - Long.numberOfLeadingZeros(nanos)].increment();
+    }
+
+    /**
+     * Records that an add was rejected because the structure was full.
+     */
+    void rejectedFull() {
+        fullRejections.increment();
+    }
+
+    /**
+     * Records that a removal was rejected because the structure was empty.
+     */
+    void rejectedEmpty() {
+        emptyRejections.increment();
+    }
+
+    /**
+     * Records the size of the structure after a change other than an add or removal.
+     */
+    void sizeChanged(int size) {
+        this.size = size;
+        highWaterMark.accumulate(size);
+    }
+
+    /**
+     * The values of every metric at one point in time.
+     */
+    public static final class Snapshot {
+        private final String name;
+        private final int size;
+        private final long highWaterMark;
+        private final long enqueues;
+        private final long dequeues;
+        private final long fullRejections;
+        private final long emptyRejections;
+        private final long[] histogram;
+        private final long samples;
+
+        private Snapshot(String name, int size, long highWaterMark, long enqueues, long dequeues,
+                         long fullRejections, long emptyRejections, long[] histogram) {
+            this.name = name;
+            this.size = size;
+            this.highWaterMark = highWaterMark;
+            this.enqueues = enqueues;
+            this.dequeues = dequeues;
+            this.fullRejections = fullRejections;
+            this.emptyRejections = emptyRejections;
+            this.histogram = histogram;
+            long samples = 0;
+            for (long count : histogram) {
+                samples += count;
+            }
+            this.samples = samples;
+        }
+
+        /**
+         * Returns the name of the instrumented structure.
+         *
+         * @return the name of the instrumented structure
+         */
+        public String name() {
+            return name;
+        }
+
+        /**
+         * Returns the number of elements in the structure.
+         *
+         * @return the number of elements in the structure
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Returns the largest number of elements the structure has held.
+         *
+         * @return the largest number of elements the structure has held
+         */
+        public long highWaterMark() {
+            return highWaterMark;
+        }
+
+        /**
+         * Returns the number of elements enqueued or pushed.
+         *
+         * @return the number of elements enqueued or pushed
+         */
+        public long enqueues() {
+            return enqueues;
+        }
+
+        /**
+         * Returns the number of elements dequeued or popped.
+         *
+         * @return the number of elements dequeued or popped
+         */
+        public long dequeues() {
+            return dequeues;
+        }
+
+        /**
+         * Returns the number of enqueues or pushes rejected because the structure was full.
+         *
+         * @return the number of enqueues or pushes rejected because the structure was full
+         */
+        public long fullRejections() {
+            return fullRejections;
+        }
+
+        /**
+         * Returns the number of dequeues or pops rejected because the structure was empty.
+         *
+         * @return the number of dequeues or pops rejected because the structure was empty
+         */
+        public long emptyRejections() {
+            return emptyRejections;
+        }
+
+        /**
+         * Returns a percentile of the time removed elements spent in the structure.
+         *
+         * @param percentile the percentile, greater than 0 and at most 100
+         * @return the upper bound, in nanoseconds, of the histogram bucket the percentile
+         * falls in, or 0 if no element has been removed
+         * @throws IllegalArgumentException if the percentile is not within range
+         */
+        public long timeInQueue(double percentile) {
+            if (!(percentile > 0 && percentile <= 100)) {
+                throw new IllegalArgumentException("Percentile must be greater than 0 and at most 100.");
+            }
+            if (samples == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(samples * (percentile / 100));
+            long seen = 0;
+            int bucket = 0;
+            while (bucket < BUCKETS - 1) {
+                seen += histogram[bucket];
+                if (seen >= rank) {
+                    break;
+                }
+                bucket++;
+            }
+            return bucket == BUCKETS - 1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+        }
+
+        @Override
+        public String toString() {
+            return name + "[size=" + size + ", highWaterMark=" + highWaterMark
+                    + ", enqueues=" + enqueues + ", dequeues=" + dequeues
+                    + ", fullRejections=" + fullRejections + ", emptyRejections=" + emptyRejections
+                    + ", p50=" + timeInQueue(50) + "ns, p99=" + timeInQueue(99) + "ns]";
+        }
+
+        private MetricsEvent toEvent() {
+            MetricsEvent event = new MetricsEvent();
+            event.name = name;
+            event.size = size;
+            event.highWaterMark = highWaterMark;
+            event.enqueues = enqueues;
+            event.dequeues = dequeues;
+            event.fullRejections = fullRejections;
+            event.emptyRejections = emptyRejections;
+            event.p50 = timeInQueue(50);
+            event.p99 = timeInQueue(99);
+            event.p999 = timeInQueue(99.9);
+            return event;
+        }
+    }
+
+    /**
+     * The Flight Recorder event that carries a snapshot.
+     */
+    @Name("howie.Metrics")
+    @Label("HPackage Metrics")
+    @Category("HPackage")
+    @Description("Usage metrics of an instrumented HQueue or HStack")
+    @Period("1 s")
+    @StackTrace(false)
+    static final class MetricsEvent extends Event {
+        @Label("Name")
+        String name;
+
+        @Label("Size")
+        int size;
+
+        @Label("High-Water Mark")
+        long highWaterMark;
+
+        @Label("Enqueues")
+        long enqueues;
+
+        @Label("Dequeues")
+        long dequeues;
+
+        @Label("Full Rejections")
+        long fullRejections;
+
+        @Label("Empty Rejections")
+        long emptyRejections;
+
+        @Label("Time in Queue p50")
+        @Timespan(Timespan.NANOSECONDS)
+        long p50;
+
+        @Label("Time in Queue p99")
+        @Timespan(Timespan.NANOSECONDS)
+        long p99;
+
+        @Label("Time in Queue p99.9")
+        @Timespan(Timespan.NANOSECONDS)
+        long p999;
+    }
+
+}
@@ -0,0 +1,265 @@
+package howie;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The {@code HOffHeapDoubleArray} class is a fixed-length array of doubles stored outside the
+ * Java heap, so that very large tables add nothing to garbage collection pauses. The memory
+ * is either allocated directly or mapped from a file, and can hold more than
+ * {@code Integer.MAX_VALUE} elements.
+ *
+ * <p>After {@link #close()} is called, every method except {@link #length()} and
+ * {@link #isClosed()} throws {@code IllegalStateException}. Use the array in a
+ * try-with-resources statement to tie it to a scope. Allocated memory counts against
+ * {@code -XX:MaxDirectMemorySize}; mapped memory does not.
+ *
+ * <p>{@link HArray} and {@link HMath} can sort, search and summarize an
+ * {@code HOffHeapDoubleArray} without copying it onto the heap.
+ *
+ * <p>The array is not thread-safe. Closing it only drops its buffers; the memory is freed,
+ * or unmapped, by the garbage collector once no thread still holds them. A kernel running in
+ * another thread when the array is closed therefore finishes on valid memory, rather than
+ * touching released memory and crashing the JVM.
+ *
+ * @author Howie Hertzberg
+ */
+public final class HOffHeapDoubleArray implements AutoCloseable {
+
+    private final long length;
+    private ByteBuffer[] buffers;
+    private DoubleBuffer[] segments;
+
+    private HOffHeapDoubleArray(long length, ByteBuffer[] buffers) {
+        this.length = length;
+        this.buffers = buffers;
+        this.segments = new DoubleBuffer[buffers.length];
+        for (int s = 0; s < buffers.length; s++) {
+            segments[s] = buffers[s].asDoubleBuffer();
+        }
+    }
+
+    /**
+     * Allocates a new off-heap array of doubles, with every element set to {@code 0.0}.
+     *
+     * @param length the number of elements
+     * @return the new array
+     * @throws IllegalArgumentException if the length is negative
+     */
+    public static HOffHeapDoubleArray allocate(long length) {
+        checkLength(length);
+        return new HOffHeapDoubleArray(length, HOffHeapMemory.allocate(length, Double.BYTES));
+    }
+
+    /**
+     * Maps an array of doubles onto the start of a file for reading and writing. The file is
+     * created if it does not exist and extended if it is too short. Elements are stored in
+     * big-endian byte order, as written by {@link java.io.DataOutputStream} and read by
+     * {@link HExternalSort}.
+     *
+     * @param file the file to map
+     * @param length the number of elements
+     * @return the mapped array
+     * @throws IllegalArgumentException if the file is null or the length is negative
+     * @throws IOException if an I/O error occurs
+     */
+    public static HOffHeapDoubleArray map(Path file, long length) throws IOException {
+        if (file == null) {
+            throw new IllegalArgumentException("File cannot be null.");
+        }
+        checkLength(length);
+        return new HOffHeapDoubleArray(length, HOffHeapMemory.map(file, length, Double.BYTES, false));
+    }
+
+    /**
+     * Maps every element of a file of big-endian doubles for reading only. Setting an
+     * element of the returned array throws {@link java.nio.ReadOnlyBufferException}.
+     *
+     * @param file the file to map
+     * @return the mapped array
+     * @throws IllegalArgumentException if the file is null, or its size is not a multiple of 8 bytes
+     * @throws IOException if an I/O error occurs
+     */
+    public static HOffHeapDoubleArray mapReadOnly(Path file) throws IOException {
+        if (file == null) {
+            throw new IllegalArgumentException("File cannot be null.");
+        }
+        long size = Files.size(file);
+        if (size % Double.BYTES != 0) {
+            throw new IllegalArgumentException("File size must be a multiple of the element size.");
+        }
+        long length = size / Double.BYTES;
+        return new HOffHeapDoubleArray(length, HOffHeapMemory.map(file, length, Double.BYTES, true));
+    }
+
+    /**
+     * Returns the number of elements in the array.
+     *
+     * @return the number of elements
+     */
+    public long length() {
+        return length;
+    }
+
+    /**
+     * Returns the element at the specified index.
+     *
+     * @param index the index of the element
+     * @return the element at the index
+     * @throws IllegalArgumentException if the index is not within the bounds of the array
+     * @throws IllegalStateException if the array is closed
+     */
+    public double get(long index) {
+        checkIndex(index);
+        return segments[(int) (index >>> HOffHeapMemory.SEGMENT_SHIFT)].get((int) (index & HOffHeapMemory.SEGMENT_MASK));
+    }
+
+    /**
+     * Replaces the element at the specified index.
+     *
+     * @param index the index of the element
+     * @param value the new value of the element
+     * @throws IllegalArgumentException if the index is not within the bounds of the array
+     * @throws IllegalStateException if the array is closed
+     */
+    public void set(long index, double value) {
+        checkIndex(index);
+        segments[(int) (index >>> HOffHeapMemory.SEGMENT_SHIFT)].put((int) (index & HOffHeapMemory.SEGMENT_MASK), value);
+    }
+
+    /**
+     * Copies elements from an on-heap array into this array.
+     *
+     * @param src the array to copy from
+     * @param srcOff the index of the first element to copy in the source array
+     * @param index the index in this array that receives the first element
+     * @param len the number of elements to copy
+     * @throws IllegalArgumentException if the source array is null, or either range is not
+     * within the bounds of its array
+     * @throws IllegalStateException if the array is closed
+     */
+    public void copyFrom(double[] src, int srcOff, long index, int len) {
+        if (src == null) {
+            throw new IllegalArgumentException("Input array cannot be null.");
+        }
+        checkRanges(src.length, srcOff, index, len);
+        while (len > 0) {
+            int s = (int) (index >>> HOffHeapMemory.SEGMENT_SHIFT);
+            int off = (int) (index & HOffHeapMemory.SEGMENT_MASK);
+            int n = Math.min(len, segments[s].capacity() - off);
+            segments[s].put(off, src, srcOff, n);
+            srcOff += n;
+            index += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * Copies elements from this array into an on-heap array.
+     *
+     * @param index the index in this array of the first element to copy
+     * @param dst the array to copy into
+     * @param dstOff the index in the destination array that receives the first element
+     * @param len the number of elements to copy
+     * @throws IllegalArgumentException if the destination array is null, or either range is
+     * not within the bounds of its array
+     * @throws IllegalStateException if the array is closed
+     */
+    public void copyTo(long index, double[] dst, int dstOff, int len) {
+        if (dst == null) {
+            throw new IllegalArgumentException("Output array cannot be null.");
+        }
+        checkRanges(dst.length, dstOff, index, len);
+        while (len > 0) {
+            int s = (int) (index >>> HOffHeapMemory.SEGMENT_SHIFT);
+            int off = (int) (index & HOffHeapMemory.SEGMENT_MASK);
+            int n = Math.min(len, segments[s].capacity() - off);
+            segments[s].get(off, dst, dstOff, n);
+            dstOff += n;
+            index += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * Writes any changes to a mapped array through to its file. Does nothing for an
+     * allocated array.
+     *
+     * @throws IllegalStateException if the array is closed
+     */
+    public void force() {
+        checkOpen();
+        for (ByteBuffer buffer : buffers) {
+            if (buffer instanceof MappedByteBuffer && !buffer.isReadOnly()) {
+                ((MappedByteBuffer) buffer).force();
+            }
+        }
+    }
+
+    /**
+     * Checks if the array has been closed.
+     *
+     * @return {@code true} if the array is closed, {@code false} otherwise
+     */
+    public boolean isClosed() {
+        return segments == null;
+    }
+
+    /**
+     * Closes the array and drops its memory, which is freed, or unmapped if it is mapped from
+     * a file, once the garbage collector finds it unreachable. Closing an array that is
+     * already closed has no effect.
+     */
+    @Override
+    public synchronized void close() {
+        segments = null;
+        buffers = null;
+    }
+
+    /**
+     * Returns the number of segments, for kernels that walk the array segment by segment.
+     */
+    int segmentCount() {
+        checkOpen();
+        return segments.length;
+    }
+
+    /**
+     * Returns a segment, indexed absolutely from 0 to its capacity.
+     */
+    DoubleBuffer segment(int s) {
+        checkOpen();
+        return segments[s];
+    }
+
+    private void checkOpen() {
+        if (segments == null) {
+            throw new IllegalStateException("Array is closed.");
+        }
+    }
+
+    private void checkIndex(long index) {
+        checkOpen();
+        if (index < 0 || index >= length) {
+            throw new IllegalArgumentException("Index must be within bounds of the array.");
+        }
+    }
+
+    private void checkRanges(int heapLength, int heapOff, long index, int len) {
+        checkOpen();
+        if (len < 0 || heapOff < 0 || heapOff > heapLength - len || index < 0 || index > length - len) {
+            throw new IllegalArgumentException("Indices must be within bounds of both arrays.");
+        }
+    }
+
+    private static void checkLength(long length) {
+        if (length < 0) {
+            throw new IllegalArgumentException("Length cannot be negative.");
+        }
+    }
+
+}
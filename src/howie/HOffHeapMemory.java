@@ -0,0 +1,124 @@
+package howie;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Allocates, maps and frees the segments behind {@link HOffHeapIntArray} and
+ * {@link HOffHeapDoubleArray}. A {@link ByteBuffer} is indexed by {@code int}, so memory is
+ * split into segments of {@link #SEGMENT_SIZE} elements; element {@code i} lives at index
+ * {@code i & SEGMENT_MASK} of segment {@code i >>> SEGMENT_SHIFT}.
+ *
+ * <p>Segments handed out to an array are never freed here: a kernel may hold one across its
+ * whole loop, so only the garbage collector can tell when the memory is no longer in use.
+ * {@link #free(ByteBuffer[])} is for segments that were never handed out, such as those of
+ * an allocation or mapping that failed partway.
+ *
+ * @author Howie Hertzberg
+ */
+final class HOffHeapMemory {
+
+    static final int SEGMENT_SHIFT = 27;
+    static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+    static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    // sun.misc.Unsafe.invokeCleaner, if it is available
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Fall back to letting the garbage collector free the memory
+            unsafe = null;
+            invokeCleaner = null;
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    private HOffHeapMemory() {
+    }
+
+    /**
+     * Allocates zeroed direct segments for {@code length} elements of {@code elementBytes} bytes,
+     * in native byte order.
+     */
+    static ByteBuffer[] allocate(long length, int elementBytes) {
+        ByteBuffer[] buffers = new ByteBuffer[segmentCount(length)];
+        try {
+            for (int s = 0; s < buffers.length; s++) {
+                buffers[s] = ByteBuffer.allocateDirect(segmentLength(length, s) * elementBytes)
+                        .order(ByteOrder.nativeOrder());
+            }
+        } catch (OutOfMemoryError e) {
+            free(buffers);
+            throw e;
+        }
+        return buffers;
+    }
+
+    /**
+     * Maps {@code length} elements of {@code elementBytes} bytes from the start of a file, in
+     * big-endian byte order. A read-write mapping creates the file or extends it as needed.
+     */
+    static ByteBuffer[] map(Path file, long length, int elementBytes, boolean readOnly) throws IOException {
+        ByteBuffer[] buffers = new ByteBuffer[segmentCount(length)];
+        FileChannel.MapMode mode = readOnly ? FileChannel.MapMode.READ_ONLY : FileChannel.MapMode.READ_WRITE;
+        try (FileChannel channel = readOnly ? FileChannel.open(file, StandardOpenOption.READ)
+                : FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE)) {
+            for (int s = 0; s < buffers.length; s++) {
+                long position = (long) s * SEGMENT_SIZE * elementBytes;
+                buffers[s] = channel.map(mode, position, (long) segmentLength(length, s) * elementBytes)
+                        .order(ByteOrder.BIG_ENDIAN);
+            }
+        } catch (IOException | RuntimeException e) {
+            free(buffers);
+            throw e;
+        }
+        return buffers;
+    }
+
+    /**
+     * Releases the memory of every buffer immediately if the platform allows it; otherwise
+     * the memory is released when the buffers are garbage collected. No other thread may
+     * hold the buffers or any view of them: an immediate release leaves them pointing at
+     * freed or unmapped memory, and touching it can crash the JVM.
+     */
+    static void free(ByteBuffer[] buffers) {
+        if (INVOKE_CLEANER == null) {
+            return;
+        }
+        for (ByteBuffer buffer : buffers) {
+            if (buffer != null) {
+                try {
+                    INVOKE_CLEANER.invoke(UNSAFE, buffer);
+                } catch (ReflectiveOperationException | RuntimeException e) {
+                    // Leave the buffer to the garbage collector
+                }
+            }
+        }
+    }
+
+    static int segmentCount(long length) {
+        return (int) ((length + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+    }
+
+    private static int segmentLength(long length, int segment) {
+        return (int) Math.min(SEGMENT_SIZE, length - ((long) segment << SEGMENT_SHIFT));
+    }
+
+}
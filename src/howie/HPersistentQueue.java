@@ -0,0 +1,604 @@
+package howie;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * The {@code HPersistentQueue} class represents a First-In-First-Out (FIFO) queue of byte
+ * records that is kept in a file, so that its contents survive a restart of the process.
+ * It has the same {@code enqueue}/{@code dequeue}/{@code peek} and
+ * {@code offer}/{@code poll} semantics as {@link HQueue}, with records of any length up to
+ * the capacity of the queue; fixed-size records are simply records that all have the same
+ * length.
+ *
+ * <p>Like {@link HQueue} the queue is a ring buffer. The file holds a 64-byte header with
+ * the capacity of the ring and the logical positions of its head and tail, followed by the
+ * ring itself, and the whole file is memory-mapped so that records are written and read in
+ * place, without any copy through a file channel. Positions only ever increase; the ring
+ * offset of a position is the position modulo the capacity. Each record starts on a 16-byte
+ * boundary with a 16-byte header holding a CRC32C checksum, the length of the record and its
+ * own position, followed by its bytes. A record that does not fit before the end of the ring
+ * is preceded by a padding record that fills the rest of it, so records never wrap.
+ *
+ * <p>When to force changes to the storage device is chosen with a {@link SyncPolicy}. The
+ * policy only matters when the machine itself fails: once a method returns, its changes are
+ * in the page cache and survive the process being killed under any policy. Whatever the
+ * policy, an enqueue that would overwrite space freed by dequeues since the head was last
+ * forced forces it first, since recovery after a crash starts from the head on the device.
+ *
+ * <p>Opening an existing file recovers the queue from it. Starting at the head in the
+ * header, every record is checked against its checksum and expected position, and the queue
+ * ends at the last valid record. Records written after the tail in the header was last
+ * forced are therefore kept, while a record that was only partly written, along with any
+ * record after it, is dropped. {@link #discardedBytes()} reports whether this happened.
+ *
+ * <p>The file is locked while the queue is open, so that two processes cannot use it at
+ * once. The queue is not thread-safe. Because the file is mapped as a single buffer, the
+ * capacity is limited to a little under 2 GiB.
+ *
+ * @author Howie Hertzberg
+ */
+public final class HPersistentQueue implements AutoCloseable {
+
+    /**
+     * When changes are forced from the page cache to the storage device.
+     */
+    public enum SyncPolicy {
+        /**
+         * Force every enqueue and dequeue before returning. Nothing is lost, at the cost of
+         * waiting for the device on every operation.
+         */
+        EVERY_WRITE,
+        /**
+         * Force once every batch of operations, and on {@link HPersistentQueue#sync()} and
+         * {@link HPersistentQueue#close()}. At most one batch is lost.
+         */
+        BATCHED,
+        /**
+         * Force only when needed to reuse space in the ring; otherwise the operating system
+         * writes pages back when it chooses. Anything not yet written back is lost.
+         */
+        OS
+    }
+
+    /**
+     * The number of operations per forced batch when none is specified.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 4096;
+
+    /**
+     * The largest capacity a queue can have, limited by the size of a single mapping.
+     */
+    public static final int MAX_CAPACITY = (Integer.MAX_VALUE - 64) & ~15;
+
+    // Layout of the file header
+    private static final int MAGIC = 0x48505131; // "HPQ1"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int HEAD_OFFSET = 16;
+    private static final int TAIL_OFFSET = 24;
+
+    // Layout of a record: checksum, length and position, then the bytes of the record
+    private static final int RECORD_HEADER_SIZE = 16;
+    private static final int ALIGNMENT = 16;
+    private static final int PADDING = -1;
+
+    private final FileChannel channel;
+    private final FileLock lock;
+    private final MappedByteBuffer map;
+    private final int capacity;
+    private final SyncPolicy policy;
+    private final int batchSize;
+    private final CRC32C crc = new CRC32C();
+    private final long discardedBytes;
+    private long head;
+    private long tail;
+    private long syncedHead;
+    private long syncedTail;
+    private int size;
+    private int unsynced;
+    private boolean closed;
+
+    private HPersistentQueue(FileChannel channel, FileLock lock, MappedByteBuffer map, int capacity,
+                             SyncPolicy policy, int batchSize) {
+        this.channel = channel;
+        this.lock = lock;
+        this.map = map;
+        this.capacity = capacity;
+        this.policy = policy;
+        this.batchSize = batchSize;
+        this.head = map.getLong(HEAD_OFFSET);
+        this.discardedBytes = recover();
+        this.syncedHead = head;
+        this.syncedTail = tail;
+    }
+
+    /**
+     * Opens the queue kept in a file with the default batch size, creating the file if it
+     * does not exist or is empty.
+     *
+     * @param file the file that holds the queue
+     * @param capacity the number of bytes of the ring, used only if the file is created, and
+     * rounded up to a multiple of 16
+     * @param policy when changes are forced to the storage device
+     * @return the open queue
+     * @throws IllegalArgumentException if the file or policy is null, or the capacity is not
+     * positive or is greater than {@link #MAX_CAPACITY}
+     * @throws IOException if an I/O error occurs, the file is not a queue file, or another
+     * process has the file open
+     */
+    public static HPersistentQueue open(Path file, int capacity, SyncPolicy policy) throws IOException {
+        return open(file, capacity, policy, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Opens the queue kept in a file, creating the file if it does not exist or is empty.
+     *
+     * @param file the file that holds the queue
+     * @param capacity the number of bytes of the ring, used only if the file is created, and
+     * rounded up to a multiple of 16
+     * @param policy when changes are forced to the storage device
+     * @param batchSize the number of operations per forced batch under
+     * {@link SyncPolicy#BATCHED}
+     * @return the open queue
+     * @throws IllegalArgumentException if the file or policy is null, the capacity is not
+     * positive or is greater than {@link #MAX_CAPACITY}, or the batch size is not positive
+     * @throws IOException if an I/O error occurs, the file is not a queue file, or another
+     * process has the file open
+     */
+    public static HPersistentQueue open(Path file, int capacity, SyncPolicy policy, int batchSize)
+            throws IOException {
+        if (file == null) {
+            throw new IllegalArgumentException("File cannot be null.");
+        }
+        if (capacity <= 0 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Queue capacity must be positive and at most MAX_CAPACITY.");
+        }
+        if (policy == null) {
+            throw new IllegalArgumentException("Sync policy cannot be null.");
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive.");
+        }
+
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE);
+        MappedByteBuffer map = null;
+        try {
+            FileLock lock;
+            try {
+                lock = channel.tryLock();
+            } catch (OverlappingFileLockException e) {
+                lock = null;
+            }
+            if (lock == null) {
+                throw new IOException("File is in use by another process.");
+            }
+            long fileSize = channel.size();
+            boolean created = fileSize == 0;
+            if (created) {
+                capacity = align(capacity);
+                fileSize = HEADER_SIZE + (long) capacity;
+            } else if (fileSize < HEADER_SIZE) {
+                throw new IOException("File is not a queue file.");
+            }
+            map = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+            map.order(ByteOrder.BIG_ENDIAN);
+            if (created) {
+                map.putInt(MAGIC_OFFSET, MAGIC);
+                map.putInt(VERSION_OFFSET, VERSION);
+                map.putLong(CAPACITY_OFFSET, capacity);
+                map.putLong(HEAD_OFFSET, 0);
+                map.putLong(TAIL_OFFSET, 0);
+                map.force();
+            } else {
+                if (map.getInt(MAGIC_OFFSET) != MAGIC) {
+                    throw new IOException("File is not a queue file.");
+                }
+                if (map.getInt(VERSION_OFFSET) != VERSION) {
+                    throw new IOException("Unsupported queue file version " + map.getInt(VERSION_OFFSET) + ".");
+                }
+                long stored = map.getLong(CAPACITY_OFFSET);
+                if (stored <= 0 || stored % ALIGNMENT != 0 || HEADER_SIZE + stored != fileSize) {
+                    throw new IOException("Queue file is truncated or corrupt.");
+                }
+                capacity = (int) stored;
+            }
+            return new HPersistentQueue(channel, lock, map, capacity, policy, batchSize);
+        } catch (IOException | RuntimeException e) {
+            if (map != null) {
+                HOffHeapMemory.free(new ByteBuffer[] {map});
+            }
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Attempts to enqueue a record to the queue.
+     *
+     * @param record the bytes of the record
+     * @throws IllegalArgumentException if the record is null or longer than the queue can
+     * ever hold
+     * @throws IllegalStateException if the queue is full or closed
+     * @throws java.io.UncheckedIOException if forcing the change to the device fails
+     */
+    public void enqueue(byte[] record) {
+        if (!offer(record)) {
+            throw new IllegalStateException("Queue is full.");
+        }
+    }
+
+    /**
+     * Enqueues a record if there is room for it.
+     *
+     * @param record the bytes of the record
+     * @return {@code true} if the record was enqueued, {@code false} if the queue is full
+     * @throws IllegalArgumentException if the record is null or longer than the queue can
+     * ever hold
+     * @throws IllegalStateException if the queue is closed
+     * @throws java.io.UncheckedIOException if forcing the change to the device fails
+     */
+    public boolean offer(byte[] record) {
+        if (record == null) {
+            throw new IllegalArgumentException("Input array cannot be null.");
+        }
+        return offer(record, 0, record.length);
+    }
+
+    /**
+     * Enqueues the bytes in the range {@code [from, to)} of an array as one record if there
+     * is room for it.
+     *
+     * @param record the array holding the record
+     * @param from the starting index (inclusive) of the record
+     * @param to the ending index (exclusive) of the record
+     * @return {@code true} if the record was enqueued, {@code false} if the queue is full
+     * @throws IllegalArgumentException if the array is null, the indices are not within the
+     * bounds of the array, the start index is greater than the end index, or the record is
+     * longer than the queue can ever hold
+     * @throws IllegalStateException if the queue is closed
+     * @throws java.io.UncheckedIOException if forcing the change to the device fails
+     */
+    public boolean offer(byte[] record, int from, int to) {
+        if (record == null) {
+            throw new IllegalArgumentException("Input array cannot be null.");
+        }
+        HArray.checkRange(record.length, from, to);
+        checkOpen();
+        int length = to - from;
+        if (RECORD_HEADER_SIZE + (long) length > capacity) {
+            throw new IllegalArgumentException("Record is larger than the queue.");
+        }
+        int recordSize = align(RECORD_HEADER_SIZE + length);
+        int offset = offset(tail);
+        int padding = recordSize > capacity - offset ? capacity - offset : 0;
+        if (padding > 0 && size == 0) {
+            // Nothing to keep: move both ends to the start of the ring instead of padding
+            tail += padding;
+            head = tail;
+            map.putLong(HEAD_OFFSET, head);
+            padding = 0;
+            offset = 0;
+        }
+        long end = tail + padding + recordSize;
+        if (end - head > capacity) {
+            return false;
+        }
+        if (end - syncedHead > capacity) {
+            // The record would overwrite records dequeued since the head was last forced,
+            // which recovery after a crash would start from: force the current head first
+            sync();
+        }
+        if (padding > 0) {
+            writeRecordHeader(offset, PADDING);
+            tail += padding;
+            offset = 0;
+        }
+        map.put(HEADER_SIZE + offset + RECORD_HEADER_SIZE, record, from, length);
+        writeRecordHeader(offset, length);
+        tail += recordSize;
+        size++;
+        map.putLong(TAIL_OFFSET, tail);
+        changed();
+        return true;
+    }
+
+    /**
+     * Attempts to dequeue a record from the queue.
+     *
+     * @return the bytes of the dequeued record
+     * @throws IllegalStateException if the queue is empty or closed
+     * @throws java.io.UncheckedIOException if forcing the change to the device fails
+     */
+    public byte[] dequeue() {
+        byte[] record = poll();
+        if (record == null) {
+            throw new IllegalStateException("Queue is empty.");
+        }
+        return record;
+    }
+
+    /**
+     * Dequeues a record if there is one.
+     *
+     * @return the bytes of the dequeued record, or {@code null} if the queue is empty
+     * @throws IllegalStateException if the queue is closed
+     * @throws java.io.UncheckedIOException if forcing the change to the device fails
+     */
+    public byte[] poll() {
+        byte[] record = peekOrNull();
+        if (record != null) {
+            int offset = offset(head);
+            if (map.getInt(HEADER_SIZE + offset + 4) == PADDING) {
+                head += capacity - offset;
+            }
+            head += align(RECORD_HEADER_SIZE + record.length);
+            size--;
+            map.putLong(HEAD_OFFSET, head);
+            changed();
+        }
+        return record;
+    }
+
+    /**
+     * Attempts to retrieve the top record from the queue.
+     *
+     * @return the bytes of the top record
+     * @throws IllegalStateException if the queue is empty or closed
+     */
+    public byte[] peek() {
+        byte[] record = peekOrNull();
+        if (record == null) {
+            throw new IllegalStateException("Queue is empty.");
+        }
+        return record;
+    }
+
+    /**
+     * Retrieves the top record from the queue if there is one.
+     *
+     * @return the bytes of the top record, or {@code null} if the queue is empty
+     * @throws IllegalStateException if the queue is closed
+     */
+    public byte[] peekOrNull() {
+        checkOpen();
+        if (size == 0) {
+            return null;
+        }
+        int offset = offsetOfFirst();
+        byte[] record = new byte[map.getInt(HEADER_SIZE + offset + 4)];
+        map.get(HEADER_SIZE + offset + RECORD_HEADER_SIZE, record);
+        return record;
+    }
+
+    /**
+     * Clears all records from the queue.
+     *
+     * @throws IllegalStateException if the queue is closed
+     * @throws java.io.UncheckedIOException if forcing the change to the device fails
+     */
+    public void clear() {
+        checkOpen();
+        head = tail;
+        size = 0;
+        map.putLong(HEAD_OFFSET, head);
+        changed();
+    }
+
+    /**
+     * Forces every change made so far to the storage device, whatever the sync policy.
+     *
+     * @throws IllegalStateException if the queue is closed
+     * @throws java.io.UncheckedIOException if forcing the changes fails
+     */
+    public void sync() {
+        checkOpen();
+
+        // Force the records before the header that points past them
+        long dirty = tail - syncedTail;
+        if (dirty >= capacity) {
+            map.force(HEADER_SIZE, capacity);
+        } else if (dirty > 0) {
+            int from = offset(syncedTail);
+            int first = (int) Math.min(dirty, capacity - from);
+            map.force(HEADER_SIZE + from, first);
+            if (first < dirty) {
+                map.force(HEADER_SIZE, (int) dirty - first);
+            }
+        }
+        map.force(0, HEADER_SIZE);
+        syncedHead = head;
+        syncedTail = tail;
+        unsynced = 0;
+    }
+
+    /**
+     * Returns the number of records in the queue.
+     *
+     * @return the number of records in the queue
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of bytes of the ring the records in the queue take up, including
+     * their headers and padding.
+     *
+     * @return the number of bytes in use
+     */
+    public long usedBytes() {
+        return tail - head;
+    }
+
+    /**
+     * Returns the number of bytes in the ring.
+     *
+     * @return the capacity of the queue in bytes
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of bytes dropped when the queue was recovered on opening, because
+     * they did not form valid records.
+     *
+     * @return the number of bytes discarded by recovery, usually 0
+     */
+    public long discardedBytes() {
+        return discardedBytes;
+    }
+
+    /**
+     * Checks if the queue is empty.
+     *
+     * @return {@code true} if the queue is empty, {@code false} otherwise
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Checks if the queue has been closed.
+     *
+     * @return {@code true} if the queue is closed, {@code false} otherwise
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Closes the queue, forcing any outstanding changes to the device unless the sync policy
+     * is {@link SyncPolicy#OS}, and releases the file. The mapping itself is left to the
+     * garbage collector, so that it is never unmapped under a thread still reading it.
+     * Closing a closed queue does nothing.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            if (policy != SyncPolicy.OS) {
+                sync();
+            }
+        } finally {
+            closed = true;
+            try {
+                lock.release();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Walks the records from the head, checking each one, and sets the tail and size to
+     * cover the valid ones. Writes the tail back to the header if it differs.
+     *
+     * @return the number of bytes between the last valid record and the tail in the header
+     */
+    private long recover() {
+        long storedTail = map.getLong(TAIL_OFFSET);
+        long position = head;
+        int count = 0;
+        while (position - head < capacity) {
+            int offset = offset(position);
+            if (map.getLong(HEADER_SIZE + offset + 8) != position) {
+                break;
+            }
+            int length = map.getInt(HEADER_SIZE + offset + 4);
+            long next;
+            if (length == PADDING) {
+                next = position + capacity - offset;
+            } else if (length >= 0 && RECORD_HEADER_SIZE + (long) length <= capacity - offset) {
+                next = position + align(RECORD_HEADER_SIZE + length);
+            } else {
+                break;
+            }
+            if (next - head > capacity || checksum(offset, length) != map.getInt(HEADER_SIZE + offset)) {
+                break;
+            }
+            if (length != PADDING) {
+                count++;
+            }
+            position = next;
+        }
+        tail = position;
+        size = count;
+        if (tail != storedTail) {
+            map.putLong(TAIL_OFFSET, tail);
+            map.force(0, HEADER_SIZE);
+        }
+        return Math.max(0, storedTail - tail);
+    }
+
+    /**
+     * Writes the length, position and checksum of a record whose bytes are already in place.
+     */
+    private void writeRecordHeader(int offset, int length) {
+        map.putInt(HEADER_SIZE + offset + 4, length);
+        map.putLong(HEADER_SIZE + offset + 8, tail);
+        map.putInt(HEADER_SIZE + offset, checksum(offset, length));
+    }
+
+    /**
+     * Computes the checksum of a record: its length, its position and its bytes.
+     */
+    private int checksum(int offset, int length) {
+        int start = HEADER_SIZE + offset + 4;
+        int end = HEADER_SIZE + offset + RECORD_HEADER_SIZE + Math.max(length, 0);
+        crc.reset();
+        map.limit(end).position(start);
+        crc.update(map);
+        map.limit(map.capacity()).position(0);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Returns the ring offset of the first record, skipping any padding before it.
+     */
+    private int offsetOfFirst() {
+        int offset = offset(head);
+        return map.getInt(HEADER_SIZE + offset + 4) == PADDING ? 0 : offset;
+    }
+
+    /**
+     * Counts an operation against the sync policy, forcing changes if it calls for it.
+     */
+    private void changed() {
+        if (policy == SyncPolicy.EVERY_WRITE || (policy == SyncPolicy.BATCHED && ++unsynced >= batchSize)) {
+            sync();
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Queue is closed.");
+        }
+    }
+
+    private int offset(long position) {
+        return (int) (position % capacity);
+    }
+
+    private static int align(int bytes) {
+        return (bytes + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+
+}
@@ -0,0 +1,273 @@
+package howie;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * The {@code HPriorityQueue} class represents a bounded priority queue. It has the same
+ * {@code enqueue}/{@code dequeue}/{@code peek} semantics as {@link HQueue}, except that
+ * elements are dequeued smallest first according to a comparator rather than in the order
+ * they were enqueued. Elements that compare equal are dequeued in no particular order.
+ *
+ * <p>The queue is a d-ary min-heap stored in a single array allocated up front: the
+ * children of the element at index {@code i} are at indices {@code d*i + 1} to
+ * {@code d*i + d}. A higher arity makes the heap shallower, which makes enqueueing cheaper
+ * and keeps the children of an element on one or two cache lines, at the cost of more
+ * comparisons per level when dequeueing. The default arity is {@value #DEFAULT_ARITY}.
+ * Enqueueing many elements at once with {@link #enqueueAll} rebuilds the heap bottom-up in
+ * linear time rather than inserting the elements one at a time.
+ *
+ * @param <T> the type of objects held in the queue
+ * @author Howie Hertzberg
+ * @see HLongPriorityQueue
+ */
+public final class HPriorityQueue<T> {
+
+    /**
+     * The number of children per heap node when none is specified.
+     */
+    public static final int DEFAULT_ARITY = 4;
+
+    private final Object[] heap;
+    private final Comparator<? super T> comparator;
+    private final int arity;
+    private int size;
+
+    /**
+     * Constructs a new {@code HPriorityQueue} with the specified capacity that orders its
+     * elements by their natural ordering, which they must therefore implement
+     * {@link Comparable} for.
+     *
+     * @param capacity the maximum number of elements the queue can hold
+     * @throws IllegalArgumentException if the specified capacity is not positive
+     */
+    @SuppressWarnings("unchecked")
+    public HPriorityQueue(int capacity) {
+        this(capacity, DEFAULT_ARITY, (Comparator<? super T>) Comparator.naturalOrder());
+    }
+
+    /**
+     * Constructs a new {@code HPriorityQueue} with the specified capacity that orders its
+     * elements with the specified comparator.
+     *
+     * @param capacity the maximum number of elements the queue can hold
+     * @param comparator the comparator that orders the elements
+     * @throws IllegalArgumentException if the specified capacity is not positive or the
+     * comparator is null
+     */
+    public HPriorityQueue(int capacity, Comparator<? super T> comparator) {
+        this(capacity, DEFAULT_ARITY, comparator);
+    }
+
+    /**
+     * Constructs a new {@code HPriorityQueue} with the specified capacity and heap arity that
+     * orders its elements with the specified comparator.
+     *
+     * @param capacity the maximum number of elements the queue can hold
+     * @param arity the number of children per heap node
+     * @param comparator the comparator that orders the elements
+     * @throws IllegalArgumentException if the specified capacity is not positive, the arity
+     * is less than 2, or the comparator is null
+     */
+    public HPriorityQueue(int capacity, int arity, Comparator<? super T> comparator) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Queue capacity must be positive.");
+        }
+        if (arity < 2) {
+            throw new IllegalArgumentException("Arity must be at least 2.");
+        }
+        if (comparator == null) {
+            throw new IllegalArgumentException("Comparator cannot be null.");
+        }
+        this.heap = new Object[capacity];
+        this.comparator = comparator;
+        this.arity = arity;
+    }
+
+    /**
+     * Attempts to enqueue an object to the queue.
+     *
+     * @param item the object to enqueue
+     * @throws IllegalArgumentException if the specified object is null
+     * @throws IllegalStateException if the queue is full
+     */
+    public void enqueue(T item) {
+        if (item == null) {
+            throw new IllegalArgumentException("Object cannot be null.");
+        }
+        if (isFull()) {
+            throw new IllegalStateException("Queue is full.");
+        }
+        siftUp(size++, item);
+    }
+
+    /**
+     * Enqueues every object in the range {@code [from, to)} of an array. Either every object
+     * is enqueued or, if any is null or there is not enough room for all of them, none is.
+     * When the range is at least as large as the queue, the heap is rebuilt bottom-up in
+     * time linear in the new size instead of sifting each object up.
+     *
+     * @param items the array of objects to enqueue
+     * @param from the starting index (inclusive) of the range to enqueue
+     * @param to the ending index (exclusive) of the range to enqueue
+     * @throws IllegalArgumentException if the array or any object in the range is null, the
+     * indices are not within the bounds of the array, or the start index is greater than
+     * the end index
+     * @throws IllegalStateException if the queue does not have room for every object
+     */
+    public void enqueueAll(T[] items, int from, int to) {
+        if (items == null) {
+            throw new IllegalArgumentException("Input array cannot be null.");
+        }
+        HArray.checkRange(items.length, from, to);
+        for (int i = from; i < to; i++) {
+            if (items[i] == null) {
+                throw new IllegalArgumentException("Object cannot be null.");
+            }
+        }
+        int n = to - from;
+        if (n > heap.length - size) {
+            throw new IllegalStateException("Queue does not have room for every object.");
+        }
+        if (n < size) {
+            for (int i = from; i < to; i++) {
+                siftUp(size++, items[i]);
+            }
+            return;
+        }
+
+        // Floyd's heap construction: sift down every internal node, last to first
+        System.arraycopy(items, from, heap, size, n);
+        size += n;
+        for (int i = (size - 2) / arity; i >= 0; i--) {
+            siftDown(i, heap[i]);
+        }
+    }
+
+    /**
+     * Attempts to dequeue the smallest element from the queue.
+     *
+     * @return the dequeued element
+     * @throws IllegalStateException if the queue is empty
+     */
+    @SuppressWarnings("unchecked")
+    public T dequeue() {
+        if (isEmpty()) {
+            throw new IllegalStateException("Queue is empty.");
+        }
+        T item = (T) heap[0];
+        Object last = heap[--size];
+        heap[size] = null;
+        if (size > 0) {
+            siftDown(0, last);
+        }
+        return item;
+    }
+
+    /**
+     * Attempts to retrieve the smallest element from the queue.
+     *
+     * @return the smallest element of the queue
+     * @throws IllegalStateException if the queue is empty
+     */
+    @SuppressWarnings("unchecked")
+    public T peek() {
+        if (isEmpty()) {
+            throw new IllegalStateException("Queue is empty.");
+        }
+        return (T) heap[0];
+    }
+
+    /**
+     * Clears all elements from the queue.
+     */
+    public void clear() {
+        Arrays.fill(heap, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * Returns the number of elements in the queue.
+     *
+     * @return the number of elements in the queue
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the maximum number of elements the queue can hold.
+     *
+     * @return the capacity of the queue
+     */
+    public int capacity() {
+        return heap.length;
+    }
+
+    /**
+     * Checks if the queue is full.
+     *
+     * @return {@code true} if the queue is full, {@code false} otherwise
+     */
+    public boolean isFull() {
+        return size == heap.length;
+    }
+
+    /**
+     * Checks if the queue is empty.
+     *
+     * @return {@code true} if the queue is empty, {@code false} otherwise
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Moves a hole at index {@code i} up towards the root until {@code item} fits into it.
+     */
+    @SuppressWarnings("unchecked")
+    private void siftUp(int i, Object item) {
+        T key = (T) item;
+        while (i > 0) {
+            int parent = (i - 1) / arity;
+            Object p = heap[parent];
+            if (comparator.compare(key, (T) p) >= 0) {
+                break;
+            }
+            heap[i] = p;
+            i = parent;
+        }
+        heap[i] = item;
+    }
+
+    /**
+     * Moves a hole at index {@code i} down towards the leaves until {@code item} fits into it.
+     */
+    @SuppressWarnings("unchecked")
+    private void siftDown(int i, Object item) {
+        T key = (T) item;
+        while (true) {
+            long child = (long) arity * i + 1;
+            if (child >= size) {
+                break;
+            }
+
+            // Find the smallest child
+            int first = (int) child;
+            int last = first + Math.min(arity, size - first);
+            int min = first;
+            for (int c = first + 1; c < last; c++) {
+                if (comparator.compare((T) heap[c], (T) heap[min]) < 0) {
+                    min = c;
+                }
+            }
+            if (comparator.compare((T) heap[min], key) >= 0) {
+                break;
+            }
+            heap[i] = heap[min];
+            i = min;
+        }
+        heap[i] = item;
+    }
+
+}
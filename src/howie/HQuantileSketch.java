@@ -0,0 +1,315 @@
+package howie;
+
+/**
+ * The {@code HQuantileSketch} class estimates quantiles of a stream of doubles in constant
+ * memory, using a merging t-digest. Values are collected in a buffer and periodically
+ * merged into a sorted set of weighted centroids whose size is limited by the compression
+ * factor. Centroids near the tails are kept small, so extreme quantiles such as the 99.9th
+ * percentile stay accurate while the median is estimated from coarser centroids.
+ *
+ * <p>Sketches built on separate threads can be combined with {@link #merge(HQuantileSketch)}.
+ * A single sketch is not thread-safe.
+ *
+ * @author Howie Hertzberg
+ */
+public final class HQuantileSketch {
+
+    /** The compression used by {@link #HQuantileSketch()}. */
+    public static final double DEFAULT_COMPRESSION = 200.0;
+
+    private final double compression;
+
+    // Sorted centroids
+    private final double[] means;
+    private final double[] weights;
+    private int centroids;
+
+    // Values not yet merged into the centroids
+    private final double[] bufferMeans;
+    private final double[] bufferWeights;
+    private int buffered;
+
+    // Scratch space for merging the buffer into the centroids
+    private final double[] mergeMeans;
+    private final double[] mergeWeights;
+
+    private double totalWeight;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Constructs a new {@code HQuantileSketch} with the default compression.
+     */
+    public HQuantileSketch() {
+        this(DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Constructs a new {@code HQuantileSketch} with the specified compression. Higher
+     * compression gives more accurate quantiles at the cost of memory; the sketch holds
+     * roughly {@code compression} centroids.
+     *
+     * @param compression the compression factor
+     * @throws IllegalArgumentException if the compression is not positive and finite
+     */
+    public HQuantileSketch(double compression) {
+        if (!(compression > 0) || Double.isInfinite(compression)) {
+            throw new IllegalArgumentException("Compression must be positive and finite.");
+        }
+        this.compression = compression;
+
+        int capacity = (int) Math.ceil(compression) + 8;
+        this.means = new double[capacity];
+        this.weights = new double[capacity];
+        this.bufferMeans = new double[5 * capacity];
+        this.bufferWeights = new double[5 * capacity];
+        this.mergeMeans = new double[6 * capacity];
+        this.mergeWeights = new double[6 * capacity];
+    }
+
+    /**
+     * Adds a value to the sketch.
+     *
+     * @param value the value to add
+     * @throws IllegalArgumentException if the value is {@code NaN}
+     */
+    public void add(double value) {
+        if (Double.isNaN(value)) {
+            throw new IllegalArgumentException("Value cannot be NaN.");
+        }
+        add(value, 1.0);
+    }
+
+    /**
+     * Adds the values in the range {@code [from, to)} of an array to the sketch.
+     *
+     * @param arr the array of values to add
+     * @param from the starting index (inclusive) of the range to add
+     * @param to the ending index (exclusive) of the range to add
+     * @throws IllegalArgumentException if the array is null, the indices are not within the
+     * bounds of the array, the start index is greater than the end index, or a value is
+     * {@code NaN}
+     */
+    public void addAll(double[] arr, int from, int to) {
+        if (arr == null) {
+            throw new IllegalArgumentException("Input array cannot be null.");
+        }
+        HArray.checkRange(arr.length, from, to);
+
+        for (int i = from; i < to; i++) {
+            add(arr[i]);
+        }
+    }
+
+    /**
+     * Adds every value summarized by another sketch to this sketch. The other sketch is
+     * not modified.
+     *
+     * @param other the sketch to merge into this one
+     * @throws IllegalArgumentException if the other sketch is null or is this sketch
+     */
+    public void merge(HQuantileSketch other) {
+        if (other == null) {
+            throw new IllegalArgumentException("Sketch cannot be null.");
+        }
+        if (other == this) {
+            throw new IllegalArgumentException("Sketch cannot be merged into itself.");
+        }
+        for (int i = 0; i < other.centroids; i++) {
+            add(other.means[i], other.weights[i]);
+        }
+        for (int i = 0; i < other.buffered; i++) {
+            add(other.bufferMeans[i], other.bufferWeights[i]);
+        }
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Estimates the value at the specified quantile.
+     *
+     * @param q the quantile, from 0 (the minimum) to 1 (the maximum)
+     * @return the estimated value at the quantile, or {@code NaN} if the sketch is empty
+     * @throws IllegalArgumentException if the quantile is not between 0 and 1
+     */
+    public double quantile(double q) {
+        if (!(q >= 0.0 && q <= 1.0)) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1.");
+        }
+        compress();
+        if (centroids == 0) {
+            return Double.NaN;
+        }
+        if (centroids == 1) {
+            return means[0];
+        }
+
+        double index = q * totalWeight;
+
+        // Between the minimum and the centre of the first centroid
+        double halfFirst = weights[0] / 2;
+        if (index < halfFirst) {
+            return min + (index / halfFirst) * (means[0] - min);
+        }
+
+        // Between the centres of two neighbouring centroids
+        double cumulative = halfFirst;
+        for (int i = 0; i < centroids - 1; i++) {
+            double step = (weights[i] + weights[i + 1]) / 2;
+            if (cumulative + step > index) {
+                return means[i] + (index - cumulative) / step * (means[i + 1] - means[i]);
+            }
+            cumulative += step;
+        }
+
+        // Between the centre of the last centroid and the maximum
+        int last = centroids - 1;
+        double halfLast = weights[last] / 2;
+        return Math.min(max, means[last] + (index - cumulative) / halfLast * (max - means[last]));
+    }
+
+    /**
+     * Returns the number of values added to the sketch.
+     *
+     * @return the number of values added
+     */
+    public long count() {
+        return Math.round(totalWeight);
+    }
+
+    /**
+     * Returns the smallest value added to the sketch.
+     *
+     * @return the smallest value, or positive infinity if the sketch is empty
+     */
+    public double min() {
+        return min;
+    }
+
+    /**
+     * Returns the greatest value added to the sketch.
+     *
+     * @return the greatest value, or negative infinity if the sketch is empty
+     */
+    public double max() {
+        return max;
+    }
+
+    /**
+     * Adds a weighted point to the buffer, merging the buffer once it is full.
+     */
+    private void add(double mean, double weight) {
+        if (buffered == bufferMeans.length) {
+            compress();
+        }
+        bufferMeans[buffered] = mean;
+        bufferWeights[buffered] = weight;
+        buffered++;
+        totalWeight += weight;
+        min = Math.min(min, mean);
+        max = Math.max(max, mean);
+    }
+
+    /**
+     * Merges the buffer into the centroids. The buffer is sorted and merged with the
+     * already sorted centroids, then neighbouring points are combined for as long as the
+     * combined centroid spans no more than one unit of the scale function.
+     */
+    private void compress() {
+        if (buffered == 0) {
+            return;
+        }
+        sortBuffer();
+
+        // Merge the sorted buffer and centroids into the scratch arrays
+        int n = 0, i = 0, j = 0;
+        while (i < centroids || j < buffered) {
+            if (j == buffered || (i < centroids && means[i] <= bufferMeans[j])) {
+                mergeMeans[n] = means[i];
+                mergeWeights[n++] = weights[i++];
+            } else {
+                mergeMeans[n] = bufferMeans[j];
+                mergeWeights[n++] = bufferWeights[j++];
+            }
+        }
+        buffered = 0;
+
+        // Combine neighbours, limiting each centroid to one unit of the scale function
+        int out = 0;
+        double currentMean = mergeMeans[0];
+        double currentWeight = mergeWeights[0];
+        double weightSoFar = 0.0;
+        double limit = quantileLimit(0.0);
+        for (int k = 1; k < n; k++) {
+            double proposed = currentWeight + mergeWeights[k];
+            if ((weightSoFar + proposed) / totalWeight <= limit) {
+                currentWeight = proposed;
+                currentMean += (mergeMeans[k] - currentMean) * mergeWeights[k] / proposed;
+            } else {
+                means[out] = currentMean;
+                weights[out++] = currentWeight;
+                weightSoFar += currentWeight;
+                limit = quantileLimit(weightSoFar / totalWeight);
+                currentMean = mergeMeans[k];
+                currentWeight = mergeWeights[k];
+            }
+        }
+        means[out] = currentMean;
+        weights[out++] = currentWeight;
+        centroids = out;
+    }
+
+    /**
+     * Returns the highest quantile a centroid starting at quantile {@code q} may reach,
+     * using the scale function {@code k(q) = compression / (2 pi) * asin(2q - 1)}.
+     */
+    private double quantileLimit(double q) {
+        double k = compression / (2 * Math.PI) * Math.asin(2 * q - 1) + 1;
+        if (k >= compression / 4) {
+            return 1.0;
+        }
+        return (Math.sin(k * 2 * Math.PI / compression) + 1) / 2;
+    }
+
+    /**
+     * Sorts the buffered points by mean with an in-place heap sort, so that compressing
+     * the buffer never allocates.
+     */
+    private void sortBuffer() {
+        int n = buffered;
+        for (int i = n / 2 - 1; i >= 0; i--) {
+            siftDown(i, n);
+        }
+        for (int end = n - 1; end > 0; end--) {
+            swapBuffered(0, end);
+            siftDown(0, end);
+        }
+    }
+
+    private void siftDown(int i, int n) {
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= n) {
+                return;
+            }
+            if (child + 1 < n && bufferMeans[child + 1] > bufferMeans[child]) {
+                child++;
+            }
+            if (bufferMeans[i] >= bufferMeans[child]) {
+                return;
+            }
+            swapBuffered(i, child);
+            i = child;
+        }
+    }
+
+    private void swapBuffered(int a, int b) {
+        double mean = bufferMeans[a];
+        bufferMeans[a] = bufferMeans[b];
+        bufferMeans[b] = mean;
+        double weight = bufferWeights[a];
+        bufferWeights[a] = bufferWeights[b];
+        bufferWeights[b] = weight;
+    }
+
+}
@@ -1,5 +1,8 @@
 package howie;
 
+import java.util.Arrays;
+import java.util.function.Consumer;
+
 /**
  * The {@code HQueue} class represents a circular queue data structure that allows
  * enqueueing and dequeueing of objects using First-In-First-Out (FIFO) logic.
@@ -12,6 +15,8 @@ public final class HQueue<T> {
     private final Object[] queueArray;
     private int inPtr;
     private int outPtr;
+    private HMetrics metrics;
+    private long[] enqueueTimes;
 
     /**
      * Constructs a new {@code HQueue} with the specified capacity.
@@ -36,14 +41,79 @@ public final class HQueue<T> {
      * @throws IllegalStateException if the queue is full
      */
     public void enqueue(T item) {
+        if (!offer(item)) {
+            throw new IllegalStateException("Queue is full.");
+        }
+    }
+
+    /**
+     * Enqueues an object if there is room for it. Unlike {@link #enqueue(Object)}, a full
+     * queue is reported through the return value, so no exception is constructed.
+     *
+     * @param item the object to enqueue
+     * @return {@code true} if the object was enqueued, {@code false} if the queue is full
+     * @throws IllegalArgumentException if the specified object is null
+     */
+    public boolean offer(T item) {
         if (item == null) {
             throw new IllegalArgumentException("Object cannot be null.");
         }
-        if (isFull()) {
-            throw new IllegalStateException("Queue is full.");
+        int slot = inPtr;
+        int next = slot + 1 == queueArray.length ? 0 : slot + 1;
+        if (next == outPtr) {
+            if (metrics != null) {
+                metrics.rejectedFull();
+            }
+            return false;
+        }
+        queueArray[slot] = item;
+        inPtr = next;
+        if (metrics != null) {
+            recordEnqueued(slot, 1);
+        }
+        return true;
+    }
+
+    /**
+     * Enqueues every object in the range {@code [from, to)} of an array, in order. Either
+     * every object is enqueued or, if any is null or there is not enough room for all of
+     * them, none is. The objects are copied with at most two {@link System#arraycopy} calls.
+     *
+     * @param items the array of objects to enqueue
+     * @param from the starting index (inclusive) of the range to enqueue
+     * @param to the ending index (exclusive) of the range to enqueue
+     * @throws IllegalArgumentException if the array or any object in the range is null, the
+     * indices are not within the bounds of the array, or the start index is greater than
+     * the end index
+     * @throws IllegalStateException if the queue does not have room for every object
+     */
+    public void enqueueAll(T[] items, int from, int to) {
+        if (items == null) {
+            throw new IllegalArgumentException("Input array cannot be null.");
+        }
+        HArray.checkRange(items.length, from, to);
+        for (int i = from; i < to; i++) {
+            if (items[i] == null) {
+                throw new IllegalArgumentException("Object cannot be null.");
+            }
+        }
+        int n = to - from;
+        if (n > queueArray.length - 1 - size()) {
+            if (metrics != null) {
+                metrics.rejectedFull();
+            }
+            throw new IllegalStateException("Queue does not have room for every object.");
+        }
+
+        // Copy up to the end of the array, then wrap around to the start
+        int slot = inPtr;
+        int first = Math.min(n, queueArray.length - inPtr);
+        System.arraycopy(items, from, queueArray, inPtr, first);
+        System.arraycopy(items, from + first, queueArray, 0, n - first);
+        inPtr = (inPtr + n) % queueArray.length;
+        if (metrics != null) {
+            recordEnqueued(slot, n);
         }
-        queueArray[inPtr] = item;
-        inPtr = (inPtr + 1) % queueArray.length;
     }
 
     /**
@@ -52,17 +122,98 @@ public final class HQueue<T> {
      * @return the dequeued element
      * @throws IllegalStateException if the queue is empty
      */
-    @SuppressWarnings("unchecked")
     public T dequeue() {
-        if(isEmpty()) {
+        T item = poll();
+        if (item == null) {
             throw new IllegalStateException("Queue is empty.");
         }
-        T item = (T) queueArray[outPtr];
-        queueArray[outPtr] = null;
-        outPtr = (outPtr + 1) % queueArray.length;
         return item;
     }
 
+    /**
+     * Dequeues an element if there is one. Unlike {@link #dequeue()}, an empty queue is
+     * reported through the return value, so no exception is constructed.
+     *
+     * @return the dequeued element, or {@code null} if the queue is empty
+     */
+    @SuppressWarnings("unchecked")
+    public T poll() {
+        int slot = outPtr;
+        if (slot == inPtr) {
+            if (metrics != null) {
+                metrics.rejectedEmpty();
+            }
+            return null;
+        }
+        T item = (T) queueArray[slot];
+        queueArray[slot] = null;
+        outPtr = slot + 1 == queueArray.length ? 0 : slot + 1;
+        if (metrics != null) {
+            recordDequeued(slot, 1);
+        }
+        return item;
+    }
+
+    /**
+     * Dequeues as many elements as fit into an array, oldest first, starting at index 0.
+     * The elements are moved with at most two {@link System#arraycopy} calls.
+     *
+     * @param dst the array that receives the dequeued elements
+     * @return the number of elements dequeued
+     * @throws IllegalArgumentException if the array is null
+     */
+    public int drainTo(T[] dst) {
+        if (dst == null) {
+            throw new IllegalArgumentException("Output array cannot be null.");
+        }
+        int n = Math.min(size(), dst.length);
+
+        // Copy up to the end of the array, then wrap around to the start
+        int slot = outPtr;
+        int first = Math.min(n, queueArray.length - outPtr);
+        System.arraycopy(queueArray, outPtr, dst, 0, first);
+        System.arraycopy(queueArray, 0, dst, first, n - first);
+        Arrays.fill(queueArray, outPtr, outPtr + first, null);
+        Arrays.fill(queueArray, 0, n - first, null);
+        outPtr = (outPtr + n) % queueArray.length;
+        if (metrics != null) {
+            recordDequeued(slot, n);
+        }
+        return n;
+    }
+
+    /**
+     * Dequeues up to {@code max} elements, oldest first, passing each one to an action.
+     * Each element is removed from the queue before the action receives it, so if the
+     * action throws an exception, the element it was given is no longer in the queue.
+     *
+     * @param action the action that receives each dequeued element
+     * @param max the maximum number of elements to dequeue
+     * @return the number of elements dequeued
+     * @throws IllegalArgumentException if the action is null or the maximum is negative
+     */
+    @SuppressWarnings("unchecked")
+    public int drainTo(Consumer<? super T> action, int max) {
+        if (action == null) {
+            throw new IllegalArgumentException("Action cannot be null.");
+        }
+        if (max < 0) {
+            throw new IllegalArgumentException("Maximum cannot be negative.");
+        }
+        int n = Math.min(size(), max);
+        for (int i = 0; i < n; i++) {
+            int slot = outPtr;
+            T item = (T) queueArray[slot];
+            queueArray[slot] = null;
+            outPtr = outPtr + 1 == queueArray.length ? 0 : outPtr + 1;
+            if (metrics != null) {
+                recordDequeued(slot, 1);
+            }
+            action.accept(item);
+        }
+        return n;
+    }
+
     /**
      * Attempts to retrieve the top element from the queue.
      *
@@ -77,13 +228,62 @@ public final class HQueue<T> {
         return (T) queueArray[outPtr];
     }
 
+    /**
+     * Retrieves the top element from the queue if there is one.
+     *
+     * @return the top element of the queue, or {@code null} if the queue is empty
+     */
+    @SuppressWarnings("unchecked")
+    public T peekOrNull() {
+        return (T) queueArray[outPtr];
+    }
+
     /**
      * Clears all elements from the queue.
      */
     public void clear() {
-        while (!isEmpty()) {
-            dequeue();
+        if (inPtr >= outPtr) {
+            Arrays.fill(queueArray, outPtr, inPtr, null);
+        } else {
+            Arrays.fill(queueArray, outPtr, queueArray.length, null);
+            Arrays.fill(queueArray, 0, inPtr, null);
+        }
+        inPtr = 0;
+        outPtr = 0;
+        if (metrics != null) {
+            metrics.sizeChanged(0);
+        }
+    }
+
+    /**
+     * Attaches metrics that record how the queue is used from now on, or detaches them.
+     * Elements already in the queue are timed from the moment the metrics are attached.
+     * Attaching allocates an array of enqueue times as long as the queue's capacity; while
+     * no metrics are attached, the queue records nothing.
+     *
+     * @param metrics the metrics to record to, or {@code null} to stop recording
+     */
+    public void setMetrics(HMetrics metrics) {
+        if (metrics == null) {
+            this.metrics = null;
+            this.enqueueTimes = null;
+            return;
+        }
+        if (enqueueTimes == null) {
+            enqueueTimes = new long[queueArray.length];
+            Arrays.fill(enqueueTimes, System.nanoTime());
         }
+        this.metrics = metrics;
+        metrics.sizeChanged(size());
+    }
+
+    /**
+     * Returns the metrics attached to the queue.
+     *
+     * @return the attached metrics, or {@code null} if there are none
+     */
+    public HMetrics getMetrics() {
+        return metrics;
     }
 
     /**
@@ -104,4 +304,40 @@ public final class HQueue<T> {
         return inPtr == outPtr;
     }
 
+    /**
+     * Returns the number of elements in the queue, computed in constant time from the
+     * positions of its two ends.
+     *
+     * @return the number of elements in the queue
+     */
+    public int size() {
+        int size = inPtr - outPtr;
+        return size < 0 ? size + queueArray.length : size;
+    }
+
+    /**
+     * Stamps the enqueue time of {@code n} elements stored from {@code slot} onwards and
+     * reports them to the metrics.
+     */
+    private void recordEnqueued(int slot, int n) {
+        long now = System.nanoTime();
+        int first = Math.min(n, queueArray.length - slot);
+        Arrays.fill(enqueueTimes, slot, slot + first, now);
+        Arrays.fill(enqueueTimes, 0, n - first, now);
+        metrics.enqueued(n, size());
+    }
+
+    /**
+     * Reports {@code n} elements removed from {@code slot} onwards, and the time each spent
+     * in the queue, to the metrics.
+     */
+    private void recordDequeued(int slot, int n) {
+        long now = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            metrics.waited(now - enqueueTimes[slot]);
+            slot = slot + 1 == queueArray.length ? 0 : slot + 1;
+        }
+        metrics.dequeued(n, size());
+    }
+
 }
@@ -0,0 +1,255 @@
+package howie;
+
+import java.util.Arrays;
+
+/**
+ * The {@code HSegmentedQueue} class represents a First-In-First-Out (FIFO) queue that grows
+ * and shrinks with its contents. It has the same {@code enqueue}/{@code dequeue}/{@code peek}
+ * semantics as {@link HQueue}, but instead of one array of fixed capacity it stores its
+ * elements in a linked list of fixed-size segments.
+ *
+ * <p>A full queue links in a new segment rather than copying its contents into a larger
+ * array, and a segment that has been emptied is unlinked again. Up to
+ * {@value #MAX_SPARE_SEGMENTS} unlinked segments are kept for reuse, so a queue that
+ * oscillates around a segment boundary does not allocate; any further segments are left to
+ * the garbage collector. The memory held by the queue therefore follows its current size
+ * rather than its peak size, and {@link #trim()} releases the spare segments as well.
+ *
+ * <p>The queue may be given a maximum capacity, in which case {@link #enqueue} throws when
+ * it is reached, exactly as it does for {@link HQueue}.
+ *
+ * @param <T> the type of objects held in the queue
+ * @author Howie Hertzberg
+ */
+public final class HSegmentedQueue<T> {
+
+    /**
+     * The number of elements in a segment when none is specified.
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 256;
+
+    /**
+     * The maximum number of emptied segments kept for reuse.
+     */
+    public static final int MAX_SPARE_SEGMENTS = 4;
+
+    private final int segmentSize;
+    private final int maxCapacity;
+    private Segment head;
+    private Segment tail;
+    private int headIndex;
+    private int tailIndex;
+    private int size;
+    private Segment spare;
+    private int spareCount;
+
+    /**
+     * Constructs a new, unbounded {@code HSegmentedQueue} with the default segment size.
+     */
+    public HSegmentedQueue() {
+        this(DEFAULT_SEGMENT_SIZE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Constructs a new {@code HSegmentedQueue} with the default segment size and the
+     * specified maximum capacity.
+     *
+     * @param maxCapacity the maximum number of elements the queue can hold
+     * @throws IllegalArgumentException if the specified capacity is not positive
+     */
+    public HSegmentedQueue(int maxCapacity) {
+        this(DEFAULT_SEGMENT_SIZE, maxCapacity);
+    }
+
+    /**
+     * Constructs a new {@code HSegmentedQueue} with the specified segment size and maximum
+     * capacity. Pass {@link Integer#MAX_VALUE} as the capacity for an unbounded queue.
+     *
+     * @param segmentSize the number of elements in each segment
+     * @param maxCapacity the maximum number of elements the queue can hold
+     * @throws IllegalArgumentException if the segment size or the capacity is not positive
+     */
+    public HSegmentedQueue(int segmentSize, int maxCapacity) {
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("Segment size must be positive.");
+        }
+        if (maxCapacity <= 0) {
+            throw new IllegalArgumentException("Queue capacity must be positive.");
+        }
+        this.segmentSize = segmentSize;
+        this.maxCapacity = maxCapacity;
+        this.head = new Segment(segmentSize);
+        this.tail = head;
+    }
+
+    /**
+     * Attempts to enqueue an object to the queue.
+     *
+     * @param item the object to enqueue
+     * @throws IllegalArgumentException if the specified object is null
+     * @throws IllegalStateException if the queue is full
+     */
+    public void enqueue(T item) {
+        if (item == null) {
+            throw new IllegalArgumentException("Object cannot be null.");
+        }
+        if (isFull()) {
+            throw new IllegalStateException("Queue is full.");
+        }
+        if (tailIndex == segmentSize) {
+            Segment segment = obtainSegment();
+            tail.next = segment;
+            tail = segment;
+            tailIndex = 0;
+        }
+        tail.items[tailIndex++] = item;
+        size++;
+    }
+
+    /**
+     * Attempts to dequeue an element from the queue.
+     *
+     * @return the dequeued element
+     * @throws IllegalStateException if the queue is empty
+     */
+    @SuppressWarnings("unchecked")
+    public T dequeue() {
+        if (isEmpty()) {
+            throw new IllegalStateException("Queue is empty.");
+        }
+        T item = (T) head.items[headIndex];
+        head.items[headIndex++] = null;
+        size--;
+        if (size == 0) {
+            // Start over at the front of the remaining segment
+            headIndex = 0;
+            tailIndex = 0;
+        } else if (headIndex == segmentSize) {
+            Segment emptied = head;
+            head = head.next;
+            headIndex = 0;
+            releaseSegment(emptied);
+        }
+        return item;
+    }
+
+    /**
+     * Attempts to retrieve the top element from the queue.
+     *
+     * @return the top element of the queue
+     * @throws IllegalStateException if the queue is empty
+     */
+    @SuppressWarnings("unchecked")
+    public T peek() {
+        if (isEmpty()) {
+            throw new IllegalStateException("Queue is empty.");
+        }
+        return (T) head.items[headIndex];
+    }
+
+    /**
+     * Clears all elements from the queue. Every segment but one is unlinked.
+     */
+    public void clear() {
+        Segment segment = head;
+        int from = headIndex;
+        while (segment != tail) {
+            Arrays.fill(segment.items, from, segmentSize, null);
+            Segment next = segment.next;
+            releaseSegment(segment);
+            segment = next;
+            from = 0;
+        }
+        Arrays.fill(segment.items, from, tailIndex, null);
+        head = segment;
+        headIndex = 0;
+        tailIndex = 0;
+        size = 0;
+    }
+
+    /**
+     * Releases the segments kept for reuse, so that the memory held by the queue is
+     * proportional to the number of elements in it.
+     */
+    public void trim() {
+        spare = null;
+        spareCount = 0;
+    }
+
+    /**
+     * Returns the number of elements in the queue.
+     *
+     * @return the number of elements in the queue
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the maximum number of elements the queue can hold.
+     *
+     * @return the capacity of the queue, or {@link Integer#MAX_VALUE} if it is unbounded
+     */
+    public int capacity() {
+        return maxCapacity;
+    }
+
+    /**
+     * Checks if the queue is full.
+     *
+     * @return {@code true} if the queue is full, {@code false} otherwise
+     */
+    public boolean isFull() {
+        return size == maxCapacity;
+    }
+
+    /**
+     * Checks if the queue is empty.
+     *
+     * @return {@code true} if the queue is empty, {@code false} otherwise
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns a spare segment if there is one, or a new segment otherwise.
+     */
+    private Segment obtainSegment() {
+        Segment segment = spare;
+        if (segment == null) {
+            return new Segment(segmentSize);
+        }
+        spare = segment.next;
+        segment.next = null;
+        spareCount--;
+        return segment;
+    }
+
+    /**
+     * Keeps an emptied segment for reuse if there is room for it among the spares. Every
+     * slot of the segment must already be null.
+     */
+    private void releaseSegment(Segment segment) {
+        if (spareCount < MAX_SPARE_SEGMENTS) {
+            segment.next = spare;
+            spare = segment;
+            spareCount++;
+        } else {
+            segment.next = null;
+        }
+    }
+
+    /**
+     * A fixed-size block of elements and the link to the block after it.
+     */
+    private static final class Segment {
+        final Object[] items;
+        Segment next;
+
+        Segment(int size) {
+            this.items = new Object[size];
+        }
+    }
+
+}
@@ -0,0 +1,242 @@
+package howie;
+
+import java.util.Arrays;
+
+/**
+ * The {@code HSegmentedStack} class represents a Last-In-First-Out (LIFO) stack that grows
+ * and shrinks with its contents. It has the same {@code push}/{@code pop}/{@code peek}
+ * semantics as {@link HStack}, but instead of one array of fixed capacity it stores its
+ * elements in a linked list of fixed-size segments.
+ *
+ * <p>A full stack links in a new segment rather than copying its contents into a larger
+ * array, and a segment that has been emptied is unlinked again. Up to
+ * {@value #MAX_SPARE_SEGMENTS} unlinked segments are kept for reuse, so a stack that
+ * oscillates around a segment boundary does not allocate; any further segments are left to
+ * the garbage collector. The memory held by the stack therefore follows its current size
+ * rather than its peak size, and {@link #trim()} releases the spare segments as well.
+ *
+ * <p>The stack may be given a maximum capacity, in which case {@link #push} throws when it
+ * is reached, exactly as it does for {@link HStack}.
+ *
+ * @param <T> the type of objects held in this stack
+ * @author Howie Hertzberg
+ */
+public final class HSegmentedStack<T> {
+
+    /**
+     * The number of elements in a segment when none is specified.
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 256;
+
+    /**
+     * The maximum number of emptied segments kept for reuse.
+     */
+    public static final int MAX_SPARE_SEGMENTS = 4;
+
+    private final int segmentSize;
+    private final int maxCapacity;
+    private Segment top;
+    private int topIndex;
+    private int size;
+    private Segment spare;
+    private int spareCount;
+
+    /**
+     * Constructs a new, unbounded {@code HSegmentedStack} with the default segment size.
+     */
+    public HSegmentedStack() {
+        this(DEFAULT_SEGMENT_SIZE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Constructs a new {@code HSegmentedStack} with the default segment size and the
+     * specified maximum capacity.
+     *
+     * @param maxCapacity the maximum number of elements the stack can hold
+     * @throws IllegalArgumentException if the specified capacity is not positive
+     */
+    public HSegmentedStack(int maxCapacity) {
+        this(DEFAULT_SEGMENT_SIZE, maxCapacity);
+    }
+
+    /**
+     * Constructs a new {@code HSegmentedStack} with the specified segment size and maximum
+     * capacity. Pass {@link Integer#MAX_VALUE} as the capacity for an unbounded stack.
+     *
+     * @param segmentSize the number of elements in each segment
+     * @param maxCapacity the maximum number of elements the stack can hold
+     * @throws IllegalArgumentException if the segment size or the capacity is not positive
+     */
+    public HSegmentedStack(int segmentSize, int maxCapacity) {
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("Segment size must be positive.");
+        }
+        if (maxCapacity <= 0) {
+            throw new IllegalArgumentException("Stack capacity must be positive.");
+        }
+        this.segmentSize = segmentSize;
+        this.maxCapacity = maxCapacity;
+        this.top = new Segment(segmentSize);
+    }
+
+    /**
+     * Attempts to push an item onto the stack.
+     *
+     * @param item the object to push
+     * @throws IllegalArgumentException if the specified object is null
+     * @throws IllegalStateException if the stack is full
+     */
+    public void push(T item) {
+        if (item == null) {
+            throw new IllegalArgumentException("Object cannot be null.");
+        }
+        if (isFull()) {
+            throw new IllegalStateException("Stack is full.");
+        }
+        if (topIndex == segmentSize) {
+            Segment segment = obtainSegment();
+            segment.below = top;
+            top = segment;
+            topIndex = 0;
+        }
+        top.items[topIndex++] = item;
+        size++;
+    }
+
+    /**
+     * Attempts to pop an item from the stack.
+     *
+     * @return the popped item
+     * @throws IllegalStateException if the stack is empty
+     */
+    @SuppressWarnings("unchecked")
+    public T pop() {
+        if (isEmpty()) {
+            throw new IllegalStateException("Stack is empty.");
+        }
+        T item = (T) top.items[--topIndex];
+        top.items[topIndex] = null;
+        size--;
+        if (topIndex == 0 && top.below != null) {
+            Segment emptied = top;
+            top = top.below;
+            topIndex = segmentSize;
+            releaseSegment(emptied);
+        }
+        return item;
+    }
+
+    /**
+     * Attempts to retrieve the top element from the stack.
+     *
+     * @return the top element of the stack
+     * @throws IllegalStateException if the stack is empty
+     */
+    @SuppressWarnings("unchecked")
+    public T peek() {
+        if (isEmpty()) {
+            throw new IllegalStateException("Stack is empty.");
+        }
+        return (T) top.items[topIndex - 1];
+    }
+
+    /**
+     * Clears all elements from the stack. Every segment but one is unlinked.
+     */
+    public void clear() {
+        Arrays.fill(top.items, 0, topIndex, null);
+        while (top.below != null) {
+            Segment emptied = top;
+            top = top.below;
+            Arrays.fill(top.items, null);
+            releaseSegment(emptied);
+        }
+        topIndex = 0;
+        size = 0;
+    }
+
+    /**
+     * Releases the segments kept for reuse, so that the memory held by the stack is
+     * proportional to the number of elements in it.
+     */
+    public void trim() {
+        spare = null;
+        spareCount = 0;
+    }
+
+    /**
+     * Returns the number of elements in the stack.
+     *
+     * @return the number of elements in the stack
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the maximum number of elements the stack can hold.
+     *
+     * @return the capacity of the stack, or {@link Integer#MAX_VALUE} if it is unbounded
+     */
+    public int capacity() {
+        return maxCapacity;
+    }
+
+    /**
+     * Checks if the stack is full.
+     *
+     * @return {@code true} if the stack is full, {@code false} otherwise
+     */
+    public boolean isFull() {
+        return size == maxCapacity;
+    }
+
+    /**
+     * Checks if the stack is empty.
+     *
+     * @return {@code true} if the stack is empty, {@code false} otherwise
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns a spare segment if there is one, or a new segment otherwise.
+     */
+    private Segment obtainSegment() {
+        Segment segment = spare;
+        if (segment == null) {
+            return new Segment(segmentSize);
+        }
+        spare = segment.below;
+        spareCount--;
+        return segment;
+    }
+
+    /**
+     * Keeps an emptied segment for reuse if there is room for it among the spares. Every
+     * slot of the segment must already be null.
+     */
+    private void releaseSegment(Segment segment) {
+        if (spareCount < MAX_SPARE_SEGMENTS) {
+            segment.below = spare;
+            spare = segment;
+            spareCount++;
+        } else {
+            segment.below = null;
+        }
+    }
+
+    /**
+     * A fixed-size block of elements and the link to the block beneath it.
+     */
+    private static final class Segment {
+        final Object[] items;
+        Segment below;
+
+        Segment(int size) {
+            this.items = new Object[size];
+        }
+    }
+
+}
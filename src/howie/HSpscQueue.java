@@ -0,0 +1,249 @@
+package howie;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * The {@code HSpscQueue} class is a bounded, lock-free First-In-First-Out (FIFO) queue for
+ * passing objects from exactly one producer thread to exactly one consumer thread. It has
+ * the same {@code enqueue}/{@code dequeue}/{@code peek} semantics as {@link HQueue}.
+ *
+ * <p>The producer only writes the tail counter and the consumer only writes the head
+ * counter. Each publishes its counter with a release store and reads the other's with an
+ * acquire load, and each keeps a cached copy of the other's counter that it refreshes only
+ * when the queue looks full or empty. The two counters live on separate cache lines so
+ * that the threads do not invalidate each other's lines on every operation. The backing
+ * array has a power-of-two length and is indexed with a mask.
+ *
+ * <p>{@link #enqueue}, {@link #offer} may only be called by the producer, and
+ * {@link #dequeue}, {@link #poll}, {@link #peek} and {@link #clear} only by the consumer.
+ * {@link #size}, {@link #isEmpty} and {@link #isFull} may be called from any thread, but
+ * return only a snapshot.
+ *
+ * @param <T> the type of objects held in the queue
+ * @author Howie Hertzberg
+ */
+public final class HSpscQueue<T> extends SpscPadHead {
+
+    private static final VarHandle HEAD;
+    private static final VarHandle TAIL;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            HEAD = lookup.findVarHandle(SpscHead.class, "head", long.class);
+            TAIL = lookup.findVarHandle(SpscTail.class, "tail", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Object[] queueArray;
+    private final int mask;
+    private final int capacity;
+
+    /**
+     * Constructs a new {@code HSpscQueue} with the specified capacity.
+     *
+     * @param capacity the maximum number of elements the queue can hold
+     * @throws IllegalArgumentException if the specified capacity is not positive or is
+     * greater than {@code 1 << 30}
+     */
+    public HSpscQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Queue capacity must be positive.");
+        }
+        if (capacity > 1 << 30) {
+            throw new IllegalArgumentException("Queue capacity cannot be greater than 2^30.");
+        }
+        int length = Integer.highestOneBit(capacity);
+        if (length < capacity) {
+            length <<= 1;
+        }
+        this.queueArray = new Object[length];
+        this.mask = length - 1;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Attempts to enqueue an object to the queue. May only be called by the producer.
+     *
+     * @param item the object to enqueue
+     * @throws IllegalArgumentException if the specified object is null
+     * @throws IllegalStateException if the queue is full
+     */
+    public void enqueue(T item) {
+        if (!offer(item)) {
+            throw new IllegalStateException("Queue is full.");
+        }
+    }
+
+    /**
+     * Enqueues an object if there is room for it. May only be called by the producer.
+     *
+     * @param item the object to enqueue
+     * @return {@code true} if the object was enqueued, {@code false} if the queue is full
+     * @throws IllegalArgumentException if the specified object is null
+     */
+    public boolean offer(T item) {
+        if (item == null) {
+            throw new IllegalArgumentException("Object cannot be null.");
+        }
+        long t = tail;
+        if (t - headCache >= capacity) {
+            headCache = (long) HEAD.getAcquire(this);
+            if (t - headCache >= capacity) {
+                return false;
+            }
+        }
+        queueArray[(int) t & mask] = item;
+        TAIL.setRelease(this, t + 1);
+        return true;
+    }
+
+    /**
+     * Attempts to dequeue an element from the queue. May only be called by the consumer.
+     *
+     * @return the dequeued element
+     * @throws IllegalStateException if the queue is empty
+     */
+    public T dequeue() {
+        T item = poll();
+        if (item == null) {
+            throw new IllegalStateException("Queue is empty.");
+        }
+        return item;
+    }
+
+    /**
+     * Dequeues an element if there is one. May only be called by the consumer.
+     *
+     * @return the dequeued element, or {@code null} if the queue is empty
+     */
+    @SuppressWarnings("unchecked")
+    public T poll() {
+        long h = head;
+        if (h >= tailCache) {
+            tailCache = (long) TAIL.getAcquire(this);
+            if (h >= tailCache) {
+                return null;
+            }
+        }
+        int index = (int) h & mask;
+        T item = (T) queueArray[index];
+        queueArray[index] = null;
+        HEAD.setRelease(this, h + 1);
+        return item;
+    }
+
+    /**
+     * Attempts to retrieve the top element from the queue. May only be called by the consumer.
+     *
+     * @return the top element of the queue
+     * @throws IllegalStateException if the queue is empty
+     */
+    @SuppressWarnings("unchecked")
+    public T peek() {
+        long h = head;
+        if (h >= tailCache) {
+            tailCache = (long) TAIL.getAcquire(this);
+            if (h >= tailCache) {
+                throw new IllegalStateException("Queue is empty.");
+            }
+        }
+        return (T) queueArray[(int) h & mask];
+    }
+
+    /**
+     * Clears all elements from the queue. May only be called by the consumer.
+     */
+    public void clear() {
+        while (poll() != null) {
+            // Discard the element
+        }
+    }
+
+    /**
+     * Returns the number of elements in the queue at some moment during the call.
+     *
+     * @return the number of elements in the queue
+     */
+    public int size() {
+        long h = (long) HEAD.getAcquire(this);
+        long t = (long) TAIL.getAcquire(this);
+        return (int) Math.max(0, Math.min(capacity, t - h));
+    }
+
+    /**
+     * Returns the maximum number of elements the queue can hold.
+     *
+     * @return the capacity of the queue
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Checks if the queue is full.
+     *
+     * @return {@code true} if the queue is full, {@code false} otherwise
+     */
+    public boolean isFull() {
+        return size() == capacity;
+    }
+
+    /**
+     * Checks if the queue is empty.
+     *
+     * @return {@code true} if the queue is empty, {@code false} otherwise
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+}
+
+/**
+ * Padding that keeps the producer's fields off the cache line of whatever precedes the
+ * queue in memory. Superclass fields are laid out before subclass fields, so padding
+ * declared in a chain of superclasses cannot be reordered around the fields it protects.
+ */
+abstract class SpscPadTail {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+    long p08, p09, p0a, p0b, p0c, p0d, p0e, p0f;
+}
+
+/**
+ * The producer's fields: the tail counter, written only by the producer, and its cached
+ * copy of the head counter.
+ */
+abstract class SpscTail extends SpscPadTail {
+    long tail;
+    long headCache;
+}
+
+/**
+ * Padding between the producer's and the consumer's fields.
+ */
+abstract class SpscPadMiddle extends SpscTail {
+    long p10, p11, p12, p13, p14, p15, p16, p17;
+    long p18, p19, p1a, p1b, p1c, p1d, p1e, p1f;
+}
+
+/**
+ * The consumer's fields: the head counter, written only by the consumer, and its cached
+ * copy of the tail counter.
+ */
+abstract class SpscHead extends SpscPadMiddle {
+    long head;
+    long tailCache;
+}
+
+/**
+ * Padding that keeps the consumer's fields off the cache line of the queue's own fields
+ * and whatever follows the queue in memory.
+ */
+abstract class SpscPadHead extends SpscHead {
+    long p20, p21, p22, p23, p24, p25, p26, p27;
+    long p28, p29, p2a, p2b, p2c, p2d, p2e, p2f;
+}
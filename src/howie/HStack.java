@@ -1,5 +1,7 @@
 package howie;
 
+import java.util.Arrays;
+
 /**
  * The {@code HStack} class represents a stack data structure that allows
  * pushing and popping of elements using Last-In-First-Out (LIFO) logic.
@@ -12,6 +14,8 @@ public final class HStack<T> {
     private final Object[] stackArray;
     private final int capacity;
     private int topPtr;
+    private HMetrics metrics;
+    private long[] pushTimes;
 
     /**
      * Constructs a new {@code HStack} with the specified capacity.
@@ -36,13 +40,97 @@ public final class HStack<T> {
      * @throws IllegalStateException if the stack is full
      */
     public void push(T item) {
+        if (!tryPush(item)) {
+            throw new IllegalStateException("Stack is full.");
+        }
+    }
+
+    /**
+     * Pushes an item onto the stack if there is room for it. Unlike {@link #push(Object)},
+     * a full stack is reported through the return value, so no exception is constructed.
+     *
+     * @param item the object to push
+     * @return {@code true} if the item was pushed, {@code false} if the stack is full
+     * @throws IllegalArgumentException if the specified object is null
+     */
+    public boolean tryPush(T item) {
         if (item == null) {
             throw new IllegalArgumentException("Object cannot be null.");
         }
         if (isFull()) {
-            throw new IllegalStateException("Stack is full.");
+            if (metrics != null) {
+                metrics.rejectedFull();
+            }
+            return false;
         }
         stackArray[++topPtr] = item;
+        if (metrics != null) {
+            recordPushed(1);
+        }
+        return true;
+    }
+
+    /**
+     * Pushes every object in the range {@code [from, to)} of an array, in order, so that
+     * {@code items[to - 1]} ends up on top. Either every object is pushed or, if any is null
+     * or there is not enough room for all of them, none is. The objects are copied with a
+     * single {@link System#arraycopy} call.
+     *
+     * @param items the array of objects to push
+     * @param from the starting index (inclusive) of the range to push
+     * @param to the ending index (exclusive) of the range to push
+     * @throws IllegalArgumentException if the array or any object in the range is null, the
+     * indices are not within the bounds of the array, or the start index is greater than
+     * the end index
+     * @throws IllegalStateException if the stack does not have room for every object
+     */
+    public void pushAll(T[] items, int from, int to) {
+        if (items == null) {
+            throw new IllegalArgumentException("Input array cannot be null.");
+        }
+        HArray.checkRange(items.length, from, to);
+        for (int i = from; i < to; i++) {
+            if (items[i] == null) {
+                throw new IllegalArgumentException("Object cannot be null.");
+            }
+        }
+        int n = to - from;
+        if (n > capacity - 1 - topPtr) {
+            if (metrics != null) {
+                metrics.rejectedFull();
+            }
+            throw new IllegalStateException("Stack does not have room for every object.");
+        }
+        System.arraycopy(items, from, stackArray, topPtr + 1, n);
+        topPtr += n;
+        if (metrics != null) {
+            recordPushed(n);
+        }
+    }
+
+    /**
+     * Pops as many items as fit into an array. The items keep the order they have on the
+     * stack, with the former top item last, so passing the same range to
+     * {@link #pushAll(Object[], int, int)} restores the stack. The items are moved with a
+     * single {@link System#arraycopy} call.
+     *
+     * @param dst the array that receives the popped items, starting at index 0
+     * @return the number of items popped
+     * @throws IllegalArgumentException if the array is null
+     */
+    public int popInto(T[] dst) {
+        if (dst == null) {
+            throw new IllegalArgumentException("Output array cannot be null.");
+        }
+        int n = Math.min(topPtr + 1, dst.length);
+        int from = topPtr + 1 - n;
+        System.arraycopy(stackArray, from, dst, 0, n);
+        Arrays.fill(stackArray, from, topPtr + 1, null);
+        topPtr -= n;
+        if (metrics != null) {
+            recordPopped(n);
+        }
+        return n;
     }
 
     /**
@@ -51,13 +139,33 @@ public final class HStack<T> {
      * @return the popped item
      * @throws IllegalStateException if the queue is empty
      */
-    @SuppressWarnings("unchecked")
     public T pop() {
-        if (isEmpty()) {
+        T item = tryPop();
+        if (item == null) {
             throw new IllegalStateException("Stack is empty.");
         }
+        return item;
+    }
+
+    /**
+     * Pops an item from the stack if there is one. Unlike {@link #pop()}, an empty stack is
+     * reported through the return value, so no exception is constructed.
+     *
+     * @return the popped item, or {@code null} if the stack is empty
+     */
+    @SuppressWarnings("unchecked")
+    public T tryPop() {
+        if (isEmpty()) {
+            if (metrics != null) {
+                metrics.rejectedEmpty();
+            }
+            return null;
+        }
         T item = (T) stackArray[topPtr];
         stackArray[topPtr--] = null;
+        if (metrics != null) {
+            recordPopped(1);
+        }
         return item;
     }
 
@@ -75,14 +183,58 @@ public final class HStack<T> {
         return (T) stackArray[topPtr];
     }
 
+    /**
+     * Retrieves the top element from the stack if there is one.
+     *
+     * @return the top element of the stack, or {@code null} if the stack is empty
+     */
+    @SuppressWarnings("unchecked")
+    public T peekOrNull() {
+        return isEmpty() ? null : (T) stackArray[topPtr];
+    }
+
     /**
      * Clears all elements from the stack.
      */
     public void clear() {
-        while (!isEmpty()) {
-            pop();
+        Arrays.fill(stackArray, 0, topPtr + 1, null);
+        topPtr = -1;
+        if (metrics != null) {
+            metrics.sizeChanged(0);
+        }
+    }
+
+    /**
+     * Attaches metrics that record how the stack is used from now on, or detaches them.
+     * Elements already on the stack are timed from the moment the metrics are attached.
+     * Attaching allocates an array of push times as long as the stack's capacity; while no
+     * metrics are attached, the stack records nothing.
+     *
+     * @param metrics the metrics to record to, or {@code null} to stop recording
+     */
+    public void setMetrics(HMetrics metrics) {
+        if (metrics == null) {
+            this.metrics = null;
+            this.pushTimes = null;
+            return;
+        }
+        if (pushTimes == null) {
+            pushTimes = new long[capacity];
+            Arrays.fill(pushTimes, System.nanoTime());
         }
+        this.metrics = metrics;
+        metrics.sizeChanged(topPtr + 1);
     }
+
+    /**
+     * Returns the metrics attached to the stack.
+     *
+     * @return the attached metrics, or {@code null} if there are none
+     */
+    public HMetrics getMetrics() {
+        return metrics;
+    }
+
     /**
      * Checks if the stack is full.
      *
@@ -101,4 +253,25 @@ public final class HStack<T> {
         return topPtr == -1;
     }
 
+    /**
+     * Stamps the push time of the {@code n} elements at the top of the stack and reports
+     * them to the metrics.
+     */
+    private void recordPushed(int n) {
+        Arrays.fill(pushTimes, topPtr + 1 - n, topPtr + 1, System.nanoTime());
+        metrics.enqueued(n, topPtr + 1);
+    }
+
+    /**
+     * Reports the {@code n} elements just popped from above the top of the stack, and the
+     * time each spent on it, to the metrics.
+     */
+    private void recordPopped(int n) {
+        long now = System.nanoTime();
+        for (int i = topPtr + 1; i <= topPtr + n; i++) {
+            metrics.waited(now - pushTimes[i]);
+        }
+        metrics.dequeued(n, topPtr + 1);
+    }
+
 }
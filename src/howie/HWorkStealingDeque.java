@@ -0,0 +1,233 @@
+package howie;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * The {@code HWorkStealingDeque} class is an unbounded, lock-free double-ended queue owned by
+ * one thread. The owner pushes and pops at the bottom, Last-In-First-Out (LIFO) like
+ * {@link HStack}, while any other thread may steal from the top, First-In-First-Out (FIFO)
+ * like {@link HQueue}. It is the per-worker deque of a work-stealing scheduler such as
+ * {@link HWorkStealingExecutor}.
+ *
+ * <p>This is the dynamic circular deque of Chase and Lev, with the memory ordering of Le et
+ * al. The owner is the only thread that writes the bottom index, and claims elements with a
+ * plain store except when it takes the last element, which it may race a thief for. Thieves
+ * claim elements by incrementing the top index with a compare-and-set. The backing array
+ * has a power-of-two length and doubles when the owner pushes onto a full array; it never
+ * shrinks.
+ *
+ * <p>{@link #push} and {@link #pop} may only be called by the owner. {@link #steal},
+ * {@link #size} and {@link #isEmpty} may be called from any thread, but the latter two only
+ * return a snapshot. Because the deque is meant for schedulers that poll it, {@code pop} and
+ * {@code steal} return {@code null} rather than throw when there is nothing to take. A
+ * stolen element stays referenced by the array until the owner overwrites its slot.
+ *
+ * @param <T> the type of objects held in the deque
+ * @author Howie Hertzberg
+ */
+public final class HWorkStealingDeque<T> extends WsdPadBottom {
+
+    private static final VarHandle TOP;
+    private static final VarHandle BOTTOM;
+    private static final VarHandle SLOT = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            TOP = lookup.findVarHandle(WsdTop.class, "top", long.class);
+            BOTTOM = lookup.findVarHandle(WsdBottom.class, "bottom", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * The length of the backing array when none is specified.
+     */
+    public static final int DEFAULT_INITIAL_CAPACITY = 64;
+
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    private volatile Object[] array;
+
+    /**
+     * Constructs a new, empty {@code HWorkStealingDeque} with the default initial capacity.
+     */
+    public HWorkStealingDeque() {
+        this(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    /**
+     * Constructs a new, empty {@code HWorkStealingDeque} whose backing array initially has
+     * room for at least the specified number of elements.
+     *
+     * @param initialCapacity the initial capacity of the deque
+     * @throws IllegalArgumentException if the specified capacity is not positive or is
+     * greater than {@code 1 << 30}
+     */
+    public HWorkStealingDeque(int initialCapacity) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("Deque capacity must be positive.");
+        }
+        if (initialCapacity > MAXIMUM_CAPACITY) {
+            throw new IllegalArgumentException("Deque capacity cannot be greater than 2^30.");
+        }
+        int length = Integer.highestOneBit(initialCapacity);
+        if (length < initialCapacity) {
+            length <<= 1;
+        }
+        this.array = new Object[length];
+    }
+
+    /**
+     * Pushes an object onto the bottom of the deque. May only be called by the owner.
+     *
+     * @param item the object to push
+     * @throws IllegalArgumentException if the specified object is null
+     * @throws IllegalStateException if the deque already holds {@code 1 << 30} elements
+     */
+    public void push(T item) {
+        if (item == null) {
+            throw new IllegalArgumentException("Object cannot be null.");
+        }
+        long b = bottom;
+        long t = (long) TOP.getAcquire(this);
+        Object[] a = array;
+        if (b - t > a.length - 1) {
+            a = grow(a, t, b);
+        }
+        SLOT.setRelease(a, (int) b & (a.length - 1), item);
+        BOTTOM.setRelease(this, b + 1);
+    }
+
+    /**
+     * Pops the object at the bottom of the deque, the one pushed most recently. May only be
+     * called by the owner.
+     *
+     * @return the popped object, or {@code null} if the deque is empty
+     */
+    @SuppressWarnings("unchecked")
+    public T pop() {
+        long b = bottom - 1;
+        Object[] a = array;
+        BOTTOM.setVolatile(this, b);
+        long t = top;
+        if (t > b) {
+            // Empty: restore the bottom
+            BOTTOM.setOpaque(this, b + 1);
+            return null;
+        }
+        int index = (int) b & (a.length - 1);
+        T item = (T) SLOT.getAcquire(a, index);
+        if (t == b) {
+            // The last element: race any thieves for it
+            boolean won = TOP.compareAndSet(this, t, t + 1);
+            BOTTOM.setOpaque(this, b + 1);
+            return won ? item : null;
+        }
+        SLOT.setOpaque(a, index, null);
+        return item;
+    }
+
+    /**
+     * Steals the object at the top of the deque, the oldest one. May be called by any
+     * thread; if another thread takes the same object first, the steal is retried.
+     *
+     * @return the stolen object, or {@code null} if the deque is empty
+     */
+    @SuppressWarnings("unchecked")
+    public T steal() {
+        while (true) {
+            long t = (long) TOP.getAcquire(this);
+            VarHandle.fullFence();
+            long b = (long) BOTTOM.getAcquire(this);
+            if (t >= b) {
+                return null;
+            }
+            Object[] a = array;
+            T item = (T) SLOT.getAcquire(a, (int) t & (a.length - 1));
+            if (TOP.compareAndSet(this, t, t + 1)) {
+                return item;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Returns the number of elements in the deque at some moment during the call.
+     *
+     * @return the number of elements in the deque
+     */
+    public int size() {
+        long t = (long) TOP.getAcquire(this);
+        long b = (long) BOTTOM.getAcquire(this);
+        return (int) Math.max(0, b - t);
+    }
+
+    /**
+     * Checks if the deque is empty.
+     *
+     * @return {@code true} if the deque is empty, {@code false} otherwise
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Copies the elements in {@code [t, b)} into an array of twice the length and publishes
+     * it. Thieves that still hold the old array read the same elements from it.
+     */
+    private Object[] grow(Object[] a, long t, long b) {
+        if (a.length == MAXIMUM_CAPACITY) {
+            throw new IllegalStateException("Deque is full.");
+        }
+        Object[] grown = new Object[a.length << 1];
+        for (long i = t; i < b; i++) {
+            grown[(int) i & (grown.length - 1)] = a[(int) i & (a.length - 1)];
+        }
+        array = grown;
+        return grown;
+    }
+
+}
+
+/**
+ * Padding that keeps the thieves' field off the cache line of whatever precedes the deque
+ * in memory, laid out by a superclass chain as explained at {@link SpscPadTail}.
+ */
+abstract class WsdPadTop {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+    long p08, p09, p0a, p0b, p0c, p0d, p0e, p0f;
+}
+
+/**
+ * The top index, advanced by thieves and by the owner when it takes the last element.
+ */
+abstract class WsdTop extends WsdPadTop {
+    volatile long top;
+}
+
+/**
+ * Padding between the top and the bottom index.
+ */
+abstract class WsdPadMiddle extends WsdTop {
+    long p10, p11, p12, p13, p14, p15, p16, p17;
+    long p18, p19, p1a, p1b, p1c, p1d, p1e, p1f;
+}
+
+/**
+ * The bottom index, written only by the owner.
+ */
+abstract class WsdBottom extends WsdPadMiddle {
+    volatile long bottom;
+}
+
+/**
+ * Padding that keeps the bottom index off the cache line of the deque's own fields and
+ * whatever follows the deque in memory.
+ */
+abstract class WsdPadBottom extends WsdBottom {
+    long p20, p21, p22, p23, p24, p25, p26, p27;
+    long p28, p29, p2a, p2b, p2c, p2d, p2e, p2f;
+}
@@ -0,0 +1,402 @@
+package howie;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The {@code HWorkStealingExecutor} class is a small fork/join executor built on
+ * {@link HWorkStealingDeque}. It runs recursive divide-and-conquer {@link Task}s on a fixed
+ * number of worker threads.
+ *
+ * <p>Each worker owns a deque. A task forked by a worker is pushed onto the bottom of that
+ * worker's deque, and a worker looking for work pops from the bottom of its own deque
+ * first, so it keeps working on the most recently split, smallest and cache-warmest piece.
+ * Only when its own deque is empty does it steal from the top of another worker's deque,
+ * where the oldest and largest pieces are. A worker waiting in {@link Task#join} runs other
+ * tasks until the one it waits for is done, so joining never blocks a worker.
+ *
+ * <p>For example, summing an array:
+ * <pre>{@code
+ * class Sum extends HWorkStealingExecutor.Task<Long> {
+ *     final int[] arr; final int from, to;
+ *     Sum(int[] arr, int from, int to) { this.arr = arr; this.from = from; this.to = to; }
+ *     protected Long compute() {
+ *         if (to - from <= 10_000) {
+ *             long sum = 0;
+ *             for (int i = from; i < to; i++) sum += arr[i];
+ *             return sum;
+ *         }
+ *         int mid = (from + to) >>> 1;
+ *         Sum left = new Sum(arr, from, mid);
+ *         left.fork();
+ *         return new Sum(arr, mid, to).compute() + left.join();
+ *     }
+ * }
+ * try (HWorkStealingExecutor executor = new HWorkStealingExecutor(4)) {
+ *     long sum = executor.invoke(new Sum(arr, 0, arr.length));
+ * }
+ * }</pre>
+ *
+ * @author Howie Hertzberg
+ */
+public final class HWorkStealingExecutor implements AutoCloseable {
+
+    /**
+     * The number of empty scans a worker makes before it starts parking between scans.
+     */
+    private static final int SPINS_BEFORE_PARK = 64;
+
+    /**
+     * How long an idle worker parks between scans, in nanoseconds.
+     */
+    private static final long PARK_NANOS = 50_000L;
+
+    private final Worker[] workers;
+    private final ConcurrentLinkedQueue<Task<?>> submissions = new ConcurrentLinkedQueue<>();
+    private volatile boolean shutdown;
+
+    /**
+     * Constructs a new {@code HWorkStealingExecutor} with one worker per available
+     * processor.
+     */
+    public HWorkStealingExecutor() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a new {@code HWorkStealingExecutor} and starts its worker threads. The
+     * workers are daemon threads, but should still be stopped with {@link #close()}.
+     *
+     * @param parallelism the number of worker threads
+     * @throws IllegalArgumentException if the specified parallelism is not positive
+     */
+    public HWorkStealingExecutor(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive.");
+        }
+        this.workers = new Worker[parallelism];
+        for (int i = 0; i < parallelism; i++) {
+            workers[i] = new Worker(this, i);
+        }
+        for (Worker worker : workers) {
+            worker.start();
+        }
+    }
+
+    /**
+     * Runs a task on this executor and waits for its result. When called from one of this
+     * executor's workers, the task is run directly.
+     *
+     * @param <V> the type of the task's result
+     * @param task the task to run
+     * @return the result of the task
+     * @throws IllegalArgumentException if the task is null
+     * @throws IllegalStateException if the executor has been shut down
+     * @throws RuntimeException if the task threw one, rethrown as is
+     */
+    public <V> V invoke(Task<V> task) {
+        if (task == null) {
+            throw new IllegalArgumentException("Task cannot be null.");
+        }
+        if (shutdown) {
+            throw new IllegalStateException("Executor has been shut down.");
+        }
+        Thread current = Thread.currentThread();
+        if (current instanceof Worker && ((Worker) current).executor == this) {
+            task.run();
+            return task.join();
+        }
+        submissions.add(task);
+        if (shutdown) {
+            // Closed while submitting: no worker may be left to take the task
+            abandonSubmissions();
+        }
+        for (Worker worker : workers) {
+            LockSupport.unpark(worker);
+        }
+        return task.join();
+    }
+
+    /**
+     * Returns the number of worker threads.
+     *
+     * @return the parallelism of the executor
+     */
+    public int parallelism() {
+        return workers.length;
+    }
+
+    /**
+     * Stops the worker threads once they finish the task they are running. Submitted tasks
+     * that no worker has started are abandoned: they complete by throwing an
+     * {@link IllegalStateException}, which is what any {@link #invoke(Task)} or
+     * {@link Task#join()} waiting for them throws.
+     */
+    @Override
+    public void close() {
+        shutdown = true;
+        for (Worker worker : workers) {
+            LockSupport.unpark(worker);
+        }
+        abandonSubmissions();
+    }
+
+    /**
+     * Completes every submitted task that no worker has taken by throwing an
+     * {@link IllegalStateException}.
+     */
+    private void abandonSubmissions() {
+        Task<?> task;
+        while ((task = submissions.poll()) != null) {
+            task.abandon(new IllegalStateException("Executor has been shut down."));
+        }
+    }
+
+    /**
+     * Finds a task for a worker to run: from its own deque, then the submission queue, then
+     * by stealing from the other workers starting at a random one.
+     *
+     * @return a task, or {@code null} if there is none
+     */
+    private Task<?> findTask(Worker worker) {
+        Task<?> task = worker.deque.pop();
+        if (task != null) {
+            return task;
+        }
+        task = submissions.poll();
+        if (task != null) {
+            return task;
+        }
+        int n = workers.length;
+        int start = ThreadLocalRandom.current().nextInt(n);
+        for (int i = 0; i < n; i++) {
+            Worker victim = workers[(start + i) % n];
+            if (victim != worker) {
+                task = victim.deque.steal();
+                if (task != null) {
+                    return task;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * A worker thread and the deque it owns.
+     */
+    private static final class Worker extends Thread {
+        final HWorkStealingExecutor executor;
+        final HWorkStealingDeque<Task<?>> deque = new HWorkStealingDeque<>();
+
+        Worker(HWorkStealingExecutor executor, int index) {
+            super("HWorkStealingExecutor-worker-" + index);
+            this.executor = executor;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            int idle = 0;
+            while (!executor.shutdown) {
+                Task<?> task = executor.findTask(this);
+                if (task != null) {
+                    task.run();
+                    idle = 0;
+                } else if (++idle < SPINS_BEFORE_PARK) {
+                    Thread.yield();
+                } else {
+                    LockSupport.parkNanos(this, PARK_NANOS);
+                }
+            }
+        }
+    }
+
+    /**
+     * A unit of work that may split itself into subtasks. Subclasses implement
+     * {@link #compute()}, and within it {@link #fork()} the subtasks they want run in
+     * parallel and {@link #join()} them for their results.
+     *
+     * <p>Each task runs at most once; it may not be forked or invoked again.
+     *
+     * @param <V> the type of the task's result
+     */
+    public abstract static class Task<V> {
+
+        private static final VarHandle WAITERS;
+
+        static {
+            try {
+                WAITERS = MethodHandles.lookup().findVarHandle(Task.class, "waiters", Waiter.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        /**
+         * Marks the waiter list of a completed task, so that late joiners do not park.
+         */
+        private static final Waiter COMPLETED = new Waiter(null, null);
+
+        private V result;
+        private RuntimeException exception;
+        private Error error;
+        private volatile boolean done;
+
+        // Threads other than workers parked in join, as a stack
+        private volatile Waiter waiters;
+
+        /**
+         * Computes the result of the task, forking and joining subtasks as needed.
+         *
+         * @return the result of the task
+         */
+        protected abstract V compute();
+
+        /**
+         * Schedules this task to run on the current worker's deque, where idle workers may
+         * steal it. May only be called from a task running on an executor.
+         *
+         * @return this task
+         * @throws IllegalStateException if the current thread is not an executor's worker
+         */
+        public final Task<V> fork() {
+            Thread current = Thread.currentThread();
+            if (!(current instanceof Worker)) {
+                throw new IllegalStateException("Tasks can only be forked from inside an executor.");
+            }
+            ((Worker) current).deque.push(this);
+            return this;
+        }
+
+        /**
+         * Waits for this task to complete and returns its result. A worker runs other tasks
+         * while it waits; any other thread blocks.
+         *
+         * @return the result of the task
+         * @throws RuntimeException if the task threw one, rethrown as is
+         */
+        public final V join() {
+            if (!done) {
+                Thread current = Thread.currentThread();
+                if (current instanceof Worker) {
+                    helpUntilDone((Worker) current);
+                } else {
+                    awaitDone(current);
+                }
+            }
+            if (exception != null) {
+                throw exception;
+            }
+            if (error != null) {
+                throw error;
+            }
+            return result;
+        }
+
+        /**
+         * Checks if the task has completed, normally or by throwing.
+         *
+         * @return {@code true} if the task has completed, {@code false} otherwise
+         */
+        public final boolean isDone() {
+            return done;
+        }
+
+        /**
+         * Runs other tasks on a worker until this one is done. Popping from the worker's own
+         * deque usually yields this very task, if no other worker has stolen it.
+         */
+        private void helpUntilDone(Worker worker) {
+            int idle = 0;
+            while (!done) {
+                Task<?> task = worker.executor.findTask(worker);
+                if (task != null) {
+                    task.run();
+                    idle = 0;
+                } else if (++idle < SPINS_BEFORE_PARK) {
+                    Thread.onSpinWait();
+                } else {
+                    Thread.yield();
+                }
+            }
+        }
+
+        /**
+         * Parks a thread other than a worker until this task is done. Interrupts do not end
+         * the wait, but are restored before returning.
+         */
+        private void awaitDone(Thread current) {
+            Waiter node = null;
+            boolean interrupted = false;
+            while (!done) {
+                Waiter head = waiters;
+                if (head == COMPLETED) {
+                    break;
+                }
+                if (node == null || node.next != head) {
+                    node = new Waiter(current, head);
+                }
+                if (WAITERS.compareAndSet(this, head, node)) {
+                    // Registered: completion now unparks this thread
+                    while (!done) {
+                        LockSupport.park(this);
+                        interrupted |= Thread.interrupted();
+                    }
+                }
+            }
+            if (interrupted) {
+                current.interrupt();
+            }
+        }
+
+        /**
+         * Computes the task and publishes its outcome.
+         */
+        final void run() {
+            try {
+                result = compute();
+            } catch (RuntimeException e) {
+                exception = e;
+            } catch (Error e) {
+                error = e;
+            }
+            complete();
+        }
+
+        /**
+         * Completes a task that will never run by throwing the specified exception.
+         */
+        final void abandon(RuntimeException e) {
+            exception = e;
+            complete();
+        }
+
+        /**
+         * Marks the task done and wakes every thread parked in {@link #join()}.
+         */
+        private void complete() {
+            done = true;
+            Waiter w = (Waiter) WAITERS.getAndSet(this, COMPLETED);
+            for (; w != null && w != COMPLETED; w = w.next) {
+                LockSupport.unpark(w.thread);
+            }
+        }
+
+        /**
+         * A thread parked in {@link #join()}.
+         */
+        private static final class Waiter {
+            final Thread thread;
+            final Waiter next;
+
+            Waiter(Thread thread, Waiter next) {
+                this.thread = thread;
+                this.next = next;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,169 @@
+package howie;
+
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Checks that the double operations of {@link HArray} and {@link HMath} agree on the order of
+ * {@link Double#compare}, in which {@code -0.0} sorts before {@code 0.0} and {@code NaN}
+ * sorts after every other value.
+ *
+ * <p>Run with {@code java -ea howie.HArrayDoubleOrderTest}.
+ *
+ * @author Howie Hertzberg
+ */
+public class HArrayDoubleOrderTest {
+
+    private static final double[] SPECIALS = {
+        Double.NaN, -0.0, 0.0, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, 1.0, -1.0
+    };
+
+    public static void main(String[] args) {
+        topKMatchesSort();
+        topKAgreesWithSelect();
+        mergeSortsMatchArraysSort();
+        setOperationsAcceptSortedInput();
+        mergesMatchArraysSort();
+        System.out.println("HArrayDoubleOrderTest passed.");
+    }
+
+    /**
+     * topK returns the greatest elements in descending {@code Double.compare} order.
+     */
+    private static void topKMatchesSort() {
+        check(Arrays.equals(HArray.topK(new double[] {1, Double.NaN, 5, 6}, 2), new double[] {Double.NaN, 6}),
+                "NaN after a small element is the greatest");
+        check(Arrays.equals(HArray.topK(new double[] {Double.NaN, 1, 5, 6}, 2), new double[] {Double.NaN, 6}),
+                "NaN first is the greatest");
+        check(Arrays.equals(HArray.topK(new double[] {-0.0, 0.0, -1}, 1), new double[] {0.0}),
+                "0.0 is greater than -0.0");
+        check(Arrays.equals(HArray.topK(new double[] {0.0, -0.0, -1}, 2), new double[] {0.0, -0.0}),
+                "-0.0 follows 0.0");
+
+        Random random = new Random(9);
+        for (int round = 0; round < 500; round++) {
+            double[] arr = randomArray(random, random.nextInt(40));
+            int k = random.nextInt(arr.length + 1);
+            double[] sorted = arr.clone();
+            Arrays.sort(sorted);
+            double[] expected = new double[k];
+            for (int i = 0; i < k; i++) {
+                expected[i] = sorted[sorted.length - 1 - i];
+            }
+            check(Arrays.equals(HArray.topK(arr, k), expected), "topK " + k + " of " + Arrays.toString(arr));
+        }
+    }
+
+    /**
+     * The k-th greatest element from topK is the element select places at its index, and
+     * the median is taken from the same order.
+     */
+    private static void topKAgreesWithSelect() {
+        Random random = new Random(10);
+        for (int round = 0; round < 500; round++) {
+            double[] arr = randomArray(random, 1 + random.nextInt(40));
+            int k = 1 + random.nextInt(arr.length);
+            double[] top = HArray.topK(arr, k);
+            double selected = HArray.select(arr.clone(), arr.length - k);
+            check(Double.compare(top[k - 1], selected) == 0,
+                    "topK and select agree for k = " + k + " of " + Arrays.toString(arr));
+
+            double[] sorted = arr.clone();
+            Arrays.sort(sorted);
+            int n = sorted.length;
+            double lower = sorted[(n - 1) / 2];
+            double median = n % 2 == 1 ? lower : lower + 0.5 * (sorted[n / 2] - lower);
+            check(Double.compare(HMath.median(arr.clone()), median) == 0, "median of " + Arrays.toString(arr));
+        }
+    }
+
+    /**
+     * The sequential and parallel merge sorts leave doubles in the order of
+     * {@code Arrays.sort}, including -0.0 and NaN.
+     */
+    private static void mergeSortsMatchArraysSort() {
+        check(Arrays.equals(HArray.mergeSort(new double[] {0.0, -0.0, 1}), new double[] {-0.0, 0.0, 1}),
+                "-0.0 sorts before 0.0");
+        Random random = new Random(11);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int round = 0; round < 300; round++) {
+                double[] arr = randomArray(random, random.nextInt(round < 200 ? 80 : 5000));
+                double[] expected = arr.clone();
+                Arrays.sort(expected);
+                check(Arrays.equals(HArray.mergeSort(arr.clone()), expected), "mergeSort of " + arr.length);
+                check(Arrays.equals(HArray.parallelMergeSort(arr.clone(), 64, pool), expected),
+                        "parallelMergeSort of " + arr.length);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * The set operations accept the output of mergeSort, matching -0.0 and NaN exactly.
+     */
+    private static void setOperationsAcceptSortedInput() {
+        double[] sorted = HArray.mergeSort(new double[] {0.0, -0.0, 1, Double.NaN});
+        double[] out = new double[1];
+        check(HArray.intersect(sorted, new double[] {-0.0}, out) == 1 && Double.compare(out[0], -0.0) == 0,
+                "-0.0 is found in sorted input");
+        check(HArray.intersect(sorted, new double[] {Double.NaN}, out) == 1 && Double.isNaN(out[0]),
+                "NaN is found in sorted input");
+    }
+
+    /**
+     * Merging sorted arrays, eagerly or through iterators, gives the order of sorting their
+     * concatenation.
+     */
+    private static void mergesMatchArraysSort() {
+        check(Arrays.equals(HArray.mergeAll(new double[][] {{1, Double.NaN}, {0, 2}}), new double[] {0, 1, 2, Double.NaN}),
+                "NaN merges last");
+        Random random = new Random(12);
+        for (int round = 0; round < 300; round++) {
+            double[][] sources = new double[1 + random.nextInt(6)][];
+            PrimitiveIterator.OfDouble[] iterators = new PrimitiveIterator.OfDouble[sources.length];
+            double[] all = new double[0];
+            for (int s = 0; s < sources.length; s++) {
+                sources[s] = randomArray(random, random.nextInt(20));
+                Arrays.sort(sources[s]);
+                iterators[s] = Arrays.stream(sources[s]).iterator();
+                double[] grown = Arrays.copyOf(all, all.length + sources[s].length);
+                System.arraycopy(sources[s], 0, grown, all.length, sources[s].length);
+                all = grown;
+            }
+            Arrays.sort(all);
+            check(Arrays.equals(HArray.mergeAll(sources), all), "mergeAll of " + sources.length + " sources");
+            double[] lazy = new double[all.length];
+            PrimitiveIterator.OfDouble merged = HArray.mergeIterators(iterators);
+            for (int i = 0; i < lazy.length; i++) {
+                lazy[i] = merged.nextDouble();
+            }
+            check(!merged.hasNext() && Arrays.equals(lazy, all), "mergeIterators of " + sources.length + " sources");
+            if (sources.length >= 2) {
+                double[] pair = new double[sources[0].length + sources[1].length];
+                System.arraycopy(sources[0], 0, pair, 0, sources[0].length);
+                System.arraycopy(sources[1], 0, pair, sources[0].length, sources[1].length);
+                Arrays.sort(pair);
+                check(Arrays.equals(HArray.merge(sources[0], sources[1]), pair), "merge of two sources");
+            }
+        }
+    }
+
+    private static double[] randomArray(Random random, int length) {
+        double[] arr = new double[length];
+        for (int i = 0; i < length; i++) {
+            arr[i] = random.nextInt(3) == 0 ? SPECIALS[random.nextInt(SPECIALS.length)] : random.nextInt(7) - 3;
+        }
+        return arr;
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+}
@@ -0,0 +1,159 @@
+package howie;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Capacity and stress tests for {@link HBlockingQueue}.
+ *
+ * <p>Run with {@code java -ea howie.HBlockingQueueTest}.
+ *
+ * @author Howie Hertzberg
+ */
+public class HBlockingQueueTest {
+
+    private static final int[] CAPACITIES = {1, 2, 3, 64, 100};
+
+    public static void main(String[] args) throws Exception {
+        for (int capacity : CAPACITIES) {
+            boundIsExact(capacity);
+            concurrentProducersRespectBound(capacity);
+            everyElementArrivesOnce(capacity, 8, 8, 200_000);
+        }
+        removeIsUnsupported();
+        System.out.println("HBlockingQueueTest passed.");
+    }
+
+    /**
+     * A queue accepts exactly as many elements as its capacity, whatever the ring size.
+     */
+    private static void boundIsExact(int capacity) throws Exception {
+        HBlockingQueue<Integer> queue = new HBlockingQueue<>(capacity);
+        check(queue.capacity() == capacity, "capacity() reports the requested bound");
+        for (int i = 0; i < capacity; i++) {
+            check(queue.remainingCapacity() == capacity - i, "remainingCapacity() before offer " + i);
+            check(queue.offer(i), "offer " + i + " of " + capacity + " accepted");
+        }
+        check(!queue.offer(-1), "offer beyond capacity " + capacity + " rejected");
+        check(!queue.offer(-1, 10, TimeUnit.MILLISECONDS), "timed offer beyond capacity rejected");
+        check(queue.remainingCapacity() == 0, "no capacity remains");
+        check(queue.size() == capacity, "size() equals the capacity");
+
+        // Wrap around the ring several times, staying at the bound
+        for (int i = 0; i < 10 * capacity; i++) {
+            check(queue.poll() != null, "poll after wrap " + i);
+            check(queue.offer(i), "offer after poll " + i);
+            check(!queue.offer(-1), "offer beyond capacity after wrap " + i);
+        }
+    }
+
+    /**
+     * Producers racing to fill an empty queue together insert exactly its capacity.
+     */
+    private static void concurrentProducersRespectBound(int capacity) throws Exception {
+        for (int round = 0; round < 50; round++) {
+            HBlockingQueue<Integer> queue = new HBlockingQueue<>(capacity);
+            AtomicInteger accepted = new AtomicInteger();
+            CountDownLatch start = new CountDownLatch(1);
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                threads.add(start(() -> {
+                    await(start);
+                    for (int i = 0; i < capacity; i++) {
+                        if (queue.offer(i)) {
+                            accepted.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            start.countDown();
+            join(threads);
+            check(accepted.get() == capacity, "producers inserted " + accepted.get() + " into a queue of "
+                    + capacity);
+        }
+    }
+
+    /**
+     * Many producers and consumers using the blocking operations move every element exactly
+     * once.
+     */
+    private static void everyElementArrivesOnce(int capacity, int producers, int consumers, int total)
+            throws Exception {
+        HBlockingQueue<Integer> queue = new HBlockingQueue<>(capacity);
+        AtomicIntegerArray seen = new AtomicIntegerArray(total);
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger taken = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            threads.add(start(() -> {
+                int i;
+                while ((i = next.getAndIncrement()) < total) {
+                    try {
+                        queue.put(i);
+                    } catch (InterruptedException e) {
+                        throw new AssertionError(e);
+                    }
+                }
+            }));
+        }
+        for (int c = 0; c < consumers; c++) {
+            threads.add(start(() -> {
+                while (taken.getAndIncrement() < total) {
+                    try {
+                        seen.incrementAndGet(queue.take());
+                    } catch (InterruptedException e) {
+                        throw new AssertionError(e);
+                    }
+                }
+            }));
+        }
+        join(threads);
+        for (int i = 0; i < total; i++) {
+            check(seen.get(i) == 1, "element " + i + " arrived " + seen.get(i) + " times at capacity " + capacity);
+        }
+        check(queue.isEmpty(), "queue is empty at the end");
+    }
+
+    private static void removeIsUnsupported() {
+        HBlockingQueue<Integer> queue = new HBlockingQueue<>(4);
+        queue.offer(1);
+        try {
+            queue.remove(1);
+            throw new AssertionError("remove(Object) succeeded");
+        } catch (UnsupportedOperationException expected) {
+            check(queue.size() == 1, "remove(Object) left the queue unchanged");
+        }
+    }
+
+    private static Thread start(Runnable task) {
+        Thread thread = new Thread(task);
+        thread.start();
+        return thread;
+    }
+
+    private static void join(List<Thread> threads) throws InterruptedException {
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.MINUTES.toMillis(2));
+            check(!thread.isAlive(), "thread finished in time");
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+}
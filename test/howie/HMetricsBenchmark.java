@@ -0,0 +1,162 @@
+package howie;
+
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Measures what {@link HMetrics} costs {@link HQueue} and {@link HStack}, with metrics
+ * attached and detached. Each operation is an offer followed by a poll, or a push followed by
+ * a pop, on a structure kept half full.
+ *
+ * <p>The baseline is a copy of the {@code HQueue} ring without any instrumentation, so that
+ * "detached" can be compared with code that has no metrics field at all. A detached
+ * structure should cost the same as the baseline; "detached again" checks that detaching
+ * metrics restores that cost.
+ *
+ * <p>Run with {@code java howie.HMetricsBenchmark [operations]}; the number of operations per
+ * round defaults to 20 million.
+ *
+ * @author Howie Hertzberg
+ */
+public class HMetricsBenchmark {
+
+    private static final int CAPACITY = 1024;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 7;
+
+    public static void main(String[] args) {
+        int operations = args.length > 0 ? Integer.parseInt(args[0]) : 20_000_000;
+        Integer[] items = new Integer[CAPACITY];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = i;
+        }
+
+        System.out.printf("%d operations per round, median of %d rounds after %d warmup rounds%n",
+                operations, MEASURED_ROUNDS, WARMUP_ROUNDS);
+
+        BareRing<Integer> ring = new BareRing<>(CAPACITY);
+        fill(ring::offer, items);
+        double baseline = time(operations, () -> {
+            long sum = 0;
+            for (int i = 0; i < operations; i++) {
+                ring.offer(items[i & (CAPACITY - 1)]);
+                sum += ring.poll();
+            }
+            return sum;
+        });
+        report("baseline ring", baseline, baseline);
+
+        HQueue<Integer> queue = new HQueue<>(CAPACITY);
+        fill(queue::offer, items);
+        LongSupplier queueLoop = () -> {
+            long sum = 0;
+            for (int i = 0; i < operations; i++) {
+                queue.offer(items[i & (CAPACITY - 1)]);
+                sum += queue.poll();
+            }
+            return sum;
+        };
+        report("HQueue detached", time(operations, queueLoop), baseline);
+        try (HMetrics metrics = new HMetrics("benchmark-queue")) {
+            queue.setMetrics(metrics);
+            report("HQueue attached", time(operations, queueLoop), baseline);
+            queue.setMetrics(null);
+        }
+        report("HQueue detached again", time(operations, queueLoop), baseline);
+
+        HStack<Integer> stack = new HStack<>(CAPACITY);
+        fill(stack::tryPush, items);
+        LongSupplier stackLoop = () -> {
+            long sum = 0;
+            for (int i = 0; i < operations; i++) {
+                stack.tryPush(items[i & (CAPACITY - 1)]);
+                sum += stack.tryPop();
+            }
+            return sum;
+        };
+        report("HStack detached", time(operations, stackLoop), baseline);
+        try (HMetrics metrics = new HMetrics("benchmark-stack")) {
+            stack.setMetrics(metrics);
+            report("HStack attached", time(operations, stackLoop), baseline);
+            stack.setMetrics(null);
+        }
+        report("HStack detached again", time(operations, stackLoop), baseline);
+    }
+
+    /**
+     * Fills a structure to half its capacity.
+     */
+    private static void fill(Predicate<Integer> offer, Integer[] items) {
+        for (int i = 0; i < CAPACITY / 2; i++) {
+            if (!offer.test(items[i])) {
+                throw new AssertionError("Structure is full.");
+            }
+        }
+    }
+
+    /**
+     * Returns the median time of a loop in nanoseconds per operation.
+     */
+    private static double time(int operations, LongSupplier loop) {
+        long sink = 0;
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            sink += loop.getAsLong();
+        }
+        double[] nanos = new double[MEASURED_ROUNDS];
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            long start = System.nanoTime();
+            sink += loop.getAsLong();
+            nanos[round] = (double) (System.nanoTime() - start) / operations;
+        }
+        if (sink == 42) {
+            System.out.print("");
+        }
+        Arrays.sort(nanos);
+        return nanos[MEASURED_ROUNDS / 2];
+    }
+
+    private static void report(String name, double nanos, double baseline) {
+        System.out.printf("%-22s %8.2f ns/op %8.2fx baseline%n", name, nanos, nanos / baseline);
+    }
+
+    /**
+     * The ring of {@link HQueue} with nothing but its offer and poll paths.
+     */
+    private static final class BareRing<T> {
+        private final Object[] queueArray;
+        private int inPtr;
+        private int outPtr;
+
+        BareRing(int capacity) {
+            this.queueArray = new Object[capacity + 1];
+        }
+
+        boolean offer(T item) {
+            if (item == null) {
+                throw new IllegalArgumentException("Object cannot be null.");
+            }
+            int slot = inPtr;
+            int next = slot + 1 == queueArray.length ? 0 : slot + 1;
+            if (next == outPtr) {
+                return false;
+            }
+            queueArray[slot] = item;
+            inPtr = next;
+            return true;
+        }
+
+        @SuppressWarnings("unchecked")
+        T poll() {
+            int slot = outPtr;
+            if (slot == inPtr) {
+                return null;
+            }
+            T item = (T) queueArray[slot];
+            queueArray[slot] = null;
+            outPtr = slot + 1 == queueArray.length ? 0 : slot + 1;
+            return item;
+        }
+    }
+
+}
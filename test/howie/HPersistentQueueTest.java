@@ -0,0 +1,109 @@
+package howie;
+
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Crash-recovery tests for {@link HPersistentQueue}. A crash is simulated by copying the
+ * queue file and putting back the head and tail the queue last forced to the device, which
+ * is all a crash of the machine is guaranteed to leave of the header.
+ *
+ * <p>Run with {@code java -ea howie.HPersistentQueueTest}.
+ *
+ * @author Howie Hertzberg
+ */
+public class HPersistentQueueTest {
+
+    // Four records of this length fill a ring of CAPACITY bytes exactly
+    private static final int CAPACITY = 8192;
+    private static final int RECORD_LENGTH = 2048 - 16;
+
+    public static void main(String[] args) throws Exception {
+        reuseAfterBatchedSyncKeepsForcedRecords();
+        dequeueAfterSyncIsUndoneByCrash();
+        System.out.println("HPersistentQueueTest passed.");
+    }
+
+    /**
+     * Dequeueing after a sync and then enqueueing into the freed space must not leave a
+     * forced head that points at the overwritten record.
+     */
+    private static void reuseAfterBatchedSyncKeepsForcedRecords() throws Exception {
+        Path dir = Files.createTempDirectory("hpq");
+        Path file = dir.resolve("queue");
+        try (HPersistentQueue queue = HPersistentQueue.open(file, CAPACITY, HPersistentQueue.SyncPolicy.BATCHED, 1 << 20)) {
+            for (int i = 1; i <= 4; i++) {
+                queue.enqueue(record(i));
+            }
+            queue.sync();
+            check(Arrays.equals(queue.dequeue(), record(1)), "dequeued the first record");
+            queue.enqueue(record(5));
+
+            try (HPersistentQueue recovered = HPersistentQueue.open(crash(queue, file, dir), CAPACITY,
+                    HPersistentQueue.SyncPolicy.BATCHED)) {
+                check(recovered.discardedBytes() == 0, "no bytes discarded, got " + recovered.discardedBytes());
+                check(recovered.size() == 4, "four records recovered, got " + recovered.size());
+                for (int i = 2; i <= 5; i++) {
+                    check(Arrays.equals(recovered.dequeue(), record(i)), "record " + i + " recovered");
+                }
+            }
+        }
+    }
+
+    /**
+     * A dequeue that was never forced is undone by a crash, and the record comes back.
+     */
+    private static void dequeueAfterSyncIsUndoneByCrash() throws Exception {
+        Path dir = Files.createTempDirectory("hpq");
+        Path file = dir.resolve("queue");
+        try (HPersistentQueue queue = HPersistentQueue.open(file, CAPACITY, HPersistentQueue.SyncPolicy.OS)) {
+            for (int i = 1; i <= 3; i++) {
+                queue.enqueue(record(i));
+            }
+            queue.sync();
+            queue.dequeue();
+
+            try (HPersistentQueue recovered = HPersistentQueue.open(crash(queue, file, dir), CAPACITY,
+                    HPersistentQueue.SyncPolicy.OS)) {
+                check(recovered.size() == 3, "three records recovered, got " + recovered.size());
+                check(Arrays.equals(recovered.peek(), record(1)), "first record recovered");
+            }
+        }
+    }
+
+    /**
+     * Copies the file of an open queue and writes the head and tail it last forced into the
+     * header of the copy.
+     */
+    private static Path crash(HPersistentQueue queue, Path file, Path dir) throws Exception {
+        byte[] bytes = Files.readAllBytes(file);
+        ByteBuffer header = ByteBuffer.wrap(bytes);
+        header.putLong(16, forced(queue, "syncedHead"));
+        header.putLong(24, forced(queue, "syncedTail"));
+        Path copy = Files.createTempFile(dir, "crashed", null);
+        Files.write(copy, bytes);
+        return copy;
+    }
+
+    private static long forced(HPersistentQueue queue, String name) throws Exception {
+        Field field = HPersistentQueue.class.getDeclaredField(name);
+        field.setAccessible(true);
+        return field.getLong(queue);
+    }
+
+    private static byte[] record(int id) {
+        byte[] record = new byte[RECORD_LENGTH];
+        Arrays.fill(record, (byte) id);
+        return record;
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+}
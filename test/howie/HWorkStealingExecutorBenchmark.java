@@ -0,0 +1,314 @@
+package howie;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.LongSupplier;
+
+/**
+ * Compares {@link HWorkStealingExecutor} with {@link ForkJoinPool} on divide-and-conquer
+ * workloads. Each workload is written twice with the same splitting and the same leaf
+ * kernels, once as an {@link HWorkStealingExecutor.Task} and once as a
+ * {@link RecursiveAction} or {@link RecursiveTask}, so the times differ only by the cost of
+ * scheduling, stealing and joining.
+ *
+ * <ul>
+ * <li>merge sort: the ping-pong merge sort behind {@link HArray#mergeSort(int[])}, split
+ * until {@value #SORT_LEAF} elements and merged sequentially at every level</li>
+ * <li>sum: the sum of an array of integers, split until {@value #SUM_LEAF} elements</li>
+ * <li>fib: the naive Fibonacci recursion, split until {@value #FIB_LEAF}, which measures the
+ * overhead of many tiny tasks</li>
+ * </ul>
+ *
+ * <p>Every result is checked against a sequential computation, inside the timed round; for
+ * merge sort the round also copies the input, which costs the same on both sides. Run with
+ * {@code java howie.HWorkStealingExecutorBenchmark [parallelism]}; the parallelism defaults
+ * to the number of available processors.
+ *
+ * @author Howie Hertzberg
+ */
+public class HWorkStealingExecutorBenchmark {
+
+    private static final int SORT_LENGTH = 1 << 22;
+    private static final int SORT_LEAF = 1 << 13;
+    private static final int SUM_LENGTH = 1 << 24;
+    private static final int SUM_LEAF = 1 << 14;
+    private static final int FIB_N = 32;
+    private static final int FIB_LEAF = 12;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 7;
+
+    public static void main(String[] args) {
+        int parallelism = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        Random random = new Random(42);
+        int[] unsorted = random.ints(SORT_LENGTH).toArray();
+        int[] expectedSort = unsorted.clone();
+        Arrays.sort(expectedSort);
+        int[] values = random.ints(SUM_LENGTH, -1000, 1000).toArray();
+        long expectedSum = sum(values, 0, values.length);
+        long expectedFib = fib(FIB_N);
+
+        System.out.printf("parallelism %d, median of %d rounds after %d warmup rounds%n",
+                parallelism, MEASURED_ROUNDS, WARMUP_ROUNDS);
+        System.out.printf("%-12s %14s %14s %8s%n", "workload", "HWorkStealing", "ForkJoinPool", "ratio");
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try (HWorkStealingExecutor executor = new HWorkStealingExecutor(parallelism)) {
+            report("merge sort",
+                    time(() -> {
+                        int[] arr = unsorted.clone();
+                        executor.invoke(new SortTask(arr.clone(), 0, arr, 0, arr.length));
+                        check(Arrays.equals(arr, expectedSort), "HWorkStealingExecutor sorts");
+                        return arr[0];
+                    }),
+                    time(() -> {
+                        int[] arr = unsorted.clone();
+                        pool.invoke(new SortAction(arr.clone(), 0, arr, 0, arr.length));
+                        check(Arrays.equals(arr, expectedSort), "ForkJoinPool sorts");
+                        return arr[0];
+                    }));
+            report("sum",
+                    time(() -> {
+                        long sum = executor.invoke(new SumTask(values, 0, values.length));
+                        check(sum == expectedSum, "HWorkStealingExecutor sums");
+                        return sum;
+                    }),
+                    time(() -> {
+                        long sum = pool.invoke(new SumAction(values, 0, values.length));
+                        check(sum == expectedSum, "ForkJoinPool sums");
+                        return sum;
+                    }));
+            report("fib",
+                    time(() -> {
+                        long fib = executor.invoke(new FibTask(FIB_N));
+                        check(fib == expectedFib, "HWorkStealingExecutor computes fib");
+                        return fib;
+                    }),
+                    time(() -> {
+                        long fib = pool.invoke(new FibAction(FIB_N));
+                        check(fib == expectedFib, "ForkJoinPool computes fib");
+                        return fib;
+                    }));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Returns the median time of a workload in milliseconds.
+     */
+    private static double time(LongSupplier workload) {
+        long sink = 0;
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            sink += workload.getAsLong();
+        }
+        double[] millis = new double[MEASURED_ROUNDS];
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            long start = System.nanoTime();
+            sink += workload.getAsLong();
+            millis[round] = (System.nanoTime() - start) / 1e6;
+        }
+        if (sink == 42) {
+            System.out.print("");
+        }
+        Arrays.sort(millis);
+        return millis[MEASURED_ROUNDS / 2];
+    }
+
+    private static void report(String workload, double ours, double forkJoin) {
+        System.out.printf("%-12s %11.1f ms %11.1f ms %8.2f%n", workload, ours, forkJoin, ours / forkJoin);
+    }
+
+    private static long fib(int n) {
+        return n < 2 ? n : fib(n - 1) + fib(n - 2);
+    }
+
+    /**
+     * Sorts {@code len} integers into {@code dst}; see
+     * {@link HArray#mergeSort(int[], int, int[], int, int)} for the ping-pong contract.
+     */
+    private static final class SortTask extends HWorkStealingExecutor.Task<Void> {
+        private final int[] src;
+        private final int srcOff;
+        private final int[] dst;
+        private final int dstOff;
+        private final int len;
+
+        SortTask(int[] src, int srcOff, int[] dst, int dstOff, int len) {
+            this.src = src;
+            this.srcOff = srcOff;
+            this.dst = dst;
+            this.dstOff = dstOff;
+            this.len = len;
+        }
+
+        @Override
+        protected Void compute() {
+            if (len <= SORT_LEAF) {
+                HArray.mergeSort(src, srcOff, dst, dstOff, len);
+                return null;
+            }
+            int half = len >>> 1;
+            SortTask left = new SortTask(dst, dstOff, src, srcOff, half);
+            left.fork();
+            new SortTask(dst, dstOff + half, src, srcOff + half, len - half).compute();
+            left.join();
+            HArray.mergeRuns(src, srcOff, srcOff + half, srcOff + half, srcOff + len, dst, dstOff);
+            return null;
+        }
+    }
+
+    /**
+     * The {@link ForkJoinPool} counterpart of {@link SortTask}.
+     */
+    private static final class SortAction extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] src;
+        private final int srcOff;
+        private final int[] dst;
+        private final int dstOff;
+        private final int len;
+
+        SortAction(int[] src, int srcOff, int[] dst, int dstOff, int len) {
+            this.src = src;
+            this.srcOff = srcOff;
+            this.dst = dst;
+            this.dstOff = dstOff;
+            this.len = len;
+        }
+
+        @Override
+        protected void compute() {
+            if (len <= SORT_LEAF) {
+                HArray.mergeSort(src, srcOff, dst, dstOff, len);
+                return;
+            }
+            int half = len >>> 1;
+            SortAction left = new SortAction(dst, dstOff, src, srcOff, half);
+            left.fork();
+            new SortAction(dst, dstOff + half, src, srcOff + half, len - half).compute();
+            left.join();
+            HArray.mergeRuns(src, srcOff, srcOff + half, srcOff + half, srcOff + len, dst, dstOff);
+        }
+    }
+
+    /**
+     * Sums the range {@code [from, to)} of an array of integers.
+     */
+    private static final class SumTask extends HWorkStealingExecutor.Task<Long> {
+        private final int[] arr;
+        private final int from;
+        private final int to;
+
+        SumTask(int[] arr, int from, int to) {
+            this.arr = arr;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Long compute() {
+            if (to - from <= SUM_LEAF) {
+                return sum(arr, from, to);
+            }
+            int mid = (from + to) >>> 1;
+            SumTask left = new SumTask(arr, from, mid);
+            left.fork();
+            long right = new SumTask(arr, mid, to).compute();
+            return left.join() + right;
+        }
+    }
+
+    /**
+     * The {@link ForkJoinPool} counterpart of {@link SumTask}.
+     */
+    private static final class SumAction extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] arr;
+        private final int from;
+        private final int to;
+
+        SumAction(int[] arr, int from, int to) {
+            this.arr = arr;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Long compute() {
+            if (to - from <= SUM_LEAF) {
+                return sum(arr, from, to);
+            }
+            int mid = (from + to) >>> 1;
+            SumAction left = new SumAction(arr, from, mid);
+            left.fork();
+            long right = new SumAction(arr, mid, to).compute();
+            return left.join() + right;
+        }
+    }
+
+    private static long sum(int[] arr, int from, int to) {
+        long sum = 0;
+        for (int i = from; i < to; i++) {
+            sum += arr[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Computes a Fibonacci number by forking the first of its two recursive calls.
+     */
+    private static final class FibTask extends HWorkStealingExecutor.Task<Long> {
+        private final int n;
+
+        FibTask(int n) {
+            this.n = n;
+        }
+
+        @Override
+        protected Long compute() {
+            if (n <= FIB_LEAF) {
+                return fib(n);
+            }
+            FibTask first = new FibTask(n - 1);
+            first.fork();
+            long second = new FibTask(n - 2).compute();
+            return first.join() + second;
+        }
+    }
+
+    /**
+     * The {@link ForkJoinPool} counterpart of {@link FibTask}.
+     */
+    private static final class FibAction extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final int n;
+
+        FibAction(int n) {
+            this.n = n;
+        }
+
+        @Override
+        protected Long compute() {
+            if (n <= FIB_LEAF) {
+                return fib(n);
+            }
+            FibAction first = new FibAction(n - 1);
+            first.fork();
+            long second = new FibAction(n - 2).compute();
+            return first.join() + second;
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+}